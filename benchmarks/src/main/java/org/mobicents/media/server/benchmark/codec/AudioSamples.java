@@ -0,0 +1,61 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.codec;
+
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * Builds the input frames shared by the codec benchmarks.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+final class AudioSamples {
+
+    /** Samples in 20ms of audio at 8kHz */
+    static final int SAMPLES = 160;
+
+    private AudioSamples() {
+        super();
+    }
+
+    /**
+     * Creates a frame holding 20ms of a 1kHz tone as 16-bit little-endian linear PCM.
+     * 
+     * @return The linear frame.
+     */
+    static Frame linear() {
+        Frame frame = Memory.allocate(SAMPLES * 2);
+        byte[] data = frame.getData();
+        for (int i = 0; i < SAMPLES; i++) {
+            short sample = (short) (Short.MAX_VALUE / 2 * Math.sin(2 * Math.PI * 1000 * i / 8000.0));
+            data[i * 2] = (byte) sample;
+            data[i * 2 + 1] = (byte) (sample >> 8);
+        }
+        frame.setOffset(0);
+        frame.setLength(data.length);
+        frame.setDuration(20000000L);
+        return frame;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.spi.dsp.Codec;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time G.711 codecs take to transcode a 20ms frame.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class G711Benchmark {
+
+    private final Codec ulawEncoder = new org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Encoder();
+    private final Codec ulawDecoder = new org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Decoder();
+    private final Codec alawEncoder = new org.mobicents.media.server.impl.dsp.audio.g711.alaw.Encoder();
+    private final Codec alawDecoder = new org.mobicents.media.server.impl.dsp.audio.g711.alaw.Decoder();
+
+    private Frame linear;
+    private Frame ulaw;
+    private Frame alaw;
+
+    @Setup
+    public void setup() {
+        this.linear = AudioSamples.linear();
+        this.ulaw = this.ulawEncoder.process(this.linear);
+        this.alaw = this.alawEncoder.process(this.linear);
+    }
+
+    @Benchmark
+    public Frame ulawEncode() {
+        return recycle(this.ulawEncoder.process(this.linear));
+    }
+
+    @Benchmark
+    public Frame ulawDecode() {
+        return recycle(this.ulawDecoder.process(this.ulaw));
+    }
+
+    @Benchmark
+    public Frame alawEncode() {
+        return recycle(this.alawEncoder.process(this.linear));
+    }
+
+    @Benchmark
+    public Frame alawDecode() {
+        return recycle(this.alawDecoder.process(this.alaw));
+    }
+
+    static Frame recycle(Frame frame) {
+        // output frames go back to the pool, like the RTP transmitter does once they are sent
+        if (frame != null) {
+            frame.recycle();
+        }
+        return frame;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.impl.dsp.audio.g729.Decoder;
+import org.mobicents.media.server.impl.dsp.audio.g729.Encoder;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time the G.729 codec takes to transcode a 20ms frame.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class G729Benchmark {
+
+    private final Encoder encoder = new Encoder();
+    private final Decoder decoder = new Decoder();
+
+    private Frame linear;
+    private Frame encoded;
+
+    @Setup
+    public void setup() {
+        this.linear = AudioSamples.linear();
+        this.encoded = new Encoder().process(this.linear);
+    }
+
+    @Benchmark
+    public Frame encode() {
+        return G711Benchmark.recycle(this.encoder.process(this.linear));
+    }
+
+    @Benchmark
+    public Frame decode() {
+        return G711Benchmark.recycle(this.decoder.process(this.encoded));
+    }
+
+}
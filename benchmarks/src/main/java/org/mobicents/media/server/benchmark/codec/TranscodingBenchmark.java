@@ -0,0 +1,89 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.benchmark.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.component.Dsp;
+import org.mobicents.media.server.component.DspFactoryImpl;
+import org.mobicents.media.server.spi.format.Format;
+import org.mobicents.media.server.spi.format.FormatFactory;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time a {@link Dsp} takes to convert a 20ms A-law frame to u-law, either decoding and encoding through
+ * linear audio or with the direct converter.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranscodingBenchmark {
+
+    private static final Format ALAW = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+    private static final Format ULAW = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+
+    /** Whether the processor knows the direct A-law to u-law converter */
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private Dsp dsp;
+    private Frame alaw;
+
+    @Setup
+    public void setup() throws Exception {
+        DspFactoryImpl factory = new DspFactoryImpl();
+        factory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.alaw.Decoder");
+        factory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.alaw.Encoder");
+        factory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Decoder");
+        factory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Encoder");
+        if (this.direct) {
+            factory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.AlawToUlawTranscoder");
+        }
+        this.dsp = factory.newProcessor();
+        this.alaw = new org.mobicents.media.server.impl.dsp.audio.g711.alaw.Encoder().process(AudioSamples.linear());
+    }
+
+    @Benchmark
+    public Frame transcode() {
+        // the processor recycles the frame it converts, so it gets a copy
+        return G711Benchmark.recycle(this.dsp.process(this.alaw.clone(), ALAW, ULAW));
+    }
+
+}
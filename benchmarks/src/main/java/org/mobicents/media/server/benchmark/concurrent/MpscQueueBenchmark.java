@@ -0,0 +1,136 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link org.mobicents.media.server.concurrent.MpscArrayQueue} with the current {@link org.mobicents.media.server.concurrent.ConcurrentCyclicFIFO} at 1, 4 and 16 producer threads feeding a single consumer.
+ * <p>
+ * Producers and consumers run in the same group, sharing one queue. Compare the <code>offered</code> and <code>polled</code>
+ * secondary scores, which only count successful transfers, rather than the primary score.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MpscQueueBenchmark {
+
+    private static final Integer ELEMENT = 42;
+
+    @Param({ "ConcurrentCyclicFIFO", "MpscArrayQueue" })
+    public String type;
+
+    private QueueAdapter queue;
+
+    @Setup
+    public void setup() {
+        this.queue = QueueAdapter.create(type);
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public void producers1Offer(TransferCounters counters) {
+        if (this.queue.offer(ELEMENT)) {
+            counters.offered++;
+        } else {
+            counters.offerFailed++;
+        }
+    }
+
+    @Benchmark
+    @Group("producers1")
+    @GroupThreads(1)
+    public void producers1Poll(TransferCounters counters) {
+        if (this.queue.poll() != null) {
+            counters.polled++;
+        } else {
+            counters.pollFailed++;
+        }
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(4)
+    public void producers4Offer(TransferCounters counters) {
+        if (this.queue.offer(ELEMENT)) {
+            counters.offered++;
+        } else {
+            counters.offerFailed++;
+        }
+    }
+
+    @Benchmark
+    @Group("producers4")
+    @GroupThreads(1)
+    public void producers4Poll(TransferCounters counters) {
+        if (this.queue.poll() != null) {
+            counters.polled++;
+        } else {
+            counters.pollFailed++;
+        }
+    }
+
+    @Benchmark
+    @Group("producers16")
+    @GroupThreads(16)
+    public void producers16Offer(TransferCounters counters) {
+        if (this.queue.offer(ELEMENT)) {
+            counters.offered++;
+        } else {
+            counters.offerFailed++;
+        }
+    }
+
+    @Benchmark
+    @Group("producers16")
+    @GroupThreads(1)
+    public void producers16Poll(TransferCounters counters) {
+        if (this.queue.poll() != null) {
+            counters.polled++;
+        } else {
+            counters.pollFailed++;
+        }
+    }
+
+}
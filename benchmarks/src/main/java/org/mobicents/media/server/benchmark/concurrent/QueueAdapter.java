@@ -0,0 +1,95 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.concurrent;
+
+import org.mobicents.media.server.concurrent.AbstractArrayQueue;
+import org.mobicents.media.server.concurrent.ConcurrentCyclicFIFO;
+import org.mobicents.media.server.concurrent.MpmcArrayQueue;
+import org.mobicents.media.server.concurrent.MpscArrayQueue;
+import org.mobicents.media.server.concurrent.SpscArrayQueue;
+
+/**
+ * Gives the queues under comparison a common API, since {@link ConcurrentCyclicFIFO} shares no type with the array queues.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+abstract class QueueAdapter {
+
+    static final int CAPACITY = 1024;
+
+    abstract boolean offer(Integer e);
+
+    abstract Integer poll();
+
+    static QueueAdapter create(String type) {
+        switch (type) {
+            case "ConcurrentCyclicFIFO":
+                final ConcurrentCyclicFIFO<Integer> fifo = new ConcurrentCyclicFIFO<>();
+                return new QueueAdapter() {
+
+                    @Override
+                    boolean offer(Integer e) {
+                        // unbounded, so hold it to the same capacity as the array queues
+                        if (fifo.size() >= CAPACITY) {
+                            return false;
+                        }
+                        fifo.offer(e);
+                        return true;
+                    }
+
+                    @Override
+                    Integer poll() {
+                        return fifo.poll();
+                    }
+                };
+
+            case "MpmcArrayQueue":
+                return wrap(new MpmcArrayQueue<Integer>(CAPACITY));
+
+            case "MpscArrayQueue":
+                return wrap(new MpscArrayQueue<Integer>(CAPACITY));
+
+            case "SpscArrayQueue":
+                return wrap(new SpscArrayQueue<Integer>(CAPACITY));
+
+            default:
+                throw new IllegalArgumentException("Unknown queue type: " + type);
+        }
+    }
+
+    private static QueueAdapter wrap(final AbstractArrayQueue<Integer> queue) {
+        return new QueueAdapter() {
+
+            @Override
+            boolean offer(Integer e) {
+                return queue.offer(e);
+            }
+
+            @Override
+            Integer poll() {
+                return queue.poll();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,222 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.benchmark.dtmf;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.component.audio.GoertzelFilter;
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
+import org.mobicents.media.server.impl.resource.dtmf.DetectorImpl;
+import org.mobicents.media.server.impl.resource.phone.PhoneSignalDetector;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.Task;
+import org.mobicents.media.server.scheduler.WallClock;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures inband tone detection for a growing number of call legs, each receiving 400ms of audio per operation.
+ * <p>
+ * Every leg has a DTMF detector, and optionally a phone signal detector looking for call progress and fax tones. The
+ * <i>legacy</i> benchmark reproduces the former detectors, running one {@link GoertzelFilter} per frequency in double
+ * precision over their own copy of the signal. The <i>batched</i> benchmark feeds detectors bound to a shared
+ * {@link ToneDetectionEngine} and runs the engine pass of the scheduler. Dividing 400ms by the time of one operation and
+ * multiplying by the number of legs gives the number of legs a core can serve in real time.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToneDetectionBenchmark {
+
+    // 400ms, a multiple of the blocks of both detectors
+    private static final int FRAMES = 20;
+    private static final int FRAME_SIZE = 320;
+
+    // dial tone, ringback, busy, fax CNG and CED
+    private static final int[] SIGNALS = new int[] { 350, 440, 480, 620, 1100, 2100 };
+
+    @Param({ "1", "100", "1000" })
+    public int legs;
+
+    /** Whether the legs receive a DTMF tone or silence */
+    @Param({ "true", "false" })
+    public boolean tone;
+
+    /** Whether the legs also look for call progress and fax tones */
+    @Param({ "false", "true" })
+    public boolean signals;
+
+    private byte[][] audio;
+    private LegacyDetector[] legacyDetectors;
+    private LegacyDetector[] legacySignalDetectors;
+    private DetectorImpl[] dtmfDetectors;
+    private PhoneSignalDetector[] signalDetectors;
+    private Task engineTask;
+
+    @Setup
+    public void setup() {
+        // digit 5 at -20dB, or silence
+        this.audio = new byte[FRAMES][FRAME_SIZE];
+        if (this.tone) {
+            for (int i = 0; i < FRAMES * FRAME_SIZE / 2; i++) {
+                double t = (double) i / 8000;
+                int sample = (int) (1600 * (Math.sin(2 * Math.PI * 770 * t) + Math.sin(2 * Math.PI * 1336 * t)));
+                this.audio[i / 160][2 * (i % 160)] = (byte) sample;
+                this.audio[i / 160][2 * (i % 160) + 1] = (byte) (sample >> 8);
+            }
+        }
+
+        // the scheduler is never started, it only receives the engine task and detected tones
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        ToneDetectionEngine engine = new ToneDetectionEngine(scheduler);
+        this.engineTask = engine.getTask();
+
+        this.legacyDetectors = new LegacyDetector[this.legs];
+        this.legacySignalDetectors = new LegacyDetector[this.signals ? this.legs : 0];
+        this.dtmfDetectors = new DetectorImpl[this.legs];
+        this.signalDetectors = new PhoneSignalDetector[this.signals ? this.legs : 0];
+        for (int i = 0; i < this.legs; i++) {
+            this.legacyDetectors[i] = new LegacyDetector(640, 0.08, -35, 697, 770, 852, 941, 1209, 1336, 1477, 1633);
+            this.dtmfDetectors[i] = new DetectorImpl("detector-" + i, scheduler, engine);
+            this.dtmfDetectors[i].setVolume(-35);
+            if (this.signals) {
+                this.legacySignalDetectors[i] = new LegacyDetector(400, 0.05, -35, SIGNALS);
+                this.signalDetectors[i] = new PhoneSignalDetector("signal-detector-" + i, scheduler, engine);
+                this.signalDetectors[i].setFrequency(SIGNALS);
+                this.signalDetectors[i].setVolume(-35);
+            }
+        }
+    }
+
+    private Frame frame(int index) {
+        Frame frame = Memory.allocate(FRAME_SIZE);
+        System.arraycopy(this.audio[index], 0, frame.getData(), 0, FRAME_SIZE);
+        frame.setOffset(0);
+        frame.setLength(FRAME_SIZE);
+        return frame;
+    }
+
+    @Benchmark
+    public double legacy() {
+        double power = 0;
+        for (int i = 0; i < this.legs; i++) {
+            for (int j = 0; j < FRAMES; j++) {
+                Frame frame = frame(j);
+                power += this.legacyDetectors[i].onMediaTransfer(frame);
+                if (this.signals) {
+                    power += this.legacySignalDetectors[i].onMediaTransfer(frame);
+                }
+                frame.recycle();
+            }
+        }
+        return power;
+    }
+
+    @Benchmark
+    public long batched() throws IOException {
+        for (int i = 0; i < this.legs; i++) {
+            for (int j = 0; j < FRAMES; j++) {
+                Frame frame = frame(j);
+                this.dtmfDetectors[i].onMediaTransfer(frame);
+                if (this.signals) {
+                    this.signalDetectors[i].onMediaTransfer(frame);
+                }
+                frame.recycle();
+            }
+        }
+        return this.engineTask.perform();
+    }
+
+    /**
+     * Analysis of the former detectors, with one Goertzel filter per frequency.
+     */
+    private static final class LegacyDetector {
+
+        private final GoertzelFilter[] filters;
+        private final double threshold;
+        private final double[] signal;
+        private final double[] power;
+        private double maxAmpl;
+        private int offset;
+
+        LegacyDetector(int size, double scale, int level, int... frequencies) {
+            this.filters = new GoertzelFilter[frequencies.length];
+            for (int i = 0; i < frequencies.length; i++) {
+                this.filters[i] = new GoertzelFilter(frequencies[i], size, scale);
+            }
+            this.threshold = Math.pow(Math.pow(10, level), 0.1) * Short.MAX_VALUE;
+            this.signal = new double[size];
+            this.power = new double[frequencies.length];
+        }
+
+        double onMediaTransfer(Frame buffer) {
+            byte[] data = buffer.getData();
+            double total = 0;
+            int M = buffer.getLength();
+            int k = 0;
+            while (k < M) {
+                while (offset < signal.length && k < M - 1) {
+                    double s = ((data[k++] & 0xff) | (data[k++] << 8));
+                    double sa = Math.abs(s);
+                    if (sa > maxAmpl) {
+                        maxAmpl = sa;
+                    }
+                    signal[offset++] = s;
+                }
+
+                if (offset == signal.length) {
+                    offset = 0;
+                    if (maxAmpl >= threshold) {
+                        maxAmpl = 0;
+                        for (int i = 0; i < filters.length; i++) {
+                            power[i] = filters[i].getPower(signal, 0);
+                            total += power[i];
+                        }
+                    }
+                }
+            }
+            return total;
+        }
+
+    }
+
+}
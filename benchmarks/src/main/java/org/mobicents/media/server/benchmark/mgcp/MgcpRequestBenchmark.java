@@ -0,0 +1,85 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.mgcp;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.mgcp.message.MgcpRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time the MGCP controller takes to parse a request.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MgcpRequestBenchmark {
+
+    private static final byte[] CRCX = ("CRCX 1205 mobicents/bridge/$@127.0.0.1:2427 MGCP 1.0\n" +
+            "C: A3C47F21456789F0\n" +
+            "L: p:20, a:PCMU\n" +
+            "M: sendrecv\n" +
+            "N: restcomm@127.0.0.1:2727\n" +
+            "\n" +
+            "v=0\n" +
+            "o=- 25678 753849 IN IP4 128.96.41.1\n" +
+            "s=-\n" +
+            "c=IN IP4 128.96.41.1\n" +
+            "t=0 0\n" +
+            "m=audio 3456 RTP/AVP 0 8 101\n" +
+            "a=rtpmap:101 telephone-event/8000\n").getBytes();
+
+    private static final byte[] RQNT = ("RQNT 1206 mobicents/ivr/1@127.0.0.1:2427 MGCP 1.0\n" +
+            "X: 0123456789AC\n" +
+            "R: AU/oc(N),AU/of(N)\n" +
+            "S: AU/pa(an=file:///opt/restcomm/audio/welcome.wav it=1)\n" +
+            "N: restcomm@127.0.0.1:2727\n").getBytes();
+
+    private final MgcpRequest request = new MgcpRequest();
+
+    @Benchmark
+    public MgcpRequest parseCreateConnection() {
+        this.request.parse(CRCX, 0, CRCX.length);
+        return this.request;
+    }
+
+    @Benchmark
+    public MgcpRequest parseNotificationRequest() {
+        this.request.parse(RQNT, 0, RQNT.length);
+        return this.request;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.mixer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.component.audio.AudioComponent;
+import org.mobicents.media.server.component.audio.AudioInput;
+import org.mobicents.media.server.component.audio.AudioMixer;
+import org.mobicents.media.server.component.audio.AudioOutput;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.WallClock;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one mixing cycle of the {@link AudioMixer} with a growing number of participants, each receiving one 20ms frame
+ * per cycle, either mixing every participant or only the loudest talkers, in narrowband and wideband.
+ * <p>
+ * Large conferences are split in partitions, which run one after the other here as the scheduler is not started. The
+ * figures therefore show the overhead of partitioning rather than the speedup of mixing partitions in parallel.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioMixerBenchmark {
+
+    @Param({ "3", "30", "300", "3000" })
+    public int components;
+
+    /** Maximum number of talkers mixed, zero mixes every participant */
+    @Param({ "0", "3" })
+    public int maxTalkers;
+
+    /** Sampling rate of the mix, in Hz */
+    @Param({ "8000", "16000" })
+    public int sampleRate;
+
+    private int packetSize;
+
+    private AudioInput[] inputs;
+    private AudioOutput[] outputs;
+    private AudioMixer mixer;
+
+    @Setup
+    public void setup() {
+        // the scheduler is never started, it only receives the mix task resubmitted on every cycle
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        this.mixer = new AudioMixer(scheduler, this.sampleRate);
+        this.mixer.setMaxTalkers(this.maxTalkers);
+
+        this.packetSize = this.sampleRate / 50 * 2;
+        this.inputs = new AudioInput[this.components];
+        this.outputs = new AudioOutput[this.components];
+        for (int i = 0; i < this.components; i++) {
+            AudioComponent component = new AudioComponent(i, this.sampleRate);
+            component.updateMode(true, true);
+
+            // packet size of the input is given at 8kHz and scaled to the rate of the mixer
+            this.inputs[i] = new AudioInput(i, 320);
+            component.addInput(this.inputs[i]);
+
+            this.outputs[i] = new AudioOutput(scheduler, i);
+            this.outputs[i].setSampleRate(this.sampleRate);
+            component.addOutput(this.outputs[i]);
+
+            this.mixer.addComponent(component);
+        }
+    }
+
+    @Benchmark
+    public long mix() throws IOException {
+        for (int i = 0; i < this.inputs.length; i++) {
+            Frame frame = Memory.allocate(this.packetSize);
+            byte[] data = frame.getData();
+            for (int j = 0; j < data.length; j += 2) {
+                data[j] = (byte) (i + j);
+            }
+            frame.setOffset(0);
+            frame.setLength(this.packetSize);
+            this.inputs[i].onMediaTransfer(frame);
+        }
+        return this.mixer.mixOnce();
+    }
+
+}
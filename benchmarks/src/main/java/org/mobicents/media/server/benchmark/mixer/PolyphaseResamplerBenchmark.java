@@ -0,0 +1,83 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.benchmark.mixer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.component.audio.PolyphaseResampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the conversion of one 20ms frame of a leg to the rate of a wideband mixer and back.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolyphaseResamplerBenchmark {
+
+    /** Conversion, as input and output rates in Hz */
+    @Param({ "8000:16000", "16000:8000", "8000:48000", "48000:8000" })
+    public String conversion;
+
+    private PolyphaseResampler resampler;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup() {
+        final String[] rates = this.conversion.split(":");
+        final int inputRate = Integer.parseInt(rates[0]);
+        final int outputRate = Integer.parseInt(rates[1]);
+        this.resampler = new PolyphaseResampler(inputRate, outputRate);
+
+        this.input = new byte[inputRate / 50 * 2];
+        for (int i = 0; i < this.input.length; i += 2) {
+            final int sample = (int) (10000 * Math.sin(2 * Math.PI * 1000 * i / 2 / inputRate));
+            this.input[i] = (byte) sample;
+            this.input[i + 1] = (byte) (sample >> 8);
+        }
+        this.output = new byte[outputRate / 50 * 2];
+    }
+
+    @Benchmark
+    public int resample() {
+        return this.resampler.process(this.input, 0, this.input.length, this.output, 0);
+    }
+
+}
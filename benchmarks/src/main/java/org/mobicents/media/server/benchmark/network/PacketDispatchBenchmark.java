@@ -0,0 +1,162 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.benchmark.network;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.io.network.channel.ClassifiedPacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketClass;
+import org.mobicents.media.server.io.network.channel.PacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketHandlerPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares dispatching an RTP packet through the lock-free {@link PacketHandlerPipeline} with the former synchronized list of
+ * handlers, which queried every handler in priority order.
+ * <p>
+ * The RTP handler is registered with the lowest priority, so it is the last one queried by the synchronized pipeline. The
+ * contended variant mimics several selector threads sharing a pipeline.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketDispatchBenchmark {
+
+    private static final PacketClass[] CLASSES = { PacketClass.RTP, PacketClass.STUN, PacketClass.DTLS, PacketClass.ZRTP };
+    private static final byte[] RTP_PACKET = new byte[] { (byte) 0x80, 0x00, 0x00, 0x01 };
+
+    @Param({ "PacketHandlerPipeline", "SynchronizedList" })
+    public String type;
+
+    @Param({ "1", "2", "4" })
+    public int handlerCount;
+
+    private PacketHandlerPipeline pipeline;
+    private List<PacketHandler> lockedPipeline;
+
+    @Setup
+    public void setup() {
+        this.pipeline = new PacketHandlerPipeline();
+        this.lockedPipeline = new ArrayList<PacketHandler>(handlerCount);
+        for (int i = 0; i < handlerCount; i++) {
+            ClassifiedHandler handler = new ClassifiedHandler(i, CLASSES[i]);
+            this.pipeline.addHandler(handler);
+            this.lockedPipeline.add(0, handler);
+        }
+    }
+
+    private PacketHandler dispatch() {
+        if ("SynchronizedList".equals(type)) {
+            synchronized (this.lockedPipeline) {
+                for (PacketHandler handler : this.lockedPipeline) {
+                    if (handler.canHandle(RTP_PACKET)) {
+                        return handler;
+                    }
+                }
+                return null;
+            }
+        }
+        return this.pipeline.getHandler(RTP_PACKET);
+    }
+
+    @Benchmark
+    public PacketHandler dispatchRtp() {
+        return dispatch();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PacketHandler dispatchRtpContended() {
+        return dispatch();
+    }
+
+    private static final class ClassifiedHandler implements ClassifiedPacketHandler {
+
+        private final int priority;
+        private final PacketClass packetClass;
+
+        ClassifiedHandler(int priority, PacketClass packetClass) {
+            this.priority = priority;
+            this.packetClass = packetClass;
+        }
+
+        @Override
+        public PacketClass getPacketClass() {
+            return this.packetClass;
+        }
+
+        @Override
+        public boolean canHandle(byte[] packet) {
+            return canHandle(packet, packet.length, 0);
+        }
+
+        @Override
+        public boolean canHandle(byte[] packet, int dataLength, int offset) {
+            return this.packetClass.contains(packet[offset] & 0xff);
+        }
+
+        @Override
+        public byte[] handle(byte[] packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) {
+            return null;
+        }
+
+        @Override
+        public byte[] handle(byte[] packet, int dataLength, int offset, InetSocketAddress localPeer,
+                InetSocketAddress remotePeer) {
+            return null;
+        }
+
+        @Override
+        public int getPipelinePriority() {
+            return this.priority;
+        }
+
+        @Override
+        public int compareTo(PacketHandler o) {
+            return o == null ? 1 : this.priority - o.getPipelinePriority();
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.rtp;
+
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.impl.rtp.JitterBuffer;
+import org.mobicents.media.server.impl.rtp.MockWallClock;
+import org.mobicents.media.server.impl.rtp.RtpClock;
+import org.mobicents.media.server.impl.rtp.RtpPacket;
+import org.mobicents.media.server.io.sdp.format.AVProfile;
+import org.mobicents.media.server.io.sdp.format.RTPFormat;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time the jitter buffer takes to accept a PCMA packet and hand out the next frame, as the RTP channel and the
+ * media source do every 20ms.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JitterBufferBenchmark {
+
+    private static final long PERIOD = 20000000L;
+
+    private final MockWallClock wallClock = new MockWallClock();
+    private final RtpPacket packet = new RtpPacket(172, false);
+    private final byte[] payload = new byte[160];
+
+    private JitterBuffer jitterBuffer;
+    private RTPFormat format;
+    private int sequence;
+
+    @Setup
+    public void setup() {
+        RtpClock rtpClock = new RtpClock(this.wallClock);
+        rtpClock.setClockRate(8000);
+
+        this.jitterBuffer = new JitterBuffer(rtpClock, 60);
+        this.jitterBuffer.setFormats(AVProfile.audio);
+        this.format = AVProfile.audio.find(8);
+        this.sequence = 0;
+    }
+
+    @Benchmark
+    public Frame writeAndRead() {
+        this.sequence++;
+        this.wallClock.tick(PERIOD);
+        this.packet.wrap(false, 8, this.sequence & 0xFFFF, 160L * this.sequence, 123, this.payload, 0, this.payload.length);
+        this.jitterBuffer.write(this.packet, this.format);
+
+        Frame frame = this.jitterBuffer.read(this.wallClock.getTime());
+        if (frame != null) {
+            frame.recycle();
+        }
+        return frame;
+    }
+
+}
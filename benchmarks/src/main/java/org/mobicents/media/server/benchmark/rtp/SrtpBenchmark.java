@@ -0,0 +1,180 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.rtp;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.impl.rtp.RtpPacket;
+import org.mobicents.media.server.impl.rtp.crypto.RawPacket;
+import org.mobicents.media.server.impl.rtp.crypto.SRTPCryptoContext;
+import org.mobicents.media.server.impl.rtp.crypto.SRTPCryptoProvider;
+import org.mobicents.media.server.impl.rtp.crypto.SRTPParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many PCMA packets SRTP protects and unprotects per second on a single core, for each crypto provider and
+ * protection profile.
+ * <p>
+ * The in place variants work over a heap buffer, like the ones held by RTP packets, while the others copy the packet in
+ * and out of the raw packet.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SrtpBenchmark {
+
+    private static final long SSRC = 0x12345678L;
+
+    /** Sequence numbers that can be replayed before the roll over counter of the sender is incremented */
+    private static final int PACKETS = 0xFFFF;
+
+    private static final byte[] MASTER_KEY = { 0x0f, 0x0e, 0x0d, 0x0c, 0x0b, 0x0a, 0x09, 0x08, 0x07, 0x06, 0x05, 0x04, 0x03, 0x02,
+            0x01, 0x00 };
+    private static final byte[] MASTER_SALT = { 0x0e, 0x0c, 0x0a, 0x08, 0x06, 0x04, 0x02, 0x00, 0x01, 0x03, 0x05, 0x07, 0x09,
+            0x0b };
+
+    @Param({ "BOUNCY_CASTLE", "JCE" })
+    private SRTPCryptoProvider provider;
+
+    @Param({ "SRTP_AES128_CM_HMAC_SHA1_80", "SRTP_AEAD_AES_128_GCM" })
+    private SRTPParameters profile;
+
+    private final RawPacket rawPacket = new RawPacket();
+    private final byte[] plain = new byte[172];
+    private final ByteBuffer buffer = ByteBuffer.allocate(RtpPacket.RTP_PACKET_MAX_SIZE);
+
+    private SRTPCryptoContext defaultContext;
+    private SRTPCryptoContext sender;
+    private SRTPCryptoContext receiver;
+    private byte[][] protectedPackets;
+    private int index;
+    private int sequence;
+
+    @Setup
+    public void setup() {
+        byte[] masterSalt = Arrays.copyOf(MASTER_SALT, this.profile.getCipherSaltLength());
+        this.defaultContext = new SRTPCryptoContext(0, 0, 0, MASTER_KEY, masterSalt, this.profile.getSrtpPolicy(),
+                this.provider);
+        this.sender = newContext();
+
+        // the receiver rejects replayed packets, so it needs a fresh packet on every invocation
+        SRTPCryptoContext encoder = newContext();
+        this.protectedPackets = new byte[PACKETS][];
+        for (int i = 0; i < PACKETS; i++) {
+            this.rawPacket.wrap(rtpPacket(i), 0, this.plain.length);
+            encoder.transformPacket(this.rawPacket);
+            this.protectedPackets[i] = this.rawPacket.getData();
+        }
+        this.receiver = newContext();
+        this.index = 0;
+
+        // GCM refuses to protect a sequence number twice, so the sender moves on with every invocation
+        this.sequence = 0;
+    }
+
+    private SRTPCryptoContext newContext() {
+        SRTPCryptoContext context = this.defaultContext.deriveContext(SSRC, 0, 0);
+        context.deriveSrtpKeys(0);
+        return context;
+    }
+
+    private byte[] rtpPacket(int sequence) {
+        this.plain[0] = (byte) 0x80;
+        this.plain[1] = 8;
+        this.plain[2] = (byte) (sequence >> 8);
+        this.plain[3] = (byte) sequence;
+        final int timestamp = sequence * 160;
+        this.plain[4] = (byte) (timestamp >> 24);
+        this.plain[5] = (byte) (timestamp >> 16);
+        this.plain[6] = (byte) (timestamp >> 8);
+        this.plain[7] = (byte) timestamp;
+        this.plain[8] = (byte) (SSRC >> 24);
+        this.plain[9] = (byte) (SSRC >> 16);
+        this.plain[10] = (byte) (SSRC >> 8);
+        this.plain[11] = (byte) SSRC;
+        return this.plain;
+    }
+
+    @Benchmark
+    public RawPacket transformPacket() {
+        rtpPacket(this.sequence++);
+        this.rawPacket.wrap(this.plain, 0, this.plain.length);
+        this.sender.transformPacket(this.rawPacket);
+        return this.rawPacket;
+    }
+
+    @Benchmark
+    public boolean reverseTransformPacket() {
+        if (this.index == PACKETS) {
+            this.receiver = newContext();
+            this.index = 0;
+        }
+        byte[] data = this.protectedPackets[this.index++];
+        this.rawPacket.wrap(data, 0, data.length);
+        return this.receiver.reverseTransformPacket(this.rawPacket);
+    }
+
+    @Benchmark
+    public RawPacket transformPacketInPlace() {
+        rtpPacket(this.sequence++);
+        this.buffer.clear();
+        this.buffer.put(this.plain);
+        this.buffer.flip();
+        this.rawPacket.wrap(this.buffer);
+        this.sender.transformPacket(this.rawPacket);
+        return this.rawPacket;
+    }
+
+    @Benchmark
+    public boolean reverseTransformPacketInPlace() {
+        if (this.index == PACKETS) {
+            this.receiver = newContext();
+            this.index = 0;
+        }
+        byte[] data = this.protectedPackets[this.index++];
+        this.buffer.clear();
+        this.buffer.put(data);
+        this.buffer.flip();
+        this.rawPacket.wrap(this.buffer);
+        return this.receiver.reverseTransformPacket(this.rawPacket);
+    }
+
+}
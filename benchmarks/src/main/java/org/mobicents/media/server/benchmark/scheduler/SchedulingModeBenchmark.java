@@ -0,0 +1,167 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.scheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.SchedulingMode;
+import org.mobicents.media.server.scheduler.Task;
+import org.mobicents.media.server.scheduler.WallClock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the time taken by the {@link PriorityQueueScheduler} to run a queue of short tasks in each
+ * {@link SchedulingMode}, optionally with every task forking more tasks as the audio mixer does.
+ * <p>
+ * Each invocation submits a whole queue and waits until its last task completes. The core thread runs the queue once per
+ * cycle and the next invocation is submitted right after it ran, so every score includes about one cycle of waiting
+ * that is the same in both modes. The difference between modes is the cost of handing tasks over to the workers.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulingModeBenchmark {
+
+    @Param({ "SHARED_QUEUE", "WORK_STEALING" })
+    public SchedulingMode mode;
+
+    @Param({ "1000", "10000" })
+    public int tasks;
+
+    @Param({ "0", "4" })
+    public int forks;
+
+    private PriorityQueueScheduler scheduler;
+    private QueuedTask[] queue;
+    private AtomicInteger pending;
+    private volatile CountDownLatch completion;
+
+    @Setup
+    public void setup() {
+        this.scheduler = new PriorityQueueScheduler(new WallClock(), mode);
+        this.pending = new AtomicInteger();
+        this.queue = new QueuedTask[tasks];
+        for (int i = 0; i < tasks; i++) {
+            this.queue[i] = new QueuedTask(forks);
+        }
+        this.scheduler.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.scheduler.stop();
+    }
+
+    @Benchmark
+    public void executeQueue() throws InterruptedException {
+        this.pending.set(tasks * (forks + 1));
+        this.completion = new CountDownLatch(1);
+        for (int i = 0; i < tasks; i++) {
+            this.scheduler.submit(this.queue[i], PriorityQueueScheduler.MIXER_MIX_QUEUE);
+        }
+        this.completion.await();
+    }
+
+    private static long work(long seed) {
+        // a few hundred nanoseconds of work, in the order of a small mixing task
+        long value = seed;
+        for (int i = 0; i < 64; i++) {
+            value = value * 6364136223846793005L + 1442695040888963407L;
+        }
+        return value;
+    }
+
+    private void completed() {
+        if (this.pending.decrementAndGet() == 0) {
+            this.completion.countDown();
+        }
+    }
+
+    private class QueuedTask extends Task {
+
+        private final ForkedTask[] forked;
+        public long result;
+
+        public QueuedTask(int forks) {
+            this.forked = new ForkedTask[forks];
+            for (int i = 0; i < forks; i++) {
+                this.forked[i] = new ForkedTask();
+            }
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.MIXER_MIX_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            for (int i = 0; i < this.forked.length; i++) {
+                scheduler.fork(this.forked[i]);
+            }
+            this.result = work(this.result);
+            completed();
+            return 0;
+        }
+
+    }
+
+    private class ForkedTask extends Task {
+
+        public long result;
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.MIXER_MIX_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            this.result = work(this.result);
+            completed();
+            return 0;
+        }
+
+    }
+
+}
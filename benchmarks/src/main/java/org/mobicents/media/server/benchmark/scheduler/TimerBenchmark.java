@@ -0,0 +1,137 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.benchmark.scheduler;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.scheduler.Timeout;
+import org.mobicents.media.server.scheduler.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the cost of scheduling and cancelling a timer on the {@link TimingWheel} and on a
+ * {@link ScheduledThreadPoolExecutor}, while a large number of other timers is pending.
+ * <p>
+ * This is the pattern of RTCP report and RTP timeout timers, which are constantly re-armed and rarely fire. Pending timers
+ * expire far in the future so none fire during a measurement.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerBenchmark {
+
+    private static final Runnable TASK = new Runnable() {
+
+        @Override
+        public void run() {
+            // Never expected to run
+        }
+    };
+
+    @Param({ "TimingWheel", "ScheduledThreadPoolExecutor" })
+    public String type;
+
+    @Param({ "100000" })
+    public int pendingTimers;
+
+    private TimingWheel wheel;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup
+    public void setup() {
+        if ("TimingWheel".equals(type)) {
+            this.wheel = new TimingWheel("benchmark-timer");
+            this.wheel.start();
+        } else {
+            this.executor = (ScheduledThreadPoolExecutor) Executors.newScheduledThreadPool(1);
+            // Otherwise cancelled timers pile up in the delay queue until their deadline
+            this.executor.setRemoveOnCancelPolicy(true);
+        }
+
+        for (int i = 0; i < pendingTimers; i++) {
+            schedule(600000L + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (this.wheel != null) {
+            this.wheel.stop();
+        }
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private Object schedule(long delay) {
+        if (this.wheel != null) {
+            return this.wheel.schedule(TASK, delay, TimeUnit.MILLISECONDS);
+        }
+        return this.executor.schedule(TASK, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean scheduleAndCancel() {
+        // RTCP intervals are a few seconds long
+        final long delay = 5000L + ThreadLocalRandom.current().nextInt(5000);
+        final Object timer = schedule(delay);
+        if (timer instanceof Timeout) {
+            return ((Timeout) timer).cancel();
+        }
+        return ((ScheduledFuture<?>) timer).cancel(false);
+    }
+
+    @Benchmark
+    public boolean scheduleCancel() {
+        return scheduleAndCancel();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean scheduleCancelContended() {
+        return scheduleAndCancel();
+    }
+
+}
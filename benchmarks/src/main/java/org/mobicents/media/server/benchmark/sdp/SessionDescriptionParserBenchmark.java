@@ -0,0 +1,95 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.benchmark.sdp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.mobicents.media.server.io.sdp.SdpException;
+import org.mobicents.media.server.io.sdp.SessionDescription;
+import org.mobicents.media.server.io.sdp.SessionDescriptionParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time the SDP parser takes to parse a plain SIP offer and a WebRTC offer.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionDescriptionParserBenchmark {
+
+    private static final String SIP_OFFER = "v=0\r\n" +
+            "o=- 25678 753849 IN IP4 128.96.41.1\r\n" +
+            "s=-\r\n" +
+            "c=IN IP4 128.96.41.1\r\n" +
+            "t=0 0\r\n" +
+            "m=audio 3456 RTP/AVP 0 8 101\r\n" +
+            "a=rtpmap:0 PCMU/8000\r\n" +
+            "a=rtpmap:8 PCMA/8000\r\n" +
+            "a=rtpmap:101 telephone-event/8000\r\n" +
+            "a=fmtp:101 0-15\r\n" +
+            "a=ptime:20\r\n" +
+            "a=sendrecv\r\n";
+
+    private String webrtcOffer;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream stream = SessionDescriptionParserBenchmark.class.getResourceAsStream("webrtc-offer.txt")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            this.webrtcOffer = new String(out.toByteArray(), "UTF-8");
+        }
+    }
+
+    @Benchmark
+    public SessionDescription parseSipOffer() throws SdpException {
+        return SessionDescriptionParser.parse(SIP_OFFER);
+    }
+
+    @Benchmark
+    public SessionDescription parseWebRtcOffer() throws SdpException {
+        return SessionDescriptionParser.parse(this.webrtcOffer);
+    }
+
+}
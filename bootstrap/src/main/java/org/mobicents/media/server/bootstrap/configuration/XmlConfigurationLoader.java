@@ -91,6 +91,7 @@ public class XmlConfigurationLoader implements ConfigurationLoader {
         dst.setNetwork(src.getString("network", NetworkConfiguration.NETWORK));
         dst.setSubnet(src.getString("subnet", NetworkConfiguration.SUBNET));
         dst.setSbc(src.getBoolean("sbc", NetworkConfiguration.SBC));
+        dst.setSelectionMode(src.getString("selectionMode", NetworkConfiguration.SELECTION_MODE));
     }
 
     private static void configureController(HierarchicalConfiguration<ImmutableNode> src, MgcpControllerConfiguration dst) {
@@ -117,6 +118,7 @@ public class XmlConfigurationLoader implements ConfigurationLoader {
         dst.setLowPort(src.getInt("lowPort", MediaConfiguration.LOW_PORT));
         dst.setHighPort(src.getInt("highPort", MediaConfiguration.HIGH_PORT));
         dst.setJitterBufferSize(src.getInt("jitterBuffer[@size]", MediaConfiguration.JITTER_BUFFER_SIZE));
+        dst.setSchedulingMode(src.getString("schedulingMode", MediaConfiguration.SCHEDULING_MODE));
 
         // Iterate over codec configuration
         List<HierarchicalConfiguration<ImmutableNode>> codecs = src.childConfigurationsAt("codecs");
@@ -130,6 +132,8 @@ public class XmlConfigurationLoader implements ConfigurationLoader {
         dst.setRemoteConnectionCount(src.getInt("remoteConnection[@poolSize]", ResourcesConfiguration.REMOTE_CONNECTION_COUNT));
         dst.setPlayerCount(src.getInt("player[@poolSize]", ResourcesConfiguration.PLAYER_COUNT));
         dst.setRecorderCount(src.getInt("recorder[@poolSize]", ResourcesConfiguration.RECORDER_COUNT));
+        dst.setRecorderIoThreads(src.getInt("recorder[@ioThreads]", ResourcesConfiguration.RECORDER_IO_THREADS));
+        dst.setRecorderQueueSize(src.getInt("recorder[@queueSize]", ResourcesConfiguration.RECORDER_QUEUE_SIZE));
         dst.setDtmfDetectorCount(src.getInt("dtmfDetector[@poolSize]", ResourcesConfiguration.DTMF_DETECTOR_COUNT));
         dst.setDtmfDetectorDbi(src.getInt("dtmfDetector[@dbi]", ResourcesConfiguration.DTMF_DETECTOR_DBI));
         dst.setDtmfGeneratorCount(src.getInt("dtmfGenerator[@poolSize]", ResourcesConfiguration.DTMF_GENERATOR_COUNT));
@@ -147,11 +151,13 @@ public class XmlConfigurationLoader implements ConfigurationLoader {
         dst.setCertificatePath(src.getString("certificate[@path]", DtlsConfiguration.CERTIFICATE_PATH));
         dst.setKeyPath(src.getString("certificate[@key]", DtlsConfiguration.KEY_PATH));
         dst.setAlgorithmCertificate(src.getString("certificate[@algorithm]", DtlsConfiguration.ALGORITHM_CERTIFICATE));
+        dst.setHandshakeThreads(src.getInt("handshakeThreads", DtlsConfiguration.HANDSHAKE_THREADS));
     }
 
     private static void configurePlayer(HierarchicalConfiguration<ImmutableNode> src, ResourcesConfiguration dst) {
         HierarchicalConfiguration<ImmutableNode> player = src.configurationAt("player");
         dst.setPlayerCount(player.getInt("[@poolSize]", ResourcesConfiguration.PLAYER_COUNT));
+        dst.setPromptCacheSize(player.getInt("promptCache[@size]", ResourcesConfiguration.PROMPT_CACHE_SIZE));
 
         HierarchicalConfiguration<ImmutableNode> cache;
         try {
@@ -47,6 +47,7 @@ import org.mobicents.media.server.bootstrap.ioc.provider.ResourcesPoolProvider;
 import org.mobicents.media.server.bootstrap.ioc.provider.RtpConnectionFactoryProvider;
 import org.mobicents.media.server.bootstrap.ioc.provider.RtpConnectionPoolProvider;
 import org.mobicents.media.server.bootstrap.ioc.provider.TaskSchedulerProvider;
+import org.mobicents.media.server.bootstrap.ioc.provider.ToneDetectionEngineProvider;
 import org.mobicents.media.server.bootstrap.ioc.provider.UdpManagerProvider;
 import org.mobicents.media.server.bootstrap.ioc.provider.WallClockProvider;
 import org.mobicents.media.server.bootstrap.ioc.provider.AudioPlayerFactoryProvider.AudioPlayerFactoryType;
@@ -66,6 +67,7 @@ import org.mobicents.media.server.bootstrap.ioc.provider.PhoneSignalGeneratorFac
 import org.mobicents.media.server.bootstrap.ioc.provider.PhoneSignalGeneratorPoolProvider.PhoneSignalGeneratorPoolType;
 import org.mobicents.media.server.bootstrap.ioc.provider.RtpConnectionFactoryProvider.RtpConnectionFactoryType;
 import org.mobicents.media.server.bootstrap.ioc.provider.RtpConnectionPoolProvider.RtpConnectionPoolType;
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
 import org.mobicents.media.server.impl.rtp.ChannelsManager;
 import org.mobicents.media.server.impl.rtp.crypto.DtlsSrtpServer;
 import org.mobicents.media.server.impl.rtp.crypto.DtlsSrtpServerProvider;
@@ -111,6 +113,7 @@ public class BootstrapModule extends AbstractModule {
         bind(AudioPlayerPoolType.INSTANCE).toProvider(AudioPlayerPoolProvider.class).in(Singleton.class);
         bind(AudioRecorderFactoryType.INSTANCE).toProvider(AudioRecorderFactoryProvider.class).in(Singleton.class);
         bind(AudioRecorderPoolType.INSTANCE).toProvider(AudioRecorderPoolProvider.class).in(Singleton.class);
+        bind(ToneDetectionEngine.class).toProvider(ToneDetectionEngineProvider.class).in(Singleton.class);
         bind(DtmfDetectorFactoryType.INSTANCE).toProvider(DtmfDetectorFactoryProvider.class).in(Singleton.class);
         bind(DtmfDetectorPoolType.INSTANCE).toProvider(DtmfDetectorPoolProvider.class).in(Singleton.class);
         bind(DtmfGeneratorFactoryType.INSTANCE).toProvider(DtmfGeneratorFactoryProvider.class).in(Singleton.class);
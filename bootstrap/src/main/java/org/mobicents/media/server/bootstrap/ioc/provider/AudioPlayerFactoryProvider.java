@@ -21,9 +21,18 @@
 
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.mobicents.media.core.configuration.MediaServerConfiguration;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.RemoteStreamProvider;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.AudioPlayerFactory;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.AudioPlayerImpl;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.PromptCache;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 import org.mobicents.media.server.spi.dsp.DspFactory;
 import org.mobicents.media.server.spi.pooling.PooledObjectFactory;
@@ -38,12 +47,18 @@ import com.google.inject.TypeLiteral;
  */
 public class AudioPlayerFactoryProvider implements Provider<AudioPlayerFactory> {
 
+    private static final Logger log = Logger.getLogger(AudioPlayerFactoryProvider.class);
+
+    private static final String PROMPT_CACHE_METRICS_NAME = "org.mobicents.media.server:type=PromptCache,name=player";
+
+    private final MediaServerConfiguration config;
     private final PriorityQueueScheduler mediaScheduler;
     private final DspFactory dspFactory;
     private final RemoteStreamProvider remoteStreamProvider;
 
     @Inject
-    public AudioPlayerFactoryProvider(PriorityQueueScheduler mediaScheduler, DspFactory dspFactory, RemoteStreamProvider remoteStreamProvider) {
+    public AudioPlayerFactoryProvider(MediaServerConfiguration config, PriorityQueueScheduler mediaScheduler, DspFactory dspFactory, RemoteStreamProvider remoteStreamProvider) {
+        this.config = config;
         this.mediaScheduler = mediaScheduler;
         this.dspFactory = dspFactory;
         this.remoteStreamProvider = remoteStreamProvider;
@@ -51,7 +66,25 @@ public class AudioPlayerFactoryProvider implements Provider<AudioPlayerFactory>
 
     @Override
     public AudioPlayerFactory get() {
-        return new AudioPlayerFactory(mediaScheduler, dspFactory, remoteStreamProvider);
+        PromptCache promptCache = null;
+        int promptCacheSize = this.config.getResourcesConfiguration().getPromptCacheSize();
+        if (promptCacheSize > 0) {
+            promptCache = new PromptCache(promptCacheSize * 1024L * 1024L, dspFactory, remoteStreamProvider);
+            registerMetrics(promptCache);
+        }
+        return new AudioPlayerFactory(mediaScheduler, dspFactory, remoteStreamProvider, promptCache);
+    }
+
+    private void registerMetrics(PromptCache promptCache) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(PROMPT_CACHE_METRICS_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(promptCache, name);
+            }
+        } catch (JMException e) {
+            log.warn("Could not register prompt cache metrics: " + e.getMessage());
+        }
     }
 
     public static final class AudioPlayerFactoryType extends TypeLiteral<PooledObjectFactory<AudioPlayerImpl>> {
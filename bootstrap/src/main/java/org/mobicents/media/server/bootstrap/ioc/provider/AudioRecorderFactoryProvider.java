@@ -21,8 +21,18 @@
 
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.mobicents.media.core.configuration.MediaServerConfiguration;
+import org.mobicents.media.core.configuration.ResourcesConfiguration;
 import org.mobicents.media.server.impl.resource.audio.AudioRecorderFactory;
 import org.mobicents.media.server.impl.resource.audio.AudioRecorderImpl;
+import org.mobicents.media.server.impl.resource.audio.RecordingWriter;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 import org.mobicents.media.server.spi.pooling.PooledObjectFactory;
 
@@ -36,16 +46,40 @@ import com.google.inject.TypeLiteral;
  */
 public class AudioRecorderFactoryProvider implements Provider<AudioRecorderFactory> {
 
+    private static final Logger log = Logger.getLogger(AudioRecorderFactoryProvider.class);
+
+    private static final String WRITER_METRICS_NAME = "org.mobicents.media.server:type=RecordingWriter,name=recorder";
+
+    private final MediaServerConfiguration config;
     private final PriorityQueueScheduler mediaScheduler;
 
     @Inject
-    public AudioRecorderFactoryProvider(PriorityQueueScheduler mediaScheduler) {
+    public AudioRecorderFactoryProvider(MediaServerConfiguration config, PriorityQueueScheduler mediaScheduler) {
+        this.config = config;
         this.mediaScheduler = mediaScheduler;
     }
 
     @Override
     public AudioRecorderFactory get() {
-        return new AudioRecorderFactory(mediaScheduler);
+        RecordingWriter writer = null;
+        ResourcesConfiguration resources = this.config.getResourcesConfiguration();
+        if (resources.getRecorderIoThreads() > 0) {
+            writer = new RecordingWriter(resources.getRecorderIoThreads(), resources.getRecorderQueueSize() * 1024);
+            registerMetrics(writer);
+        }
+        return new AudioRecorderFactory(mediaScheduler, writer);
+    }
+
+    private void registerMetrics(RecordingWriter writer) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(WRITER_METRICS_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(writer, name);
+            }
+        } catch (JMException e) {
+            log.warn("Could not register recording writer metrics: " + e.getMessage());
+        }
     }
 
     public static final class AudioRecorderFactoryType extends TypeLiteral<PooledObjectFactory<AudioRecorderImpl>> {
@@ -21,7 +21,9 @@
         
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.mobicents.media.core.configuration.CodecType;
 import org.mobicents.media.core.configuration.MediaServerConfiguration;
@@ -36,6 +38,10 @@ import com.google.inject.Provider;
  */
 public class DspProvider implements Provider<DspFactoryImpl> {
 
+    // converters between G.711 laws that skip the linear intermediate, enabled when both laws are
+    private static final String ALAW_TO_ULAW = "org.mobicents.media.server.impl.dsp.audio.g711.AlawToUlawTranscoder";
+    private static final String ULAW_TO_ALAW = "org.mobicents.media.server.impl.dsp.audio.g711.UlawToAlawTranscoder";
+
     private final MediaServerConfiguration config;
 
     @Inject
@@ -46,14 +52,21 @@ public class DspProvider implements Provider<DspFactoryImpl> {
     @Override
     public DspFactoryImpl get() {
         DspFactoryImpl dsp = new DspFactoryImpl();
+        Set<CodecType> enabled = EnumSet.noneOf(CodecType.class);
         Iterator<String> codecs = this.config.getMediaConfiguration().getCodecs();
         while (codecs.hasNext()) {
             CodecType codec = CodecType.fromName(codecs.next());
             if(codec != null && !codec.getEncoder().isEmpty() && !codec.getDecoder().isEmpty()) {
                 dsp.addCodec(codec.getDecoder());
                 dsp.addCodec(codec.getEncoder());
+                enabled.add(codec);
             }
         }
+        
+        if (enabled.contains(CodecType.PCMA) && enabled.contains(CodecType.PCMU)) {
+            dsp.addCodec(ALAW_TO_ULAW);
+            dsp.addCodec(ULAW_TO_ALAW);
+        }
         return dsp;
     }
 
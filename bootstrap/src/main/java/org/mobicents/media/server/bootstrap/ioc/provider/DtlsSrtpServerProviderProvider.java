@@ -21,7 +21,17 @@
 
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.log4j.Logger;
+import org.mobicents.media.core.configuration.DtlsConfiguration;
 import org.mobicents.media.core.configuration.MediaServerConfiguration;
+import org.mobicents.media.server.impl.rtp.crypto.DtlsHandshakePool;
 import org.mobicents.media.server.impl.rtp.crypto.DtlsSrtpServerProvider;
 
 import com.google.inject.Inject;
@@ -32,6 +42,10 @@ import com.google.inject.Provider;
  */
 public class DtlsSrtpServerProviderProvider implements Provider<DtlsSrtpServerProvider> {
 
+    private static final Logger log = Logger.getLogger(DtlsSrtpServerProviderProvider.class);
+
+    private static final String HANDSHAKE_METRICS_NAME = "org.mobicents.media.server:type=DtlsHandshakePool,name=dtls";
+
     private final MediaServerConfiguration config;
 
     @Inject
@@ -41,10 +55,31 @@ public class DtlsSrtpServerProviderProvider implements Provider<DtlsSrtpServerPr
 
     @Override
     public DtlsSrtpServerProvider get() {
-        return new DtlsSrtpServerProvider(config.getDtlsConfiguration().getMinVersion(), config.getDtlsConfiguration()
-                .getMaxVersion(), config.getDtlsConfiguration().getCipherSuites(), config.getDtlsConfiguration()
-                .getCertificatePath(), config.getDtlsConfiguration().getKeyPath(), config.getDtlsConfiguration()
-                .getAlgorithmCertificate());
+        DtlsConfiguration dtls = config.getDtlsConfiguration();
+        DtlsHandshakePool handshakePool = new DtlsHandshakePool(dtls.getHandshakeThreads());
+        registerMetrics(handshakePool);
+
+        DtlsSrtpServerProvider provider = new DtlsSrtpServerProvider(dtls.getMinVersion(), dtls.getMaxVersion(),
+                dtls.getCipherSuites(), dtls.getCertificatePath(), dtls.getKeyPath(), dtls.getAlgorithmCertificate(),
+                handshakePool);
+        try {
+            provider.loadCredentials();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not load DTLS certificate " + dtls.getCertificatePath() + ". WebRTC calls will fail: " + e.getMessage());
+        }
+        return provider;
+    }
+
+    private void registerMetrics(DtlsHandshakePool handshakePool) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(HANDSHAKE_METRICS_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(handshakePool, name);
+            }
+        } catch (JMException e) {
+            log.warn("Could not register DTLS handshake metrics: " + e.getMessage());
+        }
     }
 
 }
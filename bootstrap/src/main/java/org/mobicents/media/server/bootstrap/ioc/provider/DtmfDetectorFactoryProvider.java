@@ -21,6 +21,7 @@
 
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
 import org.mobicents.media.server.impl.resource.dtmf.DetectorImpl;
 import org.mobicents.media.server.impl.resource.dtmf.DtmfDetectorFactory;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
@@ -37,15 +38,17 @@ import com.google.inject.TypeLiteral;
 public class DtmfDetectorFactoryProvider implements Provider<DtmfDetectorFactory> {
 
     private final PriorityQueueScheduler mediaScheduler;
+    private final ToneDetectionEngine engine;
 
     @Inject
-    public DtmfDetectorFactoryProvider(PriorityQueueScheduler mediaScheduler) {
+    public DtmfDetectorFactoryProvider(PriorityQueueScheduler mediaScheduler, ToneDetectionEngine engine) {
         this.mediaScheduler = mediaScheduler;
+        this.engine = engine;
     }
 
     @Override
     public DtmfDetectorFactory get() {
-        return new DtmfDetectorFactory(this.mediaScheduler);
+        return new DtmfDetectorFactory(this.mediaScheduler, this.engine);
     }
 
     public static final class DtmfDetectorFactoryType extends TypeLiteral<PooledObjectFactory<DetectorImpl>> {
@@ -21,6 +21,7 @@
 
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import org.mobicents.media.core.configuration.MediaServerConfiguration;
 import org.mobicents.media.server.scheduler.Clock;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 
@@ -33,16 +34,18 @@ import com.google.inject.Provider;
  */
 public class MediaSchedulerProvider implements Provider<PriorityQueueScheduler> {
 
+    private final MediaServerConfiguration config;
     private final Clock clock;
     
     @Inject
-    public MediaSchedulerProvider(Clock clock) {
+    public MediaSchedulerProvider(MediaServerConfiguration config, Clock clock) {
+        this.config = config;
         this.clock = clock;
     }
     
     @Override
     public PriorityQueueScheduler get() {
-        return new PriorityQueueScheduler(this.clock);
+        return new PriorityQueueScheduler(this.clock, this.config.getMediaConfiguration().getSchedulingMode());
     }
 
 }
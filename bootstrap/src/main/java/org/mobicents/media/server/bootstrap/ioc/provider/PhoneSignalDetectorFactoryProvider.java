@@ -21,6 +21,7 @@
 
 package org.mobicents.media.server.bootstrap.ioc.provider;
 
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
 import org.mobicents.media.server.impl.resource.phone.PhoneSignalDetector;
 import org.mobicents.media.server.impl.resource.phone.PhoneSignalDetectorFactory;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
@@ -37,15 +38,17 @@ import com.google.inject.TypeLiteral;
 public class PhoneSignalDetectorFactoryProvider implements Provider<PhoneSignalDetectorFactory> {
 
     private final PriorityQueueScheduler mediaScheduler;
+    private final ToneDetectionEngine engine;
 
     @Inject
-    public PhoneSignalDetectorFactoryProvider(PriorityQueueScheduler mediaScheduler) {
+    public PhoneSignalDetectorFactoryProvider(PriorityQueueScheduler mediaScheduler, ToneDetectionEngine engine) {
         this.mediaScheduler = mediaScheduler;
+        this.engine = engine;
     }
 
     @Override
     public PhoneSignalDetectorFactory get() {
-        return new PhoneSignalDetectorFactory(mediaScheduler);
+        return new PhoneSignalDetectorFactory(mediaScheduler, engine);
     }
 
     public static final class PhoneSignalDetectorFactoryType extends TypeLiteral<PooledObjectFactory<PhoneSignalDetector>> {
@@ -52,6 +52,7 @@ public class UdpManagerProvider implements Provider<UdpManager> {
         udpManager.setLocalNetwork(config.getNetworkConfiguration().getNetwork());
         udpManager.setLocalSubnet(config.getNetworkConfiguration().getSubnet());
         udpManager.setUseSbc(config.getNetworkConfiguration().isSbc());
+        udpManager.setSelectionMode(config.getNetworkConfiguration().getSelectionMode());
         udpManager.setRtpTimeout(config.getMediaConfiguration().getTimeout());
         udpManager.setLowestPort(config.getMediaConfiguration().getLowPort());
         udpManager.setHighestPort(config.getMediaConfiguration().getHighPort());
@@ -21,9 +21,14 @@
 
 package org.mobicents.media.server.bootstrap.main;
 
+import java.lang.management.ManagementFactory;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.apache.log4j.Logger;
 import org.mobicents.media.server.io.network.UdpManager;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
@@ -42,6 +47,9 @@ import com.google.inject.Inject;
 public class RestCommMediaServer implements MediaServer {
 
     private static final Logger log = Logger.getLogger(RestCommMediaServer.class);
+    
+    // JMX name of the media scheduler metrics
+    private static final String SCHEDULER_METRICS_NAME = "org.mobicents.media.server:type=Scheduler,name=media";
 
     // Media Server State
     private boolean started;
@@ -103,6 +111,7 @@ public class RestCommMediaServer implements MediaServer {
         this.started = true;
         this.heartbeat.restart();
         this.mediaScheduler.start();
+        registerSchedulerMetrics();
         this.taskScheduler.start();
         this.udpManager.start();
         for (ServerManager controller : this.controllers.values()) {
@@ -124,6 +133,7 @@ public class RestCommMediaServer implements MediaServer {
         this.udpManager.stop();
         this.taskScheduler.stop();
         this.mediaScheduler.stop();
+        unregisterSchedulerMetrics();
         this.heartbeat.cancel();
         for (ServerManager controller : this.controllers.values()) {
             controller.deactivate();
@@ -138,6 +148,30 @@ public class RestCommMediaServer implements MediaServer {
         return this.started;
     }
 
+    private void registerSchedulerMetrics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SCHEDULER_METRICS_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this.mediaScheduler.getMetrics(), name);
+            }
+        } catch (JMException e) {
+            log.warn("Could not register media scheduler metrics: " + e.getMessage());
+        }
+    }
+
+    private void unregisterSchedulerMetrics() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SCHEDULER_METRICS_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            log.warn("Could not unregister media scheduler metrics: " + e.getMessage());
+        }
+    }
+
     private final class HeartBeat extends Task {
 
         public HeartBeat() {
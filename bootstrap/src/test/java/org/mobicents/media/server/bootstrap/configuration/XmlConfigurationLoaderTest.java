@@ -33,6 +33,8 @@ import org.mobicents.media.core.configuration.MgcpControllerConfiguration;
 import org.mobicents.media.core.configuration.MgcpEndpointConfiguration;
 import org.mobicents.media.core.configuration.NetworkConfiguration;
 import org.mobicents.media.core.configuration.ResourcesConfiguration;
+import org.mobicents.media.server.io.network.SelectionMode;
+import org.mobicents.media.server.scheduler.SchedulingMode;
 
 /**
  * @author Henrique Rosa (henrique.rosa@telestax.com)
@@ -60,6 +62,7 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals("192.168.1.0", network.getNetwork());
         Assert.assertEquals("255.255.255.255", network.getSubnet());
         Assert.assertTrue(network.isSbc());
+        Assert.assertEquals(SelectionMode.BLOCKING, network.getSelectionMode());
 
         MgcpControllerConfiguration controller = config.getControllerConfiguration();
         Assert.assertEquals("198.162.1.175", controller.getAddress());
@@ -84,6 +87,7 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(54534, media.getLowPort());
         Assert.assertEquals(64534, media.getHighPort());
         Assert.assertEquals(60, media.getJitterBufferSize());
+        Assert.assertEquals(SchedulingMode.WORK_STEALING, media.getSchedulingMode());
         Assert.assertTrue(media.hasCodec("l16"));
         Assert.assertTrue(media.hasCodec("PCMU"));
         Assert.assertTrue(media.hasCodec("pcma"));
@@ -94,6 +98,8 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(200, resources.getLocalConnectionCount());
         Assert.assertEquals(100, resources.getRemoteConnectionCount());
         Assert.assertEquals(100, resources.getRecorderCount());
+        Assert.assertEquals(4, resources.getRecorderIoThreads());
+        Assert.assertEquals(128, resources.getRecorderQueueSize());
         Assert.assertEquals(100, resources.getDtmfDetectorCount());
         Assert.assertEquals(-25, resources.getDtmfDetectorDbi());
         Assert.assertEquals(100, resources.getDtmfGeneratorCount());
@@ -114,10 +120,12 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(DtlsConfiguration.KEY_PATH, dtls.getKeyPath());
         Assert.assertEquals(SignatureAlgorithm.ecdsa, dtls.getAlgorithmCertificate().getSignatureAlgorithm());
         Assert.assertEquals(ClientCertificateType.ecdsa_sign, dtls.getAlgorithmCertificate().getClientCertificate());
+        Assert.assertEquals(16, dtls.getHandshakeThreads());
 
         Assert.assertEquals(100, resources.getPlayerCount());
         Assert.assertEquals(100, resources.getPlayerCacheSize());
         Assert.assertEquals(true, resources.getPlayerCacheEnabled());
+        Assert.assertEquals(32, resources.getPromptCacheSize());
     }
 
     /**
@@ -160,6 +168,8 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(ResourcesConfiguration.REMOTE_CONNECTION_COUNT, resources.getRemoteConnectionCount());
         Assert.assertEquals(ResourcesConfiguration.PLAYER_COUNT, resources.getPlayerCount());
         Assert.assertEquals(ResourcesConfiguration.RECORDER_COUNT, resources.getRecorderCount());
+        Assert.assertEquals(ResourcesConfiguration.RECORDER_IO_THREADS, resources.getRecorderIoThreads());
+        Assert.assertEquals(ResourcesConfiguration.RECORDER_QUEUE_SIZE, resources.getRecorderQueueSize());
         Assert.assertEquals(ResourcesConfiguration.DTMF_DETECTOR_COUNT, resources.getDtmfDetectorCount());
         Assert.assertEquals(ResourcesConfiguration.DTMF_DETECTOR_DBI, resources.getDtmfDetectorDbi());
         Assert.assertEquals(ResourcesConfiguration.DTMF_GENERATOR_COUNT, resources.getDtmfGeneratorCount());
@@ -180,6 +190,7 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(DtlsConfiguration.KEY_PATH, dtls.getKeyPath());
         Assert.assertEquals(SignatureAlgorithm.ecdsa, dtls.getAlgorithmCertificate().getSignatureAlgorithm());
         Assert.assertEquals(ClientCertificateType.ecdsa_sign, dtls.getAlgorithmCertificate().getClientCertificate());
+        Assert.assertEquals(DtlsConfiguration.HANDSHAKE_THREADS, dtls.getHandshakeThreads());
     }
 
     @Test(expected = Exception.class)
@@ -218,6 +229,8 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(ResourcesConfiguration.REMOTE_CONNECTION_COUNT, resources.getRemoteConnectionCount());
         Assert.assertEquals(ResourcesConfiguration.PLAYER_COUNT, resources.getPlayerCount());
         Assert.assertEquals(ResourcesConfiguration.RECORDER_COUNT, resources.getRecorderCount());
+        Assert.assertEquals(ResourcesConfiguration.RECORDER_IO_THREADS, resources.getRecorderIoThreads());
+        Assert.assertEquals(ResourcesConfiguration.RECORDER_QUEUE_SIZE, resources.getRecorderQueueSize());
         Assert.assertEquals(ResourcesConfiguration.DTMF_DETECTOR_COUNT, resources.getDtmfDetectorCount());
         Assert.assertEquals(ResourcesConfiguration.DTMF_DETECTOR_DBI, resources.getDtmfDetectorDbi());
         Assert.assertEquals(ResourcesConfiguration.DTMF_GENERATOR_COUNT, resources.getDtmfGeneratorCount());
@@ -238,6 +251,7 @@ public class XmlConfigurationLoaderTest {
         Assert.assertEquals(DtlsConfiguration.KEY_PATH, dtls.getKeyPath());
         Assert.assertEquals(SignatureAlgorithm.ecdsa, dtls.getAlgorithmCertificate().getSignatureAlgorithm());
         Assert.assertEquals(ClientCertificateType.ecdsa_sign, dtls.getAlgorithmCertificate().getClientCertificate());
+        Assert.assertEquals(DtlsConfiguration.HANDSHAKE_THREADS, dtls.getHandshakeThreads());
     }
 
 }
@@ -0,0 +1,113 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.impl.dsp.audio.g711;
+
+import org.mobicents.media.server.spi.dsp.Codec;
+import org.mobicents.media.server.spi.format.Format;
+import org.mobicents.media.server.spi.format.FormatFactory;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * Converts between both G.711 companding laws with a single table lookup per sample.
+ * <p>
+ * The table is built by decoding each of the 256 codes to linear audio and encoding it with the other law, so the result
+ * is identical to decoding and encoding frames without the intermediate linear frame.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public abstract class TableTranscoder implements Codec {
+
+    static final Format ALAW = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+    static final Format ULAW = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+
+    private final Format input;
+    private final Format output;
+    private final byte[] table;
+
+    protected TableTranscoder(Format input, Format output, byte[] table) {
+        this.input = input;
+        this.output = output;
+        this.table = table;
+    }
+
+    @Override
+    public Format getSupportedInputFormat() {
+        return input;
+    }
+
+    @Override
+    public Format getSupportedOutputFormat() {
+        return output;
+    }
+
+    @Override
+    public Frame process(Frame frame) {
+        final int length = frame.getLength();
+        final int offset = frame.getOffset();
+        final Frame res = Memory.allocate(length);
+        final byte[] data = frame.getData();
+        final byte[] resData = res.getData();
+        for (int i = 0; i < length; i++) {
+            resData[i] = table[data[offset + i] & 0xff];
+        }
+
+        res.setOffset(0);
+        res.setLength(length);
+        res.setFormat(output);
+        res.setTimestamp(frame.getTimestamp());
+        res.setDuration(frame.getDuration());
+        res.setEOM(frame.isEOM());
+        res.setSequenceNumber(frame.getSequenceNumber());
+        return res;
+    }
+
+    /**
+     * Builds the conversion table by running every code through a decoder and an encoder.
+     * 
+     * @param decoder The decoder of the input law.
+     * @param encoder The encoder of the output law.
+     * @return The code of the output law for each code of the input law.
+     */
+    static byte[] buildTable(Codec decoder, Codec encoder) {
+        final Frame codes = Memory.allocate(256);
+        final byte[] data = codes.getData();
+        for (int i = 0; i < 256; i++) {
+            data[i] = (byte) i;
+        }
+        codes.setOffset(0);
+        codes.setLength(256);
+
+        final Frame linear = decoder.process(codes);
+        final Frame converted = encoder.process(linear);
+        final byte[] table = new byte[256];
+        System.arraycopy(converted.getData(), converted.getOffset(), table, 0, 256);
+
+        codes.recycle();
+        linear.recycle();
+        converted.recycle();
+        return table;
+    }
+
+}
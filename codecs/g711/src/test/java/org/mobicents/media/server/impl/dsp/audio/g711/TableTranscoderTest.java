@@ -0,0 +1,81 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.dsp.audio.g711;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mobicents.media.server.spi.dsp.Codec;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * Tests for {@link TableTranscoder}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class TableTranscoderTest {
+
+    @Test
+    public void testAlawToUlaw() {
+        testTranscoding(new AlawToUlawTranscoder(), new org.mobicents.media.server.impl.dsp.audio.g711.alaw.Decoder(),
+                new org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Encoder());
+    }
+
+    @Test
+    public void testUlawToAlaw() {
+        testTranscoding(new UlawToAlawTranscoder(), new org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Decoder(),
+                new org.mobicents.media.server.impl.dsp.audio.g711.alaw.Encoder());
+    }
+
+    private void testTranscoding(Codec transcoder, Codec decoder, Codec encoder) {
+        // given - every code, at an offset
+        Frame frame = Memory.allocate(260);
+        for (int i = 0; i < 256; i++) {
+            frame.getData()[i + 4] = (byte) i;
+        }
+        frame.setOffset(4);
+        frame.setLength(256);
+        frame.setTimestamp(1234);
+
+        Frame expected = Memory.allocate(256);
+        System.arraycopy(frame.getData(), 4, expected.getData(), 0, 256);
+        expected.setOffset(0);
+        expected.setLength(256);
+
+        // when
+        Frame transcoded = transcoder.process(frame);
+        Frame chained = encoder.process(decoder.process(expected));
+
+        // then - same codes as decoding and encoding
+        assertTrue(transcoder.getSupportedOutputFormat().matches(transcoded.getFormat()));
+        assertEquals(1234, transcoded.getTimestamp());
+        assertEquals(256, transcoded.getLength());
+        for (int i = 0; i < 256; i++) {
+            assertEquals("code " + i, chained.getData()[i], transcoded.getData()[i]);
+        }
+    }
+
+}
@@ -38,8 +38,13 @@ import org.mobicents.media.server.spi.memory.Frame;
  * @author kulikov
  */
 public class Dsp implements Processor {
-    private Codec codec;
+    private static final Codec[] NO_CODECS = new Codec[0];
+
     private Codec[] codecs;
+    private final TranscodingGraph graph;
+
+    //chain of codecs that converts the current stream
+    private Codec[] chain = NO_CODECS;
 
     //The current format of the frame stream
     private Format sourceFormat,destinationFormat;    
@@ -50,7 +55,18 @@ public class Dsp implements Processor {
      * @param codecs
      */
     protected Dsp(Codec[] codecs) {
+        this(codecs, new TranscodingGraph(codecs));
+    }
+
+    /**
+     * Creates new instance of processor that shares the transcoding graph of other processors.
+     *
+     * @param codecs the codecs of this processor, in the same order as the codecs the graph was built from.
+     * @param graph the shortest chains of codecs between every pair of formats.
+     */
+    Dsp(Codec[] codecs, TranscodingGraph graph) {
         this.codecs = codecs;
+        this.graph = graph;
     }
 
     @Override
@@ -66,50 +82,33 @@ public class Dsp implements Processor {
     	if(source.matches(destination))
     		return frame;
     	
-    	//normal flow: format of the stream is already known
-		if (sourceFormat!=null && source.matches(sourceFormat) && destinationFormat != null && destination.matches(destinationFormat)) {
-			//do transcode if required
-			if (codec != null) {
-				try {
-					return codec.process(frame);
-				} finally {
-					frame.recycle();
-				}
-			}
-
-			//return the original frame if no transcoding required
-			return frame;
-		}
-		
-		//check that codecs are defined.
-		if (codecs == null) {
-			//no spade - no questions
-			return frame;
-		}
-		
-		for (int i = 0; i < codecs.length; i++) {
-			//select codec wich can receive current frame
-			if (codecs[i].getSupportedInputFormat().matches(source)) {
-				//check if this codec can transform frame to any of the output format
-				if (codecs[i].getSupportedOutputFormat().matches(destination)) {
-					codec = codecs[i];
-					destinationFormat=destination;
-					sourceFormat=source;
-					break;
+    	//format of the stream changed: look up the chain of codecs once
+		if (sourceFormat==null || !source.matches(sourceFormat) || destinationFormat==null || !destination.matches(destinationFormat)) {
+			int[] path = graph.resolve(source, destination);
+			if (path == null) {
+				chain = NO_CODECS;
+			} else {
+				chain = new Codec[path.length];
+				for (int i = 0; i < path.length; i++) {
+					chain[i] = codecs[path[i]];
 				}
 			}
+			sourceFormat=source;
+			destinationFormat=destination;
 		}
 		
-		//if codec found do the transcoding
-		if (codec != null) {
+		//do transcode if required, recycling intermediate frames on the way
+		Frame current = frame;
+		for (int i = 0; i < chain.length; i++) {
 			try {
-				return codec.process(frame);
+				current = chain[i].process(frame);
 			} finally {
 				frame.recycle();
-			}    			    			    			
-		}    		
+			}
+			frame = current;
+		}
 		
-		//return frame without changes
-		return frame;
+		//return frame without changes if no transcoding required
+		return current;
     }
 }
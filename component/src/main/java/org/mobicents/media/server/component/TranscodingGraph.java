@@ -0,0 +1,157 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.mobicents.media.server.spi.dsp.Codec;
+import org.mobicents.media.server.spi.format.Format;
+
+/**
+ * Graph of the formats a {@link Dsp} can convert, where each codec is an edge from its input to its output format.
+ * <p>
+ * The shortest chain of codecs between every pair of formats is computed once, when the graph is built, so converting
+ * between two compressed formats goes through as few codecs as possible. Direct converters, such as A-law to u-law, are
+ * single edges and win over decoding and encoding through linear audio. The graph only holds the positions of the codecs,
+ * so it can be shared by every processor whose codecs are laid out in the same order.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+final class TranscodingGraph {
+
+    private static final int[] NO_PATH = new int[0];
+
+    private final Format[] formats;
+
+    // positions of the codecs to apply, indexed by source and destination format
+    private final int[][][] paths;
+
+    TranscodingGraph(Codec[] codecs) {
+        // every format supported by a codec is a vertex
+        final List<Format> vertices = new ArrayList<Format>();
+        for (Codec codec : codecs) {
+            if (indexOf(vertices, codec.getSupportedInputFormat()) < 0) {
+                vertices.add(codec.getSupportedInputFormat());
+            }
+            if (indexOf(vertices, codec.getSupportedOutputFormat()) < 0) {
+                vertices.add(codec.getSupportedOutputFormat());
+            }
+        }
+        this.formats = vertices.toArray(new Format[vertices.size()]);
+
+        // breadth-first search from each vertex finds the chains with the fewest codecs
+        final int[] inputs = new int[codecs.length];
+        final int[] outputs = new int[codecs.length];
+        for (int i = 0; i < codecs.length; i++) {
+            inputs[i] = indexOf(vertices, codecs[i].getSupportedInputFormat());
+            outputs[i] = indexOf(vertices, codecs[i].getSupportedOutputFormat());
+        }
+
+        this.paths = new int[this.formats.length][][];
+        for (int source = 0; source < this.formats.length; source++) {
+            this.paths[source] = search(source, inputs, outputs);
+        }
+    }
+
+    /**
+     * Finds the chain of codecs that converts between two formats.
+     * 
+     * @param source The format of the frames to convert.
+     * @param destination The format to convert to.
+     * @return The positions of the codecs to apply in order, or <code>null</code> if no chain exists.
+     */
+    int[] resolve(Format source, Format destination) {
+        final int from = indexOf(source);
+        final int to = indexOf(destination);
+        if (from < 0 || to < 0 || this.paths[from][to] == NO_PATH) {
+            return null;
+        }
+        return this.paths[from][to];
+    }
+
+    private int[][] search(int source, int[] inputs, int[] outputs) {
+        final int[][] found = new int[this.formats.length][];
+        Arrays.fill(found, NO_PATH);
+
+        // codec used to reach each vertex, and the vertex it came from
+        final int[] via = new int[this.formats.length];
+        final int[] previous = new int[this.formats.length];
+        final boolean[] visited = new boolean[this.formats.length];
+        final int[] queue = new int[this.formats.length];
+        int head = 0;
+        int tail = 0;
+
+        visited[source] = true;
+        queue[tail++] = source;
+        while (head < tail) {
+            final int vertex = queue[head++];
+            for (int codec = 0; codec < inputs.length; codec++) {
+                final int next = outputs[codec];
+                if (inputs[codec] == vertex && !visited[next]) {
+                    visited[next] = true;
+                    via[next] = codec;
+                    previous[next] = vertex;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        for (int destination = 0; destination < this.formats.length; destination++) {
+            if (destination != source && visited[destination]) {
+                int hops = 0;
+                for (int vertex = destination; vertex != source; vertex = previous[vertex]) {
+                    hops++;
+                }
+                final int[] path = new int[hops];
+                for (int vertex = destination; vertex != source; vertex = previous[vertex]) {
+                    path[--hops] = via[vertex];
+                }
+                found[destination] = path;
+            }
+        }
+        return found;
+    }
+
+    private int indexOf(Format format) {
+        for (int i = 0; i < this.formats.length; i++) {
+            if (this.formats[i].matches(format)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(List<Format> formats, Format format) {
+        for (int i = 0; i < formats.size(); i++) {
+            if (formats.get(i).matches(format)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -39,10 +39,12 @@ import org.mobicents.media.server.spi.memory.Memory;
  */
 public class AudioComponent {
 
-	// Format of the output stream.
-    private final static AudioFormat FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+    public final static int DEFAULT_SAMPLE_RATE = 8000;
     private final static long PERIOD = 20000000L;
-    private final static int PACKET_SIZE = (int) (PERIOD / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
+
+	// Format of the output stream.
+    private volatile AudioFormat format;
+    private volatile int packetSize;
 
     // Component State
     private final int componentId;
@@ -53,13 +55,27 @@ public class AudioComponent {
 	protected final AtomicBoolean shouldWrite;
 
 	// Mixing State
-	private final int[] data;
+	private volatile int[] data;
 	final AtomicBoolean first;
+	private long energy;
+
+	// whether the component is part of the mix on the current cycle
+	boolean mixed;
 
 	/**
 	 * Creates new instance with default name.
 	 */
 	public AudioComponent(int componentId) {
+		this(componentId, DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Creates new instance that carries audio at the given rate.
+	 * 
+	 * @param componentId The identifier of the component.
+	 * @param sampleRate The sampling rate of the audio exchanged with the mixer, in Hz.
+	 */
+	public AudioComponent(int componentId, int sampleRate) {
 	    // Component State
 		this.componentId = componentId;
 		this.inputs = new ConcurrentMap<AudioInput>();
@@ -68,20 +84,52 @@ public class AudioComponent {
 		this.shouldWrite = new AtomicBoolean(false);
 
 		// Mixing State
-		this.data = new int[PACKET_SIZE / 2];
 		this.first = new AtomicBoolean(false);
+		setSampleRate(sampleRate);
 	}
 
 	public int getComponentId() {
 		return componentId;
 	}
 
+	/**
+	 * Sets the sampling rate of the audio exchanged with the mixer or splitter the component belongs to.
+	 * <p>
+	 * Inputs aggregate frames at this rate, resampling the legs that run at a different rate. Must not be called while
+	 * the component is being mixed.
+	 * </p>
+	 * 
+	 * @param sampleRate The sampling rate, in Hz.
+	 */
+	public void setSampleRate(int sampleRate) {
+		if (this.format != null && this.format.getSampleRate() == sampleRate) {
+			return;
+		}
+		if (sampleRate <= 0) {
+			throw new IllegalArgumentException("Sample rate must be positive: " + sampleRate);
+		}
+
+		this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+		this.packetSize = (int) (PERIOD / 1000000) * sampleRate / 1000 * 2;
+		this.data = new int[this.packetSize / 2];
+
+		final Iterator<AudioInput> activeInputs = this.inputs.valuesIterator();
+		while (activeInputs.hasNext()) {
+			activeInputs.next().setSampleRate(sampleRate);
+		}
+	}
+
+	public int getSampleRate() {
+		return format.getSampleRate();
+	}
+
 	public void updateMode(boolean shouldRead, boolean shouldWrite) {
 		this.shouldRead.set(shouldRead);
 		this.shouldWrite.set(shouldWrite);
 	}
 
 	public void addInput(AudioInput input) {
+		input.setSampleRate(format.getSampleRate());
 		inputs.put(input.getInputId(), input);
 	}
 
@@ -99,6 +147,7 @@ public class AudioComponent {
 
     public void perform() {
         this.first.set(true);
+        this.energy = 0;
 
         final Iterator<AudioInput> activeInputs = this.inputs.valuesIterator();
         while (activeInputs.hasNext()) {
@@ -108,11 +157,18 @@ public class AudioComponent {
             if (inputFrame != null) {
                 try {
                     final byte[] dataArray = inputFrame.getData();
+                    final int[] data = this.data;
 
+                    // measure the energy of the frame while decoding it, for loudest speaker selection
+                    long inputEnergy = 0;
                     int inputIndex = 0;
-                    for (int inputCount = 0; inputCount < dataArray.length; inputCount += 2) {
-                        this.data[inputIndex++] = (short) (((dataArray[inputCount + 1]) << 8) | (dataArray[inputCount] & 0xff));
+                    final int length = Math.min(dataArray.length, data.length * 2);
+                    for (int inputCount = 0; inputCount < length; inputCount += 2) {
+                        final int sample = (short) (((dataArray[inputCount + 1]) << 8) | (dataArray[inputCount] & 0xff));
+                        data[inputIndex++] = sample;
+                        inputEnergy += Math.abs(sample);
                     }
+                    this.energy = inputEnergy;
 
                     if (first.get()) {
                         this.first.set(false);
@@ -136,26 +192,63 @@ public class AudioComponent {
 		return data;
 	}
 
+	/**
+	 * Gets the energy of the samples read on the last cycle.
+	 * 
+	 * @return The sum of the absolute value of the samples.
+	 */
+	public long getEnergy() {
+		return energy;
+	}
+
 	public void offer(int[] data) {
+		offer(data, null, MixingEngine.UNITY_GAIN);
+	}
+
+	/**
+	 * Offers the mix to the outputs of the component, scaled and without the voice of the component itself.
+	 * 
+	 * @param total The total of the mix.
+	 * @param own The samples contributed by this component, or <code>null</code> if it is not part of the mix.
+	 * @param gain The gain to apply, in Q16 fixed point.
+	 */
+	void offer(int[] total, int[] own, int gain) {
 		if (!this.shouldWrite.get()) {
 			return;
 		}
 
-		final Frame outputFrame = Memory.allocate(PACKET_SIZE);
-		final byte[] dataArray = outputFrame.getData();
+		final Frame outputFrame = Memory.allocate(packetSize);
+		MixingEngine.encode(total, own, gain, outputFrame.getData(), total.length);
+		publish(outputFrame);
+	}
 
-		int outputIndex = 0;
-		for (int outputCount = 0; outputCount < data.length;) {
-			dataArray[outputIndex++] = (byte) (data[outputCount]);
-			dataArray[outputIndex++] = (byte) (data[outputCount++] >> 8);
+	/**
+	 * Offers PCM samples to the outputs of the component.
+	 * 
+	 * @param pcm The mix already packed as 16-bit little-endian PCM.
+	 */
+	void offer(byte[] pcm) {
+		if (!this.shouldWrite.get()) {
+			return;
 		}
 
+		final Frame outputFrame = Memory.allocate(packetSize);
+		System.arraycopy(pcm, 0, outputFrame.getData(), 0, packetSize);
+		publish(outputFrame);
+	}
+
+	private void publish(Frame outputFrame) {
 		outputFrame.setOffset(0);
-		outputFrame.setLength(PACKET_SIZE);
+		outputFrame.setLength(packetSize);
 		outputFrame.setDuration(PERIOD);
-		outputFrame.setFormat(FORMAT);
+		outputFrame.setFormat(format);
 
 		final Iterator<AudioOutput> activeOutputs = outputs.valuesIterator();
+		if (!activeOutputs.hasNext()) {
+			outputFrame.recycle();
+			return;
+		}
+
 		while (activeOutputs.hasNext()) {
 			AudioOutput output = activeOutputs.next();
 			if (!activeOutputs.hasNext()) {
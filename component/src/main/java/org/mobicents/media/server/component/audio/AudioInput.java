@@ -25,7 +25,8 @@ package org.mobicents.media.server.component.audio;
 import java.io.IOException;
 
 import org.mobicents.media.server.impl.AbstractSink;
-import org.mobicents.media.server.concurrent.ConcurrentCyclicFIFO;
+import org.mobicents.media.server.concurrent.MpmcArrayQueue;
+import org.mobicents.media.server.spi.format.AudioFormat;
 import org.mobicents.media.server.spi.memory.Frame;
 import org.mobicents.media.server.spi.memory.Memory;
 
@@ -40,7 +41,7 @@ public class AudioInput extends AbstractSink {
 
 	private int inputId;
     private int limit=3;
-    private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+    private MpmcArrayQueue<Frame> buffer = new MpmcArrayQueue<Frame>(limit + 1);
     private Frame activeFrame=null;
     private byte[] activeData;
     private byte[] oldData;
@@ -48,8 +49,17 @@ public class AudioInput extends AbstractSink {
     private int count=0;
     private int packetSize=0;
     
+    // rate at which frames are aggregated, and resampler for legs that run at another rate
+    private int sampleRate=AudioComponent.DEFAULT_SAMPLE_RATE;
+    private PolyphaseResampler resampler;
+    private byte[] resampled;
+    
     /**
      * Creates new stream
+     * 
+     * @param inputId the identifier of the input.
+     * @param packetSize the size of the aggregated frames at 8kHz, scaled when the input joins a component of another
+     *        rate.
      */
     public AudioInput(int inputId,int packetSize) {
         super("compound.input");
@@ -62,6 +72,31 @@ public class AudioInput extends AbstractSink {
     	return inputId;
     }
     
+    /**
+     * Sets the rate at which frames are handed over to the component.
+     * <p>
+     * Frames that declare a different sampling rate are resampled. The packet size is scaled to keep the same packet
+     * time and any partially aggregated frame is discarded.
+     * </p>
+     * 
+     * @param sampleRate the sampling rate of the component, in Hz.
+     */
+    public void setSampleRate(int sampleRate)
+    {
+    	if(this.sampleRate==sampleRate)
+    		return;
+    	
+    	recycle();
+    	this.packetSize=(int)((long)this.packetSize*sampleRate/this.sampleRate) & ~1;
+    	this.sampleRate=sampleRate;
+    	this.resampler=null;
+    }
+    
+    public int getSampleRate()
+    {
+    	return sampleRate;
+    }
+    
     public void activate()
     {
     	
@@ -77,8 +112,26 @@ public class AudioInput extends AbstractSink {
     	//generate frames with correct size here , aggregate frames if needed.
     	//allows to accept several sources with different ptime ( packet time ) 
     	oldData=frame.getData();
+    	int length=oldData.length;
+    	if(frame.getFormat() instanceof AudioFormat)
+    	{
+    		int frameRate=((AudioFormat)frame.getFormat()).getSampleRate();
+    		if(frameRate>0 && frameRate!=sampleRate)
+    		{
+    			if(resampler==null || resampler.getInputRate()!=frameRate)
+    				resampler=new PolyphaseResampler(frameRate, sampleRate);
+    			
+    			int maxLength=resampler.getOutputLength(oldData.length);
+    			if(resampled==null || resampled.length<maxLength)
+    				resampled=new byte[maxLength];
+    			
+    			length=resampler.process(oldData, 0, oldData.length, resampled, 0);
+    			oldData=resampled;
+    		}
+    	}
+    	
     	count=0;
-    	while(count<oldData.length)
+    	while(count<length)
     	{
     		if(activeData==null)
     		{
@@ -89,21 +142,25 @@ public class AudioInput extends AbstractSink {
     			byteIndex=0;
     		}
     		
-    		if(oldData.length-count<activeData.length-byteIndex)
+    		if(length-count<activeData.length-byteIndex)
     		{
-    			System.arraycopy(oldData, count, activeData, byteIndex, oldData.length-count);
-    			byteIndex+=oldData.length-count;
-    			count=oldData.length;    			
+    			System.arraycopy(oldData, count, activeData, byteIndex, length-count);
+    			byteIndex+=length-count;
+    			count=length;    			
     		}
     		else
     		{
     			System.arraycopy(oldData, count, activeData, byteIndex, activeData.length-byteIndex);
     			count+=activeData.length-byteIndex;
     			
-    			if (buffer.size() >= limit) 
-            		buffer.poll().recycle();
+    			if (buffer.size() >= limit) {
+    				Frame oldest = buffer.poll();
+    				if (oldest != null)
+    					oldest.recycle();
+    			}
                 
-            	buffer.offer(activeFrame);
+            	if (!buffer.offer(activeFrame))
+            		activeFrame.recycle();
             	
             	activeFrame=null;
     			activeData=null;    			    			
@@ -22,7 +22,9 @@
 
 package org.mobicents.media.server.component.audio;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mobicents.media.server.concurrent.ConcurrentMap;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
@@ -36,17 +38,20 @@ import org.mobicents.media.server.spi.format.FormatFactory;
  * @author Yulian Oifa
  */
 public class AudioMixer {
+
+	public static final int DEFAULT_PARTITION_SIZE = 128;
+
 	// scheduler for mixer job scheduling
 	private PriorityQueueScheduler scheduler;
 
 	// the format of the output stream.
-	private AudioFormat format = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+	private final AudioFormat format;
 
 	// The pool of components
 	private ConcurrentMap<AudioComponent> components = new ConcurrentMap<AudioComponent>();
 
 	private long period = 20000000L;
-	private int packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
+	private final int packetSize;
 
 	private MixTask mixer;
 	private volatile boolean started = false;
@@ -55,13 +60,41 @@ public class AudioMixer {
 
 	// gain value
 	private double gain = 1.0;
+	private volatile int fixedGain = MixingEngine.UNITY_GAIN;
+
+	// maximum number of talkers mixed on each cycle (0 mixes everyone)
+	private volatile int maxTalkers = 0;
+
+	// minimum number of participants mixed by each scheduler worker
+	private volatile int partitionSize = DEFAULT_PARTITION_SIZE;
 
 	public AudioMixer(PriorityQueueScheduler scheduler) {
+		this(scheduler, AudioComponent.DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Creates a mixer that mixes audio at the given rate.
+	 * <p>
+	 * The cost of a mixing cycle grows with the rate, so narrowband conferences should stay at 8kHz. Components joining
+	 * the mixer are switched to its rate, and their legs are resampled only if they run at a different rate.
+	 * </p>
+	 * 
+	 * @param scheduler The scheduler that runs the mixing cycles.
+	 * @param sampleRate The sampling rate of the mix, in Hz.
+	 */
+	public AudioMixer(PriorityQueueScheduler scheduler, int sampleRate) {
 		this.scheduler = scheduler;
+		this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+		this.packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
 		this.mixer = new MixTask();
 	}
 
+	public int getSampleRate() {
+		return format.getSampleRate();
+	}
+
 	public void addComponent(AudioComponent component) {
+		component.setSampleRate(format.getSampleRate());
 		components.put(component.getComponentId(), component);
 	}
 
@@ -69,6 +102,19 @@ public class AudioMixer {
 		return this.packetSize;
 	}
 
+	/**
+	 * Runs one mixing cycle on the calling thread.
+	 * <p>
+	 * Meant for tests and benchmarks, as the mixer is otherwise driven by the scheduler once started. Partitions forked
+	 * while the scheduler is not running are mixed one after the other by the calling thread.
+	 * </p>
+	 * 
+	 * @return the result of the mixing task.
+	 */
+	public long mixOnce() {
+		return this.mixer.perform();
+	}
+
 	/**
 	 * Releases unused input stream
 	 * 
@@ -87,6 +133,45 @@ public class AudioMixer {
 	 */
 	public void setGain(double gain) {
 		this.gain = gain > 0 ? gain * 1.26 : gain == 0 ? 1 : 1 / (gain * 1.26);
+		this.fixedGain = MixingEngine.toFixedPoint(this.gain);
+	}
+
+	/**
+	 * Limits the mix to the loudest talkers, so large conferences only sum the voices that are actually heard.
+	 * <p>
+	 * Talkers left out of the mix hear the loudest ones, like any listener.
+	 * </p>
+	 * 
+	 * @param maxTalkers The maximum number of talkers mixed on each cycle. Zero or less mixes every talker.
+	 */
+	public void setMaxTalkers(int maxTalkers) {
+		this.maxTalkers = Math.max(0, maxTalkers);
+	}
+
+	public int getMaxTalkers() {
+		return maxTalkers;
+	}
+
+	/**
+	 * Sets how many participants each scheduler worker mixes, at least, before the conference is split in one more
+	 * partition.
+	 * <p>
+	 * Conferences with fewer participants are mixed by a single worker. Larger conferences are split in partitions that
+	 * are mixed in parallel, up to one partition per worker.
+	 * </p>
+	 * 
+	 * @param partitionSize The minimum number of participants of a partition.
+	 * @throws IllegalArgumentException If the size is not positive.
+	 */
+	public void setPartitionSize(int partitionSize) {
+		if (partitionSize <= 0) {
+			throw new IllegalArgumentException("Partition size must be positive: " + partitionSize);
+		}
+		this.partitionSize = partitionSize;
+	}
+
+	public int getPartitionSize() {
+		return partitionSize;
 	}
 
 	public void start() {
@@ -100,17 +185,49 @@ public class AudioMixer {
 		mixer.cancel();
 	}
 
+	/**
+	 * Mixes the participants of the conference once per cycle.
+	 * <p>
+	 * Participants are split in partitions of at least {@link AudioMixer#getPartitionSize()} elements, up to one per
+	 * scheduler worker. Each partition is read by its own task, forked within the mixer queue. The last partition to
+	 * finish reading reduces the partial mixes and forks the tasks that write the mix back to each partition. Small
+	 * conferences fit in a single partition and are mixed by this task alone.
+	 * </p>
+	 */
 	private class MixTask extends Task {
-		int sourcesCount = 0;
-		private int i;
-		private int minValue = 0;
-		private int maxValue = 0;
-		private double currGain = 0;
-		private int[] total = new int[packetSize / 2];
-		private int[] current;
+		private final int samples = packetSize / 2;
+		private final int[] total = new int[samples];
+		private final byte[] mix = new byte[packetSize];
+
+		// snapshot of the participants taken at the start of each cycle
+		private AudioComponent[] participants = new AudioComponent[8];
+		private int participantCount;
+
+		private final MixPartition[] partitions;
+		private final ReadTask[] readTasks;
+		private final WriteTask[] writeTasks;
+		private final AtomicInteger pendingReads = new AtomicInteger(0);
+		private int partitionCount;
+
+		// loudest talkers of all partitions
+		private AudioComponent[] candidates = new AudioComponent[8];
+
+		// settings of the current cycle, shared by all partitions
+		private int cycleMaxTalkers;
+		private int cycleGain;
+		private boolean minusOne;
 
 		public MixTask() {
 			super();
+			final int maxPartitions = Math.max(1, scheduler.getPoolSize());
+			this.partitions = new MixPartition[maxPartitions];
+			this.readTasks = new ReadTask[maxPartitions];
+			this.writeTasks = new WriteTask[maxPartitions];
+			for (int i = 0; i < maxPartitions; i++) {
+				this.partitions[i] = new MixPartition(samples);
+				this.readTasks[i] = new ReadTask(this.partitions[i]);
+				this.writeTasks[i] = new WriteTask(this.partitions[i]);
+			}
 		}
 
 		@Override
@@ -120,76 +237,186 @@ public class AudioMixer {
 
 		@Override
 		public long perform() {
-			// summarize all
-			sourcesCount = 0;
+			snapshot();
+			if (participantCount > 0) {
+				cycleMaxTalkers = maxTalkers;
+				cycleGain = fixedGain;
+
+				// spread the participants evenly over as many partitions as the conference needs
+				partitionCount = Math.min(partitions.length, (participantCount + partitionSize - 1) / partitionSize);
+				for (int i = 0; i < partitionCount; i++) {
+					partitions[i].assign(participantCount * i / partitionCount, participantCount * (i + 1) / partitionCount);
+				}
+
+				pendingReads.set(partitionCount);
+				for (int i = 1; i < partitionCount; i++) {
+					scheduler.fork(readTasks[i]);
+				}
+				readTasks[0].perform();
+			}
+
+			scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
+			mixCount++;
+			return 0;
+		}
+
+		private void snapshot() {
+			final int previousCount = participantCount;
+			participantCount = 0;
 			Iterator<AudioComponent> activeComponents = components.valuesIterator();
 			while (activeComponents.hasNext()) {
-				AudioComponent component = activeComponents.next();
-				component.perform();
-				current = component.getData();
-				if (current != null) {
-					if (sourcesCount == 0) {
-						System.arraycopy(current, 0, total, 0, total.length);
-					} else {
-						for (i = 0; i < total.length; i++) {
-							total[i] += current[i];
+				if (participantCount == participants.length) {
+					participants = Arrays.copyOf(participants, participantCount * 2);
+				}
+				participants[participantCount++] = activeComponents.next();
+			}
+			if (participantCount < previousCount) {
+				Arrays.fill(participants, participantCount, previousCount, null);
+			}
+		}
+
+		/**
+		 * Sums the talkers gathered by all partitions and starts writing the mix back.
+		 * <p>
+		 * Runs on the worker that finished reading last.
+		 * </p>
+		 */
+		private void reduce() {
+			final int[] sum;
+			final int peak;
+			int mixed = 0;
+			if (cycleMaxTalkers == 0) {
+				// every talker is mixed, so only the partial mixes need to be added
+				int[] partial = null;
+				int partialPeak = 0;
+				int summed = 0;
+				for (int i = 0; i < partitionCount; i++) {
+					final MixPartition partition = partitions[i];
+					if (partition.getTalkerCount() > 0) {
+						markMixed(partition.getTalkers(), partition.getTalkerCount());
+						mixed += partition.getTalkerCount();
+						if (summed++ == 0) {
+							partial = partition.getPartial();
+							partialPeak = partition.getPeak();
+						} else if (summed == 2) {
+							System.arraycopy(partial, 0, total, 0, samples);
+							partialPeak = MixingEngine.accumulateAndPeak(total, partition.getPartial(), samples);
+						} else {
+							partialPeak = MixingEngine.accumulateAndPeak(total, partition.getPartial(), samples);
 						}
 					}
-					sourcesCount++;
 				}
+				sum = summed > 1 ? total : partial;
+				peak = partialPeak;
+			} else {
+				// the loudest talkers of each partition compete for the mix
+				int candidateCount = 0;
+				for (int i = 0; i < partitionCount; i++) {
+					final MixPartition partition = partitions[i];
+					if (candidateCount + partition.getCandidateCount() > candidates.length) {
+						candidates = Arrays.copyOf(candidates, (candidateCount + partition.getCandidateCount()) * 2);
+					}
+					System.arraycopy(partition.getTalkers(), 0, candidates, candidateCount, partition.getCandidateCount());
+					candidateCount += partition.getCandidateCount();
+				}
+
+				mixed = MixingEngine.selectLoudest(candidates, candidateCount, cycleMaxTalkers);
+				sum = total;
+				peak = mixed == 0 ? 0 : sum(candidates, mixed);
+				markMixed(candidates, mixed);
+				Arrays.fill(candidates, 0, candidateCount, null);
 			}
 
-			if (sourcesCount == 0) {
-				scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
-				mixCount++;
-				return 0;
+			if (mixed == 0) {
+				return;
 			}
 
-			minValue = 0;
-			maxValue = 0;
-			for (i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
-				}
+			// everyone but the mixed talkers hears the same mix, which is packed only once
+			minusOne = mixed > 1;
+			final int currGain = MixingEngine.normalize(cycleGain, peak);
+			if (mixed < participantCount) {
+				MixingEngine.encode(sum, null, currGain, mix, samples);
+			}
+			for (int i = 0; i < partitionCount; i++) {
+				writeTasks[i].prepare(sum, currGain);
 			}
+			for (int i = 1; i < partitionCount; i++) {
+				scheduler.fork(writeTasks[i]);
+			}
+			writeTasks[0].perform();
+		}
 
-			if (minValue > 0) {
-				minValue = 0 - minValue;
+		private int sum(AudioComponent[] talkers, int count) {
+			if (count == 1) {
+				return MixingEngine.copyAndPeak(total, talkers[0].getData(), samples);
 			}
+			System.arraycopy(talkers[0].getData(), 0, total, 0, samples);
+			for (int i = 1; i < count - 1; i++) {
+				MixingEngine.accumulate(total, talkers[i].getData(), samples);
+			}
+			return MixingEngine.accumulateAndPeak(total, talkers[count - 1].getData(), samples);
+		}
 
-			if (minValue > maxValue) {
-				maxValue = minValue;
+		private void markMixed(AudioComponent[] talkers, int count) {
+			for (int i = 0; i < count; i++) {
+				talkers[i].mixed = true;
 			}
+		}
 
-			currGain = gain;
-			if (maxValue > Short.MAX_VALUE) {
-				currGain = (currGain * (double) Short.MAX_VALUE) / (double) maxValue;
+		/**
+		 * Decodes the inputs of a partition. The last partition to be read reduces the mix.
+		 */
+		private class ReadTask extends Task {
+			private final MixPartition partition;
+
+			public ReadTask(MixPartition partition) {
+				super();
+				this.partition = partition;
 			}
 
-			for (i = 0; i < total.length; i++) {
-				total[i] = (short) ((double) total[i] * currGain);
+			@Override
+			public int getQueueNumber() {
+				return PriorityQueueScheduler.MIXER_MIX_QUEUE;
 			}
 
-			// get data for each component
-			activeComponents = components.valuesIterator();
-			while (activeComponents.hasNext()) {
-				AudioComponent component = activeComponents.next();
-				current = component.getData();
-				if (current != null && sourcesCount > 1) {
-					for (i = 0; i < total.length; i++) {
-						current[i] = total[i] - (short) ((double) current[i] * currGain);
-					}
-					component.offer(current);
-				} else if (current == null) {
-					component.offer(total);
+			@Override
+			public long perform() {
+				partition.read(participants, cycleMaxTalkers);
+				if (pendingReads.decrementAndGet() == 0) {
+					reduce();
 				}
+				return 0;
 			}
+		}
 
-			scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
-			mixCount++;
-			return 0;
+		/**
+		 * Hands the mix over to the participants of a partition.
+		 */
+		private class WriteTask extends Task {
+			private final MixPartition partition;
+			private int[] sum;
+			private int gain;
+
+			public WriteTask(MixPartition partition) {
+				super();
+				this.partition = partition;
+			}
+
+			void prepare(int[] sum, int gain) {
+				this.sum = sum;
+				this.gain = gain;
+			}
+
+			@Override
+			public int getQueueNumber() {
+				return PriorityQueueScheduler.MIXER_MIX_QUEUE;
+			}
+
+			@Override
+			public long perform() {
+				partition.write(participants, sum, mix, gain, minusOne);
+				return 0;
+			}
 		}
 	}
 }
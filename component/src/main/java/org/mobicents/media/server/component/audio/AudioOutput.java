@@ -26,7 +26,10 @@ import org.mobicents.media.server.concurrent.ConcurrentCyclicFIFO;
 import org.mobicents.media.server.impl.AbstractSink;
 import org.mobicents.media.server.impl.AbstractSource;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.FormatFactory;
 import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
 
 /**
  * Implements output for compound components.
@@ -40,6 +43,10 @@ public class AudioOutput extends AbstractSource {
 	private int outputId;
 	private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
 
+	// rate expected by the leg, and resampler for components that run at another rate
+	private volatile AudioFormat format = FormatFactory.createAudioFormat("LINEAR", AudioComponent.DEFAULT_SAMPLE_RATE, 16, 1);
+	private PolyphaseResampler resampler;
+
 	/**
 	 * Creates new instance with default name.
 	 */
@@ -52,6 +59,24 @@ public class AudioOutput extends AbstractSource {
 		return outputId;
 	}
 
+	/**
+	 * Sets the sampling rate expected by the leg fed by this output.
+	 * <p>
+	 * Frames offered at a different rate are resampled before being handed over to the leg.
+	 * </p>
+	 * 
+	 * @param sampleRate the sampling rate of the leg, in Hz.
+	 */
+	public void setSampleRate(int sampleRate) {
+		if (this.format.getSampleRate() != sampleRate) {
+			this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+		}
+	}
+
+	public int getSampleRate() {
+		return format.getSampleRate();
+	}
+
 	public void join(AbstractSink sink) {
 		connect(sink);
 	}
@@ -83,9 +108,42 @@ public class AudioOutput extends AbstractSource {
 	}
 
 	public void offer(Frame frame) {
+		if (frame.getFormat() instanceof AudioFormat) {
+			final int frameRate = ((AudioFormat) frame.getFormat()).getSampleRate();
+			if (frameRate > 0 && frameRate != format.getSampleRate()) {
+				frame = resample(frame, frameRate);
+				if (frame == null) {
+					return;
+				}
+			}
+		}
+
 		if (buffer.size() > 1) {
 			buffer.poll().recycle();
 		}
 		buffer.offer(frame);
 	}
+
+	private Frame resample(Frame frame, int frameRate) {
+		final AudioFormat legFormat = this.format;
+		if (resampler == null || resampler.getInputRate() != frameRate || resampler.getOutputRate() != legFormat.getSampleRate()) {
+			resampler = new PolyphaseResampler(frameRate, legFormat.getSampleRate());
+		}
+
+		final int outputLength = resampler.getOutputLength(frame.getLength());
+		if (outputLength == 0) {
+			frame.recycle();
+			return null;
+		}
+
+		final Frame resampled = Memory.allocate(outputLength);
+		final int length = resampler.process(frame.getData(), frame.getOffset(), frame.getLength(), resampled.getData(), 0);
+		resampled.setOffset(0);
+		resampled.setLength(length);
+		resampled.setDuration(frame.getDuration());
+		resampled.setTimestamp(frame.getTimestamp());
+		resampled.setFormat(legFormat);
+		frame.recycle();
+		return resampled;
+	}
 }
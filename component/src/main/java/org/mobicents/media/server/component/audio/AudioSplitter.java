@@ -44,9 +44,9 @@ public class AudioSplitter {
 	private final PriorityQueueScheduler scheduler;
 
 	// the format of the output stream.
-	private static final AudioFormat FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
 	private static final long PERIOD = 20000000L;
-	private static final int PACKET_SIZE = (int) (PERIOD / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
+	private final AudioFormat format;
+	private final int packetSize;
 
 	// The pools of components
 	private final ConcurrentMap<AudioComponent> insideComponents;
@@ -61,7 +61,19 @@ public class AudioSplitter {
 	private double gain = 1.0;
 
 	public AudioSplitter(PriorityQueueScheduler scheduler) {
+		this(scheduler, AudioComponent.DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Creates a splitter that carries audio at the given rate.
+	 * 
+	 * @param scheduler The scheduler that runs the mixing cycles.
+	 * @param sampleRate The sampling rate of the audio, in Hz.
+	 */
+	public AudioSplitter(PriorityQueueScheduler scheduler, int sampleRate) {
 		this.scheduler = scheduler;
+		this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+		this.packetSize = (int) (PERIOD / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
 		this.insideMixer = new InsideMixTask();
 		this.outsideMixer = new OutsideMixTask();
 		this.insideComponents = new ConcurrentMap<AudioComponent>();
@@ -70,16 +82,22 @@ public class AudioSplitter {
 		this.mixCount = new AtomicLong(0);
 	}
 
+	public int getSampleRate() {
+		return format.getSampleRate();
+	}
+
 	public void addInsideComponent(AudioComponent component) {
+		component.setSampleRate(format.getSampleRate());
 		insideComponents.put(component.getComponentId(), component);
 	}
 
 	public void addOutsideComponent(AudioComponent component) {
+		component.setSampleRate(format.getSampleRate());
 		outsideComponents.put(component.getComponentId(), component);
 	}
 
 	protected int getPacketSize() {
-		return PACKET_SIZE;
+		return packetSize;
 	}
 
 	/**
@@ -129,7 +147,7 @@ public class AudioSplitter {
 
 	private class InsideMixTask extends Task {
 
-	    private final int[] total = new int[PACKET_SIZE / 2];
+	    private final int[] total = new int[packetSize / 2];
 
 		public InsideMixTask() {
 			super();
@@ -210,7 +228,7 @@ public class AudioSplitter {
 
 	private class OutsideMixTask extends Task {
 	    
-		private final int[] total = new int[PACKET_SIZE / 2];
+		private final int[] total = new int[packetSize / 2];
 
 		public OutsideMixTask() {
 			super();
@@ -0,0 +1,164 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.component.audio;
+import java.util.Arrays;
+
+/**
+ * Slice of the participants of an {@link AudioMixer} that is read and written by a single scheduler worker.
+ * <p>
+ * While reading, the partition decodes the inputs of its participants and gathers the ones that are talking. When
+ * every talker is mixed, it also sums their samples into a partial mix, so the mixer only has to add one partial per
+ * partition. Otherwise, its talkers are sorted so the loudest ones come first and compete with the loudest talkers of
+ * the other partitions.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+final class MixPartition {
+
+    private final int samples;
+    private final int[] partial;
+    private int peak;
+
+    private AudioComponent[] talkers;
+    private int talkerCount;
+    private int candidateCount;
+
+    // slice of the participants owned by this partition
+    private int from;
+    private int to;
+
+    MixPartition(int samples) {
+        this.samples = samples;
+        this.partial = new int[samples];
+        this.talkers = new AudioComponent[8];
+    }
+
+    /**
+     * Assigns a slice of the participants to the partition.
+     * 
+     * @param from The index of the first participant, inclusive.
+     * @param to The index of the last participant, exclusive.
+     */
+    void assign(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Decodes the inputs of the participants of the partition and gathers the ones that are talking.
+     * 
+     * @param participants The participants of the mixer.
+     * @param maxTalkers The maximum number of talkers to mix. If zero, every talker is summed into the partial mix.
+     */
+    void read(AudioComponent[] participants, int maxTalkers) {
+        this.talkerCount = 0;
+        for (int i = from; i < to; i++) {
+            final AudioComponent participant = participants[i];
+            participant.perform();
+            if (participant.getData() != null) {
+                if (this.talkerCount == this.talkers.length) {
+                    this.talkers = Arrays.copyOf(this.talkers, this.talkerCount * 2);
+                }
+                this.talkers[this.talkerCount++] = participant;
+            }
+        }
+
+        this.candidateCount = MixingEngine.selectLoudest(this.talkers, this.talkerCount, maxTalkers);
+        if (maxTalkers == 0 && this.talkerCount > 0) {
+            this.peak = MixingEngine.copyAndPeak(this.partial, this.talkers[0].getData(), this.samples);
+            for (int i = 1; i < this.talkerCount; i++) {
+                if (i == this.talkerCount - 1) {
+                    this.peak = MixingEngine.accumulateAndPeak(this.partial, this.talkers[i].getData(), this.samples);
+                } else {
+                    MixingEngine.accumulate(this.partial, this.talkers[i].getData(), this.samples);
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the mix over to the participants of the partition.
+     * <p>
+     * Mixed talkers hear the total minus their own voice, while everyone else hears the shared mix.
+     * </p>
+     * 
+     * @param participants The participants of the mixer.
+     * @param total The sum of the mixed talkers.
+     * @param mix The shared mix, already scaled and packed.
+     * @param gain The gain to apply to the total, in Q16 fixed point.
+     * @param minusOne Whether mixed talkers must hear the total minus their own voice.
+     */
+    void write(AudioComponent[] participants, int[] total, byte[] mix, int gain, boolean minusOne) {
+        for (int i = from; i < to; i++) {
+            final AudioComponent participant = participants[i];
+            if (participant.mixed) {
+                participant.mixed = false;
+                if (minusOne) {
+                    participant.offer(total, participant.getData(), gain);
+                }
+            } else {
+                participant.offer(mix);
+            }
+        }
+        Arrays.fill(this.talkers, 0, this.talkerCount, null);
+        this.talkerCount = 0;
+        this.candidateCount = 0;
+    }
+
+    /**
+     * Gets the partial mix of the talkers of the partition.
+     * 
+     * @return The sum of the talkers. Only valid when every talker is mixed.
+     */
+    int[] getPartial() {
+        return partial;
+    }
+
+    /**
+     * Gets the highest absolute sample of the partial mix.
+     * 
+     * @return The peak of the partial mix. Only valid when every talker is mixed.
+     */
+    int getPeak() {
+        return peak;
+    }
+
+    AudioComponent[] getTalkers() {
+        return talkers;
+    }
+
+    int getTalkerCount() {
+        return talkerCount;
+    }
+
+    /**
+     * Gets the number of talkers of the partition that compete for the mix.
+     * 
+     * @return The loudest talkers of the partition, which come first in {@link #getTalkers()}.
+     */
+    int getCandidateCount() {
+        return candidateCount;
+    }
+
+}
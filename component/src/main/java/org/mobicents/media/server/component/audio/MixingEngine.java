@@ -0,0 +1,182 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.component.audio;
+
+/**
+ * Mixing kernels used by the {@link AudioMixer}.
+ * <p>
+ * Gain is applied in Q16 fixed point and every loop is a straight pass over primitive arrays, free of allocations and
+ * method calls, so the JIT can unroll and vectorize it.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+final class MixingEngine {
+
+    /** Q16 fixed-point representation of a gain of 1.0 */
+    static final int UNITY_GAIN = 1 << 16;
+
+    private MixingEngine() {
+        super();
+    }
+
+    /**
+     * Converts a gain to Q16 fixed point.
+     * 
+     * @param gain The linear gain.
+     * @return The gain in Q16 fixed point.
+     */
+    static int toFixedPoint(double gain) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.round(gain * UNITY_GAIN));
+    }
+
+    /**
+     * Adds samples to the running total.
+     * 
+     * @param total The running total of the mix.
+     * @param samples The samples to add.
+     * @param length The number of samples.
+     */
+    static void accumulate(int[] total, int[] samples, int length) {
+        for (int i = 0; i < length; i++) {
+            total[i] += samples[i];
+        }
+    }
+
+    /**
+     * Adds samples to the running total and computes the peak of the result in the same pass.
+     * 
+     * @param total The running total of the mix.
+     * @param samples The samples to add.
+     * @param length The number of samples.
+     * @return The highest absolute value of the total.
+     */
+    static int accumulateAndPeak(int[] total, int[] samples, int length) {
+        int max = 0;
+        int min = 0;
+        for (int i = 0; i < length; i++) {
+            final int sum = total[i] + samples[i];
+            total[i] = sum;
+            max = Math.max(max, sum);
+            min = Math.min(min, sum);
+        }
+        return Math.max(max, -min);
+    }
+
+    /**
+     * Copies samples into the total and computes their peak in the same pass.
+     * 
+     * @param total The total of the mix.
+     * @param samples The samples to copy.
+     * @param length The number of samples.
+     * @return The highest absolute value of the samples.
+     */
+    static int copyAndPeak(int[] total, int[] samples, int length) {
+        int max = 0;
+        int min = 0;
+        for (int i = 0; i < length; i++) {
+            final int sample = samples[i];
+            total[i] = sample;
+            max = Math.max(max, sample);
+            min = Math.min(min, sample);
+        }
+        return Math.max(max, -min);
+    }
+
+    /**
+     * Lowers the gain when it would push the peak of the mix beyond the range of 16-bit samples.
+     * 
+     * @param gain The gain in Q16 fixed point.
+     * @param peak The highest absolute value of the mix.
+     * @return The gain to apply to the mix, in Q16 fixed point.
+     */
+    static int normalize(int gain, int peak) {
+        if (((long) peak * gain) >> 16 > Short.MAX_VALUE) {
+            return (int) (((long) Short.MAX_VALUE << 16) / peak);
+        }
+        return gain;
+    }
+
+    /**
+     * Scales the mix, removes the voice of a participant and packs the result as 16-bit little-endian PCM, in a single pass.
+     * <p>
+     * Samples are saturated to the 16-bit range.
+     * </p>
+     * 
+     * @param total The total of the mix.
+     * @param own The samples of the participant to remove from the mix, or <code>null</code> to pack the whole mix.
+     * @param gain The gain in Q16 fixed point.
+     * @param output The buffer that will hold the PCM samples. Must hold at least twice the number of samples.
+     * @param length The number of samples.
+     */
+    static void encode(int[] total, int[] own, int gain, byte[] output, int length) {
+        if (own == null) {
+            for (int i = 0, j = 0; i < length; i++, j += 2) {
+                final int sample = saturate((total[i] * (long) gain) >> 16);
+                output[j] = (byte) sample;
+                output[j + 1] = (byte) (sample >> 8);
+            }
+        } else {
+            for (int i = 0, j = 0; i < length; i++, j += 2) {
+                final int sample = saturate(((total[i] - own[i]) * (long) gain) >> 16);
+                output[j] = (byte) sample;
+                output[j + 1] = (byte) (sample >> 8);
+            }
+        }
+    }
+
+    private static int saturate(long sample) {
+        return (int) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+    }
+
+    /**
+     * Moves the loudest components to the head of the array.
+     * 
+     * @param components The components that contribute to the mix.
+     * @param count The number of components in the array.
+     * @param max The maximum number of components to mix. Zero or less mixes all components.
+     * @return The number of components to mix, which are placed at the head of the array.
+     */
+    static int selectLoudest(AudioComponent[] components, int count, int max) {
+        if (max <= 0 || count <= max) {
+            return count;
+        }
+
+        // partial selection sort, as only a handful of talkers is kept
+        for (int i = 0; i < max; i++) {
+            int loudest = i;
+            for (int j = i + 1; j < count; j++) {
+                if (components[j].getEnergy() > components[loudest].getEnergy()) {
+                    loudest = j;
+                }
+            }
+            if (loudest != i) {
+                final AudioComponent swap = components[i];
+                components[i] = components[loudest];
+                components[loudest] = swap;
+            }
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.component.audio;
+
+import java.util.Arrays;
+
+/**
+ * Converts a stream of 16-bit little-endian PCM samples between two sampling rates.
+ * <p>
+ * The signal is conceptually upsampled by <code>L</code>, low-pass filtered and decimated by <code>M</code>, where
+ * <code>L/M</code> is the reduced ratio between both rates. Only the filter taps that contribute to the output samples are
+ * evaluated, arranged in <code>L</code> phases of a windowed-sinc filter that cuts off below the Nyquist frequency of the
+ * lowest rate.
+ * </p>
+ * <p>
+ * The resampler keeps the tail of the previous input, so consecutive frames of a stream are converted without
+ * discontinuities. It does not allocate memory once its buffer fits the frames of the stream. Instances are not
+ * thread-safe and each stream must use its own instance.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PolyphaseResampler {
+
+    // zero crossings of the filter on each side of its center, at the lowest rate
+    private static final int ZERO_CROSSINGS = 8;
+
+    // cutoff frequency, relative to the Nyquist frequency of the lowest rate
+    private static final double ROLLOFF = 0.9;
+
+    private final int inputRate;
+    private final int outputRate;
+    private final int interpolation;
+    private final int decimation;
+
+    // coefficients of each phase, stored one after the other
+    private final int taps;
+    private final float[] coefficients;
+
+    // tail of the previous input followed by the current input
+    private float[] buffer;
+
+    // position of the next output sample in the upsampled stream, relative to the current input
+    private int position;
+
+    /**
+     * Creates a new resampler.
+     * 
+     * @param inputRate The sampling rate of the input, in Hz.
+     * @param outputRate The sampling rate of the output, in Hz.
+     * @throws IllegalArgumentException If any of the rates is not positive.
+     */
+    public PolyphaseResampler(int inputRate, int outputRate) {
+        if (inputRate <= 0 || outputRate <= 0) {
+            throw new IllegalArgumentException("Sampling rates must be positive: " + inputRate + " to " + outputRate);
+        }
+        this.inputRate = inputRate;
+        this.outputRate = outputRate;
+
+        final int divisor = gcd(inputRate, outputRate);
+        this.interpolation = outputRate / divisor;
+        this.decimation = inputRate / divisor;
+
+        final int factor = Math.max(this.interpolation, this.decimation);
+        this.taps = (2 * ZERO_CROSSINGS * factor + this.interpolation - 1) / this.interpolation;
+        this.coefficients = design(this.interpolation, this.taps, ROLLOFF / (2 * factor));
+        this.buffer = new float[this.taps - 1 + 160];
+    }
+
+    public int getInputRate() {
+        return inputRate;
+    }
+
+    public int getOutputRate() {
+        return outputRate;
+    }
+
+    /**
+     * Gets the length of the output produced from the next chunk of the stream.
+     * 
+     * @param inputLength The length of the next chunk, in bytes.
+     * @return The length of the output, in bytes.
+     */
+    public int getOutputLength(int inputLength) {
+        final long end = (long) (inputLength / 2) * interpolation;
+        if (end <= position) {
+            return 0;
+        }
+        return (int) ((end - position + decimation - 1) / decimation) * 2;
+    }
+
+    /**
+     * Resamples a chunk of the stream.
+     * 
+     * @param input The input samples, 16-bit little-endian.
+     * @param offset The offset of the first input byte.
+     * @param length The length of the input, in bytes.
+     * @param output The array that receives the output samples. Must hold {@link #getOutputLength(int)} bytes after the
+     *        output offset.
+     * @param outputOffset The offset of the first output byte.
+     * @return The length of the output, in bytes.
+     */
+    public int process(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        final int samples = length / 2;
+        final int history = taps - 1;
+        if (buffer.length < history + samples) {
+            buffer = Arrays.copyOf(buffer, history + samples);
+        }
+
+        // decode the input after the tail of the previous chunk
+        for (int i = 0, j = offset; i < samples; i++, j += 2) {
+            buffer[history + i] = (short) ((input[j + 1] << 8) | (input[j] & 0xff));
+        }
+
+        // evaluate the phase of the filter that lands on each output sample
+        final int end = samples * interpolation;
+        int out = outputOffset;
+        while (position < end) {
+            final int index = position / interpolation + history;
+            final int phase = position % interpolation;
+            final int base = phase * taps;
+
+            float sum = 0;
+            for (int k = 0; k < taps; k++) {
+                sum += coefficients[base + k] * buffer[index - k];
+            }
+
+            final int sample = saturate(Math.round(sum));
+            output[out++] = (byte) sample;
+            output[out++] = (byte) (sample >> 8);
+            position += decimation;
+        }
+        position -= end;
+
+        // keep the tail for the next chunk
+        System.arraycopy(buffer, samples, buffer, 0, history);
+        return out - outputOffset;
+    }
+
+    /**
+     * Forgets the tail of the stream, so the next chunk starts a new stream.
+     */
+    public void reset() {
+        Arrays.fill(buffer, 0);
+        position = 0;
+    }
+
+    private static int saturate(int sample) {
+        if (sample > Short.MAX_VALUE) {
+            return Short.MAX_VALUE;
+        }
+        if (sample < Short.MIN_VALUE) {
+            return Short.MIN_VALUE;
+        }
+        return sample;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            final int remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+
+    /**
+     * Designs a Blackman-windowed sinc low-pass filter and splits it in phases.
+     * 
+     * @param phases The number of phases, which is the interpolation factor.
+     * @param taps The number of taps of each phase.
+     * @param cutoff The cutoff frequency, relative to the upsampled rate.
+     * @return The coefficients of each phase, normalized for unity gain at DC.
+     */
+    private static float[] design(int phases, int taps, double cutoff) {
+        final int length = phases * taps;
+        final double center = (length - 1) / 2.0;
+        final double[] prototype = new double[length];
+        for (int n = 0; n < length; n++) {
+            final double x = 2 * cutoff * (n - center);
+            final double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+            final double window = length == 1 ? 1
+                    : 0.42 - 0.5 * Math.cos(2 * Math.PI * n / (length - 1)) + 0.08 * Math.cos(4 * Math.PI * n / (length - 1));
+            prototype[n] = 2 * cutoff * sinc * window;
+        }
+
+        // tap k of a phase p is the sample p + k * phases of the prototype
+        final float[] coefficients = new float[length];
+        for (int phase = 0; phase < phases; phase++) {
+            double sum = 0;
+            for (int k = 0; k < taps; k++) {
+                sum += prototype[phase + k * phases];
+            }
+            for (int k = 0; k < taps; k++) {
+                coefficients[phase * taps + k] = (float) (prototype[phase + k * phases] / sum);
+            }
+        }
+        return coefficients;
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.component.audio;
+
+/**
+ * Gathers the audio of a tone detector in blocks, and has the blocks that are not silent measured by a
+ * {@link ToneFilterBank}.
+ * <p>
+ * Blocks are measured by a {@link ToneDetectionEngine} shared with other detectors, or inline by the thread delivering the
+ * audio when the analyzer has no engine. Either way, the results are reported to the {@link Callback} of the detector.
+ * </p>
+ * <p>
+ * Audio must be delivered by one thread at a time.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class ToneAnalyzer {
+
+    /**
+     * Receives the power measured on each block that passed the silence gate.
+     */
+    public interface Callback {
+
+        /**
+         * @param bank The bank that measured the block
+         * @param power The squared magnitude of each frequency of the bank. Only valid during the call.
+         */
+        void onAnalysis(ToneFilterBank bank, float[] power);
+
+    }
+
+    private final Callback callback;
+    private final ToneDetectionEngine engine;
+
+    private volatile ToneFilterBank bank;
+    private float[] block;
+    private float[] power;
+    private int offset;
+    private long energy;
+    private long silenceEnergy;
+
+    // incremented on each reset, so blocks measured late are not reported to a later activation
+    private volatile int session;
+
+    /**
+     * Creates an analyzer.
+     * 
+     * @param callback Receives the results of the analysis
+     * @param engine The engine measuring the blocks. If null, blocks are measured inline.
+     */
+    public ToneAnalyzer(Callback callback, ToneDetectionEngine engine) {
+        this.callback = callback;
+        this.engine = engine;
+        this.power = new float[0];
+    }
+
+    public ToneFilterBank getBank() {
+        return bank;
+    }
+
+    /**
+     * Sets the frequencies being looked for. Audio gathered so far is discarded, as are blocks waiting for the engine.
+     */
+    public void setBank(ToneFilterBank bank) {
+        this.bank = bank;
+        if (this.block == null || this.block.length != bank.getBlockSize()) {
+            this.block = new float[bank.getBlockSize()];
+        }
+        if (this.power.length < bank.getFrequencyCount()) {
+            this.power = new float[bank.getFrequencyCount()];
+        }
+        this.offset = 0;
+        this.energy = 0;
+        this.session++;
+    }
+
+    /**
+     * Sets the silence gate. Blocks whose energy is below the energy of a sine wave peaking at the given amplitude are
+     * skipped without being measured.
+     * 
+     * @param amplitude The amplitude, on the scale of 16-bit samples
+     */
+    public void setSilenceLevel(double amplitude) {
+        this.silenceEnergy = (long) (amplitude * amplitude / 2);
+    }
+
+    /**
+     * Discards the audio gathered so far, along with the results of blocks still waiting for the engine.
+     */
+    public void reset() {
+        this.offset = 0;
+        this.energy = 0;
+        this.session++;
+    }
+
+    /**
+     * Gathers audio.
+     * 
+     * @param data Little endian 16-bit linear samples
+     * @param offset The index of the first byte
+     * @param length The number of bytes
+     */
+    public void process(byte[] data, int offset, int length) {
+        ToneFilterBank bank = this.bank;
+        if (bank == null) {
+            return;
+        }
+
+        float[] block = this.block;
+        int size = block.length;
+        int end = offset + length - 1;
+        for (int k = offset; k < end; k += 2) {
+            int s = (data[k] & 0xff) | (data[k + 1] << 8);
+            this.energy += s * s;
+            block[this.offset++] = s;
+
+            if (this.offset == size) {
+                if (this.energy >= this.silenceEnergy * size) {
+                    if (this.engine == null) {
+                        bank.analyze(block, 0, this.power);
+                        this.callback.onAnalysis(bank, this.power);
+                    } else {
+                        this.engine.submit(this, bank, block, this.session);
+                    }
+                }
+                this.offset = 0;
+                this.energy = 0;
+            }
+        }
+    }
+
+    /**
+     * Reports the measures of a block, unless the analyzer was reset since the block was submitted.
+     */
+    void analyzed(ToneFilterBank bank, float[] power, int session) {
+        if (session == this.session) {
+            this.callback.onAnalysis(bank, power);
+        }
+    }
+
+}
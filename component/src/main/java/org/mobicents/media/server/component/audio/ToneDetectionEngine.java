@@ -0,0 +1,199 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.component.audio;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.Task;
+
+/**
+ * Measures the blocks of audio of many tone detectors, in one pass of the scheduler.
+ * <p>
+ * {@link ToneAnalyzer}s submit the blocks that pass their silence gate. Every submitted block is measured on the next cycle
+ * of the scheduler by a single task, with the shared {@link ToneFilterBank} of the frequencies its detector looks for. One
+ * engine serves every kind of detector, be it DTMF, call progress or fax tones.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class ToneDetectionEngine {
+
+    private final PriorityQueueScheduler scheduler;
+    private final DetectionTask task;
+
+    // blocks being submitted and blocks being measured, swapped on every pass
+    private Batch pending;
+    private Batch ready;
+
+    // Metrics
+    private final AtomicLong analysedBlocks;
+    private final AtomicLong passes;
+
+    public ToneDetectionEngine(PriorityQueueScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.task = new DetectionTask();
+        this.pending = new Batch(16, 16 * 640);
+        this.ready = new Batch(16, 16 * 640);
+        this.analysedBlocks = new AtomicLong(0);
+        this.passes = new AtomicLong(0);
+    }
+
+    /**
+     * Gets the number of blocks measured since the engine was created.
+     */
+    public long getAnalysedBlocks() {
+        return analysedBlocks.get();
+    }
+
+    /**
+     * Gets the number of scheduler passes that measured at least one block.
+     */
+    public long getPasses() {
+        return passes.get();
+    }
+
+    /**
+     * Gets the task measuring the pending blocks, which is submitted to the scheduler as blocks arrive.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Queues a block to be measured on the next pass.
+     * 
+     * @param analyzer The analyzer that gathered the block
+     * @param bank The filters that measure the block
+     * @param block The samples, which are copied so the analyzer can reuse the array
+     * @param session Identifies the activation of the analyzer
+     */
+    void submit(ToneAnalyzer analyzer, ToneFilterBank bank, float[] block, int session) {
+        synchronized (this) {
+            this.pending.add(analyzer, bank, block, session);
+        }
+        this.scheduler.submit(this.task, PriorityQueueScheduler.INPUT_QUEUE);
+    }
+
+    /**
+     * Measures every block submitted since the previous pass.
+     */
+    private final class DetectionTask extends Task {
+
+        private float[] power = new float[8];
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.INPUT_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            Batch batch;
+            synchronized (ToneDetectionEngine.this) {
+                batch = pending;
+                pending = ready;
+                ready = batch;
+            }
+
+            int count = batch.count;
+            for (int i = 0; i < count; i++) {
+                ToneFilterBank bank = batch.banks[i];
+                if (this.power.length < bank.getFrequencyCount()) {
+                    this.power = new float[bank.getFrequencyCount()];
+                }
+                bank.analyze(batch.samples, batch.offsets[i], this.power);
+                batch.analyzers[i].analyzed(bank, this.power, batch.sessions[i]);
+
+                batch.analyzers[i] = null;
+                batch.banks[i] = null;
+            }
+            batch.count = 0;
+            batch.length = 0;
+
+            if (count > 0) {
+                analysedBlocks.addAndGet(count);
+                passes.incrementAndGet();
+            }
+            return 0;
+        }
+
+    }
+
+    /**
+     * Blocks of samples laid out back to back, along with the analyzers they belong to.
+     */
+    private static final class Batch {
+
+        private ToneAnalyzer[] analyzers;
+        private ToneFilterBank[] banks;
+        private int[] sessions;
+        private int[] offsets;
+        private int count;
+
+        private float[] samples;
+        private int length;
+
+        Batch(int blocks, int samples) {
+            this.analyzers = new ToneAnalyzer[blocks];
+            this.banks = new ToneFilterBank[blocks];
+            this.sessions = new int[blocks];
+            this.offsets = new int[blocks];
+            this.samples = new float[samples];
+        }
+
+        void add(ToneAnalyzer analyzer, ToneFilterBank bank, float[] block, int session) {
+            if (this.count == this.analyzers.length) {
+                int capacity = this.count * 2;
+                ToneAnalyzer[] analyzers = new ToneAnalyzer[capacity];
+                ToneFilterBank[] banks = new ToneFilterBank[capacity];
+                int[] sessions = new int[capacity];
+                int[] offsets = new int[capacity];
+                System.arraycopy(this.analyzers, 0, analyzers, 0, this.count);
+                System.arraycopy(this.banks, 0, banks, 0, this.count);
+                System.arraycopy(this.sessions, 0, sessions, 0, this.count);
+                System.arraycopy(this.offsets, 0, offsets, 0, this.count);
+                this.analyzers = analyzers;
+                this.banks = banks;
+                this.sessions = sessions;
+                this.offsets = offsets;
+            }
+            if (this.length + block.length > this.samples.length) {
+                float[] samples = new float[Math.max(this.samples.length * 2, this.length + block.length)];
+                System.arraycopy(this.samples, 0, samples, 0, this.length);
+                this.samples = samples;
+            }
+
+            this.analyzers[this.count] = analyzer;
+            this.banks[this.count] = bank;
+            this.sessions[this.count] = session;
+            this.offsets[this.count] = this.length;
+            System.arraycopy(block, 0, this.samples, this.length, block.length);
+            this.length += block.length;
+            this.count++;
+        }
+
+    }
+
+}
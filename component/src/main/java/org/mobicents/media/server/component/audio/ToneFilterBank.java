@@ -0,0 +1,174 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.component.audio;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bank of Goertzel filters that measures the power of a set of frequencies over blocks of audio.
+ * <p>
+ * Banks hold no state besides their coefficients, so a single bank is shared by every detector looking for the same
+ * frequencies, see {@link #getInstance(int, int, int...)}. Blocks are Hamming windowed once, then swept by the filters four at
+ * a time, in single precision.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public final class ToneFilterBank {
+
+    private static final ConcurrentMap<String, ToneFilterBank> BANKS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Integer, float[]> WINDOWS = new ConcurrentHashMap<>();
+
+    private final int sampleRate;
+    private final int blockSize;
+    private final int[] frequencies;
+    private final float[] window;
+    private final float[] cosines;
+    private final float[] sines;
+
+    private ToneFilterBank(int sampleRate, int blockSize, int[] frequencies) {
+        this.sampleRate = sampleRate;
+        this.blockSize = blockSize;
+        this.frequencies = frequencies;
+        this.window = getWindow(blockSize);
+        this.cosines = new float[frequencies.length];
+        this.sines = new float[frequencies.length];
+        for (int i = 0; i < frequencies.length; i++) {
+            double w = 2 * Math.PI * frequencies[i] / sampleRate;
+            this.cosines[i] = (float) (2.0 * Math.cos(w));
+            this.sines[i] = (float) Math.sin(w);
+        }
+    }
+
+    /**
+     * Gets the bank that measures a set of frequencies.
+     * 
+     * @param sampleRate The sampling rate of the audio, in Hz
+     * @param blockSize The number of samples measured at once
+     * @param frequencies The frequencies to measure, in Hz
+     * @return The bank, shared with every caller asking for the same frequencies
+     */
+    public static ToneFilterBank getInstance(int sampleRate, int blockSize, int... frequencies) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (frequencies.length == 0) {
+            throw new IllegalArgumentException("At least one frequency must be measured");
+        }
+
+        String key = sampleRate + ":" + blockSize + ":" + Arrays.toString(frequencies);
+        ToneFilterBank bank = BANKS.get(key);
+        if (bank == null) {
+            bank = new ToneFilterBank(sampleRate, blockSize, frequencies.clone());
+            ToneFilterBank existing = BANKS.putIfAbsent(key, bank);
+            if (existing != null) {
+                bank = existing;
+            }
+        }
+        return bank;
+    }
+
+    private static float[] getWindow(int blockSize) {
+        float[] window = WINDOWS.get(blockSize);
+        if (window == null) {
+            window = new float[blockSize];
+            double o = 2 * Math.PI / blockSize;
+            for (int i = 0; i < blockSize; i++) {
+                window[i] = (float) (0.54 - 0.46 * Math.cos(o * i));
+            }
+            float[] existing = WINDOWS.putIfAbsent(blockSize, window);
+            if (existing != null) {
+                window = existing;
+            }
+        }
+        return window;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public int getFrequencyCount() {
+        return frequencies.length;
+    }
+
+    public int[] getFrequencies() {
+        return frequencies.clone();
+    }
+
+    /**
+     * Measures the power of each frequency of the bank over a block of audio.
+     * 
+     * @param block The samples of the block, which are windowed in place.
+     * @param offset The index of the first sample of the block.
+     * @param power Where the squared magnitude of each frequency is stored, in the order of the frequencies of the bank.
+     */
+    public void analyze(float[] block, int offset, float[] power) {
+        for (int n = 0; n < blockSize; n++) {
+            block[offset + n] *= window[n];
+        }
+
+        // interleave four filters, so each sample is loaded once for four frequencies
+        int filter = 0;
+        for (; filter + 3 < frequencies.length; filter += 4) {
+            final float c0 = cosines[filter], c1 = cosines[filter + 1], c2 = cosines[filter + 2], c3 = cosines[filter + 3];
+            float a0 = 0, a1 = 0, a2 = 0, a3 = 0;
+            float b0 = 0, b1 = 0, b2 = 0, b3 = 0;
+            float y;
+            for (int n = offset; n < offset + blockSize; n++) {
+                float x = block[n];
+                y = x + c0 * a0 - b0; b0 = a0; a0 = y;
+                y = x + c1 * a1 - b1; b1 = a1; a1 = y;
+                y = x + c2 * a2 - b2; b2 = a2; a2 = y;
+                y = x + c3 * a3 - b3; b3 = a3; a3 = y;
+            }
+            power[filter] = magnitude(filter, a0, b0);
+            power[filter + 1] = magnitude(filter + 1, a1, b1);
+            power[filter + 2] = magnitude(filter + 2, a2, b2);
+            power[filter + 3] = magnitude(filter + 3, a3, b3);
+        }
+
+        for (; filter < frequencies.length; filter++) {
+            final float c = cosines[filter];
+            float a = 0, b = 0, y;
+            for (int n = offset; n < offset + blockSize; n++) {
+                y = block[n] + c * a - b; b = a; a = y;
+            }
+            power[filter] = magnitude(filter, a, b);
+        }
+    }
+
+    private float magnitude(int filter, float d1, float d2) {
+        float real = 0.5f * cosines[filter] * d1 - d2;
+        float imaginary = sines[filter] * d1;
+        return real * real + imaginary * imaginary;
+    }
+
+}
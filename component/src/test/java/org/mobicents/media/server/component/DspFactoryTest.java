@@ -28,6 +28,8 @@
 package org.mobicents.media.server.component;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.After;
@@ -141,4 +143,73 @@ public class DspFactoryTest {
         System.out.println("fmt=" + frame2.getFormat().getName());
         assertTrue("Format missmatch", fmt2.matches(frame2.getFormat()));    	
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMultiHopTranscoding() throws Exception {
+        // given - A-law can only reach u-law through linear audio
+        Format alaw = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        Format ulaw = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+        dspFactory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.alaw.Decoder");
+        dspFactory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Encoder");
+        Dsp dsp = dspFactory.newProcessor();
+
+        // when
+        Frame frame2 = dsp.process(alawFrame(alaw), alaw, ulaw);
+
+        // then
+        assertTrue(ulaw.matches(frame2.getFormat()));
+        assertEquals(160, frame2.getLength());
+    }
+
+    @Test
+    public void testDirectTranscoding() throws Exception {
+        // given - processors with and without the direct converter
+        Format alaw = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        Format ulaw = FormatFactory.createAudioFormat("pcmu", 8000, 8, 1);
+        dspFactory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.alaw.Decoder");
+        dspFactory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.ulaw.Encoder");
+        Dsp chained = dspFactory.newProcessor();
+        dspFactory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.AlawToUlawTranscoder");
+        Dsp direct = dspFactory.newProcessor();
+        Dsp shared = dspFactory.newProcessor();
+
+        // when
+        Frame chainedFrame = chained.process(alawFrame(alaw), alaw, ulaw);
+        Frame directFrame = direct.process(alawFrame(alaw), alaw, ulaw);
+
+        // then - the direct converter produces the same codes in a single hop
+        assertTrue(ulaw.matches(directFrame.getFormat()));
+        assertEquals(chainedFrame.getLength(), directFrame.getLength());
+        for (int i = 0; i < directFrame.getLength(); i++) {
+            assertEquals(chainedFrame.getData()[i], directFrame.getData()[i]);
+        }
+        assertNotSame(direct.getCodecs()[2], shared.getCodecs()[2]);
+    }
+
+    @Test
+    public void testNoTranscodingPath() throws Exception {
+        // given
+        Format alaw = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        Format gsm = FormatFactory.createAudioFormat("gsm", 8000);
+        dspFactory.addCodec("org.mobicents.media.server.impl.dsp.audio.g711.alaw.Decoder");
+        Dsp dsp = dspFactory.newProcessor();
+        Frame frame = alawFrame(alaw);
+
+        // when
+        Frame frame2 = dsp.process(frame, alaw, gsm);
+
+        // then
+        assertSame(frame, frame2);
+    }
+
+    private static Frame alawFrame(Format alaw) {
+        Frame frame = Memory.allocate(160);
+        for (int i = 0; i < 160; i++) {
+            frame.getData()[i] = (byte) (i * 7);
+        }
+        frame.setOffset(0);
+        frame.setLength(160);
+        frame.setFormat(alaw);
+        return frame;
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.component.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.WallClock;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.FormatFactory;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * Tests for {@link MixingEngine}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MixingEngineTest {
+
+    @Test
+    public void testAccumulateAndPeak() {
+        // given
+        int[] total = new int[3];
+        int[] samples1 = { 100, -200, 300 };
+        int[] samples2 = { 1000, -2000, 5 };
+
+        // when
+        int peak1 = MixingEngine.copyAndPeak(total, samples1, 3);
+        MixingEngine.accumulate(total, samples1, 3);
+        int peak2 = MixingEngine.accumulateAndPeak(total, samples2, 3);
+
+        // then
+        assertEquals(300, peak1);
+        assertEquals(2400, peak2);
+        assertArrayEquals(new int[] { 1200, -2400, 605 }, total);
+    }
+
+    @Test
+    public void testNormalize() {
+        // given
+        int unity = MixingEngine.UNITY_GAIN;
+        int double_ = MixingEngine.toFixedPoint(2.0);
+
+        // then
+        assertEquals(unity, MixingEngine.normalize(unity, Short.MAX_VALUE));
+        // fixed point may round the peak one step below full scale
+        assertEquals(Short.MAX_VALUE, (65534L * MixingEngine.normalize(unity, 65534)) >> 16, 1);
+        assertEquals(Short.MAX_VALUE, (20000L * MixingEngine.normalize(double_, 20000)) >> 16, 1);
+        assertEquals(double_, MixingEngine.normalize(double_, 10000));
+    }
+
+    @Test
+    public void testEncodeMinusOneWithSaturation() {
+        // given
+        int[] total = { 1000, -1000, 40000, -40000 };
+        int[] own = { 400, -400, 0, 0 };
+        byte[] output = new byte[8];
+
+        // when
+        MixingEngine.encode(total, own, MixingEngine.toFixedPoint(0.5), output, 4);
+
+        // then
+        assertEquals(300, sample(output, 0));
+        assertEquals(-300, sample(output, 1));
+        assertEquals(20000, sample(output, 2));
+        assertEquals(-20000, sample(output, 3));
+
+        // when
+        MixingEngine.encode(total, null, MixingEngine.UNITY_GAIN, output, 4);
+
+        // then
+        assertEquals(1000, sample(output, 0));
+        assertEquals(-1000, sample(output, 1));
+        assertEquals(Short.MAX_VALUE, sample(output, 2));
+        assertEquals(Short.MIN_VALUE, sample(output, 3));
+    }
+
+    @Test
+    public void testSelectLoudest() throws IOException {
+        // given
+        AudioComponent[] components = new AudioComponent[4];
+        int[] levels = { 10, 400, 30, 200 };
+        for (int i = 0; i < components.length; i++) {
+            components[i] = talker(i, levels[i]);
+        }
+        AudioComponent loudest = components[1];
+        AudioComponent secondLoudest = components[3];
+
+        // when
+        int selected = MixingEngine.selectLoudest(components, 4, 2);
+        int all = MixingEngine.selectLoudest(components, 4, 0);
+
+        // then
+        assertEquals(2, selected);
+        assertEquals(4, all);
+        assertSame(loudest, components[0]);
+        assertSame(secondLoudest, components[1]);
+    }
+
+    @Test
+    public void testMixLoudestTalkers() throws IOException {
+        // given
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        AudioMixer mixer = new AudioMixer(scheduler);
+        mixer.setMaxTalkers(2);
+
+        int[] levels = { 100, 1000, 2000, 0 };
+        AudioComponent[] components = new AudioComponent[levels.length];
+        AudioInput[] inputs = new AudioInput[levels.length];
+        AudioOutput[] outputs = new AudioOutput[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            components[i] = new AudioComponent(i);
+            components[i].updateMode(true, true);
+            inputs[i] = new AudioInput(i, 320);
+            components[i].addInput(inputs[i]);
+            outputs[i] = new AudioOutput(scheduler, i);
+            components[i].addOutput(outputs[i]);
+            mixer.addComponent(components[i]);
+        }
+
+        // when - the last component only listens
+        for (int i = 0; i < levels.length - 1; i++) {
+            inputs[i].onMediaTransfer(frame(levels[i]));
+        }
+        mixer.mixOnce();
+
+        // then - the quietest talker is left out and hears the two loudest
+        assertEquals(3000, sample(outputs[0].evolve(0).getData(), 0));
+        assertEquals(2000, sample(outputs[1].evolve(0).getData(), 0));
+        assertEquals(1000, sample(outputs[2].evolve(0).getData(), 0));
+        assertEquals(3000, sample(outputs[3].evolve(0).getData(), 0));
+        assertNull(outputs[3].evolve(0));
+    }
+
+    @Test
+    public void testMixPartitions() throws IOException {
+        // given - one participant per partition
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        AudioMixer mixer = new AudioMixer(scheduler);
+        mixer.setPartitionSize(1);
+
+        int[] levels = { 100, 1000, 2000, 0, 0 };
+        AudioInput[] inputs = new AudioInput[levels.length];
+        AudioOutput[] outputs = new AudioOutput[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            AudioComponent component = new AudioComponent(i);
+            component.updateMode(true, true);
+            inputs[i] = new AudioInput(i, 320);
+            component.addInput(inputs[i]);
+            outputs[i] = new AudioOutput(scheduler, i);
+            component.addOutput(outputs[i]);
+            mixer.addComponent(component);
+        }
+
+        // when - two cycles, to make sure partitions are reset
+        for (int cycle = 0; cycle < 2; cycle++) {
+            for (int i = 0; i < 3; i++) {
+                inputs[i].onMediaTransfer(frame(levels[i] * (cycle + 1)));
+            }
+            mixer.mixOnce();
+        }
+
+        // then - partial mixes add up to the same mix as a single partition
+        assertEquals(3000, sample(outputs[0].evolve(0).getData(), 0));
+        assertEquals(6000, sample(outputs[0].evolve(0).getData(), 0));
+        assertEquals(1100, sample(outputs[2].evolve(0).getData(), 0));
+        assertEquals(3100, sample(outputs[3].evolve(0).getData(), 0));
+        assertEquals(3100, sample(outputs[4].evolve(0).getData(), 0));
+        assertEquals(6200, sample(outputs[4].evolve(0).getData(), 0));
+    }
+
+    @Test
+    public void testMixLoudestTalkersOfPartitions() throws IOException {
+        // given - the two loudest talkers sit in the same partition
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        AudioMixer mixer = new AudioMixer(scheduler);
+        mixer.setMaxTalkers(2);
+        mixer.setPartitionSize(2);
+
+        int[] levels = { 100, 1000, 2000, 300, 0, 0 };
+        AudioInput[] inputs = new AudioInput[levels.length];
+        AudioOutput[] outputs = new AudioOutput[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            AudioComponent component = new AudioComponent(i);
+            component.updateMode(true, true);
+            inputs[i] = new AudioInput(i, 320);
+            component.addInput(inputs[i]);
+            outputs[i] = new AudioOutput(scheduler, i);
+            component.addOutput(outputs[i]);
+            mixer.addComponent(component);
+        }
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            inputs[i].onMediaTransfer(frame(levels[i]));
+        }
+        mixer.mixOnce();
+
+        // then
+        assertEquals(3000, sample(outputs[0].evolve(0).getData(), 0));
+        assertEquals(2000, sample(outputs[1].evolve(0).getData(), 0));
+        assertEquals(1000, sample(outputs[2].evolve(0).getData(), 0));
+        assertEquals(3000, sample(outputs[3].evolve(0).getData(), 0));
+        assertEquals(3000, sample(outputs[5].evolve(0).getData(), 0));
+    }
+
+    @Test
+    public void testWidebandMix() throws IOException {
+        // given - a 16kHz mixer with a narrowband talker and a wideband listener
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        AudioMixer mixer = new AudioMixer(scheduler, 16000);
+
+        AudioComponent talker = new AudioComponent(1);
+        talker.updateMode(true, true);
+        AudioInput talkerInput = new AudioInput(1, 320);
+        talker.addInput(talkerInput);
+        mixer.addComponent(talker);
+
+        AudioComponent listener = new AudioComponent(2);
+        listener.updateMode(true, true);
+        AudioOutput narrowband = new AudioOutput(scheduler, 1);
+        AudioOutput wideband = new AudioOutput(scheduler, 2);
+        wideband.setSampleRate(16000);
+        listener.addOutput(narrowband);
+        listener.addOutput(wideband);
+        mixer.addComponent(listener);
+
+        // when - 8kHz frames are upsampled on their way in
+        Frame frame = frame(1000);
+        frame.setFormat(FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1));
+        talkerInput.onMediaTransfer(frame);
+        mixer.mixOnce();
+
+        // then - the mix runs at 16kHz and each output gets the rate of its leg
+        assertEquals(16000, talker.getSampleRate());
+        assertEquals(16000, talkerInput.getSampleRate());
+        Frame widebandFrame = wideband.evolve(0);
+        Frame narrowbandFrame = narrowband.evolve(0);
+        assertEquals(640, widebandFrame.getLength());
+        assertEquals(16000, ((AudioFormat) widebandFrame.getFormat()).getSampleRate());
+        assertEquals(320, narrowbandFrame.getLength());
+        assertEquals(8000, ((AudioFormat) narrowbandFrame.getFormat()).getSampleRate());
+        assertEquals(1000, sample(widebandFrame.getData(), 200));
+        assertEquals(1000, sample(narrowbandFrame.getData(), 100), 5);
+    }
+
+    private static AudioComponent talker(int id, int level) throws IOException {
+        AudioComponent component = new AudioComponent(id);
+        component.updateMode(true, true);
+        AudioInput input = new AudioInput(id, 320);
+        component.addInput(input);
+        input.onMediaTransfer(frame(level));
+        component.perform();
+        return component;
+    }
+
+    private static Frame frame(int level) {
+        Frame frame = Memory.allocate(320);
+        byte[] data = frame.getData();
+        for (int i = 0; i < data.length; i += 2) {
+            data[i] = (byte) level;
+            data[i + 1] = (byte) (level >> 8);
+        }
+        frame.setOffset(0);
+        frame.setLength(320);
+        return frame;
+    }
+
+    private static int sample(byte[] data, int index) {
+        return (short) ((data[index * 2 + 1] << 8) | (data[index * 2] & 0xff));
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.component.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link PolyphaseResampler}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PolyphaseResamplerTest {
+
+    @Test
+    public void testUpsampleKeepsTone() {
+        // given - one second of a 1kHz tone at 8kHz
+        PolyphaseResampler resampler = new PolyphaseResampler(8000, 16000);
+        byte[] input = tone(1000, 8000, 8000, 10000);
+
+        // when
+        byte[] output = new byte[resampler.getOutputLength(input.length)];
+        int length = resampler.process(input, 0, input.length, output, 0);
+
+        // then - same tone, twice as many samples
+        assertEquals(32000, length);
+        double expected = rms(tone(1000, 16000, 16000, 10000), 1000);
+        assertEquals(expected, rms(output, 1000), expected * 0.02);
+        assertEquals(1875, zeroCrossings(output, 1000), 20);
+    }
+
+    @Test
+    public void testDownsampleRejectsAliases() {
+        // given - a 1kHz tone and a 6kHz tone at 16kHz, the latter above the Nyquist frequency of 8kHz
+        PolyphaseResampler passResampler = new PolyphaseResampler(16000, 8000);
+        PolyphaseResampler stopResampler = new PolyphaseResampler(16000, 8000);
+        byte[] pass = tone(1000, 16000, 16000, 10000);
+        byte[] stop = tone(6000, 16000, 16000, 10000);
+
+        // when
+        byte[] passOutput = new byte[passResampler.getOutputLength(pass.length)];
+        byte[] stopOutput = new byte[stopResampler.getOutputLength(stop.length)];
+        passResampler.process(pass, 0, pass.length, passOutput, 0);
+        stopResampler.process(stop, 0, stop.length, stopOutput, 0);
+
+        // then
+        assertEquals(16000, passOutput.length);
+        assertEquals(rms(pass, 1000), rms(passOutput, 1000), rms(pass, 1000) * 0.02);
+        assertTrue(rms(stopOutput, 1000) < rms(stop, 1000) * 0.01);
+    }
+
+    @Test
+    public void testResampleStreamInFrames() {
+        // given - the same signal resampled at once and in 20ms frames
+        PolyphaseResampler whole = new PolyphaseResampler(8000, 48000);
+        PolyphaseResampler framed = new PolyphaseResampler(8000, 48000);
+        byte[] input = tone(440, 8000, 8000, 8000);
+
+        // when
+        byte[] expected = new byte[whole.getOutputLength(input.length)];
+        whole.process(input, 0, input.length, expected, 0);
+
+        byte[] actual = new byte[expected.length];
+        int written = 0;
+        for (int offset = 0; offset < input.length; offset += 320) {
+            assertEquals(1920, framed.getOutputLength(320));
+            written += framed.process(input, offset, 320, actual, written);
+        }
+
+        // then
+        assertEquals(expected.length, written);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testRationalRatio() {
+        // given
+        PolyphaseResampler resampler = new PolyphaseResampler(48000, 44100);
+        byte[] input = new byte[960 * 2];
+
+        // when - 20ms frames do not map to a whole number of samples
+        int total = 0;
+        for (int i = 0; i < 10; i++) {
+            byte[] output = new byte[resampler.getOutputLength(input.length)];
+            total += resampler.process(input, 0, input.length, output, 0);
+        }
+
+        // then
+        assertEquals(8820 * 2, total);
+    }
+
+    private static byte[] tone(int frequency, int sampleRate, int samples, int amplitude) {
+        byte[] data = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            int sample = (int) Math.round(amplitude * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+            data[i * 2] = (byte) sample;
+            data[i * 2 + 1] = (byte) (sample >> 8);
+        }
+        return data;
+    }
+
+    private static int sample(byte[] data, int index) {
+        return (short) ((data[index * 2 + 1] << 8) | (data[index * 2] & 0xff));
+    }
+
+    private static double rms(byte[] data, int skip) {
+        double sum = 0;
+        int count = data.length / 2 - 2 * skip;
+        for (int i = skip; i < skip + count; i++) {
+            sum += (double) sample(data, i) * sample(data, i);
+        }
+        return Math.sqrt(sum / count);
+    }
+
+    private static int zeroCrossings(byte[] data, int skip) {
+        int crossings = 0;
+        for (int i = skip + 1; i < data.length / 2; i++) {
+            if ((sample(data, i - 1) < 0) != (sample(data, i) < 0)) {
+                crossings++;
+            }
+        }
+        return crossings;
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.component.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.WallClock;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class ToneDetectionEngineTest {
+
+    private static byte[] sine(int samples, int amplitude, int... frequencies) {
+        byte[] data = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            double sample = 0;
+            for (int frequency : frequencies) {
+                sample += amplitude * Math.sin(2 * Math.PI * frequency * i / 8000);
+            }
+            data[2 * i] = (byte) (int) sample;
+            data[2 * i + 1] = (byte) ((int) sample >> 8);
+        }
+        return data;
+    }
+
+    private static int strongest(float[] power, int count) {
+        int max = 0;
+        for (int i = 1; i < count; i++) {
+            if (power[i] > power[max]) {
+                max = i;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Records the strongest frequency of each measured block.
+     */
+    private static final class Recorder implements ToneAnalyzer.Callback {
+
+        private final List<Integer> frequencies = new ArrayList<>();
+
+        @Override
+        public void onAnalysis(ToneFilterBank bank, float[] power) {
+            this.frequencies.add(bank.getFrequencies()[strongest(power, bank.getFrequencyCount())]);
+        }
+
+    }
+
+    @Test
+    public void testSharedBanks() {
+        // given
+        ToneFilterBank bank = ToneFilterBank.getInstance(8000, 400, 350, 440, 1100);
+
+        // when
+        ToneFilterBank same = ToneFilterBank.getInstance(8000, 400, 350, 440, 1100);
+        ToneFilterBank other = ToneFilterBank.getInstance(8000, 400, 350, 440);
+
+        // then
+        assertSame(bank, same);
+        assertEquals(2, other.getFrequencyCount());
+        assertEquals(400, other.getBlockSize());
+    }
+
+    @Test
+    public void testFilterBank() {
+        // given
+        int[] frequencies = new int[] { 350, 440, 480, 620, 1100, 2100 };
+        ToneFilterBank bank = ToneFilterBank.getInstance(8000, 400, frequencies);
+        float[] power = new float[frequencies.length];
+
+        for (int i = 0; i < frequencies.length; i++) {
+            // when
+            float[] block = new float[400];
+            for (int n = 0; n < block.length; n++) {
+                block[n] = (float) (8000 * Math.sin(2 * Math.PI * frequencies[i] * n / 8000));
+            }
+            bank.analyze(block, 0, power);
+
+            // then
+            assertEquals(i, strongest(power, frequencies.length));
+        }
+    }
+
+    @Test
+    public void testBatchOfDifferentDetectors() {
+        // given
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        ToneDetectionEngine engine = new ToneDetectionEngine(scheduler);
+
+        Recorder dtmf = new Recorder();
+        ToneAnalyzer dtmfAnalyzer = new ToneAnalyzer(dtmf, engine);
+        dtmfAnalyzer.setBank(ToneFilterBank.getInstance(8000, 640, 697, 770, 852, 941, 1209, 1336, 1477, 1633));
+        dtmfAnalyzer.setSilenceLevel(100);
+
+        Recorder fax = new Recorder();
+        ToneAnalyzer faxAnalyzer = new ToneAnalyzer(fax, engine);
+        faxAnalyzer.setBank(ToneFilterBank.getInstance(8000, 400, 1100, 2100));
+        faxAnalyzer.setSilenceLevel(100);
+
+        Recorder silent = new Recorder();
+        ToneAnalyzer silentAnalyzer = new ToneAnalyzer(silent, engine);
+        silentAnalyzer.setBank(ToneFilterBank.getInstance(8000, 400, 1100, 2100));
+        silentAnalyzer.setSilenceLevel(100);
+
+        // when
+        byte[] digit = sine(640, 4000, 852, 1209);
+        dtmfAnalyzer.process(digit, 0, digit.length);
+        byte[] cng = sine(800, 4000, 1100);
+        faxAnalyzer.process(cng, 0, cng.length);
+        byte[] quiet = sine(400, 50, 2100);
+        silentAnalyzer.process(quiet, 0, quiet.length);
+
+        // then
+        assertTrue(dtmf.frequencies.isEmpty());
+        engine.getTask().perform();
+        assertEquals(3, engine.getAnalysedBlocks());
+        assertEquals(1, engine.getPasses());
+        assertEquals(1, dtmf.frequencies.size());
+        assertEquals(Integer.valueOf(1209), dtmf.frequencies.get(0));
+        assertEquals(2, fax.frequencies.size());
+        assertEquals(Integer.valueOf(1100), fax.frequencies.get(1));
+        assertTrue(silent.frequencies.isEmpty());
+    }
+
+    @Test
+    public void testResetDiscardsPendingBlocks() {
+        // given
+        PriorityQueueScheduler scheduler = new PriorityQueueScheduler(new WallClock());
+        ToneDetectionEngine engine = new ToneDetectionEngine(scheduler);
+        Recorder recorder = new Recorder();
+        ToneAnalyzer analyzer = new ToneAnalyzer(recorder, engine);
+        analyzer.setBank(ToneFilterBank.getInstance(8000, 400, 1100, 2100));
+        byte[] ced = sine(400, 4000, 2100);
+        analyzer.process(ced, 0, ced.length);
+
+        // when
+        analyzer.reset();
+        engine.getTask().perform();
+
+        // then
+        assertEquals(1, engine.getAnalysedBlocks());
+        assertTrue(recorder.frequencies.isEmpty());
+    }
+
+    @Test
+    public void testInlineAnalysis() {
+        // given
+        Recorder recorder = new Recorder();
+        ToneAnalyzer analyzer = new ToneAnalyzer(recorder, null);
+        analyzer.setBank(ToneFilterBank.getInstance(8000, 400, 1100, 2100));
+
+        // when
+        byte[] ced = sine(600, 4000, 2100);
+        analyzer.process(ced, 0, ced.length);
+
+        // then
+        assertEquals(1, recorder.frequencies.size());
+        assertEquals(Integer.valueOf(2100), recorder.frequencies.get(0));
+    }
+
+}
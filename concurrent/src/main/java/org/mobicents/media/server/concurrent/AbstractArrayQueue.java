@@ -0,0 +1,137 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Base of the bounded, array-backed, lock-free queues.
+ * <p>
+ * Elements are stored in a ring whose capacity is rounded up to a power of two, so a slot is found by masking the
+ * ever-increasing producer and consumer indexes. No memory is allocated once the queue is built.
+ * </p>
+ * <p>
+ * The API mirrors {@link ConcurrentCyclicFIFO}, except that {@link #offer(Object)} returns <code>false</code> when the queue
+ * is full and the element was not inserted.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ * @param <E> The type of elements held in the queue.
+ */
+public abstract class AbstractArrayQueue<E> {
+
+    protected final int capacity;
+    protected final int mask;
+    protected final AtomicReferenceArray<E> buffer;
+
+    /** Index of the next slot to be written */
+    protected final PaddedAtomicLong producerIndex;
+
+    /** Index of the next slot to be read */
+    protected final PaddedAtomicLong consumerIndex;
+
+    protected AbstractArrayQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity is too large: " + capacity);
+        }
+        this.capacity = roundToPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.producerIndex = new PaddedAtomicLong(0L);
+        this.consumerIndex = new PaddedAtomicLong(0L);
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+
+    /**
+     * Inserts an element at the tail of the queue.
+     * 
+     * @param e The element to be inserted.
+     * @return <code>true</code> if the element was inserted; <code>false</code> if the queue is full.
+     * @throws NullPointerException If the element is null.
+     */
+    public abstract boolean offer(E e);
+
+    /**
+     * Retrieves and removes the head of the queue.
+     * 
+     * @return The head of the queue, or <code>null</code> if the queue is empty.
+     */
+    public abstract E poll();
+
+    /**
+     * Gets the maximum number of elements the queue can hold.
+     * 
+     * @return The capacity of the queue, which is a power of two.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the number of elements in the queue.
+     * <p>
+     * The value is only a snapshot, as producers and consumers may be working concurrently.
+     * </p>
+     * 
+     * @return The size of the queue.
+     */
+    public int size() {
+        // retry until the consumer index is stable, so producer and consumer indexes belong to the same snapshot
+        long after = this.consumerIndex.get();
+        while (true) {
+            final long before = after;
+            final long producer = this.producerIndex.get();
+            after = this.consumerIndex.get();
+            if (before == after) {
+                long size = producer - after;
+                if (size < 0) {
+                    return 0;
+                }
+                return (int) Math.min(size, this.capacity);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return this.producerIndex.get() == this.consumerIndex.get();
+    }
+
+    /**
+     * Removes all elements from the queue.
+     * <p>
+     * Must be called by a consumer, as elements are drained with {@link #poll()}.
+     * </p>
+     */
+    public void clear() {
+        while (poll() != null) {
+            // drain the queue
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue that supports multiple producers and multiple consumers.
+ * <p>
+ * Each slot carries a sequence number that tells whether it is ready to be written or read on the current lap of the ring,
+ * so producers and consumers only compete among themselves through a single CAS on their own index.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ * @param <E> The type of elements held in the queue.
+ */
+public class MpmcArrayQueue<E> extends AbstractArrayQueue<E> {
+
+    private final AtomicLongArray sequences;
+
+    public MpmcArrayQueue(int capacity) {
+        super(capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.lazySet(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        while (true) {
+            final long index = this.producerIndex.get();
+            final int offset = (int) index & this.mask;
+            final long sequence = this.sequences.get(offset);
+
+            if (sequence == index) {
+                // slot is free on this lap, try to claim it
+                if (this.producerIndex.compareAndSet(index, index + 1)) {
+                    this.buffer.lazySet(offset, e);
+                    this.sequences.set(offset, index + 1);
+                    return true;
+                }
+            } else if (sequence < index) {
+                // slot still holds the element of the previous lap
+                return false;
+            }
+            // another producer claimed the slot, retry with a fresh index
+        }
+    }
+
+    @Override
+    public E poll() {
+        while (true) {
+            final long index = this.consumerIndex.get();
+            final int offset = (int) index & this.mask;
+            final long sequence = this.sequences.get(offset);
+
+            if (sequence == index + 1) {
+                // slot was written on this lap, try to claim it
+                if (this.consumerIndex.compareAndSet(index, index + 1)) {
+                    final E e = this.buffer.get(offset);
+                    this.buffer.lazySet(offset, null);
+                    this.sequences.set(offset, index + this.capacity);
+                    return e;
+                }
+            } else if (sequence < index + 1) {
+                // slot is not written yet
+                return null;
+            }
+            // another consumer claimed the slot, retry with a fresh index
+        }
+    }
+
+}
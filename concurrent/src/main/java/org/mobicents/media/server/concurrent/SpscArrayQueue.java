@@ -0,0 +1,83 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.concurrent;
+
+/**
+ * Bounded lock-free queue that supports a <b>single</b> producer and a <b>single</b> consumer.
+ * <p>
+ * Each side owns its index, so no CAS is needed: a null slot means free and a non-null slot means ready to be read.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ * @param <E> The type of elements held in the queue.
+ */
+public class SpscArrayQueue<E> extends AbstractArrayQueue<E> {
+
+    public SpscArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Must only be called by the producer thread.
+     * </p>
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        final long index = this.producerIndex.get();
+        final int offset = (int) index & this.mask;
+        if (this.buffer.get(offset) != null) {
+            return false;
+        }
+
+        this.buffer.lazySet(offset, e);
+        this.producerIndex.lazySet(index + 1);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Must only be called by the consumer thread.
+     * </p>
+     */
+    @Override
+    public E poll() {
+        final long index = this.consumerIndex.get();
+        final int offset = (int) index & this.mask;
+        final E e = this.buffer.get(offset);
+        if (e == null) {
+            return null;
+        }
+
+        this.buffer.lazySet(offset, null);
+        this.consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link MpscArrayQueue}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MpscArrayQueueTest {
+
+    @Test
+    public void testOfferAndPoll() {
+        // given
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(3);
+
+        // when
+        boolean offered1 = queue.offer(1);
+        boolean offered2 = queue.offer(2);
+        boolean offered3 = queue.offer(3);
+        boolean offered4 = queue.offer(4);
+        boolean offered5 = queue.offer(5);
+
+        // then
+        assertEquals(4, queue.capacity());
+        assertTrue(offered1 && offered2 && offered3 && offered4);
+        assertFalse(offered5);
+        assertEquals(4, queue.size());
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertTrue(queue.offer(5));
+        assertEquals(Integer.valueOf(3), queue.poll());
+        assertEquals(Integer.valueOf(4), queue.poll());
+        assertEquals(Integer.valueOf(5), queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        // given
+        MpscArrayQueue<Integer> queue = new MpscArrayQueue<>(8);
+        for (int i = 0; i < 8; i++) {
+            queue.offer(i);
+        }
+
+        // when
+        queue.clear();
+
+        // then
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+        assertTrue(queue.offer(10));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull() {
+        new MpscArrayQueue<Integer>(8).offer(null);
+    }
+
+    @Test
+    public void testConcurrentTransfer() throws InterruptedException {
+        // given
+        final int producers = 4;
+        final int consumers = 1;
+        final int elements = 100000;
+        final MpscArrayQueue<Long> queue = new MpscArrayQueue<>(64);
+        final AtomicLong sum = new AtomicLong(0);
+        final AtomicLong received = new AtomicLong(0);
+        final CountDownLatch latch = new CountDownLatch(producers + consumers);
+
+        // when
+        for (int i = 0; i < producers; i++) {
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (long value = 1; value <= elements; value++) {
+                        while (!queue.offer(value)) {
+                            Thread.yield();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+        for (int i = 0; i < consumers; i++) {
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    while (received.get() < producers * elements) {
+                        Long value = queue.poll();
+                        if (value == null) {
+                            Thread.yield();
+                        } else {
+                            sum.addAndGet(value);
+                            received.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            }).start();
+        }
+
+        // then
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(producers * elements, received.get());
+        assertEquals(producers * ((long) elements * (elements + 1) / 2), sum.get());
+        assertTrue(queue.isEmpty());
+    }
+
+}
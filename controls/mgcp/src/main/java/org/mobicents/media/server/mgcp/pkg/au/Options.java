@@ -25,6 +25,7 @@ package org.mobicents.media.server.mgcp.pkg.au;
 import java.util.Collection;
 
 import org.mobicents.media.server.concurrent.ConcurrentCyclicFIFO;
+import org.mobicents.media.server.spi.recorder.RecordingFormat;
 import org.mobicents.media.server.utils.Text;
 /**
  * Represents parameters supplied with command.
@@ -69,6 +70,7 @@ public class Options {
     private final static Text cur = new Text("cur");
     private final static Text dpa = new Text("dpa");
     private final static Text x_md= new Text("x-md");
+    private final static Text x_rf= new Text("x-rf");
     
     private final static Text TRUE = new Text("true");
     private final static Text FALSE = new Text("false");
@@ -123,6 +125,7 @@ public class Options {
     
     private boolean nonInterruptable = false;
     private long recordDuration = -1;
+    private RecordingFormat recordFormat = null;
     private boolean clearDigits = false;
     private boolean includeEndInput = false;
     
@@ -198,6 +201,7 @@ public class Options {
         
         options.nonInterruptable = false;
         options.recordDuration = -1;
+        options.recordFormat = null;
         options.clearDigits = false;
         options.includeEndInput = false;
         
@@ -530,6 +534,8 @@ public class Options {
             	}
             	else if (name.equals(x_md))
                     this.maxDuration = value.toInteger();        		
+            	else if (name.equals(x_rf))
+                    this.recordFormat = RecordingFormat.fromEncoding(value.toString());
             }
         }
     }
@@ -658,6 +664,10 @@ public class Options {
         return this.maxDuration;
     }
     
+    public RecordingFormat getRecordFormat() {
+        return this.recordFormat;
+    }
+    
     public char getEndInputKey() {
         return this.endInputKey;
     }
@@ -281,6 +281,8 @@ public class PlayRecord extends Signal {
         recorder.setMaxRecordTime(options.getRecordDuration());
         // post speech timer
         recorder.setPostSpeechTimer(options.getPostSpeechTimer());
+        // recording format, inferred from the record file when not requested
+        recorder.setRecordFormat(options.getRecordFormat());
         if (options.getPreSpeechTimer() > 0) {
             recorder.setPreSpeechTimer(options.getPreSpeechTimer());
         } else {
@@ -11,6 +11,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import static org.junit.Assert.*;
+import org.mobicents.media.server.spi.recorder.RecordingFormat;
 import org.mobicents.media.server.utils.Text;
 
 /**
@@ -68,4 +69,20 @@ public class OptionsTest {
         
         Options.recycle(options);
     }
+
+    /**
+     * Test of getRecordFormat method, of class Options.
+     */
+    @Test
+    public void testGetRecordFormat() {
+        Text params = new Text("ri=file://tmp/test.wav x-rf=PCMU");
+        Options options = Options.allocate(params);
+        assertEquals(RecordingFormat.PCMU, options.getRecordFormat());
+        Options.recycle(options);
+
+        params = new Text("ri=file://tmp/test.wav");
+        options = Options.allocate(params);
+        assertNull(options.getRecordFormat());
+        Options.recycle(options);
+    }
 }
@@ -36,6 +36,7 @@ public class DtlsConfiguration {
     public static final String CERTIFICATE_PATH = "../conf/dtls/x509-server-ecdsa.pem";
     public static final String KEY_PATH = "../conf/dtls/x509-server-key-ecdsa.pem";
     public static final String ALGORITHM_CERTIFICATE = AlgorithmCertificate.ECDSA.name();
+    public static final int HANDSHAKE_THREADS = 8;
 
     private ProtocolVersion minVersion;
     private ProtocolVersion maxVersion;
@@ -43,6 +44,7 @@ public class DtlsConfiguration {
     private String certificatePath;
     private String keyPath;
     private AlgorithmCertificate algorithmCertificate;
+    private int handshakeThreads;
 
     public DtlsConfiguration() {
         setMinVersion(MIN_VERSION);
@@ -51,6 +53,7 @@ public class DtlsConfiguration {
         this.certificatePath = CERTIFICATE_PATH;
         this.keyPath = KEY_PATH;
         setAlgorithmCertificate(ALGORITHM_CERTIFICATE);
+        this.handshakeThreads = HANDSHAKE_THREADS;
     }
 
     public ProtocolVersion getMinVersion() {
@@ -77,6 +80,15 @@ public class DtlsConfiguration {
         return algorithmCertificate;
     }
 
+    /**
+     * Gets the maximum number of DTLS handshakes that run at the same time.
+     * 
+     * @return The number of handshake threads.
+     */
+    public int getHandshakeThreads() {
+        return handshakeThreads;
+    }
+
     public void setMinVersion(String minVersion) {
         this.minVersion = getVersionFromString(minVersion);
     }
@@ -117,4 +129,11 @@ public class DtlsConfiguration {
     public void setAlgorithmCertificate(String algorithmCertificate) {
         this.algorithmCertificate = AlgorithmCertificate.valueOf(algorithmCertificate.toUpperCase());
     }
+
+    public void setHandshakeThreads(int handshakeThreads) {
+        if (handshakeThreads <= 0) {
+            throw new IllegalArgumentException("DTLS handshake thread count must be positive");
+        }
+        this.handshakeThreads = handshakeThreads;
+    }
 }
@@ -25,6 +25,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 
+import org.mobicents.media.server.scheduler.SchedulingMode;
+
 /**
  * Configuration of Media elements.
  * 
@@ -37,11 +39,13 @@ public class MediaConfiguration {
     public static final int LOW_PORT = 64534;
     public static final int HIGH_PORT = 65534;
     public static final int JITTER_BUFFER_SIZE = 50;
+    public static final String SCHEDULING_MODE = SchedulingMode.SHARED_QUEUE.name();
 
     private int timeout;
     private int lowPort;
     private int highPort;
     private int jitterBufferSize;
+    private SchedulingMode schedulingMode;
     private final Set<String> codecs;
 
     public MediaConfiguration() {
@@ -49,6 +53,7 @@ public class MediaConfiguration {
         this.lowPort = LOW_PORT;
         this.highPort = HIGH_PORT;
         this.jitterBufferSize = JITTER_BUFFER_SIZE;
+        this.schedulingMode = SchedulingMode.fromName(SCHEDULING_MODE);
         this.codecs = new HashSet<>(5);
     }
 
@@ -100,6 +105,17 @@ public class MediaConfiguration {
         this.jitterBufferSize = jitterBufferSize;
     }
 
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
+    }
+
+    public void setSchedulingMode(String schedulingMode) {
+        if (schedulingMode == null || schedulingMode.isEmpty()) {
+            throw new IllegalArgumentException("SchedulingMode cannot be empty.");
+        }
+        this.schedulingMode = SchedulingMode.fromName(schedulingMode.trim());
+    }
+
     public void addCodec(String codec) {
         if (codec == null || codec.isEmpty()) {
             throw new IllegalArgumentException("Codec cannot be empty.");
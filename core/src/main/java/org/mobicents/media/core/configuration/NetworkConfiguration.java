@@ -21,6 +21,8 @@
 
 package org.mobicents.media.core.configuration;
 
+import org.mobicents.media.server.io.network.SelectionMode;
+
 /**
  * Network configuration of the Media Server.
  * 
@@ -34,12 +36,14 @@ public class NetworkConfiguration {
     public static final String NETWORK = "127.0.0.1";
     public static final String SUBNET = "255.255.255.255";
     public static final boolean SBC = false;
+    public static final String SELECTION_MODE = SelectionMode.POLLING.name();
 
     private String bindAddress;
     private String externalAddress;
     private String network;
     private String subnet;
     private boolean sbc;
+    private SelectionMode selectionMode;
 
     public NetworkConfiguration() {
         this.bindAddress = BIND_ADDRESS;
@@ -47,6 +51,7 @@ public class NetworkConfiguration {
         this.network = NETWORK;
         this.subnet = SUBNET;
         this.sbc = SBC;
+        this.selectionMode = SelectionMode.fromName(SELECTION_MODE);
     }
 
     public String getBindAddress() {
@@ -98,4 +103,15 @@ public class NetworkConfiguration {
         this.sbc = sbc;
     }
 
+    public SelectionMode getSelectionMode() {
+        return selectionMode;
+    }
+
+    public void setSelectionMode(String selectionMode) {
+        if (selectionMode == null || selectionMode.isEmpty()) {
+            throw new IllegalArgumentException("SelectionMode cannot be empty.");
+        }
+        this.selectionMode = SelectionMode.fromName(selectionMode.trim());
+    }
+
 }
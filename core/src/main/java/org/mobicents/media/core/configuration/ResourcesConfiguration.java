@@ -32,6 +32,8 @@ public class ResourcesConfiguration {
     public static final int REMOTE_CONNECTION_COUNT = 0;
     public static final int PLAYER_COUNT = 0;
     public static final int RECORDER_COUNT = 0;
+    public static final int RECORDER_IO_THREADS = 2;
+    public static final int RECORDER_QUEUE_SIZE = 64;
     public static final int DTMF_DETECTOR_COUNT = 0;
     public static final int DTMF_DETECTOR_DBI = -35;
     public static final int DTMF_GENERATOR_COUNT = 0;
@@ -41,11 +43,14 @@ public class ResourcesConfiguration {
     public static final int SIGNAL_GENERATOR_COUNT = 0;
     public static final int PLAYER_CACHE_SIZE = 0;
     public static final boolean PLAYER_CACHE_ENABLED = false;
+    public static final int PROMPT_CACHE_SIZE = 0;
 
     private int localConnectionCount;
     private int remoteConnectionCount;
     private int playerCount;
     private int recorderCount;
+    private int recorderIoThreads;
+    private int recorderQueueSize;
     private int dtmfDetectorCount;
     private int dtmfDetectorDbi;
     private int dtmfGeneratorCount;
@@ -54,12 +59,15 @@ public class ResourcesConfiguration {
     private int signalDetectorCount;
     private int signalGeneratorCount;
     private int playerCacheSize;
+    private int promptCacheSize;
 
     public ResourcesConfiguration() {
         this.localConnectionCount = LOCAL_CONNECTION_COUNT;
         this.remoteConnectionCount = REMOTE_CONNECTION_COUNT;
         this.playerCount = PLAYER_COUNT;
         this.recorderCount = RECORDER_COUNT;
+        this.recorderIoThreads = RECORDER_IO_THREADS;
+        this.recorderQueueSize = RECORDER_QUEUE_SIZE;
         this.dtmfDetectorCount = DTMF_DETECTOR_COUNT;
         this.dtmfDetectorDbi = DTMF_DETECTOR_DBI;
         this.dtmfGeneratorCount = DTMF_GENERATOR_COUNT;
@@ -68,6 +76,7 @@ public class ResourcesConfiguration {
         this.signalDetectorCount = SIGNAL_DETECTOR_COUNT;
         this.signalGeneratorCount = SIGNAL_GENERATOR_COUNT;
         this.playerCacheSize = PLAYER_CACHE_SIZE;
+        this.promptCacheSize = PROMPT_CACHE_SIZE;
     }
 
     public int getLocalConnectionCount() {
@@ -114,6 +123,38 @@ public class ResourcesConfiguration {
         this.recorderCount = recorderCount;
     }
 
+    /**
+     * Gets the number of threads that write recordings to disk.
+     * 
+     * @return The number of I/O threads. Zero if recordings are written by the media threads.
+     */
+    public int getRecorderIoThreads() {
+        return recorderIoThreads;
+    }
+
+    public void setRecorderIoThreads(int recorderIoThreads) {
+        if (recorderIoThreads < 0) {
+            throw new IllegalArgumentException("Recorder I/O thread count cannot be negative");
+        }
+        this.recorderIoThreads = recorderIoThreads;
+    }
+
+    /**
+     * Gets the amount of audio each recording can queue while waiting to be written to disk.
+     * 
+     * @return The size of the queue, in kilobytes.
+     */
+    public int getRecorderQueueSize() {
+        return recorderQueueSize;
+    }
+
+    public void setRecorderQueueSize(int recorderQueueSize) {
+        if (recorderQueueSize <= 0) {
+            throw new IllegalArgumentException("Recorder queue size must be positive");
+        }
+        this.recorderQueueSize = recorderQueueSize;
+    }
+
     public int getDtmfDetectorCount() {
         return dtmfDetectorCount;
     }
@@ -211,4 +252,24 @@ public class ResourcesConfiguration {
         return this.playerCacheSize != 0;
     }
 
+    /**
+     * Gets the size of the cache of decoded prompts shared by all players.
+     * 
+     * @return The size of the cache, in megabytes. Zero if the cache is disabled.
+     */
+    public int getPromptCacheSize() {
+        return promptCacheSize;
+    }
+
+    public void setPromptCacheSize(int promptCacheSize) {
+        if (promptCacheSize < 0) {
+            throw new IllegalArgumentException("Prompt cache size cannot be negative");
+        }
+        this.promptCacheSize = promptCacheSize;
+    }
+
+    public boolean getPromptCacheEnabled() {
+        return this.promptCacheSize != 0;
+    }
+
 }
@@ -39,6 +39,8 @@ import org.mobicents.media.io.stun.messages.attributes.general.MessageIntegrityA
 import org.mobicents.media.io.stun.messages.attributes.general.UsernameAttribute;
 import org.mobicents.media.server.io.network.TransportAddress;
 import org.mobicents.media.server.io.network.TransportAddress.TransportProtocol;
+import org.mobicents.media.server.io.network.channel.ClassifiedPacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketClass;
 import org.mobicents.media.server.io.network.channel.PacketHandler;
 import org.mobicents.media.server.io.network.channel.PacketHandlerException;
 
@@ -46,7 +48,7 @@ import org.mobicents.media.server.io.network.channel.PacketHandlerException;
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
  */
-public class IceHandler implements PacketHandler {
+public class IceHandler implements ClassifiedPacketHandler {
     
     private static final Logger logger = Logger.getLogger(IceHandler.class);
 
@@ -230,6 +232,11 @@ public class IceHandler implements PacketHandler {
         return this.pipelinePriority;
     }
 
+    @Override
+    public PacketClass getPacketClass() {
+        return PacketClass.STUN;
+    }
+
     public void setPipelinePriority(int pipelinePriority) {
         this.pipelinePriority = pipelinePriority;
     }
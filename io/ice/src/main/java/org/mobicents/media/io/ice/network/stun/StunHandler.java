@@ -38,6 +38,8 @@ import org.mobicents.media.io.stun.messages.attributes.general.PriorityAttribute
 import org.mobicents.media.io.stun.messages.attributes.general.UsernameAttribute;
 import org.mobicents.media.server.io.network.TransportAddress;
 import org.mobicents.media.server.io.network.TransportAddress.TransportProtocol;
+import org.mobicents.media.server.io.network.channel.ClassifiedPacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketClass;
 import org.mobicents.media.server.io.network.channel.PacketHandler;
 import org.mobicents.media.server.io.network.channel.PacketHandlerException;
 
@@ -47,7 +49,7 @@ import org.mobicents.media.server.io.network.channel.PacketHandlerException;
  * @author Henrique Rosa
  * 
  */
-public class StunHandler implements PacketHandler {
+public class StunHandler implements ClassifiedPacketHandler {
 	
 	private int pipelinePriority;
 
@@ -65,6 +67,11 @@ public class StunHandler implements PacketHandler {
 		return pipelinePriority;
 	}
 	
+	@Override
+	public PacketClass getPacketClass() {
+		return PacketClass.STUN;
+	}
+	
 	public void setPipelinePriority(int pipelinePriority) {
 		this.pipelinePriority = pipelinePriority;
 	}
@@ -0,0 +1,218 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+import org.apache.log4j.Logger;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.Task;
+
+/**
+ * Collects outgoing datagrams produced during a scheduler cycle and sends them in bulk.
+ * <p>
+ * Java offers no equivalent to sendmmsg(2). Instead, datagrams are copied into a batch owned by the producing thread
+ * and the batch is flushed once by the {@link PriorityQueueScheduler#FLUSH_QUEUE}, right after all media was written by
+ * the {@link PriorityQueueScheduler#OUTPUT_QUEUE}. This keeps the socket writes of a cycle together, away from the
+ * media processing tasks.
+ * </p>
+ * <p>
+ * If a batch fills up before the end of the cycle, it is flushed immediately by the producing thread.
+ * </p>
+ * <p>
+ * Producers learn the outcome of each datagram through a {@link DatagramSendListener}, once it is actually written to the
+ * network. Send errors are never handled by the batcher itself.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class DatagramBatcher {
+
+    private static final Logger logger = Logger.getLogger(DatagramBatcher.class);
+
+    public static final int DEFAULT_SLOTS = 64;
+    public static final int DEFAULT_CAPACITY = 65536;
+
+    private final PriorityQueueScheduler scheduler;
+    private final int slots;
+    private final int capacity;
+    private final ThreadLocal<Batch> batches;
+
+    /**
+     * Creates a new batcher.
+     * 
+     * @param scheduler The media scheduler that flushes the batches at the end of each cycle.
+     * @param slots The maximum number of datagrams held by each batch.
+     * @param capacity The size of the buffer where each batch stores its datagrams, in bytes.
+     */
+    public DatagramBatcher(PriorityQueueScheduler scheduler, int slots, int capacity) {
+        if (slots < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Batches must hold at least one datagram");
+        }
+        this.scheduler = scheduler;
+        this.slots = slots;
+        this.capacity = capacity;
+        this.batches = new ThreadLocal<Batch>() {
+
+            @Override
+            protected Batch initialValue() {
+                return new Batch();
+            }
+
+        };
+    }
+
+    public DatagramBatcher(PriorityQueueScheduler scheduler) {
+        this(scheduler, DEFAULT_SLOTS, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Queues a datagram to be sent at the end of the current scheduler cycle.
+     * <p>
+     * The remaining bytes of the buffer are copied, so the caller is free to reuse it once this method returns.
+     * </p>
+     * 
+     * @param channel The channel through which the datagram will be sent.
+     * @param data The buffer holding the datagram.
+     * @param target The address of the remote peer.
+     * @param listener The listener to be notified once the datagram is sent or fails to be sent. May be null.
+     * @param tag Value handed back to the listener, to identify the datagram without allocating.
+     */
+    public void send(DatagramChannel channel, ByteBuffer data, SocketAddress target, DatagramSendListener listener, long tag) {
+        if (data.remaining() > this.capacity) {
+            // Datagram cannot be batched
+            deliver(channel, data, target, listener, tag);
+        } else {
+            this.batches.get().add(channel, data, target, listener, tag);
+        }
+    }
+
+    public void send(DatagramChannel channel, ByteBuffer data, SocketAddress target) {
+        send(channel, data, target, null, 0L);
+    }
+
+    private static void deliver(DatagramChannel channel, ByteBuffer data, SocketAddress target, DatagramSendListener listener,
+            long tag) {
+        try {
+            channel.send(data, target);
+            if (listener != null) {
+                listener.onDatagramSent(tag);
+            }
+        } catch (IOException e) {
+            if (listener != null) {
+                listener.onDatagramFailed(channel, tag, e);
+            } else if (e instanceof ClosedChannelException) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Dropped datagram because channel was closed.");
+                }
+            } else {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Batch of datagrams produced by a single thread.
+     * <p>
+     * The batch is a task of the {@link PriorityQueueScheduler#FLUSH_QUEUE}, so it can flush itself at the end of the
+     * cycle.
+     * </p>
+     */
+    private class Batch extends Task {
+
+        private final ByteBuffer buffer;
+        private final ByteBuffer view;
+        private final DatagramChannel[] channels;
+        private final SocketAddress[] targets;
+        private final DatagramSendListener[] listeners;
+        private final long[] tags;
+        private final int[] offsets;
+        private final int[] lengths;
+        private int count;
+
+        public Batch() {
+            super();
+            this.buffer = ByteBuffer.allocateDirect(capacity);
+            this.view = this.buffer.duplicate();
+            this.channels = new DatagramChannel[slots];
+            this.targets = new SocketAddress[slots];
+            this.listeners = new DatagramSendListener[slots];
+            this.tags = new long[slots];
+            this.offsets = new int[slots];
+            this.lengths = new int[slots];
+            this.count = 0;
+        }
+
+        public synchronized void add(DatagramChannel channel, ByteBuffer data, SocketAddress target,
+                DatagramSendListener listener, long tag) {
+            if (this.count == this.channels.length || this.buffer.remaining() < data.remaining()) {
+                flush();
+            }
+
+            this.channels[this.count] = channel;
+            this.targets[this.count] = target;
+            this.listeners[this.count] = listener;
+            this.tags[this.count] = tag;
+            this.offsets[this.count] = this.buffer.position();
+            this.lengths[this.count] = data.remaining();
+            this.buffer.put(data);
+            this.count++;
+
+            // Schedule flush once per cycle, when first datagram is queued
+            if (this.count == 1) {
+                scheduler.submit(this, PriorityQueueScheduler.FLUSH_QUEUE);
+            }
+        }
+
+        public synchronized void flush() {
+            for (int i = 0; i < this.count; i++) {
+                this.view.clear();
+                this.view.position(this.offsets[i]);
+                this.view.limit(this.offsets[i] + this.lengths[i]);
+                deliver(this.channels[i], this.view, this.targets[i], this.listeners[i], this.tags[i]);
+                this.channels[i] = null;
+                this.targets[i] = null;
+                this.listeners[i] = null;
+            }
+            this.count = 0;
+            this.buffer.clear();
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.FLUSH_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            flush();
+            return 0;
+        }
+
+    }
+
+}
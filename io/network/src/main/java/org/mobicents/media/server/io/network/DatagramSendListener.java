@@ -0,0 +1,56 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.io.network;
+
+import java.io.IOException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Listens to the outcome of datagrams queued in a {@link DatagramBatcher}.
+ * <p>
+ * Datagrams are only written to the network when the batch is flushed, so producers that keep statistics or must react to
+ * send errors are notified then, from the flushing thread.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface DatagramSendListener {
+
+    /**
+     * Invoked once a datagram was written to the channel.
+     * 
+     * @param tag The value the producer attached to the datagram when queuing it.
+     */
+    void onDatagramSent(long tag);
+
+    /**
+     * Invoked when a datagram could not be written to the channel.
+     * 
+     * @param channel The channel the datagram was meant to be sent through.
+     * @param tag The value the producer attached to the datagram when queuing it.
+     * @param e The reason of the failure.
+     */
+    void onDatagramFailed(DatagramChannel channel, long tag, IOException e);
+
+}
@@ -0,0 +1,55 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network;
+
+/**
+ * Defines how the {@link UdpManager} waits for network channels to become readable.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public enum SelectionMode {
+
+    /**
+     * Selectors are polled without blocking by tasks scheduled on the {@link org.mobicents.media.server.scheduler.Scheduler}
+     * at a fixed delay of 2ms.
+     */
+    POLLING,
+
+    /**
+     * Each selector is owned by a dedicated I/O thread that blocks until channels become readable.
+     * <p>
+     * Removes the artificial receive latency introduced by polling and keeps the CPU idle when there is no traffic.
+     * </p>
+     */
+    BLOCKING;
+
+    public static SelectionMode fromName(String name) {
+        for (SelectionMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown selection mode: " + name);
+    }
+
+}
@@ -24,7 +24,10 @@ package org.mobicents.media.server.io.network;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
@@ -35,6 +38,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
 import org.mobicents.media.server.io.network.channel.Channel;
@@ -78,12 +82,14 @@ public class UdpManager {
 
     private Boolean useSbc;
     private int rtpTimeout; // in seconds!
+    private SelectionMode selectionMode;
     private volatile boolean active;
 
     private final Object LOCK;
     private final List<Selector> selectors;
     private List<PollTask> pollTasks;
     private List<Future<?>> pollTaskFutures;
+    private List<SelectorThread> selectorThreads;
     private AtomicInteger currSelectorIndex;
 
     public UdpManager(Scheduler scheduler) {
@@ -99,6 +105,7 @@ public class UdpManager {
 
         this.useSbc = false;
         this.rtpTimeout = 0;
+        this.selectionMode = SelectionMode.POLLING;
         this.active = false;
 
         this.LOCK = new Object();
@@ -108,6 +115,7 @@ public class UdpManager {
         this.selectors = new ArrayList<Selector>(ServiceScheduler.POOL_SIZE);
         this.pollTasks = new ArrayList<PollTask>(ServiceScheduler.POOL_SIZE);
         this.pollTaskFutures = new ArrayList<Future<?>>(ServiceScheduler.POOL_SIZE);
+        this.selectorThreads = new ArrayList<SelectorThread>(ServiceScheduler.POOL_SIZE);
         this.currSelectorIndex = new AtomicInteger(0);
     }
 
@@ -177,6 +185,27 @@ public class UdpManager {
         return this.rtpTimeout;
     }
 
+    /**
+     * Modify the strategy used to wait for readable channels.
+     * <p>
+     * Takes effect the next time the manager is started.
+     * </p>
+     * 
+     * @param selectionMode the selection mode
+     */
+    public void setSelectionMode(SelectionMode selectionMode) {
+        this.selectionMode = selectionMode;
+    }
+
+    /**
+     * Gets the strategy used to wait for readable channels.
+     * 
+     * @return the selection mode
+     */
+    public SelectionMode getSelectionMode() {
+        return selectionMode;
+    }
+
     /**
      * Set the local network address
      * 
@@ -272,10 +301,11 @@ public class UdpManager {
         synchronized (LOCK) {
             if (!this.selectors.contains(selector)) {
                 this.selectors.add(selector);
-                PollTask pollTask = new PollTask(selector);
-                this.pollTasks.add(pollTask);
-                ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(pollTask, 0L, 2L, TimeUnit.MILLISECONDS);
-                this.pollTaskFutures.add(future);
+                if (SelectionMode.BLOCKING.equals(this.selectionMode)) {
+                    startSelectorThread(selector);
+                } else {
+                    schedulePollTask(selector);
+                }
             }
         }
     }
@@ -312,9 +342,7 @@ public class UdpManager {
     public DatagramChannel open(ProtocolHandler handler) throws IOException {
         DatagramChannel channel = DatagramChannel.open();
         channel.configureBlocking(false);
-        int index = currSelectorIndex.getAndIncrement();
-        SelectionKey key = channel.register(selectors.get(index % selectors.size()), SelectionKey.OP_READ);
-        key.attach(handler);
+        SelectionKey key = register(channel, handler);
         handler.setKey(key);
         return channel;
     }
@@ -322,41 +350,81 @@ public class UdpManager {
     public SelectionKey open(Channel channel) throws IOException {
         DatagramChannel dataChannel = DatagramChannel.open();
         dataChannel.configureBlocking(false);
-        int index = currSelectorIndex.getAndIncrement();
-        SelectionKey key = dataChannel.register(selectors.get(index % selectors.size()), SelectionKey.OP_READ);
-        key.attach(channel);
-        return key;
+        return register(dataChannel, channel);
     }
     
     public void register(NetworkChannel channel) throws IOException {
-        int index = this.currSelectorIndex.getAndIncrement();
-        channel.register(this.selectors.get(index % this.selectors.size()), SelectionKey.OP_READ);
+        int index = nextSelectorIndex();
+        beginRegistration(index);
+        try {
+            channel.register(this.selectors.get(index), SelectionKey.OP_READ);
+        } finally {
+            endRegistration(index);
+        }
     }
 
     @Deprecated
     public SelectionKey open(DatagramChannel dataChannel, Channel channel) throws IOException {
-        // Get a selector
-        int index = currSelectorIndex.getAndIncrement();
-        Selector selector = selectors.get(index % selectors.size());
-        // Register the channel under the chosen selector
-        SelectionKey key = dataChannel.register(selector, SelectionKey.OP_READ);
-        // Attach the multiplexer to the key
-        key.attach(channel);
-        return key;
+        // Register the channel under the next selector and attach the multiplexer to the key
+        return register(dataChannel, channel);
     }
 
     @Deprecated
     public void open(DatagramChannel channel, ProtocolHandler handler) throws IOException {
-        // Get a selector
-        int index = currSelectorIndex.getAndIncrement();
-        Selector selector = selectors.get(index % selectors.size());
-        // Register the channel under the chosen selector
-        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
-        // Attach the protocol handler to the key
-        key.attach(handler);
+        // Register the channel under the next selector and attach the protocol handler to the key
+        SelectionKey key = register(channel, handler);
         handler.setKey(key);
     }
 
+    /**
+     * Registers a channel for reading under the next selector (round-robin).
+     * <p>
+     * The attachment is bound atomically with the registration so the selector never sees a key without attachment.
+     * </p>
+     * 
+     * @param channel The channel to be registered
+     * @param attachment The object to attach to the selection key
+     * @return The selection key of the registered channel
+     * @throws ClosedChannelException If the channel is closed
+     */
+    private SelectionKey register(SelectableChannel channel, Object attachment) throws ClosedChannelException {
+        int index = nextSelectorIndex();
+        beginRegistration(index);
+        try {
+            return channel.register(this.selectors.get(index), SelectionKey.OP_READ, attachment);
+        } finally {
+            endRegistration(index);
+        }
+    }
+
+    private int nextSelectorIndex() {
+        // Mask the sign bit so the round-robin survives integer overflow
+        return (this.currSelectorIndex.getAndIncrement() & Integer.MAX_VALUE) % this.selectors.size();
+    }
+
+    /**
+     * Prevents the I/O thread owning the selector from blocking again until the registration is complete.
+     * <p>
+     * A thread blocked in {@link Selector#select()} holds the key set, so the selector must be woken up before a new channel
+     * can be registered. Has no effect in {@link SelectionMode#POLLING} mode.
+     * </p>
+     * 
+     * @param index The index of the selector
+     */
+    private void beginRegistration(int index) {
+        if (index < this.selectorThreads.size()) {
+            SelectorThread selectorThread = this.selectorThreads.get(index);
+            selectorThread.registrationLock.lock();
+            selectorThread.localSelector.wakeup();
+        }
+    }
+
+    private void endRegistration(int index) {
+        if (index < this.selectorThreads.size()) {
+            this.selectorThreads.get(index).registrationLock.unlock();
+        }
+    }
+
     public void bind(DatagramChannel channel, int port, boolean local) throws IOException {
         if (local) {
             bindLocal(channel, port);
@@ -431,19 +499,38 @@ public class UdpManager {
 
     private void generateTasks() throws IOException {
         for (int i = 0; i < ServiceScheduler.POOL_SIZE; i++) {
-            this.selectors.add(SelectorProvider.provider().openSelector());
-            PollTask pollTask = new PollTask(this.selectors.get(i));
-            this.pollTasks.add(pollTask);
-            ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(pollTask, 0L, 2L, TimeUnit.MILLISECONDS);
-            this.pollTaskFutures.add(future);
+            Selector selector = SelectorProvider.provider().openSelector();
+            this.selectors.add(selector);
+            if (SelectionMode.BLOCKING.equals(this.selectionMode)) {
+                startSelectorThread(selector);
+            } else {
+                schedulePollTask(selector);
+            }
         }
     }
 
+    private void schedulePollTask(Selector selector) {
+        PollTask pollTask = new PollTask(selector);
+        this.pollTasks.add(pollTask);
+        ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(pollTask, 0L, 2L, TimeUnit.MILLISECONDS);
+        this.pollTaskFutures.add(future);
+    }
+
+    private void startSelectorThread(Selector selector) {
+        SelectorThread selectorThread = new SelectorThread(selector, this.selectorThreads.size());
+        this.selectorThreads.add(selectorThread);
+        selectorThread.start();
+    }
+
     private void stopTasks() {
         for (Future<?> future : this.pollTaskFutures) {
             future.cancel(false);
         }
         this.pollTaskFutures.clear();
+
+        for (SelectorThread selectorThread : this.selectorThreads) {
+            selectorThread.shutdown();
+        }
     }
 
     private void closeSelectors() {
@@ -461,6 +548,7 @@ public class UdpManager {
 
     private void cleanResources() {
         this.pollTasks.clear();
+        this.selectorThreads.clear();
         this.selectors.clear();
     }
 
@@ -474,7 +562,8 @@ public class UdpManager {
                 logger.info("Starting UDP Manager");
                 try {
                     generateTasks();
-                    logger.info("Initialized UDP interface[" + inet + "]: bind address=" + bindAddress);
+                    logger.info("Initialized UDP interface[" + inet + "]: bind address=" + bindAddress + ", selection mode="
+                            + selectionMode);
                 } catch (IOException e) {
                     logger.error("An error occurred while initializing the polling tasks", e);
                     stop();
@@ -499,6 +588,90 @@ public class UdpManager {
         }
     }
 
+    /**
+     * Handles all channels selected by a selector.
+     * 
+     * @param selector The selector whose selected-key set will be processed
+     */
+    private void processSelectedKeys(Selector selector) {
+        // Iterate over selected channels
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext() && active) {
+            SelectionKey key = it.next();
+            it.remove();
+
+            // Get references to channel and associated RTP socket
+            DatagramChannel udpChannel = (DatagramChannel) key.channel();
+            Object attachment = key.attachment();
+
+            if (attachment == null) {
+                continue;
+            }
+
+            try {
+                if (attachment instanceof ProtocolHandler) {
+                    // Legacy - MGCP channel
+                    ProtocolHandler handler = (ProtocolHandler) key.attachment();
+
+                    if (!udpChannel.isOpen()) {
+                        handler.onClosed();
+                        continue;
+                    }
+
+                    // do read
+                    if (key.isReadable()) {
+                        handler.receive(udpChannel);
+                    }
+
+                } else if (attachment instanceof NetworkChannel) {
+                    NetworkChannel channel = (NetworkChannel) attachment;
+                 
+                    // Perform an operation only if channel is open and key is valid
+                    if (udpChannel.isOpen()) {
+                        if (key.isValid()) {
+                            channel.receive();
+                        }
+                    } else {
+                        // Close data channel if datagram channel is closed
+                        channel.close();
+                    }
+                } else {
+                    processLegacyChannel(attachment, key, udpChannel);
+                }
+            } catch (Exception e) {
+                logger.error("An unexpected problem occurred while reading from channel.", e);
+            }
+        }
+        selector.selectedKeys().clear();
+    }
+
+    /**
+     * Reads from (and writes to) a channel registered through the deprecated {@link Channel} interface.
+     * <p>
+     * RTP and RTCP channels are still registered that way until they are migrated to {@link NetworkChannel}.
+     * </p>
+     */
+    @SuppressWarnings("deprecation")
+    private void processLegacyChannel(Object attachment, SelectionKey key, DatagramChannel udpChannel) throws IOException {
+        if (attachment instanceof Channel) {
+            Channel channel = (Channel) attachment;
+
+            // Perform an operation only if channel is open and key is valid
+            if (udpChannel.isOpen()) {
+                if (key.isValid()) {
+                    channel.receive();
+
+                    if (channel.hasPendingData()) {
+                        channel.send();
+                    }
+                }
+            } else {
+                // Close data channel if datagram channel is closed
+                channel.close();
+            }
+        }
+    }
+
     /**
      * Runnable task for polling UDP channels
      */
@@ -523,71 +696,53 @@ public class UdpManager {
                     logger.error("Could not select channels from Selector!");
                 }
 
-                // Iterate over selected channels
-                Iterator<SelectionKey> it = localSelector.selectedKeys().iterator();
-                while (it.hasNext() && active) {
-                    SelectionKey key = it.next();
-                    it.remove();
+                processSelectedKeys(localSelector);
+            }
+        }
+    }
 
-                    // Get references to channel and associated RTP socket
-                    DatagramChannel udpChannel = (DatagramChannel) key.channel();
-                    Object attachment = key.attachment();
+    /**
+     * Dedicated I/O thread that blocks on a single selector until its channels become readable.
+     */
+    private class SelectorThread extends Thread {
 
-                    if (attachment == null) {
-                        continue;
-                    }
+        private final Selector localSelector;
+        private final ReentrantLock registrationLock;
+        private volatile boolean running;
 
-                    try {
-                        if (attachment instanceof ProtocolHandler) {
-                            // Legacy - MGCP channel
-                            ProtocolHandler handler = (ProtocolHandler) key.attachment();
-
-                            if (!udpChannel.isOpen()) {
-                                handler.onClosed();
-                                continue;
-                            }
-
-                            // do read
-                            if (key.isReadable()) {
-                                handler.receive(udpChannel);
-                            }
-
-                        } else if (attachment instanceof Channel) {
-                            Channel channel = (Channel) attachment;
-
-                            // Perform an operation only if channel is open and key is valid
-                            if (udpChannel.isOpen()) {
-                                if (key.isValid()) {
-                                    channel.receive();
-
-                                    if (channel.hasPendingData()) {
-                                        channel.send();
-                                    }
-                                }
-                            } else {
-                                // Close data channel if datagram channel is closed
-                                channel.close();
-                            }
-                        } else if (attachment instanceof NetworkChannel) {
-                            NetworkChannel channel = (NetworkChannel) attachment;
-                         
-                            // Perform an operation only if channel is open and key is valid
-                            if (udpChannel.isOpen()) {
-                                if (key.isValid()) {
-                                    channel.receive();
-                                }
-                            } else {
-                                // Close data channel if datagram channel is closed
-                                channel.close();
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.error("An unexpected problem occurred while reading from channel.", e);
+        public SelectorThread(Selector selector, int index) {
+            super("udp-selector-" + index);
+            setDaemon(true);
+            this.localSelector = selector;
+            this.registrationLock = new ReentrantLock();
+            this.running = true;
+        }
+
+        public void shutdown() {
+            this.running = false;
+            this.localSelector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (running && active) {
+                // Wait for pending registrations to complete before blocking again
+                registrationLock.lock();
+                registrationLock.unlock();
+
+                try {
+                    // Block until channels are ready for reading or the selector is woken up
+                    int selected = localSelector.select();
+                    if (selected > 0 && running) {
+                        processSelectedKeys(localSelector);
                     }
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    logger.error("Could not select channels from Selector!", e);
                 }
-                localSelector.selectedKeys().clear();
             }
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network.channel;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link PacketHandler} capable of processing packets directly from the receive buffer of a channel, without copying them
+ * into an intermediate array.
+ * <p>
+ * The buffer handed to the handler is a view over a receive buffer that is shared and reused by the channels. The packet
+ * starts at the current position of the buffer and ends at its limit. The view is only valid for the duration of the call,
+ * so handlers must copy any data they need to keep and must never hold a reference to the buffer.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface ByteBufferPacketHandler extends PacketHandler {
+
+    /**
+     * Checks whether the handler can process the incoming packet or not.
+     * 
+     * @param packet The packet to be processed. Data lies between the position and the limit of the buffer.
+     * @return <code>true</code>, if the packet can be handled. <code>false</code>, otherwise.
+     */
+    boolean canHandle(ByteBuffer packet);
+
+    /**
+     * Processes the packet and provides a suitable answer.
+     * 
+     * @param packet The packet to be processed. Data lies between the position and the limit of the buffer.
+     * @param localPeer The local peer who received the packet
+     * @param remotePeer The remote peer who sent the packet
+     * @return The answer to be sent to the remote peer as response to the incoming packet.
+     * @throws PacketHandlerException When the handler cannot process the packet.
+     */
+    byte[] handle(ByteBuffer packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException;
+
+}
@@ -0,0 +1,43 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network.channel;
+
+/**
+ * {@link PacketHandler} that only processes packets of a known {@link PacketClass}.
+ * <p>
+ * Allows the {@link PacketHandlerPipeline} to skip the handler for any packet whose first byte is out of range. Handlers
+ * that do not implement this interface are queried for every packet.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface ClassifiedPacketHandler extends PacketHandler {
+
+    /**
+     * Gets the class of packets the handler can process.
+     * 
+     * @return The class of packets
+     */
+    PacketClass getPacketClass();
+
+}
@@ -49,9 +49,19 @@ public class MultiplexedChannel implements Channel {
 	// Registered protocol handlers. Used for multiplexing.
 	protected final PacketHandlerPipeline handlers;
 
-	// The buffer into which we will read data when it's available
+	// The ring into which we will read data when it's available.
+	// Packets are handled synchronously by the reading thread, so each thread owns a single ring shared by all channels.
 	private static final int BUFFER_SIZE = 8192;
-	private final ByteBuffer receiveBuffer;
+	private static final int RING_SLOTS = 32;
+	private static final int RING_CAPACITY = 65536;
+	private static final ThreadLocal<PacketRing> RECEIVE_RING = new ThreadLocal<PacketRing>() {
+		
+		@Override
+		protected PacketRing initialValue() {
+			return new PacketRing(RING_SLOTS, RING_CAPACITY, BUFFER_SIZE);
+		}
+		
+	};
 	
 	// Data that is pending for writing
 	private final Queue<byte[]> pendingData;
@@ -59,7 +69,6 @@ public class MultiplexedChannel implements Channel {
 	public MultiplexedChannel() {
 		this.handlers = new PacketHandlerPipeline();
 		this.pendingData = new ConcurrentLinkedQueue<>();
-		this.receiveBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
 	}
 	
 	@Override
@@ -138,73 +147,95 @@ public class MultiplexedChannel implements Channel {
 	}
 	
     protected void flush() {
+        PacketRing receiveRing = RECEIVE_RING.get();
         try {
-            this.receiveBuffer.clear();
             // lets clear the receiver
-            SocketAddress currAddress = null;
+            int received;
             do {
                 if (this.dataChannel != null && this.dataChannel.isOpen()) {
-                    currAddress = this.dataChannel.receive(this.receiveBuffer);
-                    this.receiveBuffer.clear();
+                    received = receiveRing.fill(this.dataChannel, RING_SLOTS);
                 } else {
-                    currAddress = null;
+                    received = 0;
                 }
-            } while (currAddress != null);
+            } while (received > 0);
         } catch (Exception e) {
             logger.warn("Stopped flushing the channel abruptly: " + e.getMessage());
+        } finally {
+            receiveRing.clear();
         }
     }
 	
 	@Override
 	public void receive() throws IOException {
-		// Get buffer ready to read new data
-		this.receiveBuffer.clear();
-
-		// Read data from channel
-		int dataLength = 0;
+		PacketRing receiveRing = RECEIVE_RING.get();
+		
+		// Drain all datagrams available on the channel
+		int received;
 		try {
-			SocketAddress remotePeer = dataChannel.receive(this.receiveBuffer);
-			if (!isConnected() && remotePeer != null) {
-				connect(remotePeer);
+			// Until the channel is connected, read a single datagram so only the first remote peer is accepted.
+			// Blocking channels can only be read once, otherwise the reading thread would wait for the next datagram.
+			boolean drain = isConnected() && !this.dataChannel.isBlocking();
+			received = receiveRing.fill(this.dataChannel, drain ? RING_SLOTS : 1);
+			if (!isConnected() && received > 0) {
+				connect(receiveRing.getSource(0));
 			}
-			dataLength = this.receiveBuffer.position();
 		} catch (IOException e) {
-			dataLength = -1;
+			received = -1;
 		}
 
 		// Stop if socket was shutdown or error occurred
-		if (dataLength == -1) {
+		if (received == -1) {
+			receiveRing.clear();
 			close();
 			return;
-		} else if (dataLength > 0) {
-			// Copy data from buffer so we don't mess with original
-			byte[] dataCopy = new byte[dataLength];
-			this.receiveBuffer.rewind();
-			this.receiveBuffer.get(dataCopy, 0, dataLength);
-			
-			// Delegate work to the proper handler
-			PacketHandler handler = this.handlers.getHandler(dataCopy);
-			if (handler != null) {
-				try {
-					// Let the handler process the incoming packet.
-					// A response MAY be provided as result.
-					byte[] response = handler.handle(dataCopy, dataLength, 0, (InetSocketAddress) dataChannel.getLocalAddress(), (InetSocketAddress) dataChannel.getRemoteAddress());
-					
-					/*
-					 * If handler intends to send a response to the remote peer,
-					 * queue the data to send it on writing cycle. Only allowed if
-					 * Selection Key is writable!
-					 */
-					if (response != null && response.length > 0) {
-						queueData(response);
-					}
-				} catch (PacketHandlerException e) {
-					logger.error("Could not handle incoming packet: " + e.getMessage());
+		}
+		
+		try {
+			if (received > 0) {
+				InetSocketAddress localPeer = (InetSocketAddress) dataChannel.getLocalAddress();
+				InetSocketAddress remotePeer = (InetSocketAddress) dataChannel.getRemoteAddress();
+				for (int i = 0; i < received; i++) {
+					handle(receiveRing.getPacket(i), localPeer, remotePeer);
 				}
-			} else {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("No protocol handler was found to process an incoming packet. Packet will be dropped.");
-                }
+			}
+		} finally {
+			receiveRing.clear();
+		}
+	}
+	
+	private void handle(ByteBuffer packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) {
+		// Delegate work to the proper handler
+		PacketHandler handler = this.handlers.getHandler(packet);
+		if (handler != null) {
+			try {
+				// Let the handler process the incoming packet.
+				// A response MAY be provided as result.
+				byte[] response;
+				if (handler instanceof ByteBufferPacketHandler) {
+					// Handler reads straight from the receive ring
+					response = ((ByteBufferPacketHandler) handler).handle(packet, localPeer, remotePeer);
+				} else {
+					// Copy data from buffer so we don't mess with original
+					int dataLength = packet.remaining();
+					byte[] dataCopy = new byte[dataLength];
+					packet.get(dataCopy, 0, dataLength);
+					response = handler.handle(dataCopy, dataLength, 0, localPeer, remotePeer);
+				}
+				
+				/*
+				 * If handler intends to send a response to the remote peer,
+				 * queue the data to send it on writing cycle. Only allowed if
+				 * Selection Key is writable!
+				 */
+				if (response != null && response.length > 0) {
+					queueData(response);
+				}
+			} catch (PacketHandlerException e) {
+				logger.error("Could not handle incoming packet: " + e.getMessage());
+			}
+		} else {
+			if (logger.isDebugEnabled()) {
+				logger.debug("No protocol handler was found to process an incoming packet. Packet will be dropped.");
 			}
 		}
 	}
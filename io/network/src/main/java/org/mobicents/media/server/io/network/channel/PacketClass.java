@@ -0,0 +1,79 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network.channel;
+
+/**
+ * Classes of packets that can be demultiplexed by the value of their first byte when different protocols share the same
+ * port.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ * @see <a href="https://tools.ietf.org/html/rfc5764#section-5.1.2">RFC5764</a>
+ * @see <a href="https://tools.ietf.org/html/rfc7983#section-7">RFC7983</a>
+ */
+public enum PacketClass {
+
+    STUN(0, 3),
+    ZRTP(16, 19),
+    DTLS(20, 63),
+    TURN_CHANNEL(64, 79),
+    /**
+     * Includes RTCP packets.
+     */
+    RTP(128, 191);
+
+    private final int lowest;
+    private final int highest;
+
+    private PacketClass(int lowest, int highest) {
+        this.lowest = lowest;
+        this.highest = highest;
+    }
+
+    /**
+     * Gets the lowest value (inclusive) of the first byte of packets of this class.
+     * 
+     * @return The lowest value, as an unsigned byte.
+     */
+    public int getLowest() {
+        return lowest;
+    }
+
+    /**
+     * Gets the highest value (inclusive) of the first byte of packets of this class.
+     * 
+     * @return The highest value, as an unsigned byte.
+     */
+    public int getHighest() {
+        return highest;
+    }
+
+    /**
+     * Checks whether a packet belongs to this class.
+     * 
+     * @param firstByte The unsigned value of the first byte of the packet.
+     * @return <code>true</code> if the packet belongs to this class; <code>false</code> otherwise.
+     */
+    public boolean contains(int firstByte) {
+        return firstByte >= this.lowest && firstByte <= this.highest;
+    }
+
+}
@@ -20,14 +20,20 @@
 
 package org.mobicents.media.server.io.network.channel;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Pipeline that selects a capable {@link PacketHandler} to process incoming packets.
+ * <p>
+ * Handlers are only registered while a call is being set up, while every single incoming packet must be dispatched. So the
+ * list of handlers is copy-on-write: registrations publish a new sorted list together with an immutable dispatch table,
+ * indexed by the first byte of the packet, and readers never take a lock.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  * 
@@ -42,12 +48,22 @@ public class PacketHandlerPipeline {
         }
     };
 
-    private final List<PacketHandler> handlers;
-    private final AtomicInteger count;
+    private static final int TABLE_SIZE = 256;
+    private static final PacketHandler[] NO_HANDLERS = new PacketHandler[0];
+
+    // Serializes registrations. Readers use the published snapshots.
+    private final Object lock;
+
+    // Immutable snapshot of the registered handlers, sorted by priority
+    private volatile List<PacketHandler> handlers;
+
+    // Candidate handlers, sorted by priority, for each value of the first byte of a packet
+    private volatile PacketHandler[][] dispatchTable;
 
     public PacketHandlerPipeline() {
-        this.handlers = new ArrayList<PacketHandler>(5);
-        this.count = new AtomicInteger(0);
+        this.lock = new Object();
+        this.handlers = Collections.emptyList();
+        this.dispatchTable = buildDispatchTable(this.handlers);
     }
 
     /**
@@ -58,11 +74,13 @@ public class PacketHandlerPipeline {
      * @return Whether the handler was successfully registered or not.
      */
     public boolean addHandler(PacketHandler handler) {
-        synchronized (this.handlers){
-            if (!handlers.contains(handler)) {
-                handlers.add(handler);
-                this.count.incrementAndGet();
-                Collections.sort(this.handlers, REVERSE_COMPARATOR);
+        synchronized (this.lock) {
+            if (!this.handlers.contains(handler)) {
+                List<PacketHandler> copy = new ArrayList<PacketHandler>(this.handlers.size() + 1);
+                copy.addAll(this.handlers);
+                copy.add(handler);
+                Collections.sort(copy, REVERSE_COMPARATOR);
+                publish(copy);
                 return true;
             }
             return false;
@@ -77,22 +95,63 @@ public class PacketHandlerPipeline {
      *         pipeline.
      */
     public boolean removeHandler(PacketHandler handler) {
-        synchronized (this.handlers) {
-            boolean removed = this.handlers.remove(handler);
+        synchronized (this.lock) {
+            List<PacketHandler> copy = new ArrayList<PacketHandler>(this.handlers);
+            boolean removed = copy.remove(handler);
             if (removed) {
-                this.count.decrementAndGet();
+                publish(copy);
             }
             return removed;
         }
     }
 
+    private void publish(List<PacketHandler> handlers) {
+        // Table is published first, so a reader never sees handlers missing from the table
+        this.dispatchTable = buildDispatchTable(handlers);
+        this.handlers = Collections.unmodifiableList(handlers);
+    }
+
+    /**
+     * Builds the table of candidate handlers for each possible value of the first byte of a packet.
+     * <p>
+     * Handlers that implement {@link ClassifiedPacketHandler} are only candidates for the range of their {@link PacketClass}.
+     * Any other handler is a candidate for every packet. Slots with the same candidates share the same array.
+     * </p>
+     * 
+     * @param handlers The registered handlers, sorted by priority.
+     * @return The dispatch table
+     */
+    private static PacketHandler[][] buildDispatchTable(List<PacketHandler> handlers) {
+        PacketHandler[][] table = new PacketHandler[TABLE_SIZE][];
+        List<PacketHandler> candidates = new ArrayList<PacketHandler>(handlers.size());
+        PacketHandler[] previous = NO_HANDLERS;
+
+        for (int firstByte = 0; firstByte < TABLE_SIZE; firstByte++) {
+            candidates.clear();
+            for (PacketHandler handler : handlers) {
+                if (!(handler instanceof ClassifiedPacketHandler)
+                        || ((ClassifiedPacketHandler) handler).getPacketClass().contains(firstByte)) {
+                    candidates.add(handler);
+                }
+            }
+
+            if (candidates.equals(Arrays.asList(previous))) {
+                table[firstByte] = previous;
+            } else {
+                previous = candidates.toArray(new PacketHandler[candidates.size()]);
+                table[firstByte] = previous;
+            }
+        }
+        return table;
+    }
+
     /**
      * Gets the number of handlers registered in the pipeline.
      * 
      * @return The number of registered handlers.
      */
     public int count() {
-        return this.count.get();
+        return this.handlers.size();
     }
 
     /**
@@ -102,9 +161,7 @@ public class PacketHandlerPipeline {
      * @return <code>true</code> if the handler is registered. Returns <code>false</code>, otherwise.
      */
     public boolean contains(PacketHandler handler) {
-        synchronized (this.handlers) {
-            return this.handlers.contains(handler);
-        }
+        return this.handlers.contains(handler);
     }
 
     /**
@@ -115,23 +172,67 @@ public class PacketHandlerPipeline {
      *         Returns null in case no capable handler exists.
      */
     public PacketHandler getHandler(byte[] packet) {
-        synchronized (this.handlers) {
-            // Search for the first handler capable of processing the packet
-            for (PacketHandler protocolHandler : this.handlers) {
-                if (protocolHandler.canHandle(packet)) {
-                    return protocolHandler;
-                }
+        if (packet.length == 0) {
+            return null;
+        }
+
+        // Search for the first candidate capable of processing the packet
+        PacketHandler[] candidates = this.dispatchTable[packet[0] & 0xff];
+        for (int i = 0; i < candidates.length; i++) {
+            if (candidates[i].canHandle(packet)) {
+                return candidates[i];
             }
+        }
 
-            // Return null in case no handler is capable of decoding the packet
+        // Return null in case no handler is capable of decoding the packet
+        return null;
+    }
+
+    /**
+     * Gets the protocol handler capable of processing the packet.
+     * <p>
+     * Handlers that implement {@link ByteBufferPacketHandler} inspect the buffer directly. Other handlers can only inspect
+     * arrays, so the packet is copied once, and only if such a handler must be queried.
+     * </p>
+     * 
+     * @param packet The packet to be processed. Data lies between the position and the limit of the buffer.
+     * @return The protocol handler capable of processing the packet.<br>
+     *         Returns null in case no capable handler exists.
+     */
+    public PacketHandler getHandler(ByteBuffer packet) {
+        if (!packet.hasRemaining()) {
             return null;
         }
+
+        byte[] data = null;
+
+        // Search for the first candidate capable of processing the packet
+        PacketHandler[] candidates = this.dispatchTable[packet.get(packet.position()) & 0xff];
+        for (int i = 0; i < candidates.length; i++) {
+            PacketHandler protocolHandler = candidates[i];
+            if (protocolHandler instanceof ByteBufferPacketHandler) {
+                if (((ByteBufferPacketHandler) protocolHandler).canHandle(packet)) {
+                    return protocolHandler;
+                }
+            } else {
+                if (data == null) {
+                    data = new byte[packet.remaining()];
+                    packet.duplicate().get(data);
+                }
+                if (protocolHandler.canHandle(data)) {
+                    return protocolHandler;
+                }
+            }
+        }
+
+        // Return null in case no handler is capable of decoding the packet
+        return null;
     }
 
     /**
-     * Gets a <b>copy</b> of the handlers registered in the pipeline.
+     * Gets a snapshot of the handlers registered in the pipeline.
      * 
-     * @return The list of handlers registered.
+     * @return The unmodifiable list of handlers registered, sorted by priority.
      */
     protected List<PacketHandler> getHandlers() {
         return this.handlers;
@@ -0,0 +1,168 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network.channel;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Ring of datagrams read from a channel in a single burst.
+ * <p>
+ * Java offers no equivalent to recvmmsg(2), so the ring loops over the non-blocking
+ * {@link DatagramChannel#receive(ByteBuffer)} until the socket is drained, storing every datagram back to back in a
+ * single direct buffer. The reading thread can then process the whole burst without going back to the selector for
+ * each packet.
+ * </p>
+ * <p>
+ * The ring is not thread-safe and is meant to be owned by a single reading thread.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PacketRing {
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private final int maxPacketSize;
+
+    private final int[] offsets;
+    private final int[] lengths;
+    private final SocketAddress[] sources;
+    private int count;
+
+    /**
+     * Creates a new ring.
+     * 
+     * @param slots The maximum number of datagrams read in a single burst.
+     * @param capacity The size of the buffer shared by all datagrams, in bytes.
+     * @param maxPacketSize The size of the largest datagram that can be received, in bytes.
+     * @throws IllegalArgumentException If the capacity cannot hold at least one datagram of maximum size.
+     */
+    public PacketRing(int slots, int capacity, int maxPacketSize) {
+        if (slots < 1 || maxPacketSize < 1 || capacity < maxPacketSize) {
+            throw new IllegalArgumentException("Ring cannot hold a datagram of " + maxPacketSize + " bytes");
+        }
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.view = this.buffer.duplicate();
+        this.maxPacketSize = maxPacketSize;
+        this.offsets = new int[slots];
+        this.lengths = new int[slots];
+        this.sources = new SocketAddress[slots];
+        this.count = 0;
+    }
+
+    /**
+     * Reads all datagrams available on a channel until the ring is full.
+     * <p>
+     * Datagrams previously held by the ring are discarded.
+     * </p>
+     * 
+     * @param channel The non-blocking channel to read from.
+     * @param max The maximum number of datagrams to read.
+     * @return The number of datagrams read.
+     * @throws IOException If an I/O error occurs while reading the first datagram.<br>
+     *         Errors on subsequent reads stop the burst and are reported on the next fill.
+     */
+    public int fill(DatagramChannel channel, int max) throws IOException {
+        clear();
+        int limit = Math.min(max, this.offsets.length);
+        while (this.count < limit && this.buffer.remaining() >= this.maxPacketSize) {
+            int offset = this.buffer.position();
+            SocketAddress source;
+            try {
+                source = channel.receive(this.buffer);
+            } catch (IOException e) {
+                if (this.count == 0) {
+                    throw e;
+                }
+                break;
+            }
+
+            if (source == null) {
+                // Channel is drained
+                break;
+            }
+
+            this.offsets[this.count] = offset;
+            this.lengths[this.count] = this.buffer.position() - offset;
+            this.sources[this.count] = source;
+            this.count++;
+        }
+        return this.count;
+    }
+
+    /**
+     * Gets the number of datagrams held by the ring.
+     * 
+     * @return The number of datagrams read on last fill.
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Gets a datagram held by the ring.
+     * <p>
+     * The returned buffer is shared by all datagrams, so it is only valid until this method is called again.
+     * </p>
+     * 
+     * @param index The index of the datagram, between zero and {@link #size()}.
+     * @return The buffer whose remaining bytes hold the datagram.
+     */
+    public ByteBuffer getPacket(int index) {
+        if (index >= this.count) {
+            throw new IndexOutOfBoundsException("Ring holds " + this.count + " datagrams");
+        }
+        this.view.clear();
+        this.view.position(this.offsets[index]);
+        this.view.limit(this.offsets[index] + this.lengths[index]);
+        return this.view;
+    }
+
+    /**
+     * Gets the address of the peer who sent a datagram held by the ring.
+     * 
+     * @param index The index of the datagram, between zero and {@link #size()}.
+     * @return The address of the remote peer.
+     */
+    public SocketAddress getSource(int index) {
+        if (index >= this.count) {
+            throw new IndexOutOfBoundsException("Ring holds " + this.count + " datagrams");
+        }
+        return this.sources[index];
+    }
+
+    /**
+     * Discards all datagrams held by the ring.
+     */
+    public void clear() {
+        for (int i = 0; i < this.count; i++) {
+            this.sources[i] = null;
+        }
+        this.count = 0;
+        this.buffer.clear();
+    }
+
+}
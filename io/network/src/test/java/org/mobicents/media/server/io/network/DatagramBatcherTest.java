@@ -0,0 +1,204 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.WallClock;
+
+/**
+ * Tests for {@link DatagramBatcher}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class DatagramBatcherTest {
+
+    private PriorityQueueScheduler scheduler;
+    private DatagramChannel localChannel;
+    private DatagramChannel remoteChannel;
+    private SocketAddress remoteAddress;
+
+    @Before
+    public void before() throws IOException {
+        scheduler = new PriorityQueueScheduler(new WallClock());
+        localChannel = DatagramChannel.open();
+        localChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+        remoteChannel = DatagramChannel.open();
+        remoteChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+        remoteChannel.configureBlocking(false);
+        remoteAddress = remoteChannel.getLocalAddress();
+    }
+
+    @After
+    public void after() throws IOException {
+        scheduler.stop();
+        localChannel.close();
+        remoteChannel.close();
+    }
+
+    @Test
+    public void testFlushAtEndOfCycle() throws Exception {
+        // given
+        DatagramBatcher batcher = new DatagramBatcher(scheduler);
+        ByteBuffer data = ByteBuffer.allocate(16);
+
+        // when
+        for (String packet : new String[] { "one", "two", "three" }) {
+            data.clear();
+            data.put(packet.getBytes()).flip();
+            batcher.send(localChannel, data, remoteAddress);
+        }
+        Thread.sleep(50);
+        String beforeCycle = receive();
+        scheduler.start();
+        Thread.sleep(100);
+
+        // then
+        assertNull(beforeCycle);
+        assertEquals("one", receive());
+        assertEquals("two", receive());
+        assertEquals("three", receive());
+        assertNull(receive());
+    }
+
+    @Test
+    public void testFlushWhenBatchIsFull() throws Exception {
+        // given
+        DatagramBatcher batcher = new DatagramBatcher(scheduler, 2, 1024);
+
+        // when
+        batcher.send(localChannel, ByteBuffer.wrap("one".getBytes()), remoteAddress);
+        batcher.send(localChannel, ByteBuffer.wrap("two".getBytes()), remoteAddress);
+        batcher.send(localChannel, ByteBuffer.wrap("three".getBytes()), remoteAddress);
+        Thread.sleep(50);
+
+        // then
+        assertEquals("one", receive());
+        assertEquals("two", receive());
+        assertNull(receive());
+    }
+
+    @Test
+    public void testSendLargeDatagramImmediately() throws Exception {
+        // given
+        DatagramBatcher batcher = new DatagramBatcher(scheduler, 2, 4);
+
+        // when
+        batcher.send(localChannel, ByteBuffer.wrap("large".getBytes()), remoteAddress);
+        Thread.sleep(50);
+
+        // then
+        assertEquals("large", receive());
+    }
+
+    @Test
+    public void testNotifyListenerOnlyWhenFlushed() throws Exception {
+        // given
+        DatagramBatcher batcher = new DatagramBatcher(scheduler);
+        RecordingListener listener = new RecordingListener();
+
+        // when
+        batcher.send(localChannel, ByteBuffer.wrap("one".getBytes()), remoteAddress, listener, 1L);
+        batcher.send(localChannel, ByteBuffer.wrap("two".getBytes()), remoteAddress, listener, 2L);
+        Thread.sleep(50);
+        int sentBeforeCycle = listener.sent.size();
+        scheduler.start();
+        Thread.sleep(100);
+
+        // then
+        assertEquals(0, sentBeforeCycle);
+        assertEquals(2, listener.sent.size());
+        assertEquals(Long.valueOf(1L), listener.sent.get(0));
+        assertEquals(Long.valueOf(2L), listener.sent.get(1));
+        assertTrue(listener.failed.isEmpty());
+    }
+
+    @Test
+    public void testNotifyListenerOfFailures() throws Exception {
+        // given
+        DatagramBatcher batcher = new DatagramBatcher(scheduler);
+        RecordingListener listener = new RecordingListener();
+        batcher.send(localChannel, ByteBuffer.wrap("one".getBytes()), remoteAddress, listener, 7L);
+
+        // when
+        localChannel.close();
+        scheduler.start();
+        Thread.sleep(100);
+
+        // then
+        assertTrue(listener.sent.isEmpty());
+        assertEquals(1, listener.failed.size());
+        assertEquals(Long.valueOf(7L), listener.failed.get(0));
+        assertSame(localChannel, listener.failedChannel);
+        assertTrue(listener.error instanceof ClosedChannelException);
+    }
+
+    private static final class RecordingListener implements DatagramSendListener {
+
+        private final List<Long> sent = new ArrayList<Long>();
+        private final List<Long> failed = new ArrayList<Long>();
+        private volatile DatagramChannel failedChannel;
+        private volatile IOException error;
+
+        @Override
+        public synchronized void onDatagramSent(long tag) {
+            this.sent.add(tag);
+        }
+
+        @Override
+        public synchronized void onDatagramFailed(DatagramChannel channel, long tag, IOException e) {
+            this.failed.add(tag);
+            this.failedChannel = channel;
+            this.error = e;
+        }
+
+    }
+
+    private String receive() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        if (remoteChannel.receive(buffer) == null) {
+            return null;
+        }
+        buffer.flip();
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return new String(data);
+    }
+
+}
@@ -27,12 +27,15 @@
 
 package org.mobicents.media.server.io.network;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
@@ -96,6 +99,53 @@ public class UdpPeripheryTest {
         channel.socket().close();
     }
 
+    /**
+     * Test datagrams are received when the selectors are owned by dedicated I/O threads.
+     */
+    @Test
+    public void testReceiveBlockingMode() throws Exception {
+        // given
+        udpPeriphery.stop();
+        udpPeriphery.setSelectionMode(SelectionMode.BLOCKING);
+        udpPeriphery.start();
+
+        final CountDownLatch latch = new CountDownLatch(3);
+        DatagramChannel channel = udpPeriphery.open(new TestHandler() {
+
+            private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+            @Override
+            public void receive(DatagramChannel channel) {
+                try {
+                    buffer.clear();
+                    while (channel.receive(buffer) != null) {
+                        buffer.clear();
+                        latch.countDown();
+                    }
+                } catch (IOException e) {
+                    LOGGER.error("Could not read test packet", e);
+                }
+            }
+        });
+        udpPeriphery.bind(channel, 9202);
+        InetSocketAddress address = (InetSocketAddress) channel.getLocalAddress();
+
+        // when
+        DatagramChannel sender = DatagramChannel.open();
+        try {
+            for (int i = 0; i < 3; i++) {
+                sender.send(ByteBuffer.wrap(new byte[] { 1, 2, 3 }), address);
+            }
+
+            // then
+            assertTrue("Expected packets to be received", latch.await(2, TimeUnit.SECONDS));
+            assertEquals(SelectionMode.BLOCKING, udpPeriphery.getSelectionMode());
+        } finally {
+            sender.close();
+            channel.close();
+        }
+    }
+
     private class TestHandler implements ProtocolHandler {
 
         public void receive(DatagramChannel channel) {
@@ -20,6 +20,8 @@
 
 package org.mobicents.media.server.io.network.channel;
 
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.junit.Test;
@@ -104,6 +106,111 @@ public class PacketHandlerPipelineTest {
 		// then
 		Assert.assertEquals(lpHandler, handler);
 	}
-	
-	
+
+	@Test
+	public void testGetHandlerFromBuffer() {
+		// given
+		PacketHandlerPipeline pipeline = new PacketHandlerPipeline();
+		ByteBufferPacketHandlerMock bufferHandler = new ByteBufferPacketHandlerMock(4, "buffer");
+		ByteBuffer lowData = ByteBuffer.allocateDirect(16);
+		lowData.put("low".getBytes()).flip();
+		ByteBuffer bufferData = ByteBuffer.allocateDirect(16);
+		bufferData.put("buffer".getBytes()).flip();
+
+		// when
+		pipeline.addHandler(hpHandler);
+		pipeline.addHandler(lpHandler);
+		pipeline.addHandler(bufferHandler);
+
+		PacketHandler handler1 = pipeline.getHandler(lowData);
+		PacketHandler handler2 = pipeline.getHandler(bufferData);
+
+		// then
+		Assert.assertEquals(lpHandler, handler1);
+		Assert.assertEquals(0, lowData.position());
+		Assert.assertEquals(bufferHandler, handler2);
+		Assert.assertEquals(0, bufferData.position());
+	}
+
+	@Test
+	public void testGetClassifiedHandler() {
+		// given
+		PacketHandlerPipeline pipeline = new PacketHandlerPipeline();
+		ClassifiedPacketHandlerMock rtpHandler = new ClassifiedPacketHandlerMock(4, PacketClass.RTP);
+		ClassifiedPacketHandlerMock stunHandler = new ClassifiedPacketHandlerMock(3, PacketClass.STUN);
+		ClassifiedPacketHandlerMock dtlsHandler = new ClassifiedPacketHandlerMock(1, PacketClass.DTLS);
+		byte[] rtpPacket = new byte[] { (byte) 0x80, 0x00, 0x00, 0x01 };
+		byte[] stunPacket = new byte[] { 0x00, 0x01, 0x00, 0x00 };
+		byte[] dtlsPacket = new byte[] { 0x16, (byte) 0xfe, (byte) 0xfd, 0x00 };
+		byte[] unknownPacket = new byte[] { 0x7f, 0x00, 0x00, 0x00 };
+
+		// when
+		pipeline.addHandler(rtpHandler);
+		pipeline.addHandler(stunHandler);
+		pipeline.addHandler(dtlsHandler);
+		pipeline.addHandler(lpHandler);
+
+		// then
+		Assert.assertEquals(rtpHandler, pipeline.getHandler(rtpPacket));
+		Assert.assertEquals(stunHandler, pipeline.getHandler(stunPacket));
+		Assert.assertEquals(dtlsHandler, pipeline.getHandler(dtlsPacket));
+		Assert.assertEquals(dtlsHandler, pipeline.getHandler(ByteBuffer.wrap(dtlsPacket)));
+		Assert.assertNull(pipeline.getHandler(unknownPacket));
+		Assert.assertEquals(lpHandler, pipeline.getHandler("low".getBytes()));
+		Assert.assertEquals(1, rtpHandler.queries);
+		Assert.assertEquals(1, stunHandler.queries);
+		Assert.assertEquals(2, dtlsHandler.queries);
+
+		// when
+		pipeline.removeHandler(rtpHandler);
+
+		// then
+		Assert.assertNull(pipeline.getHandler(rtpPacket));
+		Assert.assertNull(pipeline.getHandler(new byte[0]));
+	}
+
+	private static final class ClassifiedPacketHandlerMock extends PacketHandlerMock implements ClassifiedPacketHandler {
+
+		private final PacketClass packetClass;
+		private volatile int queries;
+
+		public ClassifiedPacketHandlerMock(int priority, PacketClass packetClass) {
+			super(priority, packetClass.name());
+			this.packetClass = packetClass;
+		}
+
+		@Override
+		public boolean canHandle(byte[] packet, int dataLength, int offset) {
+			this.queries++;
+			return this.packetClass.contains(packet[offset] & 0xff);
+		}
+
+		@Override
+		public PacketClass getPacketClass() {
+			return this.packetClass;
+		}
+
+	}
+
+	private static final class ByteBufferPacketHandlerMock extends PacketHandlerMock implements ByteBufferPacketHandler {
+
+		private final byte[] validData;
+
+		public ByteBufferPacketHandlerMock(int priority, String validData) {
+			super(priority, validData);
+			this.validData = validData.getBytes();
+		}
+
+		@Override
+		public boolean canHandle(ByteBuffer packet) {
+			return packet.duplicate().equals(ByteBuffer.wrap(this.validData));
+		}
+
+		@Override
+		public byte[] handle(ByteBuffer packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) {
+			return null;
+		}
+
+	}
+
 }
@@ -0,0 +1,147 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.io.network.channel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PacketRing}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PacketRingTest {
+
+    private DatagramChannel localChannel;
+    private DatagramChannel remoteChannel;
+
+    @Before
+    public void before() throws IOException {
+        localChannel = DatagramChannel.open();
+        localChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+        localChannel.configureBlocking(false);
+        remoteChannel = DatagramChannel.open();
+        remoteChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @After
+    public void after() throws IOException {
+        localChannel.close();
+        remoteChannel.close();
+    }
+
+    @Test
+    public void testFillDrainsChannel() throws Exception {
+        // given
+        PacketRing ring = new PacketRing(8, 4096, 512);
+        send("one", "two", "three");
+
+        // when
+        int received = ring.fill(localChannel, 8);
+
+        // then
+        assertEquals(3, received);
+        assertEquals("one", read(ring.getPacket(0)));
+        assertEquals("two", read(ring.getPacket(1)));
+        assertEquals("three", read(ring.getPacket(2)));
+        assertEquals(remoteChannel.getLocalAddress(), ring.getSource(2));
+        assertEquals(0, ring.fill(localChannel, 8));
+    }
+
+    @Test
+    public void testFillIsLimited() throws Exception {
+        // given
+        PacketRing ring = new PacketRing(2, 4096, 512);
+        send("one", "two", "three");
+
+        // when
+        int first = ring.fill(localChannel, 1);
+        String firstPacket = read(ring.getPacket(0));
+        int second = ring.fill(localChannel, 8);
+        String lastPacket = read(ring.getPacket(1));
+        int third = ring.fill(localChannel, 8);
+
+        // then
+        assertEquals(1, first);
+        assertEquals("one", firstPacket);
+        assertEquals(2, second);
+        assertEquals("three", lastPacket);
+        assertEquals(0, ring.fill(localChannel, 8));
+        assertEquals(0, third);
+    }
+
+    @Test
+    public void testFillStopsWhenBufferIsFull() throws Exception {
+        // given
+        PacketRing ring = new PacketRing(8, 1024, 512);
+        String one = pad("one", 300);
+        String two = pad("two", 300);
+        String three = pad("three", 300);
+        send(one, two, three);
+
+        // when
+        int received = ring.fill(localChannel, 8);
+
+        // then
+        assertEquals(2, received);
+        assertEquals(two, read(ring.getPacket(1)));
+        assertEquals(1, ring.fill(localChannel, 8));
+        assertEquals(three, read(ring.getPacket(0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustHoldOnePacket() {
+        new PacketRing(8, 256, 512);
+    }
+
+    private void send(String... packets) throws Exception {
+        for (String packet : packets) {
+            remoteChannel.send(ByteBuffer.wrap(packet.getBytes()), localChannel.getLocalAddress());
+        }
+        // Give some time for datagrams to arrive
+        Thread.sleep(50);
+    }
+
+    private static String pad(String data, int length) {
+        StringBuilder builder = new StringBuilder(data);
+        while (builder.length() < length) {
+            builder.append('.');
+        }
+        return builder.toString();
+    }
+
+    private static String read(ByteBuffer packet) {
+        byte[] data = new byte[packet.remaining()];
+        packet.get(data);
+        return new String(data);
+    }
+
+}
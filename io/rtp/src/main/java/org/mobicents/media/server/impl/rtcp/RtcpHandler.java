@@ -24,7 +24,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -32,16 +32,19 @@ import org.apache.log4j.Logger;
 import org.mobicents.media.server.impl.rtp.RtpPacket;
 import org.mobicents.media.server.impl.rtp.statistics.RtpStatistics;
 import org.mobicents.media.server.impl.srtp.DtlsHandler;
+import org.mobicents.media.server.io.network.channel.ClassifiedPacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketClass;
 import org.mobicents.media.server.io.network.channel.PacketHandler;
 import org.mobicents.media.server.io.network.channel.PacketHandlerException;
 import org.mobicents.media.server.scheduler.Scheduler;
+import org.mobicents.media.server.scheduler.Timeout;
 
 /**
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  * 
  */
-public class RtcpHandler implements PacketHandler {
+public class RtcpHandler implements ClassifiedPacketHandler {
 
     private static final Logger logger = Logger.getLogger(RtcpHandler.class);
 
@@ -55,10 +58,12 @@ public class RtcpHandler implements PacketHandler {
     
     /* Scheduler */
     private final Scheduler scheduler;
+    private final TxTask reportTask;
+    private final TxTask byeTask;
     private TxTask scheduledTask;
-    private Future<?> reportTaskFuture;
+    private Timeout reportTimeout;
     private final SsrcTask ssrcTask;
-    private Future<?> ssrcTaskFuture;
+    private volatile Timeout ssrcTimeout;
 
     /* RTCP elements */
     private final RtpStatistics statistics;
@@ -84,6 +89,8 @@ public class RtcpHandler implements PacketHandler {
     public RtcpHandler(final Scheduler scheduler, final RtpStatistics statistics) {
         // Scheduler
         this.scheduler = scheduler;
+        this.reportTask = new TxTask(RtcpPacketType.RTCP_REPORT);
+        this.byeTask = new TxTask(RtcpPacketType.RTCP_BYE);
         this.ssrcTask = new SsrcTask();
 
         // core stuff
@@ -108,6 +115,11 @@ public class RtcpHandler implements PacketHandler {
         return pipelinePriority;
     }
 
+    @Override
+    public PacketClass getPacketClass() {
+        return PacketClass.RTP;
+    }
+
     public void setPipelinePriority(int pipelinePriority) {
         this.pipelinePriority = pipelinePriority;
     }
@@ -165,8 +177,8 @@ public class RtcpHandler implements PacketHandler {
             scheduleRtcp(this.tn, RtcpPacketType.RTCP_REPORT);
 
             // Start SSRC timeout timer
-            this.ssrcTaskFuture = this.scheduler.scheduleWithFixedDelay(ssrcTask, SSRC_TASK_DELAY, SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
             this.joined.set(true);
+            this.ssrcTimeout = this.scheduler.scheduleTimeout(this.ssrcTask, SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
         }
     }
 
@@ -192,14 +204,14 @@ public class RtcpHandler implements PacketHandler {
             // this.scheduleRtcp(this.tn, RtcpPacketType.RTCP_BYE);
 
             // cancel scheduled task and schedule BYE now
-            if(this.reportTaskFuture != null) {
-                this.reportTaskFuture.cancel(true);
+            if(this.reportTimeout != null) {
+                this.reportTimeout.cancel();
             }
             
             // Send BYE
             // Do not run in separate thread so channel can be properly closed by the owner of this handler
             this.statistics.setRtcpPacketType(RtcpPacketType.RTCP_BYE);
-            this.scheduledTask = new TxTask(RtcpPacketType.RTCP_BYE);
+            this.scheduledTask = this.byeTask;
             this.scheduledTask.run();
         }
     }
@@ -222,26 +234,15 @@ public class RtcpHandler implements PacketHandler {
      * @param packet The RTCP packet to be sent when the timer expires
      */
     private void scheduleRtcp(long timestamp, RtcpPacketType packetType) {
-        // Create the task and schedule it
+        // Schedule the task on the timing wheel. Tasks are reused across intervals.
         long interval = resolveInterval(timestamp);
-        this.scheduledTask = new TxTask(packetType);
-
-        try {
-            this.reportTaskFuture = this.scheduler.schedule(this.scheduledTask, interval, TimeUnit.MILLISECONDS);
-            // Let the RTP handler know what is the type of scheduled packet
-            this.statistics.setRtcpPacketType(packetType);
-        } catch (IllegalStateException e) {
-            logger.warn("RTCP timer already canceled. No more reports will be scheduled.");
-        }
-    }
+        this.scheduledTask = RtcpPacketType.RTCP_BYE.equals(packetType) ? this.byeTask : this.reportTask;
 
-    private void scheduleNow(RtcpPacketType packetType) {
-        this.scheduledTask = new TxTask(packetType);
         try {
-            this.reportTaskFuture = this.scheduler.submit(this.scheduledTask);
+            this.reportTimeout = this.scheduler.scheduleTimeout(this.scheduledTask, interval, TimeUnit.MILLISECONDS);
             // Let the RTP handler know what is the type of scheduled packet
             this.statistics.setRtcpPacketType(packetType);
-        } catch (IllegalStateException e) {
+        } catch (IllegalStateException | RejectedExecutionException e) {
             logger.warn("RTCP timer already canceled. No more reports will be scheduled.");
         }
     }
@@ -253,13 +254,13 @@ public class RtcpHandler implements PacketHandler {
      */
     private void rescheduleRtcp(TxTask task, long timestamp) {
         // Cancel current execution of the task
-        this.reportTaskFuture.cancel(true);
+        this.reportTimeout.cancel();
         
         // Re-schedule task execution
         long interval = resolveInterval(timestamp);
         try {
-            this.reportTaskFuture = this.scheduler.schedule(task, interval, TimeUnit.MILLISECONDS);
-        } catch (IllegalStateException e) {
+            this.reportTimeout = this.scheduler.scheduleTimeout(task, interval, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException | RejectedExecutionException e) {
             logger.warn("RTCP timer already canceled. Scheduled report was canceled and cannot be re-scheduled.");
         }
     }
@@ -455,15 +456,15 @@ public class RtcpHandler implements PacketHandler {
             throw new IllegalStateException("Cannot reset handler while is part of active RTP session.");
         }
 
-        if (this.reportTaskFuture != null) {
-            this.reportTaskFuture.cancel(false);
-            this.reportTaskFuture = null;
+        if (this.reportTimeout != null) {
+            this.reportTimeout.cancel();
+            this.reportTimeout = null;
             this.scheduledTask = null;
         }
 
-        if (this.ssrcTaskFuture != null) {
-            this.ssrcTaskFuture.cancel(false);
-            this.ssrcTaskFuture = null;
+        if (this.ssrcTimeout != null) {
+            this.ssrcTimeout.cancel();
+            this.ssrcTimeout = null;
         }
 
         this.tp = 0;
@@ -603,12 +604,21 @@ public class RtcpHandler implements PacketHandler {
 
     /**
      * Runnable task responsible for checking timeouts of registered SSRC.
+     * <p>
+     * Re-arms itself on the timing wheel while the handler is part of an RTP session.
+     * </p>
      */
     private class SsrcTask implements Runnable {
 
         @Override
         public void run() {
             statistics.isSenderTimeout();
+
+            // Only the chain started by the current session keeps running
+            final Timeout current = ssrcTimeout;
+            if (joined.get() && current != null && current.isExpired()) {
+                ssrcTimeout = scheduler.scheduleTimeout(this, SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
+            }
         }
 
     }
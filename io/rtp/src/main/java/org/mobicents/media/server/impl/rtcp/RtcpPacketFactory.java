@@ -96,10 +96,9 @@ public class RtcpPacketFactory {
 		RtcpSenderReport senderReport = new RtcpSenderReport(padding, ssrc, ntpSec, ntpFrac, rtpTs, psent, osent);
 		
 		// Add receiver reports for each registered member
-		List<Long> members = statistics.getMembersList();
-		for (Long memberSsrc : members) {
-			if (ssrc != memberSsrc) {
-				RtpMember memberStats = statistics.getMember(memberSsrc.longValue());
+		List<RtpMember> members = statistics.getMembersSnapshot();
+		for (RtpMember memberStats : members) {
+			if (ssrc != memberStats.getSsrc()) {
 				RtcpReportBlock rcvrReport = buildSubReceiverReport(memberStats);
 				senderReport.addReceiverReport(rcvrReport);
 			}
@@ -119,10 +118,9 @@ public class RtcpPacketFactory {
 		long ssrc = statistics.getSsrc();
 		
 		// Add receiver reports for each registered member
-		List<Long> members = statistics.getMembersList();
-		for (Long memberSsrc : members) {
-			if (ssrc != memberSsrc) {
-				RtpMember memberStats = statistics.getMember(memberSsrc.longValue());
+		List<RtpMember> members = statistics.getMembersSnapshot();
+		for (RtpMember memberStats : members) {
+			if (ssrc != memberStats.getSsrc()) {
 				RtcpReportBlock rcvrReport = buildSubReceiverReport(memberStats);
 				report.addReceiverReport(rcvrReport);
 			}
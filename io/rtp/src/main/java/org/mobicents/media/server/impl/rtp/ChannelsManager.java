@@ -29,6 +29,7 @@ import org.mobicents.media.server.impl.rtcp.RtcpChannel;
 import org.mobicents.media.server.impl.rtp.channels.AudioChannel;
 import org.mobicents.media.server.impl.rtp.crypto.DtlsSrtpServerProvider;
 import org.mobicents.media.server.impl.rtp.statistics.RtpStatistics;
+import org.mobicents.media.server.io.network.DatagramBatcher;
 import org.mobicents.media.server.io.network.PortManager;
 import org.mobicents.media.server.io.network.UdpManager;
 import org.mobicents.media.server.io.sdp.format.AVProfile;
@@ -58,6 +59,9 @@ public class ChannelsManager {
 
     private PriorityQueueScheduler scheduler;
     
+    //sends RTP packets in bulk at the end of each cycle
+    private DatagramBatcher datagramBatcher;
+    
     private int jitterBufferSize=50;
     
     //channel id generator
@@ -124,6 +128,7 @@ public class ChannelsManager {
 
     public void setScheduler(PriorityQueueScheduler scheduler) {
         this.scheduler = scheduler;
+        this.datagramBatcher = scheduler == null ? null : new DatagramBatcher(scheduler);
     }
 
     public PriorityQueueScheduler getScheduler() {
@@ -156,7 +161,9 @@ public class ChannelsManager {
     }
     
     public RtpChannel getRtpChannel(RtpStatistics statistics, RtpClock clock, RtpClock oobClock) {
-    	return new RtpChannel(channelIndex.incrementAndGet(), jitterBufferSize, statistics, clock, oobClock, scheduler, udpManager, dtlsServerProvider);
+    	RtpChannel channel = new RtpChannel(channelIndex.incrementAndGet(), jitterBufferSize, statistics, clock, oobClock, scheduler, udpManager, dtlsServerProvider);
+    	channel.getTransmitter().setBatcher(this.datagramBatcher);
+    	return channel;
     }
 
     public RtcpChannel getRtcpChannel(RtpStatistics statistics) {
@@ -23,8 +23,8 @@
 package org.mobicents.media.server.impl.rtp;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.log4j.Logger;
 import org.mobicents.media.server.io.sdp.format.RTPFormat;
@@ -47,41 +47,65 @@ import org.mobicents.media.server.spi.memory.Memory;
  * an adaptive jitter buffer then the maximum size may be set to 100-200mS. Note
  * that if the jitter buffer size exceeds 100mS then the additional delay
  * introduced can lead to conversational difficulty.
+ * 
+ * Frames are stored in a ring indexed by extended sequence number, so packets
+ * are inserted and read in constant time. The ring is written by the thread
+ * that receives RTP packets and read by the scheduler, which exchange frames
+ * through atomic slots without locking.
+ * 
+ * The playout delay adapts to the network jitter estimated as per RFC 3550.
+ * The configured jitter buffer size is the upper bound of the delay.
  *
  * @author oifa yulian
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
 public class JitterBuffer implements Serializable {
 	
 	private static final long serialVersionUID = -389930569631795779L;
 	
-	private final ReentrantLock LOCK = new ReentrantLock();
-
-	//The underlying buffer size
-    private static final int QUEUE_SIZE = 10;
-    //the underlying buffer
-    private ArrayList<Frame> queue = new ArrayList<Frame>(QUEUE_SIZE);
+	//The underlying buffer size. Must be a power of two.
+    private static final int QUEUE_SIZE = 16;
+    private static final int QUEUE_MASK = QUEUE_SIZE - 1;
+    
+    //Number of late packets in a row after which remote peer is assumed to have restarted its sequence
+    private static final int RESYNC_THRESHOLD = QUEUE_SIZE / 2;
+    
+    //Playout delay, in milliseconds, is a multiple of the jitter but never less than a packet
+    private static final int MIN_DELAY = 20;
+    private static final int JITTER_FACTOR = 3;
+    
+    //the underlying buffer, indexed by extended sequence number
+    private final AtomicReferenceArray<Frame> queue = new AtomicReferenceArray<Frame>(QUEUE_SIZE);
     
     //RTP clock
     private RtpClock rtpClock;
     //first received sequence number
     private long isn = -1;
 
-    //allowed jitter
+    //maximum allowed jitter
     private long jitterBufferSize;
     
-    //packet arrival dead line measured on RTP clock.
-    //initial value equals to infinity
-    private long arrivalDeadLine = 0;
-
-    //packet arrival dead line measured on RTP clock.
-    //initial value equals to infinity
-    private long droppedInRaw = 0;
+    //highest extended sequence number written to the buffer
+    private volatile long highestSeq = -1;
+    //lowest extended sequence number that can be read. Raised by the writer when frames are discarded.
+    private volatile long floorSeq = 0;
+    //next extended sequence number to be read. Raised by the reader.
+    private volatile long readSeq = 0;
     
-    //The number of dropped packets
-    private int dropCount;
-
-    //known duration of media wich contains in this buffer.
-    private volatile long duration;
+    //extended sequence numbers and timestamps, in milliseconds, of the frames written to each slot. Writer only.
+    private final long[] writtenSeqs = new long[QUEUE_SIZE];
+    private final long[] writtenTimestamps = new long[QUEUE_SIZE];
+    //timestamp, in milliseconds, of the newest frame. Writer only.
+    private long tailTimestamp;
+    
+    //number of late packets received in a row
+    private int lateInRow = 0;
+    
+    //statistics
+    private volatile int dropCount;
+    private volatile long lateCount;
+    private volatile long lostCount;
+    private volatile long duplicateCount;
 
     //buffer's monitor
     private BufferListener listener;
@@ -98,13 +122,14 @@ public class JitterBuffer implements Serializable {
     /**
      * continuously updated value of network jitter 
      */
-    private long currentJitter = 0;
+    private volatile long currentJitter = 0;
+    private volatile long maxJitter = 0;
     
     //transmission formats
     private RTPFormats rtpFormats = new RTPFormats();
     
     //currently used format
-    private RTPFormat format;
+    private volatile RTPFormat format;
     
     private Boolean useBuffer=true;
     
@@ -113,10 +138,12 @@ public class JitterBuffer implements Serializable {
      * Creates new instance of jitter.
      * 
      * @param clock the rtp clock.
+     * @param jitterBufferSize the maximum playout delay, in milliseconds.
      */
     public JitterBuffer(RtpClock clock, int jitterBufferSize) {
         this.rtpClock = clock;
         this.jitterBufferSize = jitterBufferSize;        
+        Arrays.fill(this.writtenSeqs, -1L);
     }
 
     private void initJitter(RtpPacket firstPacket) {
@@ -141,6 +168,9 @@ public class JitterBuffer implements Serializable {
 		//logger.info(String.format("recalculating jitter: arrival=%d, newPacketTimestamp=%d, transit=%d, transit delta=%d", arrival, newPacketTimestamp, transit, d ));
 		currentTransit = transit;
 		currentJitter += d - ((currentJitter + 8) >> 4);
+		if (currentJitter > maxJitter) {
+			maxJitter = currentJitter;
+		}
 	}
     
     /**
@@ -154,26 +184,43 @@ public class JitterBuffer implements Serializable {
             return jitterEstimate;
     }
     
+    /**
+     * Gets the playout delay the buffer must accumulate before the consumer is notified.
+     * 
+     * The delay follows the estimated network jitter, bounded by the size of a
+     * packet and by the configured jitter buffer size.
+     * 
+     * @return the target delay, in milliseconds.
+     */
+    public long getTargetDelay() {
+        RTPFormat currentFormat = this.format;
+        long jitter = 0;
+        if (currentFormat != null && currentFormat.getClockRate() > 0) {
+            jitter = getEstimatedJitter() * 1000L / currentFormat.getClockRate();
+        }
+        return Math.min(this.jitterBufferSize, Math.max(MIN_DELAY, JITTER_FACTOR * jitter));
+    }
+    
     public void setFormats(RTPFormats rtpFormats) {
         this.rtpFormats = rtpFormats;
     }
     
     /**
-     * Gets the interarrival jitter.
+     * Gets the interarrival jitter estimated as per RFC 3550.
      *
-     * @return the current jitter value.
+     * @return the current jitter value, in RTP timestamp units.
      */
     public double getJitter() {
-        return 0;
+        return getEstimatedJitter();
     }
 
     /**
-     * Gets the maximum interarrival jitter.
+     * Gets the maximum interarrival jitter estimated as per RFC 3550 since the buffer was restarted.
      *
-     * @return the jitter value.
+     * @return the jitter value, in RTP timestamp units.
      */
     public double getMaxJitter() {
-        return 0;
+        return maxJitter >> 4;
     }
     
     /**
@@ -185,6 +232,33 @@ public class JitterBuffer implements Serializable {
         return dropCount;
     }
     
+    /**
+     * Gets the number of packets dropped because they arrived after being due for playout.
+     * 
+     * @return the number of late packets.
+     */
+    public long getLate() {
+        return lateCount;
+    }
+    
+    /**
+     * Gets the number of packets that were never received by the time they were due for playout.
+     * 
+     * @return the number of lost packets.
+     */
+    public long getLost() {
+        return lostCount;
+    }
+    
+    /**
+     * Gets the number of packets dropped because they were already buffered.
+     * 
+     * @return the number of duplicate packets.
+     */
+    public long getDuplicates() {
+        return duplicateCount;
+    }
+    
     public boolean bufferInUse()
     {
     	return this.useBuffer;
@@ -203,6 +277,40 @@ public class JitterBuffer implements Serializable {
     public void setListener(BufferListener listener) {
         this.listener = listener;
     }
+    
+    /**
+     * Extends a sequence number to 64 bits, relative to the highest sequence number in the buffer.
+     */
+    private long extend(int sequenceNumber) {
+        long highest = this.highestSeq;
+        int delta = (short) (sequenceNumber - (int) highest);
+        return highest + delta;
+    }
+
+    /**
+     * Extends a sequence number so it follows the highest sequence number in the buffer, no matter its value.
+     * 
+     * The extended sequence number keeps the 16 lower bits of the original one.
+     */
+    private long rebase(int sequenceNumber) {
+        long next = this.highestSeq + 1;
+        return next + ((sequenceNumber - next) & 0xFFFFL);
+    }
+    
+    /**
+     * Discards all frames whose sequence number is lower than the given one. Writer only.
+     */
+    private void discard(long start, long floor) {
+        long end = Math.min(floor, start + QUEUE_SIZE);
+        for (long seq = start; seq < end; seq++) {
+            Frame dropped = queue.getAndSet((int) (seq & QUEUE_MASK), null);
+            if (dropped != null) {
+                dropCount++;
+                dropped.recycle();
+            }
+        }
+        this.floorSeq = floor;
+    }
 
     /**
      * Accepts specified packet
@@ -210,130 +318,135 @@ public class JitterBuffer implements Serializable {
      * @param packet the packet to accept
      */
 	public void write(RtpPacket packet, RTPFormat format) {
-		try {
-			LOCK.lock();
-			// checking format
-			if (format == null) {
-			    if(logger.isDebugEnabled()) {
-			        logger.debug("No format specified. Packet dropped!");
-			    }
-				return;
-			}
-
-			if (this.format == null || this.format.getID() != format.getID()) {
-				this.format = format;
-				if(logger.isDebugEnabled()) {
-				    logger.debug("Format has been changed: " + this.format.toString());
-				}
-			}
+		// checking format
+		if (format == null) {
+		    if(logger.isDebugEnabled()) {
+		        logger.debug("No format specified. Packet dropped!");
+		    }
+			return;
+		}
 
-			// if this is first packet then synchronize clock
-			if (isn == -1) {
-				rtpClock.synchronize(packet.getTimestamp());
-				isn = packet.getSeqNumber();
-				initJitter(packet);
-			} else {
-				estimateJitter(packet);
+		if (this.format == null || this.format.getID() != format.getID()) {
+			this.format = format;
+			if(logger.isDebugEnabled()) {
+			    logger.debug("Format has been changed: " + this.format.toString());
 			}
+		}
 
-			// update clock rate
-			rtpClock.setClockRate(this.format.getClockRate());
-
-			// drop outstanding packets
-			// packet is outstanding if its timestamp of arrived packet is less
-			// then consumer media time
-			if (packet.getTimestamp() < this.arrivalDeadLine) {
-			    if(logger.isDebugEnabled()) {
-			        logger.debug("drop packet: dead line=" + arrivalDeadLine + ", packet time=" + packet.getTimestamp() + ", seq=" + packet.getSeqNumber() + ", payload length=" + packet.getPayloadLength() + ", format=" + this.format.toString());
-			    }
-				dropCount++;
+		// if this is first packet then synchronize clock
+		long seq;
+		long start = Math.max(this.readSeq, this.floorSeq);
+		if (isn == -1) {
+			rtpClock.synchronize(packet.getTimestamp());
+			isn = packet.getSeqNumber();
+			initJitter(packet);
+			
+			// place first packet after anything read so far
+			seq = rebase(packet.getSeqNumber());
+			discard(start, seq);
+			start = seq;
+		} else {
+			estimateJitter(packet);
+			seq = extend(packet.getSeqNumber());
+		}
 
-				// checking if not dropping too much
-				droppedInRaw++;
-				if (droppedInRaw == QUEUE_SIZE / 2 || queue.size() == 0) {
-					arrivalDeadLine = 0;
-				} else {
-					return;
-				}
+		// update clock rate
+		rtpClock.setClockRate(this.format.getClockRate());
+
+		// drop outstanding packets
+		// packet is outstanding if its playout time already passed
+		if (seq < start) {
+		    if(logger.isDebugEnabled()) {
+		        logger.debug("drop packet: next seq=" + start + ", packet seq=" + seq + ", packet time=" + packet.getTimestamp() + ", payload length=" + packet.getPayloadLength() + ", format=" + this.format.toString());
+		    }
+			dropCount++;
+			lateCount++;
+
+			// checking if not dropping too much
+			lateInRow++;
+			if (lateInRow < RESYNC_THRESHOLD) {
+				return;
 			}
+			
+			// remote peer restarted its sequence, so continue after highest sequence number
+			seq = rebase(packet.getSeqNumber());
+			discard(start, seq);
+			start = seq;
+		}
+		lateInRow = 0;
+		
+		// check for duplicate packet
+		int index = (int) (seq & QUEUE_MASK);
+		Frame current = queue.get(index);
+		if (current != null && current.getSequenceNumber() == packet.getSeqNumber()) {
+			duplicateCount++;
+			return;
+		}
+		
+		// overflow?
+		// remove oldest packets to make room for the new one
+		if (seq - start >= QUEUE_SIZE) {
+		    if(logger.isDebugEnabled()) {
+		        logger.debug("Buffer overflow!");
+		    }
+			discard(start, seq - QUEUE_SIZE + 1);
+			start = seq - QUEUE_SIZE + 1;
+		}
 
-			Frame f = Memory.allocate(packet.getPayloadLength());
-			// put packet into buffer irrespective of its sequence number
-			f.setHeader(null);
-			f.setSequenceNumber(packet.getSeqNumber());
-			// here time is in milliseconds
-			f.setTimestamp(rtpClock.convertToAbsoluteTime(packet.getTimestamp()));
-			f.setOffset(0);
-			f.setLength(packet.getPayloadLength());
-			packet.getPayload(f.getData(), 0);
-
-			// set format
-			f.setFormat(this.format.getFormat());
-
-			// make checks only if have packet
-			if (f != null) {
-
-				droppedInRaw = 0;
-
-				// find correct position to insert a packet
-				// use timestamp since its always positive
-				int currIndex = queue.size() - 1;
-				while (currIndex >= 0 && queue.get(currIndex).getTimestamp() > f.getTimestamp()) {
-					currIndex--;
-				}
-
-				// check for duplicate packet
-				if (currIndex >= 0 && queue.get(currIndex).getSequenceNumber() == f.getSequenceNumber()) {
-					return;
-				}
-
-				queue.add(currIndex + 1, f);
-
-				// recalculate duration of each frame in queue and overall duration
-				// since we could insert the frame in the middle of the queue
-				duration = 0;
-				if (queue.size() > 1) {
-					duration = queue.get(queue.size() - 1).getTimestamp() - queue.get(0).getTimestamp();
-				}
-
-				for (int i = 0; i < queue.size() - 1; i++) {
-					// duration measured by wall clock
-					long d = queue.get(i + 1).getTimestamp() - queue.get(i).getTimestamp();
-					// in case of RFC2833 event timestamp remains same
-					queue.get(i).setDuration(d > 0 ? d : 0);
-				}
-
-				// if overall duration is negative we have some mess here,try to
-				// reset
-				if (duration < 0 && queue.size() > 1) {
-					logger.warn("Something messy happened. Reseting jitter buffer!");
-					reset();
-					return;
-				}
-
-				// overflow?
-				// only now remove packet if overflow , possibly the same packet we just received
-				if (queue.size() > QUEUE_SIZE) {
-				    if(logger.isDebugEnabled()) {
-				        logger.debug("Buffer overflow!");
-				    }
-					dropCount++;
-					queue.remove(0).recycle();
-				}
+		Frame f = Memory.allocate(packet.getPayloadLength());
+		// put packet into buffer irrespective of its sequence number
+		f.setHeader(null);
+		f.setSequenceNumber(packet.getSeqNumber());
+		// here time is in milliseconds
+		f.setTimestamp(rtpClock.convertToAbsoluteTime(packet.getTimestamp()));
+		f.setOffset(0);
+		f.setLength(packet.getPayloadLength());
+		packet.getPayload(f.getData(), 0);
+
+		// set format
+		f.setFormat(this.format.getFormat());
+		
+		// publish frame to the reader
+		Frame previous = queue.getAndSet(index, f);
+		if (previous != null) {
+			dropCount++;
+			previous.recycle();
+		}
+		
+		this.writtenSeqs[index] = seq;
+		this.writtenTimestamps[index] = f.getTimestamp();
+		if (seq > this.highestSeq) {
+			this.tailTimestamp = f.getTimestamp();
+			this.highestSeq = seq;
+		}
 
-				// check if this buffer already full
-				if (!ready) {
-					ready = !useBuffer || (duration >= jitterBufferSize && queue.size() > 1);
-					if (ready && listener != null) {
-						listener.onFill();
-					}
-				}
+		// check if this buffer already full
+		if (!ready) {
+			long duration = this.tailTimestamp - headTimestamp(start);
+			ready = !useBuffer || (duration >= getTargetDelay() && this.highestSeq > start);
+			if (ready && listener != null) {
+				listener.onFill();
 			}
-		} finally {
-			LOCK.unlock();
 		}
 	}     
 
+    /**
+     * Gets the timestamp of the oldest frame written at or after the given sequence number. Writer only.
+     * <p>
+     * Relies on what the writer itself wrote, so the reader never has to hand the head of the buffer over. A frame the
+     * reader is consuming meanwhile only makes the buffered duration look slightly longer.
+     * </p>
+     */
+    private long headTimestamp(long start) {
+        for (long seq = start; seq <= this.highestSeq; seq++) {
+            int index = (int) (seq & QUEUE_MASK);
+            if (this.writtenSeqs[index] == seq) {
+                return this.writtenTimestamps[index];
+            }
+        }
+        return this.tailTimestamp;
+    }
+
     /**
      * Polls packet from buffer's head.
      *
@@ -341,58 +454,79 @@ public class JitterBuffer implements Serializable {
      * @return the media frame.
      */
     public Frame read(long timestamp) {
-		try {
-			LOCK.lock();
-			if (queue.size() == 0) {
-				this.ready = false;
-				return null;
+		long start = Math.max(this.readSeq, this.floorSeq);
+		long highest = this.highestSeq;
+		long end = Math.min(highest + 1, start + QUEUE_SIZE);
+		
+		// skip packets that were not received
+		Frame frame = null;
+		long seq = start;
+		while (frame == null && seq < end) {
+			frame = queue.getAndSet((int) (seq & QUEUE_MASK), null);
+			if (frame == null) {
+				seq++;
 			}
-
-
-			//extract packet
-			Frame frame = queue.remove(0);
-
-			//buffer empty now? - change ready flag.
-			if (queue.size() == 0) {
-				this.ready = false;
-				//arrivalDeadLine = 0;
-				//set it as 1 ms since otherwise will be dropped by pipe
-				frame.setDuration(1);
+		}
+		
+		if (frame == null) {
+			this.ready = false;
+			return null;
+		}
+		
+		// slot may have been reused by the writer for a newer packet
+		seq = seq + ((frame.getSequenceNumber() - seq) & 0xFFFFL);
+		lostCount += seq - start;
+		this.readSeq = seq + 1;
+		
+		// duration lasts until next frame in the buffer
+		long duration = -1;
+		end = Math.min(this.highestSeq + 1, seq + 1 + QUEUE_SIZE);
+		for (long next = seq + 1; next < end && duration < 0; next++) {
+			Frame nextFrame = queue.get((int) (next & QUEUE_MASK));
+			if (nextFrame != null) {
+				long d = nextFrame.getTimestamp() - frame.getTimestamp();
+				// in case of RFC2833 event timestamp remains same
+				duration = d > 0 ? d : 0;
 			}
-
-
-			arrivalDeadLine = rtpClock.convertToRtpTime(frame.getTimestamp() + frame.getDuration());
-
-			//convert duration to nanoseconds
-			frame.setDuration(frame.getDuration() * 1000000L);
-			frame.setTimestamp(frame.getTimestamp() * 1000000L);
-
-			return frame;
-		} finally {
-			LOCK.unlock();
 		}
+		
+		//buffer empty now? - change ready flag.
+		if (duration < 0) {
+			this.ready = false;
+			//set it as 1 ms since otherwise will be dropped by pipe
+			duration = 1;
+		}
+		
+		//convert duration to nanoseconds
+		frame.setDuration(duration * 1000000L);
+		frame.setTimestamp(frame.getTimestamp() * 1000000L);
+		
+		return frame;
     }
     
     /**
      * Resets buffer.
      */
     public void reset() {
-		try {
-			LOCK.lock();
-			while (queue.size() > 0)
-				queue.remove(0).recycle();
-		} finally {
-			LOCK.unlock();
-		}
+    	for (int i = 0; i < QUEUE_SIZE; i++) {
+    		Frame frame = queue.getAndSet(i, null);
+    		if (frame != null) {
+    			frame.recycle();
+    		}
+    	}
     }
     
     public void restart() {
     	reset();
     	this.ready=false;
-    	arrivalDeadLine = 0;
     	dropCount=0;
-    	droppedInRaw=0;
+    	lateCount=0;
+    	lostCount=0;
+    	duplicateCount=0;
+    	lateInRow=0;
     	format=null;
     	isn=-1;
+    	currentJitter=0;
+    	maxJitter=0;
     }
 }
@@ -25,6 +25,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.mobicents.media.io.ice.IceAuthenticator;
@@ -43,7 +44,7 @@ import org.mobicents.media.server.io.network.UdpManager;
 import org.mobicents.media.server.io.network.channel.MultiplexedChannel;
 import org.mobicents.media.server.io.sdp.format.RTPFormats;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
-import org.mobicents.media.server.scheduler.Task;
+import org.mobicents.media.server.scheduler.Timeout;
 import org.mobicents.media.server.spi.ConnectionMode;
 import org.mobicents.media.server.spi.FormatNotSupportedException;
 import org.mobicents.media.server.spi.dsp.Processor;
@@ -138,9 +139,9 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         this.rtpHandler = new RtpHandler(scheduler, clock, oobClock, jitterBufferSize, statistics);
         this.rtpHandler.setPipelinePriority(RTP_PRIORITY);
         this.rtcpHandler = new RtcpHandler(this.udpManager.getScheduler(), statistics);
-        this.rtpHandler.setPipelinePriority(RTCP_PRIORITY);
+        this.rtcpHandler.setPipelinePriority(RTCP_PRIORITY);
         this.dtlsHandler = new DtlsHandler(dtlsServerProvider);
-        this.rtpHandler.setPipelinePriority(DTLS_PRIORITY);
+        this.dtlsHandler.setPipelinePriority(DTLS_PRIORITY);
         this.stunHandler = new IceHandler(IceComponent.RTP_ID, this);
         this.stunHandler.setPipelinePriority(STUN_PRIORITY);
 
@@ -280,7 +281,7 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         if (udpManager.getRtpTimeout() > 0 && this.remotePeer != null && !connectImmediately) {
             if (this.rtpHandler.isReceivable()) {
                 this.statistics.setLastHeartbeat(scheduler.getClock().getTime());
-                scheduler.submitHeatbeat(heartBeat);
+                heartBeat.start();
             } else {
                 heartBeat.cancel();
             }
@@ -397,7 +398,7 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         if (udpManager.getRtpTimeout() > 0 && !connectImmediately) {
             if (this.rtpHandler.isReceivable()) {
                 this.statistics.setLastHeartbeat(scheduler.getClock().getTime());
-                scheduler.submitHeatbeat(heartBeat);
+                heartBeat.start();
             } else {
                 heartBeat.cancel();
             }
@@ -554,23 +555,52 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         }
     }
 
-    private class HeartBeat extends Task {
+    /**
+     * Checks whether RTP traffic stopped for longer than the configured timeout.
+     * <p>
+     * Runs on the timing wheel of the service scheduler. Instead of polling, the check is re-armed to expire exactly when the
+     * timeout would elapse since the last received packet.
+     * </p>
+     */
+    private class HeartBeat implements Runnable {
+
+        private volatile Timeout timeout;
+
+        void start() {
+            cancel();
+            schedule(udpManager.getRtpTimeout() * 1000000000L);
+        }
 
-        public int getQueueNumber() {
-            return PriorityQueueScheduler.HEARTBEAT_QUEUE;
+        void cancel() {
+            final Timeout current = this.timeout;
+            if (current != null) {
+                current.cancel();
+                this.timeout = null;
+            }
+        }
+
+        private void schedule(long delay) {
+            this.timeout = udpManager.getScheduler().scheduleTimeout(this, delay, TimeUnit.NANOSECONDS);
         }
 
         @Override
-        public long perform() {
+        public void run() {
+            // Heart beat was cancelled or restarted meanwhile
+            final Timeout current = this.timeout;
+            if (current == null || !current.isExpired()) {
+                return;
+            }
+
+            long rtpTimeout = udpManager.getRtpTimeout() * 1000000000L;
             long elapsedTime = scheduler.getClock().getTime() - statistics.getLastHeartbeat();
-            if (elapsedTime > udpManager.getRtpTimeout() * 1000000000L) {
+            if (elapsedTime > rtpTimeout) {
+                this.timeout = null;
                 if (rtpListener != null) {
                     rtpListener.onRtpFailure("RTP timeout! Elapsed time since last heartbeat: " + elapsedTime);
                 }
             } else {
-                scheduler.submitHeatbeat(this);
+                schedule(rtpTimeout - elapsedTime + 1);
             }
-            return 0;
         }
     }
     
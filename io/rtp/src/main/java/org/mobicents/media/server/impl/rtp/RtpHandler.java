@@ -28,6 +28,9 @@ import org.mobicents.media.server.impl.rtcp.RtcpHeader;
 import org.mobicents.media.server.impl.rtp.rfc2833.DtmfInput;
 import org.mobicents.media.server.impl.rtp.statistics.RtpStatistics;
 import org.mobicents.media.server.impl.srtp.DtlsHandler;
+import org.mobicents.media.server.io.network.channel.ByteBufferPacketHandler;
+import org.mobicents.media.server.io.network.channel.ClassifiedPacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketClass;
 import org.mobicents.media.server.io.network.channel.PacketHandler;
 import org.mobicents.media.server.io.network.channel.PacketHandlerException;
 import org.mobicents.media.server.io.sdp.format.RTPFormat;
@@ -41,7 +44,7 @@ import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  * 
  */
-public class RtpHandler implements PacketHandler {
+public class RtpHandler implements ByteBufferPacketHandler, ClassifiedPacketHandler {
 	
 	private static final Logger logger = Logger.getLogger(RtpHandler.class);
 	
@@ -61,6 +64,7 @@ public class RtpHandler implements PacketHandler {
 	
 	private final RtpStatistics statistics;
 	private final RtpPacket rtpPacket;
+	private final RtpPacket rtpPacketView;
 	
 	// SRTP
 	private boolean secure;
@@ -82,6 +86,7 @@ public class RtpHandler implements PacketHandler {
 		this.rtpFormats = new RTPFormats();
 		this.statistics = statistics;
 		this.rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, true);
+		this.rtpPacketView = new RtpPacket(0, false);
 		this.receivable = false;
 		this.loopable = false;
 		
@@ -92,6 +97,11 @@ public class RtpHandler implements PacketHandler {
 		return pipelinePriority;
 	}
 	
+	@Override
+	public PacketClass getPacketClass() {
+		return PacketClass.RTP;
+	}
+	
 	public void setPipelinePriority(int pipelinePriority) {
 		this.pipelinePriority = pipelinePriority;
 	}
@@ -173,6 +183,16 @@ public class RtpHandler implements PacketHandler {
 	}
 	
 	public boolean canHandle(byte[] packet, int dataLength, int offset) {
+		return dataLength >= RtpPacket.FIXED_HEADER_SIZE && isRtp(packet[offset], packet[offset + 1]);
+	}
+	
+	@Override
+	public boolean canHandle(ByteBuffer packet) {
+		int offset = packet.position();
+		return packet.remaining() >= RtpPacket.FIXED_HEADER_SIZE && isRtp(packet.get(offset), packet.get(offset + 1));
+	}
+	
+	private static boolean isRtp(byte b0, byte b1) {
 		/*
 		 * The RTP header has the following format:
 		 *
@@ -194,45 +214,41 @@ public class RtpHandler implements PacketHandler {
 	     * 
 	     * The version defined by RFC3550 specification is two.
 		 */
-		// Packet must be equal or greater than an RTP Packet Header
-        if (dataLength >= RtpPacket.FIXED_HEADER_SIZE) {
-            // The most significant 2 bits of every RTP message correspond to the version.
-            // Currently supported version is 2 according to RFC3550
-            byte b0 = packet[offset];
-            int b0Int = b0 & 0xff;
+        // The most significant 2 bits of every RTP message correspond to the version.
+        // Currently supported version is 2 according to RFC3550
+        int b0Int = b0 & 0xff;
 
-            // Differentiate between RTP, STUN and DTLS packets in the pipeline
-            // https://tools.ietf.org/html/rfc5764#section-5.1.2
-            if (b0Int > 127 && b0Int < 192) {
-                int version = (b0 & 0xC0) >> 6;
+        // Differentiate between RTP, STUN and DTLS packets in the pipeline
+        // https://tools.ietf.org/html/rfc5764#section-5.1.2
+        if (b0Int > 127 && b0Int < 192) {
+            int version = (b0 & 0xC0) >> 6;
 
-                if (RtpPacket.VERSION == version) {
-                    /*
-                     * When RTP and RTCP packets are multiplexed onto a single port, the RTCP packet type field occupies the
-                     * same position in the packet as the combination of the RTP marker (M) bit and the RTP payload type (PT).
-                     * This field can be used to distinguish RTP and RTCP packets when two restrictions are observed:
-                     * 
-                     * 1) the RTP payload type values used are distinct from the RTCP packet types used.
-                     * 
-                     * 2) for each RTP payload type (PT), PT+128 is distinct from the RTCP packet types used. The first
-                     * constraint precludes a direct conflict between RTP payload type and RTCP packet type; the second
-                     * constraint precludes a conflict between an RTP data packet with the marker bit set and an RTCP packet.
-                     */
-                    int type = packet[offset + 1] & 0xff & 0x7f;
-                    int rtcpType = type + 128;
+            if (RtpPacket.VERSION == version) {
+                /*
+                 * When RTP and RTCP packets are multiplexed onto a single port, the RTCP packet type field occupies the
+                 * same position in the packet as the combination of the RTP marker (M) bit and the RTP payload type (PT).
+                 * This field can be used to distinguish RTP and RTCP packets when two restrictions are observed:
+                 * 
+                 * 1) the RTP payload type values used are distinct from the RTCP packet types used.
+                 * 
+                 * 2) for each RTP payload type (PT), PT+128 is distinct from the RTCP packet types used. The first
+                 * constraint precludes a direct conflict between RTP payload type and RTCP packet type; the second
+                 * constraint precludes a conflict between an RTP data packet with the marker bit set and an RTCP packet.
+                 */
+                int type = b1 & 0xff & 0x7f;
+                int rtcpType = type + 128;
 
-                    // RTP payload types 72-76 conflict with the RTCP SR, RR, SDES, BYE,
-                    // and APP packets defined in the RTP specification
-                    switch (rtcpType) {
-                        case RtcpHeader.RTCP_SR:
-                        case RtcpHeader.RTCP_RR:
-                        case RtcpHeader.RTCP_SDES:
-                        case RtcpHeader.RTCP_BYE:
-                        case RtcpHeader.RTCP_APP:
-                            return false;
-                        default:
-                            return true;
-                    }
+                // RTP payload types 72-76 conflict with the RTCP SR, RR, SDES, BYE,
+                // and APP packets defined in the RTP specification
+                switch (rtcpType) {
+                    case RtcpHeader.RTCP_SR:
+                    case RtcpHeader.RTCP_RR:
+                    case RtcpHeader.RTCP_SDES:
+                    case RtcpHeader.RTCP_BYE:
+                    case RtcpHeader.RTCP_APP:
+                        return false;
+                    default:
+                        return true;
                 }
             }
         }
@@ -249,27 +265,76 @@ public class RtpHandler implements PacketHandler {
 			return null;
 		}
 		
+		// Transform incoming data directly into an RTP Packet
+		ByteBuffer buffer = this.rtpPacket.getBuffer();
+		buffer.clear();
+		buffer.put(packet, offset, dataLength);
+		buffer.flip();
+		
+		// Decode SRTP packet into RTP, in place. WebRTC calls only.
+		if(this.secure && !this.dtlsHandler.decodeRTP(buffer)) {
+			logger.warn("SRTP packet is not valid! Dropping packet.");
+			return null;
+		}
+		
+		return process(this.rtpPacket) ? packet : null;
+	}
+	
+	@Override
+	public byte[] handle(ByteBuffer packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException {
+		// Do not handle data while DTLS handshake is ongoing. WebRTC calls only.
+		if(this.secure && !this.dtlsHandler.isHandshakeComplete()) {
+			return null;
+		}
+		
 		if(this.secure) {
-			// Decode SRTP packet into RTP. WebRTC calls only.
-			byte[] decoded = this.dtlsHandler.decodeRTP(packet, offset, dataLength);
-			if(decoded == null || decoded.length == 0) {
-				logger.warn("SRTP packet is not valid! Dropping packet.");
-				return null;
-			} else {
-				// Transform incoming data directly into an RTP Packet
-				ByteBuffer buffer = this.rtpPacket.getBuffer();
-				buffer.clear();
-				buffer.put(decoded);
-				buffer.flip();
-			}
-		} else {
-			// Transform incoming data directly into an RTP Packet
+			// Decode a copy of the packet so the shared receive buffer is left untouched. WebRTC calls only.
+			final int position = packet.position();
 			ByteBuffer buffer = this.rtpPacket.getBuffer();
 			buffer.clear();
-			buffer.put(packet, offset, dataLength);
+			buffer.put(packet);
 			buffer.flip();
+			packet.position(position);
+			
+			if(!this.dtlsHandler.decodeRTP(buffer)) {
+				logger.warn("SRTP packet is not valid! Dropping packet.");
+				return null;
+			}
+			
+			if (process(this.rtpPacket)) {
+				// Looping is meant for testing only, so the copy is acceptable
+				byte[] data = new byte[packet.remaining()];
+				packet.get(data);
+				return data;
+			}
+			return null;
 		}
 		
+		// Read the RTP packet straight from the receive buffer. No data is copied.
+		ByteBuffer view = packet.position() == 0 ? packet : packet.slice();
+		this.rtpPacketView.setBuffer(view);
+		try {
+			if (process(this.rtpPacketView)) {
+				// Looping is meant for testing only, so the copy is acceptable
+				byte[] data = new byte[view.limit()];
+				view.position(0);
+				view.get(data);
+				return data;
+			}
+			return null;
+		} finally {
+			// Never hold a reference to a shared receive buffer
+			this.rtpPacketView.setBuffer(null);
+		}
+	}
+	
+	/**
+	 * Processes an incoming RTP packet.
+	 * 
+	 * @param rtpPacket The RTP packet to be processed.
+	 * @return Returns <code>true</code> if the packet must be looped back to the remote peer; <code>false</code> otherwise.
+	 */
+	private boolean process(RtpPacket rtpPacket) {
 		// Restart jitter buffer for first received packet
 		if(this.statistics.getRtpPacketsReceived() == 0) {
 			logger.info("Restarting jitter buffer");
@@ -288,7 +353,7 @@ public class RtpHandler implements PacketHandler {
 					this.statistics.onRtpReceive(rtpPacket);
 					this.statistics.onRtpSent(rtpPacket);
 					// Return same packet (looping) so it can be transmitted
-					return packet;
+					return true;
 				} else {
 					// Update statistics for RTCP
 					this.statistics.onRtpReceive(rtpPacket);
@@ -309,7 +374,7 @@ public class RtpHandler implements PacketHandler {
 				logger.warn("Skipping packet because limit of the packets buffer is zero");
 			}
 		}
-		return null;
+		return false;
 	}
 	
 	public int compareTo(PacketHandler o) {
@@ -79,6 +79,17 @@ public class RtpPacket implements Serializable {
     	this(RTP_PACKET_MAX_SIZE, allocateDirect);
     }
     
+    /**
+     * Replaces the underlying buffer of this packet without copying any data.
+     * 
+     * The raw data must start at index zero of the buffer and end at its limit.
+     * 
+     * @param buffer the buffer holding the raw data.
+     */
+    public void setBuffer(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+    
     /**
      * Provides access to the underlying buffer.
      * Any modifications to the returned buffer 
@@ -23,12 +23,15 @@ package org.mobicents.media.server.impl.rtp;
 import java.io.IOException;
 import java.net.PortUnreachableException;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.DatagramChannel;
 
 import org.apache.log4j.Logger;
 import org.mobicents.media.server.impl.rtp.rfc2833.DtmfOutput;
 import org.mobicents.media.server.impl.rtp.statistics.RtpStatistics;
 import org.mobicents.media.server.impl.srtp.DtlsHandler;
+import org.mobicents.media.server.io.network.DatagramBatcher;
+import org.mobicents.media.server.io.network.DatagramSendListener;
 import org.mobicents.media.server.io.sdp.format.AVProfile;
 import org.mobicents.media.server.io.sdp.format.RTPFormat;
 import org.mobicents.media.server.io.sdp.format.RTPFormats;
@@ -48,6 +51,8 @@ public class RtpTransmitter {
 	
 	// Channel properties
 	private DatagramChannel channel;
+	private DatagramBatcher batcher;
+	private final DatagramSendListener batchListener = new BatchListener();
 	private final RtpClock rtpClock;
 	private final RtpStatistics statistics;
 	private boolean dtmfSupported;
@@ -122,6 +127,15 @@ public class RtpTransmitter {
 		this.channel = channel;
 	}
 	
+	/**
+	 * Sets the batcher that sends RTP packets in bulk at the end of the scheduler cycle.
+	 * 
+	 * @param batcher The datagram batcher. If null, packets are sent as soon as they are produced.
+	 */
+	public void setBatcher(final DatagramBatcher batcher) {
+		this.batcher = batcher;
+	}
+	
 	private boolean isConnected() {
 		return this.channel != null && this.channel.isConnected();
 	}
@@ -155,25 +169,22 @@ public class RtpTransmitter {
 		// Secure RTP packet. WebRTC calls only. 
 		// SRTP handler returns null if an error occurs
 		ByteBuffer buffer = packet.getBuffer();
-		if (this.secure) {
-			byte[] rtpData = new byte[buffer.limit()];
-			buffer.get(rtpData, 0, rtpData.length);
-			byte[] srtpData = this.dtlsHandler.encodeRTP(rtpData, 0, rtpData.length);
-			if(srtpData == null || srtpData.length == 0) {
-				LOGGER.warn("Could not secure RTP packet! Packet dropped.");
-				return;
-			} else {
-				buffer.clear();
-				buffer.put(srtpData);
-				buffer.flip();
-			}
+		if (this.secure && !this.dtlsHandler.encodeRTP(buffer)) {
+			// Packet is encoded in place, so no data is copied
+			LOGGER.warn("Could not secure RTP packet! Packet dropped.");
+			return;
 		}
 		
 		if(packet != null) {
-			channel.send(buffer, channel.socket().getRemoteSocketAddress());
-			// send RTP packet to the network and update statistics for RTCP
-			statistics.onRtpSent(packet);
-			
+			if (this.batcher == null) {
+				// send RTP packet to the network and update statistics for RTCP
+				channel.send(buffer, channel.socket().getRemoteSocketAddress());
+				statistics.onRtpSent(packet);
+			} else {
+				// statistics are only updated once the batch is flushed, because the packet is reused meanwhile
+				long tag = ((long) packet.getPayloadLength() << 32) | (packet.getTimestamp() & 0xFFFFFFFFL);
+				this.batcher.send(channel, buffer, channel.socket().getRemoteSocketAddress(), this.batchListener, tag);
+			}
 		}
 	}
 	
@@ -216,13 +227,7 @@ public class RtpTransmitter {
 				send(oobPacket);
 			}
 		} catch (PortUnreachableException e) {
-			try {
-				// icmp unreachable received
-				// disconnect and wait for new packet
-				disconnect();
-			} catch (IOException ex) {
-				LOGGER.error(ex.getMessage(), ex);
-			}
+			onPortUnreachable();
 		} catch (Exception e) {
 			LOGGER.error(e.getMessage(), e);
 		}
@@ -265,16 +270,48 @@ public class RtpTransmitter {
 				send(rtpPacket);
 			}
 		} catch (PortUnreachableException e) {
-			// icmp unreachable received
-			// disconnect and wait for new packet
-			try {
-				disconnect();
-			} catch (IOException ex) {
-				LOGGER.error(ex.getMessage(), ex);
-			}
+			onPortUnreachable();
 		} catch (Exception e) {
 			LOGGER.error(e.getMessage(), e);
 		}
 	}
 
+	private void onPortUnreachable() {
+		// icmp unreachable received
+		// disconnect and wait for new packet
+		try {
+			disconnect();
+		} catch (IOException ex) {
+			LOGGER.error(ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Accounts and handles errors of RTP packets sent by the {@link DatagramBatcher}, once the batch is flushed.
+	 */
+	private class BatchListener implements DatagramSendListener {
+
+		@Override
+		public void onDatagramSent(long tag) {
+			statistics.onRtpSent((int) (tag >>> 32), tag & 0xFFFFFFFFL);
+		}
+
+		@Override
+		public void onDatagramFailed(DatagramChannel failedChannel, long tag, IOException e) {
+			if (e instanceof PortUnreachableException) {
+				// Channel may have been replaced while the packet waited in the batch
+				if (failedChannel == channel) {
+					onPortUnreachable();
+				}
+			} else if (e instanceof ClosedChannelException) {
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Dropped RTP packet because channel was closed.");
+				}
+			} else {
+				LOGGER.error(e.getMessage(), e);
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,56 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+/**
+ * Counter Mode cipher built over a BouncyCastle block cipher.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class BlockCipherCTR implements SRTPStreamCipher {
+
+    private final BlockCipher cipher;
+    private final SRTPCipherCTR cipherCtr;
+
+    BlockCipherCTR(BlockCipher cipher) {
+        this.cipher = cipher;
+        this.cipherCtr = new SRTPCipherCTR();
+    }
+
+    @Override
+    public void init(byte[] key) {
+        this.cipher.init(true, new KeyParameter(key));
+    }
+
+    @Override
+    public void process(ByteBuffer data, int offset, int length, byte[] iv) {
+        this.cipherCtr.process(this.cipher, data, offset, length, iv);
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+/**
+ * AES-GCM cipher implemented by BouncyCastle.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class BlockCipherGCM implements SRTPAeadCipher {
+
+    private static final int TAG_LENGTH = 16;
+
+    private final GCMBlockCipher cipher;
+    private final PacketRegion region;
+    private KeyParameter key;
+
+    BlockCipherGCM() {
+        this.cipher = new GCMBlockCipher(new AESFastEngine());
+        this.region = new PacketRegion();
+    }
+
+    @Override
+    public int getTagLength() {
+        return TAG_LENGTH;
+    }
+
+    @Override
+    public void init(byte[] key) {
+        this.key = new KeyParameter(key);
+    }
+
+    @Override
+    public void encrypt(ByteBuffer data, int offset, int length, byte[] iv, byte[] aad, int aadLength) {
+        this.cipher.init(true, new AEADParameters(this.key, TAG_LENGTH * 8, iv));
+        this.cipher.processAADBytes(aad, 0, aadLength);
+
+        byte[] array = this.region.open(data, offset, length, length + TAG_LENGTH);
+        int start = this.region.offset();
+        try {
+            int written = this.cipher.processBytes(array, start, length, array, start);
+            this.cipher.doFinal(array, start + written);
+        } catch (InvalidCipherTextException e) {
+            // only thrown when decrypting
+            throw new IllegalStateException(e);
+        }
+        this.region.close(data, offset, length + TAG_LENGTH);
+    }
+
+    @Override
+    public boolean decrypt(ByteBuffer data, int offset, int length, byte[] iv, byte[] aad, int aadLength) {
+        this.cipher.init(false, new AEADParameters(this.key, TAG_LENGTH * 8, iv));
+        this.cipher.processAADBytes(aad, 0, aadLength);
+
+        byte[] array = this.region.open(data, offset, length, length);
+        int start = this.region.offset();
+        try {
+            int written = this.cipher.processBytes(array, start, length, array, start);
+            this.cipher.doFinal(array, start + written);
+        } catch (InvalidCipherTextException e) {
+            return false;
+        }
+        this.region.close(data, offset, length - TAG_LENGTH);
+        return true;
+    }
+
+}
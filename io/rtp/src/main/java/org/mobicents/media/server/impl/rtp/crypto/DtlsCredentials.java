@@ -0,0 +1,99 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.tls.Certificate;
+
+/**
+ * Certificate chain and private key of the DTLS server, shared by all handshakes.
+ * <p>
+ * The files are parsed the first time the credentials are needed and kept in memory afterwards, as are the fingerprints
+ * of the certificate. A failed attempt is retried on the next handshake.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class DtlsCredentials {
+
+    private final String[] certificateResources;
+    private final String keyResource;
+
+    private volatile Certificate certificateChain;
+    private volatile AsymmetricKeyParameter privateKey;
+    private final ConcurrentMap<String, String> fingerprints;
+
+    DtlsCredentials(String[] certificateResources, String keyResource) {
+        this.certificateResources = certificateResources;
+        this.keyResource = keyResource;
+        this.fingerprints = new ConcurrentHashMap<>(4);
+    }
+
+    /**
+     * Parses the certificate chain and private key, unless they were already loaded.
+     * 
+     * @throws IOException When the files cannot be read.
+     */
+    synchronized void load() throws IOException {
+        if (this.certificateChain == null) {
+            this.privateKey = TlsUtils.loadPrivateKeyResource(this.keyResource);
+            this.certificateChain = TlsUtils.loadCertificateChain(this.certificateResources);
+        }
+    }
+
+    Certificate getCertificateChain() throws IOException {
+        if (this.certificateChain == null) {
+            load();
+        }
+        return this.certificateChain;
+    }
+
+    AsymmetricKeyParameter getPrivateKey() throws IOException {
+        if (this.certificateChain == null) {
+            load();
+        }
+        return this.privateKey;
+    }
+
+    /**
+     * Gets the fingerprint of the server certificate.
+     * 
+     * @param hashFunction The hash function used to compute the fingerprint.
+     * @return The fingerprint, prefixed by the name of the hash function.
+     * @throws IOException When the certificate cannot be read.
+     */
+    String getFingerprint(String hashFunction) throws IOException {
+        String fingerprint = this.fingerprints.get(hashFunction);
+        if (fingerprint == null) {
+            fingerprint = TlsUtils.fingerprint(hashFunction, getCertificateChain().getCertificateAt(0));
+            this.fingerprints.putIfAbsent(hashFunction, fingerprint);
+        }
+        return fingerprint;
+    }
+
+}
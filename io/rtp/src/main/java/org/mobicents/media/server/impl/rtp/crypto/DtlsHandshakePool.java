@@ -0,0 +1,179 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of threads that run the DTLS handshakes of all WebRTC calls.
+ * <p>
+ * Handshakes beyond the number of threads wait in a queue. Since the handshake timeout also covers the time spent in the
+ * queue, a burst of calls larger than the pool can absorb fails fast instead of piling up.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class DtlsHandshakePool implements DtlsHandshakePoolMXBean {
+
+    public static final int DEFAULT_THREADS = 8;
+
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+
+    // Metrics
+    private final AtomicInteger peakQueueDepth;
+    private final AtomicLong completed;
+    private final AtomicLong failed;
+    private final AtomicLong totalLatency;
+    private final AtomicLong maxLatency;
+
+    /**
+     * Creates a new pool.
+     * 
+     * @param threads The maximum number of handshakes that run at the same time.
+     */
+    public DtlsHandshakePool(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of handshake threads must be positive");
+        }
+        this.threads = threads;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new HandshakeThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.peakQueueDepth = new AtomicInteger(0);
+        this.completed = new AtomicLong(0);
+        this.failed = new AtomicLong(0);
+        this.totalLatency = new AtomicLong(0);
+        this.maxLatency = new AtomicLong(0);
+    }
+
+    public DtlsHandshakePool() {
+        this(DEFAULT_THREADS);
+    }
+
+    /**
+     * Schedules a handshake to run as soon as a thread is available.
+     */
+    public void execute(Runnable handshake) {
+        this.executor.execute(handshake);
+
+        int depth = this.executor.getQueue().size();
+        int peak = this.peakQueueDepth.get();
+        while (depth > peak && !this.peakQueueDepth.compareAndSet(peak, depth)) {
+            peak = this.peakQueueDepth.get();
+        }
+    }
+
+    /**
+     * Records a successful handshake.
+     * 
+     * @param latency The time elapsed since the handshake was requested, in milliseconds.
+     */
+    public void completed(long latency) {
+        this.completed.incrementAndGet();
+        this.totalLatency.addAndGet(latency);
+        long max = this.maxLatency.get();
+        while (latency > max && !this.maxLatency.compareAndSet(max, latency)) {
+            max = this.maxLatency.get();
+        }
+    }
+
+    /**
+     * Records a failed handshake.
+     */
+    public void failed() {
+        this.failed.incrementAndGet();
+    }
+
+    /**
+     * Stops the threads after the pending handshakes finish.
+     * 
+     * @param timeout The maximum time to wait for pending handshakes, in milliseconds.
+     */
+    public void shutdown(long timeout) throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getThreadCount() {
+        return this.threads;
+    }
+
+    @Override
+    public int getActiveHandshakes() {
+        return this.executor.getActiveCount();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    @Override
+    public int getPeakQueueDepth() {
+        return this.peakQueueDepth.get();
+    }
+
+    @Override
+    public long getCompletedHandshakes() {
+        return this.completed.get();
+    }
+
+    @Override
+    public long getFailedHandshakes() {
+        return this.failed.get();
+    }
+
+    @Override
+    public long getAverageLatency() {
+        long count = this.completed.get();
+        return count == 0 ? 0 : this.totalLatency.get() / count;
+    }
+
+    @Override
+    public long getMaxLatency() {
+        return this.maxLatency.get();
+    }
+
+    private static final class HandshakeThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger ID = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "DTLS-Server-" + ID.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+/**
+ * Management interface exposing the metrics of the {@link DtlsHandshakePool}.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface DtlsHandshakePoolMXBean {
+
+    /**
+     * Gets the maximum number of handshakes that run at the same time.
+     */
+    int getThreadCount();
+
+    /**
+     * Gets the number of handshakes currently running.
+     */
+    int getActiveHandshakes();
+
+    /**
+     * Gets the number of handshakes waiting for a free thread.
+     */
+    int getQueueDepth();
+
+    /**
+     * Gets the largest number of handshakes that were waiting for a free thread.
+     */
+    int getPeakQueueDepth();
+
+    /**
+     * Gets the number of handshakes that completed successfully.
+     */
+    long getCompletedHandshakes();
+
+    /**
+     * Gets the number of handshakes that failed or timed out.
+     */
+    long getFailedHandshakes();
+
+    /**
+     * Gets the average time between the request and the completion of successful handshakes, in milliseconds.
+     */
+    long getAverageLatency();
+
+    /**
+     * Gets the longest time between the request and the completion of a successful handshake, in milliseconds.
+     */
+    long getMaxLatency();
+
+}
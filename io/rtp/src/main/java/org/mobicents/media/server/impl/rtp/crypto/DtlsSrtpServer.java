@@ -30,7 +30,9 @@ import org.bouncycastle.asn1.x509.Certificate;
 import org.bouncycastle.crypto.tls.AlertDescription;
 import org.bouncycastle.crypto.tls.AlertLevel;
 import org.bouncycastle.crypto.tls.CertificateRequest;
+import org.bouncycastle.crypto.tls.DefaultTlsEncryptionCredentials;
 import org.bouncycastle.crypto.tls.DefaultTlsServer;
+import org.bouncycastle.crypto.tls.DefaultTlsSignerCredentials;
 import org.bouncycastle.crypto.tls.ExporterLabel;
 import org.bouncycastle.crypto.tls.HashAlgorithm;
 import org.bouncycastle.crypto.tls.ProtocolVersion;
@@ -61,9 +63,16 @@ public class DtlsSrtpServer extends DefaultTlsServer {
 	
     private static final Logger LOGGER = Logger.getLogger(DtlsSrtpServer.class);
 
+    // SRTP protection profiles supported by the server, most preferred first
+    private static final int[] SRTP_PROFILES = {
+            SRTPParameters.AEAD_AES_128_GCM_PROFILE,
+            SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80,
+            SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32,
+            SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80,
+            SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32 };
+
     // Certificate resources
-    private final String[] certificateResources;
-    private final String keyResource;
+    private final DtlsCredentials credentials;
     private final AlgorithmCertificate algorithmCertificate;
 
 	private String hashFunction = "";
@@ -86,16 +95,20 @@ public class DtlsSrtpServer extends DefaultTlsServer {
 	private final ProtocolVersion maxVersion;
 	private final CipherSuite[] cipherSuites;
 
-    public DtlsSrtpServer(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
-            String[] certificatesPath, String keyPath, AlgorithmCertificate algorithmCertificate) {
+    DtlsSrtpServer(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
+            DtlsCredentials credentials, AlgorithmCertificate algorithmCertificate) {
         this.minVersion = minVersion;
         this.maxVersion = maxVersion;
         this.cipherSuites = cipherSuites;
-        this.certificateResources = certificatesPath;
-        this.keyResource = keyPath;
+        this.credentials = credentials;
         this.algorithmCertificate = algorithmCertificate;
     }
 
+    public DtlsSrtpServer(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
+            String[] certificatesPath, String keyPath, AlgorithmCertificate algorithmCertificate) {
+        this(minVersion, maxVersion, cipherSuites, new DtlsCredentials(certificatesPath, keyPath), algorithmCertificate);
+    }
+
 	public void notifyAlertRaised(short alertLevel, short alertDescription, String message, Exception cause) {
     	Level logLevel = (alertLevel == AlertLevel.fatal) ? Level.ERROR : Level.WARN; 
         LOGGER.log(logLevel, String.format("DTLS server raised alert (AlertLevel.%d, AlertDescription.%d, message='%s')", alertLevel, alertDescription, message), cause);
@@ -171,12 +184,12 @@ public class DtlsSrtpServer extends DefaultTlsServer {
     
     @Override
     protected TlsSignerCredentials getECDSASignerCredentials() throws IOException {
-        return TlsUtils.loadSignerCredentials(context, certificateResources, keyResource, new SignatureAndHashAlgorithm(HashAlgorithm.sha256, SignatureAlgorithm.ecdsa));
+        return new DefaultTlsSignerCredentials(context, credentials.getCertificateChain(), credentials.getPrivateKey(), new SignatureAndHashAlgorithm(HashAlgorithm.sha256, SignatureAlgorithm.ecdsa));
     }
     
     @Override
     protected TlsEncryptionCredentials getRSAEncryptionCredentials() throws IOException {
-        return TlsUtils.loadEncryptionCredentials(context, certificateResources, keyResource);
+        return new DefaultTlsEncryptionCredentials(context, credentials.getCertificateChain(), credentials.getPrivateKey());
     }
 
     @SuppressWarnings("unchecked")
@@ -200,7 +213,7 @@ public class DtlsSrtpServer extends DefaultTlsServer {
                 return null;
             }
         }
-        return TlsUtils.loadSignerCredentials(context, certificateResources, keyResource, signatureAndHashAlgorithm);
+        return new DefaultTlsSignerCredentials(context, credentials.getCertificateChain(), credentials.getPrivateKey(), signatureAndHashAlgorithm);
     }
     
     @SuppressWarnings("unchecked")
@@ -221,21 +234,8 @@ public class DtlsSrtpServer extends DefaultTlsServer {
     public void processClientExtensions(Hashtable newClientExtensions) throws IOException {
     	super.processClientExtensions(newClientExtensions);
     	
-    	// set to some reasonable default value
-    	int chosenProfile = SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80;
     	UseSRTPData clientSrtpData = TlsSRTPUtils.getUseSRTPExtension(newClientExtensions);
-    	
-    	for (int profile : clientSrtpData.getProtectionProfiles()) {
-    		switch (profile) {
-    			case SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32:
-    			case SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80:
-    			case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32:
-    			case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80:
-    				chosenProfile  = profile;
-    				break;
-    			default:
-    		}
-    	}
+    	int chosenProfile = chooseSrtpProfile(clientSrtpData.getProtectionProfiles());
     	
     	// server chooses a mutually supported SRTP protection profile
     	// http://tools.ietf.org/html/draft-ietf-avt-dtls-srtp-07#section-4.1.2
@@ -245,6 +245,29 @@ public class DtlsSrtpServer extends DefaultTlsServer {
     	serverSrtpData = new UseSRTPData(protectionProfiles, clientSrtpData.getMki());
     }
     
+    /**
+     * Chooses the SRTP protection profile preferred by the server among the ones offered by the client.
+     * 
+     * @param offeredProfiles The protection profiles offered by the client
+     * @return The chosen profile, or SRTP_AES128_CM_HMAC_SHA1_80 if the client offers no supported profile.
+     */
+    static int chooseSrtpProfile(int[] offeredProfiles) {
+        // set to some reasonable default value
+        int chosenProfile = SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80;
+        int chosenRank = SRTP_PROFILES.length;
+
+        for (int profile : offeredProfiles) {
+            for (int rank = 0; rank < chosenRank; rank++) {
+                if (SRTP_PROFILES[rank] == profile) {
+                    chosenProfile = profile;
+                    chosenRank = rank;
+                    break;
+                }
+            }
+        }
+        return chosenProfile;
+    }
+    
     public byte[] getKeyingMaterial(int length) {
         return context.exportKeyingMaterial(ExporterLabel.dtls_srtp, null, length);
     }
@@ -336,9 +359,7 @@ public class DtlsSrtpServer extends DefaultTlsServer {
 	public String generateFingerprint(String hashFunction) {
 		try {
 			this.hashFunction = hashFunction;
-			org.bouncycastle.crypto.tls.Certificate chain = TlsUtils.loadCertificateChain(certificateResources);
-			Certificate certificate = chain.getCertificateAt(0);
-			return TlsUtils.fingerprint(this.hashFunction, certificate);
+			return this.credentials.getFingerprint(hashFunction);
 		} catch (IOException e) {
 			LOGGER.error("Could not get local fingerprint: "+ e.getMessage());
 			return "";
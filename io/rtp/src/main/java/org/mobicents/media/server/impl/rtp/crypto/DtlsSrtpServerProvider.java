@@ -21,9 +21,17 @@
 
 package org.mobicents.media.server.impl.rtp.crypto;
 
+import java.io.IOException;
+
 import org.bouncycastle.crypto.tls.ProtocolVersion;
 
 /**
+ * Provides a DTLS server for each handshake.
+ * <p>
+ * The servers share the credentials of the provider, so the certificate and key are parsed only once, and run their
+ * handshakes on the pool of the provider.
+ * </p>
+ * 
  * @author guilherme.jansen@telestax.com
  */
 public class DtlsSrtpServerProvider {
@@ -31,23 +39,40 @@ public class DtlsSrtpServerProvider {
     private ProtocolVersion minVersion;
     private ProtocolVersion maxVersion;
     private CipherSuite[] cipherSuites;
-    private String[] certificatePaths;
-    private String keyPath;
     private AlgorithmCertificate algorithmCertificate;
+    private final DtlsCredentials credentials;
+    private final DtlsHandshakePool handshakePool;
 
     public DtlsSrtpServerProvider(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
-            String certificatePath, String keyPath, AlgorithmCertificate algorithmCertificate) {
+            String certificatePath, String keyPath, AlgorithmCertificate algorithmCertificate, DtlsHandshakePool handshakePool) {
         this.minVersion = minVersion;
         this.maxVersion = maxVersion;
         this.cipherSuites = cipherSuites;
-        this.certificatePaths = new String[] { certificatePath };
-        this.keyPath = keyPath;
         this.algorithmCertificate = algorithmCertificate;
+        this.credentials = new DtlsCredentials(new String[] { certificatePath }, keyPath);
+        this.handshakePool = handshakePool;
+    }
+
+    public DtlsSrtpServerProvider(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
+            String certificatePath, String keyPath, AlgorithmCertificate algorithmCertificate) {
+        this(minVersion, maxVersion, cipherSuites, certificatePath, keyPath, algorithmCertificate, new DtlsHandshakePool());
+    }
+
+    /**
+     * Parses the certificate and key of the server, so the first handshake does not have to.
+     * 
+     * @throws IOException When the files cannot be read.
+     */
+    public void loadCredentials() throws IOException {
+        this.credentials.load();
+    }
+
+    public DtlsHandshakePool getHandshakePool() {
+        return handshakePool;
     }
 
     public DtlsSrtpServer provide() {
-        DtlsSrtpServer server = new DtlsSrtpServer(minVersion, maxVersion, cipherSuites, certificatePaths, keyPath,
-                algorithmCertificate);
+        DtlsSrtpServer server = new DtlsSrtpServer(minVersion, maxVersion, cipherSuites, credentials, algorithmCertificate);
         return server;
     }
 
@@ -0,0 +1,73 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES Counter Mode cipher implemented by the JCE provider of the JVM.
+ * <p>
+ * The 128 bit counter of the JCE implementation matches the SRTP key stream, since the block counter is kept in the last
+ * 16 bits of the initialization vector and packets never span that many blocks.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class JceCipherCTR implements SRTPStreamCipher {
+
+    static final String TRANSFORMATION = "AES/CTR/NoPadding";
+
+    private final Cipher cipher;
+    private final PacketRegion region;
+    private SecretKeySpec key;
+
+    JceCipherCTR() throws GeneralSecurityException {
+        this.cipher = Cipher.getInstance(TRANSFORMATION);
+        this.region = new PacketRegion();
+    }
+
+    @Override
+    public void init(byte[] key) {
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    @Override
+    public void process(ByteBuffer data, int offset, int length, byte[] iv) {
+        byte[] array = this.region.open(data, offset, length, length);
+        int start = this.region.offset();
+        try {
+            this.cipher.init(Cipher.ENCRYPT_MODE, this.key, new IvParameterSpec(iv));
+            this.cipher.doFinal(array, start, length, array, start);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not process SRTP payload", e);
+        }
+        this.region.close(data, offset, length);
+    }
+
+}
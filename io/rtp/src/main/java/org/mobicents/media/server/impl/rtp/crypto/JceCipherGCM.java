@@ -0,0 +1,99 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES-GCM cipher implemented by the JCE provider of the JVM.
+ * <p>
+ * The provider refuses to encrypt twice with the same key and IV, so protecting the same RTP sequence number twice within
+ * a roll over period fails with an {@link IllegalStateException} rather than reusing a nonce.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class JceCipherGCM implements SRTPAeadCipher {
+
+    static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final int TAG_LENGTH = 16;
+
+    private final Cipher cipher;
+    private final PacketRegion region;
+    private SecretKeySpec key;
+
+    JceCipherGCM() throws GeneralSecurityException {
+        this.cipher = Cipher.getInstance(TRANSFORMATION);
+        this.region = new PacketRegion();
+    }
+
+    @Override
+    public int getTagLength() {
+        return TAG_LENGTH;
+    }
+
+    @Override
+    public void init(byte[] key) {
+        this.key = new SecretKeySpec(key, "AES");
+    }
+
+    @Override
+    public void encrypt(ByteBuffer data, int offset, int length, byte[] iv, byte[] aad, int aadLength) {
+        byte[] array = this.region.open(data, offset, length, length + TAG_LENGTH);
+        int start = this.region.offset();
+        try {
+            this.cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            this.cipher.updateAAD(aad, 0, aadLength);
+            this.cipher.doFinal(array, start, length, array, start);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt SRTP packet", e);
+        }
+        this.region.close(data, offset, length + TAG_LENGTH);
+    }
+
+    @Override
+    public boolean decrypt(ByteBuffer data, int offset, int length, byte[] iv, byte[] aad, int aadLength) {
+        byte[] array = this.region.open(data, offset, length, length);
+        int start = this.region.offset();
+        try {
+            this.cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            this.cipher.updateAAD(aad, 0, aadLength);
+            this.cipher.doFinal(array, start, length, array, start);
+        } catch (AEADBadTagException e) {
+            return false;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not decrypt SRTP packet", e);
+        }
+        this.region.close(data, offset, length - TAG_LENGTH);
+        return true;
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.params.KeyParameter;
+
+/**
+ * Exposes a MAC implemented by the JCE provider of the JVM through the BouncyCastle {@link Mac} interface used by the
+ * SRTP crypto contexts.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class JceMac implements Mac {
+
+    static final String HMAC_SHA1 = "HmacSHA1";
+
+    private final javax.crypto.Mac mac;
+
+    JceMac(String algorithm) throws GeneralSecurityException {
+        this.mac = javax.crypto.Mac.getInstance(algorithm);
+    }
+
+    @Override
+    public void init(CipherParameters params) throws IllegalArgumentException {
+        if (!(params instanceof KeyParameter)) {
+            throw new IllegalArgumentException("MAC requires a key parameter");
+        }
+        try {
+            this.mac.init(new SecretKeySpec(((KeyParameter) params).getKey(), this.mac.getAlgorithm()));
+        } catch (InvalidKeyException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return this.mac.getAlgorithm();
+    }
+
+    @Override
+    public int getMacSize() {
+        return this.mac.getMacLength();
+    }
+
+    @Override
+    public void update(byte in) throws IllegalStateException {
+        this.mac.update(in);
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        this.mac.update(in, inOff, len);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        try {
+            this.mac.doFinal(out, outOff);
+        } catch (ShortBufferException e) {
+            throw new OutputLengthException(e.getMessage());
+        }
+        return this.mac.getMacLength();
+    }
+
+    @Override
+    public void reset() {
+        this.mac.reset();
+    }
+
+}
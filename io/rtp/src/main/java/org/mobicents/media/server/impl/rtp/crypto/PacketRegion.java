@@ -0,0 +1,97 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Exposes a region of a packet buffer as a byte array, for cryptographic APIs that only operate over arrays.
+ * <p>
+ * Heap buffers expose their backing array, so the region is processed in place. Direct buffers are copied into a
+ * scratch array that is reused between packets, and copied back once processed.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class PacketRegion {
+
+    private byte[] scratch = new byte[RawPacket.FIXED_HEADER_SIZE];
+    private int offset;
+    private boolean copied;
+
+    /**
+     * Opens a region of the buffer.
+     * 
+     * @param data The buffer holding the packet
+     * @param offset The index of the region in the buffer
+     * @param length The number of bytes to be read
+     * @param capacity The number of bytes that may be written back
+     * @return The array holding the region, starting at {@link #offset()}
+     */
+    byte[] open(ByteBuffer data, int offset, int length, int capacity) {
+        if (data.hasArray()) {
+            this.copied = false;
+            this.offset = data.arrayOffset() + offset;
+            return data.array();
+        }
+
+        if (this.scratch.length < capacity) {
+            this.scratch = new byte[capacity];
+        }
+        final int position = data.position();
+        data.position(offset);
+        data.get(this.scratch, 0, length);
+        data.position(position);
+
+        this.copied = true;
+        this.offset = 0;
+        return this.scratch;
+    }
+
+    /**
+     * Gets the index of the region in the array returned by the last call to {@link #open(ByteBuffer, int, int, int)}.
+     * 
+     * @return The offset of the region
+     */
+    int offset() {
+        return this.offset;
+    }
+
+    /**
+     * Writes the processed region back into the buffer, if it had to be copied.
+     * 
+     * @param data The buffer holding the packet
+     * @param offset The index of the region in the buffer
+     * @param length The number of bytes to be written
+     */
+    void close(ByteBuffer data, int offset, int length) {
+        if (this.copied) {
+            final int position = data.position();
+            data.position(offset);
+            data.put(this.scratch, 0, length);
+            data.position(position);
+        }
+    }
+
+}
@@ -7,6 +7,7 @@
  */
 package org.mobicents.media.server.impl.rtp.crypto;
 
+import java.nio.ByteBuffer;
 
 /**
  * Encapsulate the concept of packet transformation. Given a packet,
@@ -65,6 +66,35 @@ public interface PacketTransformer {
 	 */
 	public byte[] reverseTransform(byte[] pkt, int offset, int length);
 
+	/**
+	 * Transforms a non-secure packet in place.
+	 * <p>
+	 * The packet must start at index zero of the buffer and end at its limit.
+	 * The buffer must have enough spare capacity to hold any trailer added by
+	 * the transformation. When the method returns, the limit of the buffer
+	 * marks the end of the transformed packet.
+	 * </p>
+	 * 
+	 * @param pkt
+	 *            The buffer holding the packet to be secured
+	 * @return Whether the packet was successfully transformed
+	 */
+	public boolean transform(ByteBuffer pkt);
+
+	/**
+	 * Reverse-transforms a specific packet in place.
+	 * <p>
+	 * The packet must start at index zero of the buffer and end at its limit.
+	 * When the method returns, the limit of the buffer marks the end of the
+	 * restored packet.
+	 * </p>
+	 * 
+	 * @param pkt
+	 *            The buffer holding the packet to be restored
+	 * @return Whether the packet was successfully restored
+	 */
+	public boolean reverseTransform(ByteBuffer pkt);
+
 	/**
 	 * Close the transformer and underlying transform engine.
 	 * 
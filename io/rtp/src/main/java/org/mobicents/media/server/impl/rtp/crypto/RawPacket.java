@@ -8,6 +8,8 @@ package org.mobicents.media.server.impl.rtp.crypto;
 
 import java.nio.ByteBuffer;
 
+import org.bouncycastle.crypto.Mac;
+
 import org.mobicents.media.server.impl.rtp.RtpPacket;
 
 /**
@@ -45,11 +47,17 @@ public class RawPacket {
      */
     private ByteBuffer buffer;
 
+    /**
+     * Buffer owned by this packet, where copied data is stored
+     */
+    private ByteBuffer localBuffer;
+
     /**
      * Initializes a new empty <tt>RawPacket</tt> instance.
      */
     public RawPacket() {
-    	this.buffer = ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE);
+    	this.localBuffer = ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE);
+    	this.buffer = this.localBuffer;
     }
 
     /**
@@ -64,11 +72,12 @@ public class RawPacket {
      * constitute the actual data to be represented by the new instance
      */
     public RawPacket(byte[] data, int offset, int length) {
-    	this.buffer = ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE);
+    	this();
         wrap(data, offset, length);
     }
     
     public void wrap(byte[] data, int offset, int length) {
+    	this.buffer = this.localBuffer;
     	this.buffer.clear();
     	this.buffer.rewind();
     	this.buffer.put(data, offset, length);
@@ -76,6 +85,22 @@ public class RawPacket {
     	this.buffer.rewind();
     }
     
+    /**
+     * Makes this packet operate directly over an existing buffer, without
+     * copying its contents.
+     * <p>
+     * The packet data must start at index zero of the buffer and end at its
+     * limit. Any transformation is applied in place, so the buffer should
+     * have enough spare capacity to accommodate data appended to the packet.
+     * </p>
+     * 
+     * @param buffer the buffer holding the packet data
+     */
+    public void wrap(ByteBuffer buffer) {
+    	this.buffer = buffer;
+    	this.buffer.rewind();
+    }
+    
     public byte[] getData() {
     	this.buffer.rewind();
     	byte[] data = new byte[this.buffer.limit()];
@@ -292,6 +317,9 @@ public class RawPacket {
 			newBuffer.put(buffer);
 			newBuffer.limit(newLen);
 			// switch to new buffer
+			if (buffer == localBuffer) {
+				localBuffer = newBuffer;
+			}
 			buffer = newBuffer;
 		}
 	}
@@ -378,6 +406,33 @@ public class RawPacket {
                 ((long)(buffer.get() & 0xff))) & 0xFFFFFFFFL;
     }
 
+    /**
+     * Feeds the whole content of this packet into a MAC.
+     * <p>
+     * Heap buffers are read directly from their backing array. Direct buffers
+     * are copied in chunks through the given scratch array, so the size of
+     * the scratch array does not limit the size of the packet.
+     * </p>
+     * 
+     * @param mac the MAC to be updated
+     * @param scratch working array used to read direct buffers
+     */
+    public void updateMac(Mac mac, byte[] scratch) {
+    	final int length = this.buffer.limit();
+    	if (this.buffer.hasArray()) {
+    		mac.update(this.buffer.array(), this.buffer.arrayOffset(), length);
+    	} else {
+    		this.buffer.rewind();
+    		int remaining = length;
+    		while (remaining > 0) {
+    			int chunk = Math.min(remaining, scratch.length);
+    			this.buffer.get(scratch, 0, chunk);
+    			mac.update(scratch, 0, chunk);
+    			remaining -= chunk;
+    		}
+    	}
+    }
+
     /**
      * Shrink the buffer of this packet by specified length
      *
@@ -12,12 +12,9 @@ import java.util.Arrays;
 
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.Mac;
-import org.bouncycastle.crypto.digests.SHA1Digest;
 import org.bouncycastle.crypto.engines.AESFastEngine;
 import org.bouncycastle.crypto.engines.TwofishEngine;
-import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.params.KeyParameter;
-import org.mobicents.media.server.impl.rtp.RtpPacket;
 
 /**
  * SRTPCryptoContext class is the core class of SRTP implementation.
@@ -48,6 +45,12 @@ import org.mobicents.media.server.impl.rtp.RtpPacket;
 public class SRTCPCryptoContext {
     /** The replay check windows size */
     private static final long REPLAY_WINDOW_SIZE = 64;
+
+    /** Length of the master salt used by the key derivation function, shorter salts are padded with zeros */
+    private static final int KDF_SALT_LENGTH = 14;
+
+    /** Length of the RTCP header and sender SSRC, which are never encrypted */
+    private static final int FIXED_HEADER_SIZE = 8;
     
     /** RTCP SSRC of this cryptographic context */
     private long ssrcCtx;
@@ -81,6 +84,9 @@ public class SRTCPCryptoContext {
 
     /** Encryption / Authentication policy for this session */
     private final SRTPPolicy policy;
+
+    /** Provider of the ciphers and MAC that protect packets */
+    private final SRTPCryptoProvider provider;
     
     /**
      * The HMAC object we used to do packet authentication
@@ -94,6 +100,10 @@ public class SRTCPCryptoContext {
     // implements the counter cipher mode for RTP according to RFC 3711
     private final SRTPCipherCTR cipherCtr = new SRTPCipherCTR();
 
+    // the ciphers that protect packets, in counter mode or GCM
+    private SRTPStreamCipher streamCipher = null;
+    private SRTPAeadCipher aeadCipher = null;
+
     // Here some fields that a allocated here or in constructor. The methods
     // use these fields to avoid too many new operations
     
@@ -105,6 +115,16 @@ public class SRTCPCryptoContext {
     // the methods must use this only to store some reults for immediate processing
     private final byte[] tempStore = new byte[100];
 
+    // working store used to feed packets held in direct buffers into the MAC
+    private final byte[] macStore = new byte[256];
+
+    // F8 mode state, reused between packets
+    private final SRTPCipherF8.F8Context f8Context = new SRTPCipherF8.F8Context();
+
+    // GCM initialization vector and additional authenticated data
+    private final byte[] gcmIvStore = new byte[12];
+    private final byte[] aadStore = new byte[FIXED_HEADER_SIZE + 4];
+
     /**
      * Construct an empty SRTPCryptoContext using ssrc.
      * The other parameters are set to default null value.
@@ -120,6 +140,7 @@ public class SRTCPCryptoContext {
         authKey = null;
         saltKey = null;
         policy = null;
+        provider = null;
         tagStore = null;
     }
 
@@ -141,14 +162,27 @@ public class SRTCPCryptoContext {
      *            SRTP policy for this SRTP cryptographic context, defined the
      *            encryption algorithm, the authentication algorithm, etc
      */
-    @SuppressWarnings("fallthrough")
     public SRTCPCryptoContext(long ssrcIn, byte[] masterK, byte[] masterS, SRTPPolicy policyIn) {
+        this(ssrcIn, masterK, masterS, policyIn, SRTPCryptoProvider.getDefault());
+    }
+
+    /**
+     * Construct a normal SRTPCryptoContext whose packets are protected by
+     * the ciphers and MAC of a specific provider.
+     *
+     * @see #SRTCPCryptoContext(long, byte[], byte[], SRTPPolicy)
+     * @param providerIn
+     *            the provider of the ciphers and MAC that protect packets
+     */
+    @SuppressWarnings("fallthrough")
+    public SRTCPCryptoContext(long ssrcIn, byte[] masterK, byte[] masterS, SRTPPolicy policyIn, SRTPCryptoProvider providerIn) {
         ssrcCtx = ssrcIn;
         mki = null;
         policy = policyIn;
+        provider = providerIn;
         masterKey = new byte[policy.getEncKeyLength()];
         System.arraycopy(masterK, 0, masterKey, 0, masterK.length);
-        masterSalt = new byte[policy.getSaltKeyLength()];
+        masterSalt = new byte[Math.max(policy.getSaltKeyLength(), KDF_SALT_LENGTH)];
         System.arraycopy(masterS, 0, masterSalt, 0, masterS.length);
 
         switch (policy.getEncType()) {
@@ -162,6 +196,7 @@ public class SRTCPCryptoContext {
 
         case SRTPPolicy.AESCM_ENCRYPTION:
             cipher = new AESFastEngine();
+            streamCipher = provider.createCtrCipher();
             encKey = new byte[this.policy.getEncKeyLength()];
             saltKey = new byte[this.policy.getSaltKeyLength()];    
             break;
@@ -171,6 +206,15 @@ public class SRTCPCryptoContext {
 
         case SRTPPolicy.TWOFISH_ENCRYPTION:
             cipher = new TwofishEngine();
+            streamCipher = new BlockCipherCTR(new TwofishEngine());
+            encKey = new byte[this.policy.getEncKeyLength()];
+            saltKey = new byte[this.policy.getSaltKeyLength()];
+            break;
+
+        case SRTPPolicy.AESGCM_ENCRYPTION:
+            // the block cipher is only used to derive the session keys
+            cipher = new AESFastEngine();
+            aeadCipher = provider.createGcmCipher();
             encKey = new byte[this.policy.getEncKeyLength()];
             saltKey = new byte[this.policy.getSaltKeyLength()];
             break;
@@ -183,7 +227,7 @@ public class SRTCPCryptoContext {
             break;
 
         case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-            mac = new HMac(new SHA1Digest());
+            mac = provider.createHmacSha1();
             authKey = new byte[policy.getAuthKeyLength()];
             tagStore = new byte[mac.getMacSize()];
             break;
@@ -262,6 +306,14 @@ public class SRTCPCryptoContext {
      * @param pkt the RTP packet that is going to be sent out
      */
     public void transformPacket(RawPacket pkt) {
+        // Encrypt and authenticate the packet at once using GCM
+        if (policy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            encryptPacketAESGCM(pkt, sentIndex);
+            sentIndex++;
+            sentIndex &= ~0x80000000;       // clear possible overflow
+            return;
+        }
+
         boolean encrypt = false;
         // Encrypt the packet using Counter Mode encryption
         if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
@@ -314,6 +366,11 @@ public class SRTCPCryptoContext {
      *         false if authentication or replay check failed 
      */
     public boolean reverseTransformPacket(RawPacket pkt) {
+        // Authenticate and decrypt the packet at once using GCM
+        if (policy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+            return decryptPacketAESGCM(pkt);
+        }
+
         boolean decrypt = false;
         int tagLength = policy.getAuthTagLength();
         int indexEflag = pkt.getSRTCPIndex(tagLength);
@@ -405,7 +462,103 @@ public class SRTCPCryptoContext {
         // Encrypted part excludes fixed header (8 bytes)  
         final int payloadOffset = 8;
         final int payloadLength = pkt.getLength() - payloadOffset;
-        cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+        streamCipher.process(pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+    }
+
+    /**
+     * Perform GCM encryption, appending the authentication tag followed by
+     * the E flag and SRTCP index, see RFC 7714 section 17.
+     *
+     * @param pkt the RTCP packet to be encrypted
+     */
+    private void encryptPacketAESGCM(RawPacket pkt, int index) {
+        final int indexEflag = index | 0x80000000;
+        final int payloadLength = pkt.getLength() - FIXED_HEADER_SIZE;
+        computeGcmIv(pkt, index);
+        readAad(pkt, indexEflag);
+
+        pkt.grow(aeadCipher.getTagLength());
+        aeadCipher.encrypt(pkt.getBuffer(), FIXED_HEADER_SIZE, payloadLength, gcmIvStore, aadStore, aadStore.length);
+        System.arraycopy(aadStore, FIXED_HEADER_SIZE, rbStore, 0, 4);
+        pkt.append(rbStore, 4);
+    }
+
+    /**
+     * Perform GCM authentication and decryption, removing the authentication
+     * tag and the SRTCP index from the packet.
+     *
+     * Packets that are only authenticated (E flag clear) are rejected, since
+     * this context always encrypts the packets it sends.
+     *
+     * @param pkt the SRTCP packet to be decrypted
+     * @return true if the packet is authentic, false otherwise
+     */
+    private boolean decryptPacketAESGCM(RawPacket pkt) {
+        final int tagLength = aeadCipher.getTagLength();
+        final int length = pkt.getLength();
+        if (length < FIXED_HEADER_SIZE + tagLength + 4) {
+            return false;
+        }
+
+        final int indexEflag = pkt.readInt(length - 4);
+        if ((indexEflag & 0x80000000) == 0) {
+            return false;
+        }
+        final int index = indexEflag & ~0x80000000;
+        if (!checkReplay(index)) {
+            return false;
+        }
+
+        computeGcmIv(pkt, index);
+        readAad(pkt, indexEflag);
+        pkt.shrink(4);
+        final int payloadLength = pkt.getLength() - FIXED_HEADER_SIZE;
+        if (!aeadCipher.decrypt(pkt.getBuffer(), FIXED_HEADER_SIZE, payloadLength, gcmIvStore, aadStore, aadStore.length)) {
+            return false;
+        }
+        pkt.shrink(tagLength);
+        update(index);
+        return true;
+    }
+
+    /**
+     * Compute the GCM initialization vector, see RFC 7714 section 9.1
+     *
+     * <pre>
+     *   0  1  2  3  4  5  6  7  8  9 10 11
+     * +--+--+--+--+--+--+--+--+--+--+--+--+
+     * |00|00|    SSRC   |00|00|0+SRTCP Idx|
+     * +--+--+--+--+--+--+--+--+--+--+--+--+
+     * XOR 96 bit session salt
+     * </pre>
+     */
+    private void computeGcmIv(RawPacket pkt, int index) {
+        final int ssrc = pkt.getRTCPSSRC();
+
+        gcmIvStore[0] = saltKey[0];
+        gcmIvStore[1] = saltKey[1];
+        gcmIvStore[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+        gcmIvStore[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+        gcmIvStore[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+        gcmIvStore[5] = (byte) (ssrc ^ saltKey[5]);
+        gcmIvStore[6] = saltKey[6];
+        gcmIvStore[7] = saltKey[7];
+        gcmIvStore[8] = (byte) ((index >> 24) ^ saltKey[8]);
+        gcmIvStore[9] = (byte) ((index >> 16) ^ saltKey[9]);
+        gcmIvStore[10] = (byte) ((index >> 8) ^ saltKey[10]);
+        gcmIvStore[11] = (byte) (index ^ saltKey[11]);
+    }
+
+    /**
+     * Stores the additional data authenticated by GCM in aadStore: the first
+     * 8 bytes of the packet followed by the E flag and SRTCP index.
+     */
+    private void readAad(RawPacket pkt, int indexEflag) {
+        pkt.readRegionToBuff(0, FIXED_HEADER_SIZE, aadStore);
+        aadStore[FIXED_HEADER_SIZE] = (byte) (indexEflag >> 24);
+        aadStore[FIXED_HEADER_SIZE + 1] = (byte) (indexEflag >> 16);
+        aadStore[FIXED_HEADER_SIZE + 2] = (byte) (indexEflag >> 8);
+        aadStore[FIXED_HEADER_SIZE + 3] = (byte) indexEflag;
     }
 
     /**
@@ -441,11 +594,9 @@ public class SRTCPCryptoContext {
         // authentication tag (variable according to policy)  
         final int payloadOffset = 8;
         final int payloadLength = pkt.getLength() - (4 + policy.getAuthTagLength());
-        SRTPCipherF8.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore, cipherF8);
+        SRTPCipherF8.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore, cipherF8, f8Context);
     }
 
-    byte[] tempBuffer = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
-    
     /**
      * Authenticate a packet.
      * 
@@ -454,11 +605,7 @@ public class SRTCPCryptoContext {
      * @param pkt the RTP packet to be authenticated
      */
     private void authenticatePacket(RawPacket pkt, int index) {
-    	ByteBuffer buf = pkt.getBuffer();
-    	buf.rewind();
-    	int len = buf.remaining();
-    	buf.get(tempBuffer, 0, len);
-        mac.update(tempBuffer, 0, len);
+        pkt.updateMac(mac, macStore);
         rbStore[0] = (byte) (index >> 24);
         rbStore[1] = (byte) (index >> 16);
         rbStore[2] = (byte) (index >> 8);
@@ -547,8 +694,8 @@ public class SRTCPCryptoContext {
 	            default:
 	                break;
             }
+            Arrays.fill(authKey, (byte)0);
         }
-        Arrays.fill(authKey, (byte)0);
 
         // compute the session salt
         label = 5;
@@ -557,11 +704,48 @@ public class SRTCPCryptoContext {
         Arrays.fill(masterSalt, (byte)0);
 
         // As last step: initialize cipher with derived encryption key.
+        initCiphers();
+    }
+
+    /**
+     * Sets the session keys without deriving them from the master key.
+     * 
+     * Meant for tests, as the known-answer vectors of RFC 7714 are given for
+     * session keys.
+     * 
+     * @param encryptionKey the session encryption key
+     * @param salt the session salt
+     */
+    void setSessionKeys(byte[] encryptionKey, byte[] salt) {
+        System.arraycopy(encryptionKey, 0, encKey, 0, encKey.length);
+        System.arraycopy(salt, 0, saltKey, 0, saltKey.length);
+        initCiphers();
+    }
+
+    /**
+     * Sets the SRTCP index of the next packet to be sent.
+     * 
+     * @param index the SRTCP index, 31 bits
+     */
+    void setSentIndex(int index) {
+        sentIndex = index & ~0x80000000;
+    }
+
+    /**
+     * Initializes the ciphers with the session encryption key, which is then
+     * cleared.
+     */
+    private void initCiphers() {
         if (cipherF8 != null) {
             SRTPCipherF8.deriveForIV(cipherF8, encKey, saltKey);
         }
-        encryptionKey = new KeyParameter(encKey);
-        cipher.init(true, encryptionKey);
+        cipher.init(true, new KeyParameter(encKey));
+        if (streamCipher != null) {
+            streamCipher.init(encKey);
+        }
+        if (aeadCipher != null) {
+            aeadCipher.init(encKey);
+        }
         Arrays.fill(encKey, (byte)0);
     }
 
@@ -611,7 +795,7 @@ public class SRTCPCryptoContext {
     {
         SRTCPCryptoContext pcc = null;
         pcc = new SRTCPCryptoContext(ssrc, masterKey,
-                masterSalt, policy);
+                masterSalt, policy, provider);
         return pcc;
     }
 }
@@ -7,6 +7,7 @@
  */
 package org.mobicents.media.server.impl.rtp.crypto;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
@@ -68,8 +69,26 @@ public class SRTCPTransformer implements PacketTransformer {
     	// Wrap the data into raw packet for readable format
     	this.packet.wrap(pkt, offset, length);
     	
+        // Secure packet into SRTCP format
+        getForwardContext(this.packet).transformPacket(this.packet);
+        return this.packet.getData();
+    }
+
+    public boolean transform(ByteBuffer pkt) {
+    	// Work directly over the packet buffer
+    	this.packet.wrap(pkt);
+
+        // Secure packet into SRTCP format
+        getForwardContext(this.packet).transformPacket(this.packet);
+        pkt.rewind();
+
+        // The raw packet switches to a new buffer if the original one cannot hold the SRTCP trailer
+        return this.packet.getBuffer() == pkt;
+    }
+
+    private SRTCPCryptoContext getForwardContext(RawPacket pkt) {
     	// Associate the packet with its encryption context
-        long ssrc = this.packet.getRTCPSSRC();
+        long ssrc = pkt.getRTCPSSRC();
         SRTCPCryptoContext context = contexts.get(ssrc);
 
         if (context == null) {
@@ -77,10 +96,7 @@ public class SRTCPTransformer implements PacketTransformer {
             context.deriveSrtcpKeys();
             contexts.put(ssrc, context);
         }
-        
-        // Secure packet into SRTCP format
-        context.transformPacket(packet);
-        return packet.getData();
+        return context;
     }
 
     public byte[] reverseTransform(byte[] pkt) {
@@ -91,8 +107,27 @@ public class SRTCPTransformer implements PacketTransformer {
     	// wrap data into raw packet for readable format
     	this.packet.wrap(pkt, offset, length);
     	
+        // Decode packet to RTCP format
+        boolean reversed = getReverseContext(this.packet).reverseTransformPacket(this.packet);
+        if(reversed) {
+        	return this.packet.getData();
+        }
+        return null;
+    }
+
+    public boolean reverseTransform(ByteBuffer pkt) {
+    	// Work directly over the packet buffer
+    	this.packet.wrap(pkt);
+
+        // Decode packet to RTCP format
+        boolean reversed = getReverseContext(this.packet).reverseTransformPacket(this.packet);
+        pkt.rewind();
+        return reversed;
+    }
+
+    private SRTCPCryptoContext getReverseContext(RawPacket pkt) {
     	// Associate the packet with its encryption context
-        long ssrc = this.packet.getRTCPSSRC();
+        long ssrc = pkt.getRTCPSSRC();
         SRTCPCryptoContext context = this.contexts.get(ssrc);
 
         if (context == null) {
@@ -100,13 +135,7 @@ public class SRTCPTransformer implements PacketTransformer {
             context.deriveSrtcpKeys();
             contexts.put(new Long(ssrc), context);
         }
-        
-        // Decode packet to RTCP format
-        boolean reversed = context.reverseTransformPacket(packet);
-        if(reversed) {
-        	return packet.getData();
-        }
-        return null;
+        return context;
     }
 
     /**
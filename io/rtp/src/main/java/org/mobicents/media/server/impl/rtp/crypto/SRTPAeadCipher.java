@@ -0,0 +1,74 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Authenticated encryption of SRTP and SRTCP packets in place, as defined by RFC 7714 for AES-GCM.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface SRTPAeadCipher {
+
+    /**
+     * Gets the length of the authentication tag appended to the cipher text.
+     * 
+     * @return The length of the tag, in bytes
+     */
+    int getTagLength();
+
+    /**
+     * Sets the session encryption key.
+     * 
+     * @param key The session encryption key
+     */
+    void init(byte[] key);
+
+    /**
+     * Encrypts a region of a buffer and writes the authentication tag right after it.
+     * 
+     * @param data The buffer holding the packet. Must have room for the authentication tag.
+     * @param offset The index of the first byte to be encrypted
+     * @param length The number of bytes to be encrypted
+     * @param iv The 12 byte initialization vector
+     * @param aad The additional data to be authenticated
+     * @param aadLength The length of the additional data
+     */
+    void encrypt(ByteBuffer data, int offset, int length, byte[] iv, byte[] aad, int aadLength);
+
+    /**
+     * Authenticates and decrypts a region of a buffer that ends with the authentication tag.
+     * 
+     * @param data The buffer holding the packet
+     * @param offset The index of the first byte of cipher text
+     * @param length The number of bytes of cipher text, including the authentication tag
+     * @param iv The 12 byte initialization vector
+     * @param aad The additional data to be authenticated
+     * @param aadLength The length of the additional data
+     * @return Whether the packet is authentic. The decrypted region must be ignored if it is not.
+     */
+    boolean decrypt(ByteBuffer data, int offset, int length, byte[] iv, byte[] aad, int aadLength);
+
+}
@@ -51,10 +51,10 @@ public class SRTPCipherF8
      * F8 mode encryption context, see RFC3711 section 4.1.2 for detailed
      * description.
      */
-    class F8Context
+    static class F8Context
     {
-        public byte[] S;
-        public byte[] ivAccent;
+        public final byte[] S = new byte[BLKLEN];
+        public final byte[] ivAccent = new byte[BLKLEN];
         long J;
     }
 
@@ -94,22 +94,24 @@ public class SRTPCipherF8
     public static void process(BlockCipher cipher, ByteBuffer data, int off, int len,
             byte[] iv, BlockCipher f8Cipher)
     {
-        F8Context f8ctx = new SRTPCipherF8().new F8Context();
-
-        /*
-         * Get memory for the derived IV (IV')
-         */
-        f8ctx.ivAccent = new byte[BLKLEN];
+        process(cipher, data, off, len, iv, f8Cipher, new F8Context());
+    }
 
+    /**
+     * Encrypt / Decrypt data in place, reusing the state of an F8 context
+     * owned by the caller so no memory is allocated per packet.
+     */
+    static void process(BlockCipher cipher, ByteBuffer data, int off, int len,
+            byte[] iv, BlockCipher f8Cipher, F8Context f8ctx)
+    {
         /*
          * Use the derived IV encryption setup to encrypt the original IV to produce IV'.
          */
         f8Cipher.processBlock(iv, 0, f8ctx.ivAccent, 0);
 
         f8ctx.J = 0; // initialize the counter
-        f8ctx.S = new byte[BLKLEN]; // get the key stream buffer
 
-        Arrays.fill(f8ctx.S, (byte) 0);
+        Arrays.fill(f8ctx.S, (byte) 0); // reset the key stream buffer
 
         int inLen = len;
 
@@ -12,12 +12,9 @@ import java.util.Arrays;
 
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.Mac;
-import org.bouncycastle.crypto.digests.SHA1Digest;
 import org.bouncycastle.crypto.engines.AESFastEngine;
 import org.bouncycastle.crypto.engines.TwofishEngine;
-import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.params.KeyParameter;
-import org.mobicents.media.server.impl.rtp.RtpPacket;
 
 /**
  * SRTPCryptoContext class is the core class of SRTP implementation. There can
@@ -49,6 +46,12 @@ public class SRTPCryptoContext {
 	 */
 	private static final long REPLAY_WINDOW_SIZE = 64;
 
+	/**
+	 * Length of the master salt used by the key derivation function. Shorter
+	 * salts, like the 96 bit salt of AES-GCM, are padded with zeros.
+	 */
+	private static final int KDF_SALT_LENGTH = 14;
+
 	/**
 	 * RTP SSRC of this cryptographic context
 	 */
@@ -119,6 +122,11 @@ public class SRTPCryptoContext {
 	 */
 	private final SRTPPolicy policy;
 
+	/**
+	 * Provider of the ciphers and MAC that protect packets
+	 */
+	private final SRTPCryptoProvider provider;
+
 	/**
 	 * The HMAC object we used to do packet authentication
 	 */
@@ -134,11 +142,26 @@ public class SRTPCryptoContext {
 	 */
 	private BlockCipher cipherF8 = null;
 
+	/**
+	 * Counter mode cipher used to protect packets
+	 */
+	private SRTPStreamCipher streamCipher = null;
+
+	/**
+	 * Authenticated cipher used to protect packets in GCM mode
+	 */
+	private SRTPAeadCipher aeadCipher = null;
+
 	/**
 	 * implements the counter cipher mode for RTP according to RFC 3711
 	 */
 	private final SRTPCipherCTR cipherCtr = new SRTPCipherCTR();
 
+	/**
+	 * F8 mode state, reused between packets
+	 */
+	private final SRTPCipherF8.F8Context f8Context = new SRTPCipherF8.F8Context();
+
 	/**
 	 * Temp store.
 	 */
@@ -149,6 +172,16 @@ public class SRTPCryptoContext {
 	 */
 	private final byte[] ivStore = new byte[16];
 
+	/**
+	 * Temp store for GCM initialization vectors.
+	 */
+	private final byte[] gcmIvStore = new byte[12];
+
+	/**
+	 * Temp store for the RTP header authenticated by GCM.
+	 */
+	private byte[] aadStore = new byte[RawPacket.FIXED_HEADER_SIZE];
+
 	/**
 	 * Temp store.
 	 */
@@ -160,6 +193,11 @@ public class SRTPCryptoContext {
 	 */
 	private final byte[] tempStore = new byte[100];
 
+	/**
+	 * Working store used to feed packets held in direct buffers into the MAC
+	 */
+	private final byte[] macStore = new byte[256];
+
 	/**
 	 * Construct an empty SRTPCryptoContext using ssrc. The other parameters are
 	 * set to default null value.
@@ -181,6 +219,7 @@ public class SRTPCryptoContext {
 		saltKey = null;
 		seqNumSet = false;
 		policy = null;
+		provider = null;
 		tagStore = null;
 	}
 
@@ -209,9 +248,22 @@ public class SRTPCryptoContext {
 	 *            SRTP policy for this SRTP cryptographic context, defined the
 	 *            encryption algorithm, the authentication algorithm, etc
 	 */
-	@SuppressWarnings("fallthrough")
 	public SRTPCryptoContext(long ssrcIn, int rocIn, long kdr, byte[] masterK,
 			byte[] masterS, SRTPPolicy policyIn) {
+		this(ssrcIn, rocIn, kdr, masterK, masterS, policyIn, SRTPCryptoProvider.getDefault());
+	}
+
+	/**
+	 * Construct a normal SRTPCryptoContext whose packets are protected by the
+	 * ciphers and MAC of a specific provider.
+	 * 
+	 * @see #SRTPCryptoContext(long, int, long, byte[], byte[], SRTPPolicy)
+	 * @param providerIn
+	 *            the provider of the ciphers and MAC that protect packets
+	 */
+	@SuppressWarnings("fallthrough")
+	public SRTPCryptoContext(long ssrcIn, int rocIn, long kdr, byte[] masterK,
+			byte[] masterS, SRTPPolicy policyIn, SRTPCryptoProvider providerIn) {
 		ssrcCtx = ssrcIn;
 		mki = null;
 		roc = rocIn;
@@ -221,15 +273,14 @@ public class SRTPCryptoContext {
 		seqNumSet = false;
 
 		policy = policyIn;
+		provider = providerIn;
 
 		masterKey = new byte[policy.getEncKeyLength()];
 		System.arraycopy(masterK, 0, masterKey, 0, masterK.length);
 
-		masterSalt = new byte[policy.getSaltKeyLength()];
+		masterSalt = new byte[Math.max(policy.getSaltKeyLength(), KDF_SALT_LENGTH)];
 		System.arraycopy(masterS, 0, masterSalt, 0, masterS.length);
 
-		mac = new HMac(new SHA1Digest());
-
 		switch (policy.getEncType()) {
 		case SRTPPolicy.NULL_ENCRYPTION:
 			encKey = null;
@@ -242,6 +293,7 @@ public class SRTPCryptoContext {
 
 		case SRTPPolicy.AESCM_ENCRYPTION:
 			cipher = new AESFastEngine();
+			streamCipher = provider.createCtrCipher();
 			encKey = new byte[policy.getEncKeyLength()];
 			saltKey = new byte[policy.getSaltKeyLength()];
 			break;
@@ -251,9 +303,18 @@ public class SRTPCryptoContext {
 
 		case SRTPPolicy.TWOFISH_ENCRYPTION:
 			cipher = new TwofishEngine();
+			streamCipher = new BlockCipherCTR(new TwofishEngine());
 			encKey = new byte[this.policy.getEncKeyLength()];
 			saltKey = new byte[this.policy.getSaltKeyLength()];
 			break;
+
+		case SRTPPolicy.AESGCM_ENCRYPTION:
+			// the block cipher is only used to derive the session keys
+			cipher = new AESFastEngine();
+			aeadCipher = provider.createGcmCipher();
+			encKey = new byte[policy.getEncKeyLength()];
+			saltKey = new byte[policy.getSaltKeyLength()];
+			break;
 		}
 
 		switch (policy.getAuthType()) {
@@ -263,7 +324,7 @@ public class SRTPCryptoContext {
 			break;
 
 		case SRTPPolicy.HMACSHA1_AUTHENTICATION:
-			mac = new HMac(new SHA1Digest());
+			mac = provider.createHmacSha1();
 			authKey = new byte[policy.getAuthKeyLength()];
 			tagStore = new byte[mac.getMacSize()];
 			break;
@@ -360,6 +421,9 @@ public class SRTPCryptoContext {
 		} else if (policy.getEncType() == SRTPPolicy.AESF8_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISHF8_ENCRYPTION) {
 			/* Encrypt the packet using F8 Mode encryption */
 			processPacketAESF8(pkt);
+		} else if (policy.getEncType() == SRTPPolicy.AESGCM_ENCRYPTION) {
+			/* Encrypt and authenticate the packet using GCM */
+			encryptPacketAESGCM(pkt);
 		}
 
 		/* Authenticate the packet */
@@ -443,6 +507,13 @@ public class SRTPCryptoContext {
 			processPacketAESF8(pkt);
 			break;
 
+		case SRTPPolicy.AESGCM_ENCRYPTION:
+			// using GCM, which also authenticates the packet
+			if (!decryptPacketAESGCM(pkt, guessedROC)) {
+				return false;
+			}
+			break;
+
 		default:
 			return false;
 		}
@@ -480,7 +551,7 @@ public class SRTPCryptoContext {
 		final int payloadOffset = pkt.getHeaderLength();
 		final int payloadLength = pkt.getPayloadLength();
 
-		cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+		streamCipher.process(pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
 	}
 
 	/**
@@ -493,9 +564,10 @@ public class SRTPCryptoContext {
 		// 11 bytes of the RTP header are the 11 bytes of the iv
 		// the first byte of the RTP header is not used.
 		ByteBuffer buf = pkt.getBuffer();
-		buf.compact();
-		buf.get(ivStore, 0, 12);
 		ivStore[0] = 0;
+		for (int i = 1; i < 12; i++) {
+			ivStore[i] = buf.get(i);
+		}
 
 		// set the ROC in network order into IV
 		ivStore[12] = (byte) (this.roc >> 24);
@@ -506,10 +578,91 @@ public class SRTPCryptoContext {
 		final int payloadOffset = pkt.getHeaderLength();
 		final int payloadLength = pkt.getPayloadLength();
 
-		SRTPCipherF8.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore, cipherF8);
+		SRTPCipherF8.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore, cipherF8, f8Context);
+	}
+
+	/**
+	 * Perform GCM encryption, appending the authentication tag to the packet
+	 * 
+	 * @param pkt
+	 *            the RTP packet to be encrypted
+	 */
+	private void encryptPacketAESGCM(RawPacket pkt) {
+		final int headerLength = readHeader(pkt);
+		final int payloadLength = pkt.getLength() - headerLength;
+		computeGcmIv(pkt, roc);
+
+		pkt.grow(aeadCipher.getTagLength());
+		aeadCipher.encrypt(pkt.getBuffer(), headerLength, payloadLength, gcmIvStore, aadStore, headerLength);
+	}
+
+	/**
+	 * Perform GCM authentication and decryption, removing the authentication
+	 * tag from the packet
+	 * 
+	 * @param pkt
+	 *            the SRTP packet to be decrypted
+	 * @param rocIn
+	 *            Roll-Over-Counter
+	 * @return true if the packet is authentic, false otherwise
+	 */
+	private boolean decryptPacketAESGCM(RawPacket pkt, int rocIn) {
+		final int tagLength = aeadCipher.getTagLength();
+		final int headerLength = readHeader(pkt);
+		final int payloadLength = pkt.getLength() - headerLength;
+		if (payloadLength < tagLength) {
+			return false;
+		}
+		computeGcmIv(pkt, rocIn);
+
+		if (!aeadCipher.decrypt(pkt.getBuffer(), headerLength, payloadLength, gcmIvStore, aadStore, headerLength)) {
+			return false;
+		}
+		pkt.shrink(tagLength);
+		return true;
+	}
+
+	/**
+	 * Compute the GCM initialization vector, see RFC 7714 section 8.1
+	 * 
+	 * <pre>
+	 *   0  1  2  3  4  5  6  7  8  9 10 11
+	 * +--+--+--+--+--+--+--+--+--+--+--+--+
+	 * |00|00|    SSRC   |     ROC   | SEQ |
+	 * +--+--+--+--+--+--+--+--+--+--+--+--+
+	 * XOR 96 bit session salt
+	 * </pre>
+	 */
+	private void computeGcmIv(RawPacket pkt, int rocIn) {
+		final int ssrc = pkt.getSSRC();
+		final int seqNo = pkt.getSequenceNumber();
+
+		gcmIvStore[0] = saltKey[0];
+		gcmIvStore[1] = saltKey[1];
+		for (int i = 2; i < 6; i++) {
+			gcmIvStore[i] = (byte) ((ssrc >> ((5 - i) * 8)) ^ saltKey[i]);
+		}
+		for (int i = 6; i < 10; i++) {
+			gcmIvStore[i] = (byte) ((rocIn >> ((9 - i) * 8)) ^ saltKey[i]);
+		}
+		gcmIvStore[10] = (byte) ((seqNo >> 8) ^ saltKey[10]);
+		gcmIvStore[11] = (byte) (seqNo ^ saltKey[11]);
 	}
 
-	byte[] tempBuffer = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
+	/**
+	 * Copies the RTP header, which GCM authenticates but does not encrypt,
+	 * into the aadStore
+	 * 
+	 * @return the length of the header
+	 */
+	private int readHeader(RawPacket pkt) {
+		final int headerLength = pkt.getHeaderLength();
+		if (aadStore.length < headerLength) {
+			aadStore = new byte[headerLength];
+		}
+		pkt.readRegionToBuff(0, headerLength, aadStore);
+		return headerLength;
+	}
 
 	/**
 	 * Authenticate a packet. Calculated authentication tag is returned.
@@ -520,11 +673,7 @@ public class SRTPCryptoContext {
 	 *            Roll-Over-Counter
 	 */
 	private void authenticatePacketHMCSHA1(RawPacket pkt, int rocIn) {
-		ByteBuffer buf = pkt.getBuffer();
-		buf.rewind();
-		int len = buf.remaining();
-		buf.get(tempBuffer, 0, len);
-		mac.update(tempBuffer, 0, len);
+		pkt.updateMac(mac, macStore);
 		rbStore[0] = (byte) (rocIn >> 24);
 		rbStore[1] = (byte) (rocIn >> 16);
 		rbStore[2] = (byte) (rocIn >> 8);
@@ -633,8 +782,8 @@ public class SRTPCryptoContext {
 			default:
 				break;
 			}
+			Arrays.fill(authKey, (byte) 0);
 		}
-		Arrays.fill(authKey, (byte) 0);
 
 		// compute the session salt
 		label = 0x02;
@@ -643,11 +792,41 @@ public class SRTPCryptoContext {
 		Arrays.fill(masterSalt, (byte) 0);
 
 		// As last step: initialize cipher with derived encryption key.
+		initCiphers();
+	}
+
+	/**
+	 * Sets the session keys without deriving them from the master key.
+	 * 
+	 * Meant for tests, as the known-answer vectors of RFC 7714 are given for
+	 * session keys.
+	 * 
+	 * @param encryptionKey
+	 *            the session encryption key
+	 * @param salt
+	 *            the session salt
+	 */
+	void setSessionKeys(byte[] encryptionKey, byte[] salt) {
+		System.arraycopy(encryptionKey, 0, encKey, 0, encKey.length);
+		System.arraycopy(salt, 0, saltKey, 0, saltKey.length);
+		initCiphers();
+	}
+
+	/**
+	 * Initializes the ciphers with the session encryption key, which is then
+	 * cleared.
+	 */
+	private void initCiphers() {
 		if (cipherF8 != null) {
 			SRTPCipherF8.deriveForIV(cipherF8, encKey, saltKey);
 		}
-		encryptionKey = new KeyParameter(encKey);
-		cipher.init(true, encryptionKey);
+		cipher.init(true, new KeyParameter(encKey));
+		if (streamCipher != null) {
+			streamCipher.init(encKey);
+		}
+		if (aeadCipher != null) {
+			aeadCipher.init(encKey);
+		}
 		Arrays.fill(encKey, (byte) 0);
 	}
 
@@ -729,6 +908,6 @@ public class SRTPCryptoContext {
 	 * @return a new SRTPCryptoContext with all relevant data set.
 	 */
 	public SRTPCryptoContext deriveContext(long ssrc, int roc, long deriveRate) {
-		return new SRTPCryptoContext(ssrc, roc, deriveRate, masterKey, masterSalt, policy);
+		return new SRTPCryptoContext(ssrc, roc, deriveRate, masterKey, masterSalt, policy, provider);
 	}
 }
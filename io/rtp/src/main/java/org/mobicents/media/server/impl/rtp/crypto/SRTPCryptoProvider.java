@@ -0,0 +1,177 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+
+import org.apache.log4j.Logger;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.macs.HMac;
+
+/**
+ * Supplies the ciphers and MACs used to protect SRTP and SRTCP packets.
+ * <p>
+ * The JCE provider lets HotSpot replace AES and GHASH with the AES-NI and CLMUL intrinsics of the CPU. The BouncyCastle
+ * provider is implemented in plain Java and is used whenever the JVM lacks one of the required JCE algorithms.
+ * </p>
+ * <p>
+ * The default provider can be forced with the {@value #PROVIDER_PROPERTY} system property.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public enum SRTPCryptoProvider {
+
+    BOUNCY_CASTLE {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public SRTPStreamCipher createCtrCipher() {
+            return new BlockCipherCTR(new AESFastEngine());
+        }
+
+        @Override
+        public SRTPAeadCipher createGcmCipher() {
+            return new BlockCipherGCM();
+        }
+
+        @Override
+        public Mac createHmacSha1() {
+            return new HMac(new SHA1Digest());
+        }
+    },
+
+    JCE {
+        @Override
+        public boolean isAvailable() {
+            try {
+                Cipher.getInstance(JceCipherCTR.TRANSFORMATION);
+                Cipher.getInstance(JceCipherGCM.TRANSFORMATION);
+                javax.crypto.Mac.getInstance(JceMac.HMAC_SHA1);
+                return true;
+            } catch (GeneralSecurityException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public SRTPStreamCipher createCtrCipher() {
+            try {
+                return new JceCipherCTR();
+            } catch (GeneralSecurityException e) {
+                return BOUNCY_CASTLE.createCtrCipher();
+            }
+        }
+
+        @Override
+        public SRTPAeadCipher createGcmCipher() {
+            try {
+                return new JceCipherGCM();
+            } catch (GeneralSecurityException e) {
+                return BOUNCY_CASTLE.createGcmCipher();
+            }
+        }
+
+        @Override
+        public Mac createHmacSha1() {
+            try {
+                return new JceMac(JceMac.HMAC_SHA1);
+            } catch (GeneralSecurityException e) {
+                return BOUNCY_CASTLE.createHmacSha1();
+            }
+        }
+    };
+
+    private static final Logger logger = Logger.getLogger(SRTPCryptoProvider.class);
+
+    public static final String PROVIDER_PROPERTY = "mms.srtp.provider";
+
+    private static volatile SRTPCryptoProvider defaultProvider;
+
+    /**
+     * Gets whether the JVM implements every algorithm this provider relies on.
+     * 
+     * @return <code>true</code> if the provider is fully available; <code>false</code> otherwise.
+     */
+    public abstract boolean isAvailable();
+
+    /**
+     * Creates an AES Counter Mode cipher.
+     * 
+     * @return A new cipher, which must be initialized with the session key.
+     */
+    public abstract SRTPStreamCipher createCtrCipher();
+
+    /**
+     * Creates an AES-GCM cipher.
+     * 
+     * @return A new cipher, which must be initialized with the session key.
+     */
+    public abstract SRTPAeadCipher createGcmCipher();
+
+    /**
+     * Creates an HMAC-SHA1 MAC.
+     * 
+     * @return A new MAC, which must be initialized with the session authentication key.
+     */
+    public abstract Mac createHmacSha1();
+
+    /**
+     * Gets the provider used by crypto contexts that are not given one explicitly.
+     * 
+     * @return The provider named by the {@value #PROVIDER_PROPERTY} system property, if set. Otherwise, JCE if available or
+     *         BouncyCastle if not.
+     */
+    public static SRTPCryptoProvider getDefault() {
+        SRTPCryptoProvider provider = defaultProvider;
+        if (provider == null) {
+            provider = select(System.getProperty(PROVIDER_PROPERTY));
+            defaultProvider = provider;
+            if (logger.isInfoEnabled()) {
+                logger.info("SRTP packets will be protected by the " + provider + " crypto provider");
+            }
+        }
+        return provider;
+    }
+
+    static SRTPCryptoProvider select(String name) {
+        if (name != null && !name.isEmpty()) {
+            for (SRTPCryptoProvider provider : values()) {
+                if (provider.name().equalsIgnoreCase(name.trim())) {
+                    return provider;
+                }
+            }
+            logger.warn("Unknown SRTP crypto provider " + name + ". Falling back to the default provider.");
+        }
+        return JCE.isAvailable() ? JCE : BOUNCY_CASTLE;
+    }
+
+}
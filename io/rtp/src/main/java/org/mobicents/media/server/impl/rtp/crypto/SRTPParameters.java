@@ -13,7 +13,15 @@ public enum SRTPParameters {
 	SRTP_AES128_CM_HMAC_SHA1_80 (SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80, SRTPPolicy.AESCM_ENCRYPTION, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 10, 14),
 	SRTP_AES128_CM_HMAC_SHA1_32 (SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32, SRTPPolicy.AESCM_ENCRYPTION, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 4, 10, 14),
 	SRTP_NULL_HMAC_SHA1_80 (SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80, SRTPPolicy.NULL_ENCRYPTION, 0, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 10, 0),
-	SRTP_NULL_HMAC_SHA1_32 (SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32, SRTPPolicy.NULL_ENCRYPTION, 0, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 4, 10, 0);
+	SRTP_NULL_HMAC_SHA1_32 (SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32, SRTPPolicy.NULL_ENCRYPTION, 0, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 4, 10, 0),
+	// GCM carries its own 16 byte tag, so there is no separate authentication - https://tools.ietf.org/html/rfc7714#section-12
+	SRTP_AEAD_AES_128_GCM (SRTPParameters.AEAD_AES_128_GCM_PROFILE, SRTPPolicy.AESGCM_ENCRYPTION, 16, SRTPPolicy.NULL_AUTHENTICATION, 0, 0, 0, 12);
+	
+	/**
+	 * DTLS-SRTP protection profile value of AEAD_AES_128_GCM, not yet known by BouncyCastle.
+	 * https://tools.ietf.org/html/rfc7714#section-14.2
+	 */
+	public static final int AEAD_AES_128_GCM_PROFILE = 0x0007;
 	
 	private int profile;
 	private int encType;
@@ -57,6 +65,8 @@ public enum SRTPParameters {
 				return SRTP_NULL_HMAC_SHA1_80;
 			case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32:
 				return SRTP_NULL_HMAC_SHA1_32;
+			case AEAD_AES_128_GCM_PROFILE:
+				return SRTP_AEAD_AES_128_GCM;
 			default:
 				throw new IllegalArgumentException("SRTP Protection Profile value %d is not allowed for DTLS SRTP. See http://tools.ietf.org/html/rfc5764#section-4.1.2 for valid values.");
 		}
@@ -39,6 +39,13 @@ public class SRTPPolicy
      * F8 Mode TwoFish Cipher
      */
     public final static int TWOFISHF8_ENCRYPTION = 4;
+
+    /**
+     * Galois/Counter Mode AES Cipher, defined in RFC 7714.
+     * Authenticates the packet by itself, so it is paired with Null Authentication.
+     */
+    public final static int AESGCM_ENCRYPTION = 5;
+
     /**
      * Null Authentication, no authentication
      */
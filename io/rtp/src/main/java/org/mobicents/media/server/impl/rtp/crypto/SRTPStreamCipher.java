@@ -0,0 +1,53 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encrypts and decrypts the payload of SRTP and SRTCP packets in place, using the AES Counter Mode defined in RFC 3711,
+ * section 4.1.1.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface SRTPStreamCipher {
+
+    /**
+     * Sets the session encryption key.
+     * 
+     * @param key The session encryption key
+     */
+    void init(byte[] key);
+
+    /**
+     * Combines a region of a buffer with the key stream generated from an initialization vector.
+     * 
+     * @param data The buffer holding the packet
+     * @param offset The index of the first byte to be processed
+     * @param length The number of bytes to be processed
+     * @param iv The 16 byte initialization vector, whose last two bytes hold the block counter
+     */
+    void process(ByteBuffer data, int offset, int length, byte[] iv);
+
+}
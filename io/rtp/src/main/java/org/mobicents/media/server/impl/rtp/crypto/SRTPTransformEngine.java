@@ -43,8 +43,21 @@ public class SRTPTransformEngine implements TransformEngine {
 	 *            SRTCP policy
 	 */
 	public SRTPTransformEngine(byte[] masterKey, byte[] masterSalt, SRTPPolicy srtpPolicy, SRTPPolicy srtcpPolicy) {
-		defaultContext = new SRTPCryptoContext(0, 0, 0, masterKey, masterSalt, srtpPolicy);
-		defaultContextControl = new SRTCPCryptoContext(0, masterKey, masterSalt, srtcpPolicy);
+		this(masterKey, masterSalt, srtpPolicy, srtcpPolicy, SRTPCryptoProvider.getDefault());
+	}
+
+	/**
+	 * Construct a SRTPTransformEngine whose packets are protected by the
+	 * ciphers and MAC of a specific provider.
+	 * 
+	 * @see #SRTPTransformEngine(byte[], byte[], SRTPPolicy, SRTPPolicy)
+	 * @param provider
+	 *            the provider of the ciphers and MAC that protect packets
+	 */
+	public SRTPTransformEngine(byte[] masterKey, byte[] masterSalt, SRTPPolicy srtpPolicy, SRTPPolicy srtcpPolicy,
+			SRTPCryptoProvider provider) {
+		defaultContext = new SRTPCryptoContext(0, 0, 0, masterKey, masterSalt, srtpPolicy, provider);
+		defaultContextControl = new SRTCPCryptoContext(0, masterKey, masterSalt, srtcpPolicy, provider);
 	}
 
 	/**
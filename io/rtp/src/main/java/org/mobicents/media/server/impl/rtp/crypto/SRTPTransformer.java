@@ -7,6 +7,7 @@
  */
 package org.mobicents.media.server.impl.rtp.crypto;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
 import org.apache.log4j.Logger;
@@ -38,6 +39,12 @@ public class SRTPTransformer implements PacketTransformer {
 	 */
 	private Hashtable<Long, SRTPCryptoContext> contexts;
 
+	/**
+	 * The crypto context of the most recently transformed packet
+	 */
+	private long lastSsrc;
+	private SRTPCryptoContext lastContext;
+
 	/**
 	 * Constructs a SRTPTransformer object.
 	 * 
@@ -74,19 +81,34 @@ public class SRTPTransformer implements PacketTransformer {
 		// Updates the contents of raw packet with new incoming packet 
 		this.rawPacket.wrap(pkt, offset, length);
 		
+		// Transform RTP packet into SRTP
+		getForwardContext(this.rawPacket).transformPacket(this.rawPacket);
+		return this.rawPacket.getData();
+	}
+
+	public boolean transform(ByteBuffer pkt) {
+		// Work directly over the packet buffer
+		this.rawPacket.wrap(pkt);
+
+		// Transform RTP packet into SRTP
+		getForwardContext(this.rawPacket).transformPacket(this.rawPacket);
+		pkt.rewind();
+
+		// The raw packet switches to a new buffer if the original one cannot hold the authentication tag
+		return this.rawPacket.getBuffer() == pkt;
+	}
+
+	private SRTPCryptoContext getForwardContext(RawPacket packet) {
 		// Associate packet to a crypto context
-		long ssrc = rawPacket.getSSRC();
-		SRTPCryptoContext context = contexts.get(ssrc);
+		long ssrc = packet.getSSRC();
+		SRTPCryptoContext context = getContext(ssrc);
 
 		if (context == null) {
 			context = forwardEngine.getDefaultContext().deriveContext(ssrc, 0, 0);
 			context.deriveSrtpKeys(0);
-			contexts.put(ssrc, context);
+			putContext(ssrc, context);
 		}
-
-		// Transform RTP packet into SRTP
-		context.transformPacket(this.rawPacket);
-		return this.rawPacket.getData();
+		return context;
 	}
 
 	/**
@@ -105,20 +127,51 @@ public class SRTPTransformer implements PacketTransformer {
 		// Wrap data into the raw packet for readable format
 		this.rawPacket.wrap(pkt, offset, length);
 		
+		boolean reversed = getReverseContext(this.rawPacket).reverseTransformPacket(this.rawPacket);
+		if(reversed) {
+			return this.rawPacket.getData();
+		}
+		return null;
+	}
+
+	public boolean reverseTransform(ByteBuffer pkt) {
+		// Work directly over the packet buffer
+		this.rawPacket.wrap(pkt);
+
+		boolean reversed = getReverseContext(this.rawPacket).reverseTransformPacket(this.rawPacket);
+		pkt.rewind();
+		return reversed;
+	}
+
+	private SRTPCryptoContext getReverseContext(RawPacket packet) {
 		// Associate packet to a crypto context
-		long ssrc = this.rawPacket.getSSRC();
-		SRTPCryptoContext context = this.contexts.get(ssrc);
+		long ssrc = packet.getSSRC();
+		SRTPCryptoContext context = getContext(ssrc);
 		if (context == null) {
 			context = this.reverseEngine.getDefaultContext().deriveContext(ssrc, 0, 0);
-			context.deriveSrtpKeys(this.rawPacket.getSequenceNumber());
-			contexts.put(ssrc, context);
+			context.deriveSrtpKeys(packet.getSequenceNumber());
+			putContext(ssrc, context);
 		}
+		return context;
+	}
 
-		boolean reversed = context.reverseTransformPacket(this.rawPacket);
-		if(reversed) {
-			return this.rawPacket.getData();
+	private SRTPCryptoContext getContext(long ssrc) {
+		// A stream rarely changes its SSRC, so skip the boxed table lookup for consecutive packets
+		if (this.lastContext != null && this.lastSsrc == ssrc) {
+			return this.lastContext;
 		}
-		return null;
+		SRTPCryptoContext context = this.contexts.get(ssrc);
+		if (context != null) {
+			this.lastSsrc = ssrc;
+			this.lastContext = context;
+		}
+		return context;
+	}
+
+	private void putContext(long ssrc, SRTPCryptoContext context) {
+		this.contexts.put(ssrc, context);
+		this.lastSsrc = ssrc;
+		this.lastContext = context;
 	}
 
 	/**
@@ -132,6 +185,7 @@ public class SRTPTransformer implements PacketTransformer {
 		if (forwardEngine != reverseEngine) {
 			reverseEngine.close();
 		}
+		this.lastContext = null;
 		for (Long ssrc : contexts.keySet()) {
 			SRTPCryptoContext context = contexts.get(ssrc);
 			if (context != null) {
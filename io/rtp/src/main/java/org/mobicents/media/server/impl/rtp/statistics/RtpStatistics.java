@@ -21,9 +21,8 @@
 package org.mobicents.media.server.impl.rtp.statistics;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import org.apache.log4j.Logger;
 import org.mobicents.media.server.impl.rtcp.RtcpIntervalCalculator;
@@ -41,6 +40,13 @@ import org.mobicents.media.server.scheduler.Clock;
 
 /**
  * Encapsulates statistics of an RTP/RTCP channel
+ * <p>
+ * RTP counters are updated on every packet, so they are single-writer fields: incoming traffic is only accounted by the
+ * thread that reads the channel and outgoing traffic by the thread that writes it to the network. Writers publish with
+ * ordered stores and never take a lock, while RTCP report generation reads them from another thread.<br>
+ * Session members and senders live in {@link SsrcMap} tables that are looked up without locking or boxing. Only membership
+ * changes are serialized.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  * 
@@ -49,6 +55,15 @@ public class RtpStatistics {
 	
 	private static final Logger logger = Logger.getLogger(RtpStatistics.class);
 
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_LAST_HEARTBEAT = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpLastHeartbeat");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_RX_PACKETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpRxPackets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_RX_OCTETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpRxOctets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_TX_PACKETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpTxPackets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_TX_OCTETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpTxOctets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_RECEIVED_ON = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpReceivedOn");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_SENT_ON = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpSentOn");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RTP_TIMESTAMP = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpTimestamp");
+
 	/** Default session bandwidth (in octets per second). Matches g.711: 64kbps */
 	public static final int RTP_DEFAULT_BW = 8000;
 
@@ -76,7 +91,7 @@ public class RtpStatistics {
 	private String cname;
 
 	/* Global RTP statistics */
-	private long rtpLastHeartbeat;
+	private volatile long rtpLastHeartbeat;
 	private volatile long rtpRxPackets;
 	private volatile long rtpRxOctets;
 	private volatile long rtpTxPackets;
@@ -86,10 +101,10 @@ public class RtpStatistics {
 	private volatile long rtpTimestamp;
 
 	/* Global RTCP statistics */
-	private RtcpPacketType rtcpNextPacketType;
+	private volatile RtcpPacketType rtcpNextPacketType;
 	private double rtcpBw;
 	private double rtcpAvgSize;
-	private boolean weSent;
+	private volatile boolean weSent;
 	
 	private volatile long rtcpTxPackets;
 	private volatile long rtcpTxOctets;
@@ -111,12 +126,12 @@ public class RtpStatistics {
 	 * RTCP report intervals (5 is RECOMMENDED). This provides some robustness
 	 * against packet loss.
 	 */
-	private final Map<Long, RtpMember> membersMap;
-	private int pmembers;
-	private int members;
+	private final SsrcMap<RtpMember> membersMap;
+	private volatile int pmembers;
+	private volatile int members;
 	
-	private final List<Long> sendersList;
-	private int senders;
+	private final SsrcMap<Boolean> sendersMap;
+	private volatile int senders;
 
 	public RtpStatistics(final RtpClock clock, final long ssrc, final String cname) {
 		// Common
@@ -137,11 +152,11 @@ public class RtpStatistics {
 
 		// RTCP statistics
 		this.senders = 0;
-		this.sendersList = new ArrayList<Long>();
+		this.sendersMap = new SsrcMap<Boolean>();
 		this.pmembers = 1;
 		this.members = 1;
-		this.membersMap = new HashMap<Long, RtpMember>();
-		this.membersMap.put(Long.valueOf(this.ssrc), new RtpMember(this.rtpClock, this.ssrc));
+		this.membersMap = new SsrcMap<RtpMember>();
+		this.membersMap.putIfAbsent(this.ssrc, new RtpMember(this.rtpClock, this.ssrc));
 		this.rtcpBw = RTP_DEFAULT_BW * RTCP_BW_FRACTION;
 		this.rtcpAvgSize = RTCP_DEFAULT_AVG_SIZE;
 		this.rtcpNextPacketType = RtcpPacketType.RTCP_REPORT;
@@ -184,7 +199,7 @@ public class RtpStatistics {
 	 *            The heartbeat timestamp, in nanoseconds.
 	 */
 	public void setLastHeartbeat(long rtpKeepAlive) {
-		this.rtpLastHeartbeat = rtpKeepAlive;
+		RTP_LAST_HEARTBEAT.lazySet(this, rtpKeepAlive);
 	}
 
 	/**
@@ -334,15 +349,12 @@ public class RtpStatistics {
 	}
 
 	public boolean isSender(long ssrc) {
-		synchronized (this.sendersList) {
-			return this.sendersList.contains(Long.valueOf(ssrc));
-		}
+		return this.sendersMap.containsKey(ssrc);
 	}
 
 	private void addSender(long ssrc) {
-		synchronized (this.sendersList) {
-			if (!this.sendersList.contains(Long.valueOf(ssrc))) {
-				this.sendersList.add(Long.valueOf(ssrc));
+		synchronized (this.sendersMap) {
+			if (this.sendersMap.putIfAbsent(ssrc, Boolean.TRUE) == null) {
 				this.senders++;
 				if (this.ssrc == ssrc) {
 					this.weSent = true;
@@ -352,8 +364,8 @@ public class RtpStatistics {
 	}
 
 	private void removeSender(long ssrc) {
-		synchronized (this.sendersList) {
-			if (this.sendersList.remove(Long.valueOf(ssrc))) {
+		synchronized (this.sendersMap) {
+			if (this.sendersMap.remove(ssrc) != null) {
 				this.senders--;
 				if (this.ssrc == ssrc) {
 					this.weSent = false;
@@ -363,8 +375,8 @@ public class RtpStatistics {
 	}
 
 	public void clearSenders() {
-		synchronized (this.sendersList) {
-			this.sendersList.clear();
+		synchronized (this.sendersMap) {
+			this.sendersMap.clear();
 			this.senders = 0;
 			this.weSent = false;
 		}
@@ -390,23 +402,33 @@ public class RtpStatistics {
 	}
 
 	public RtpMember getMember(long ssrc) {
-		synchronized (this.membersMap) {
-			return this.membersMap.get(Long.valueOf(ssrc));
-		}
+		return this.membersMap.get(ssrc);
 	}
 
 	public List<Long> getMembersList() {
-		List<Long> copy;
-		synchronized (this.membersMap) {
-			copy = new ArrayList<Long>(this.membersMap.keySet());
+		long[] keys = this.membersMap.keys();
+		List<Long> copy = new ArrayList<Long>(keys.length);
+		for (long key : keys) {
+			copy.add(Long.valueOf(key));
 		}
 		return copy;
 	}
 
+	/**
+	 * Gets a snapshot of the registered members.
+	 * <p>
+	 * Members that join or leave afterwards do not affect the snapshot, so it can be safely iterated while building an RTCP
+	 * report.
+	 * </p>
+	 * 
+	 * @return An unmodifiable list of members, including the local source
+	 */
+	public List<RtpMember> getMembersSnapshot() {
+		return this.membersMap.values();
+	}
+
 	public boolean isMember(long ssrc) {
-		synchronized (this.membersMap) {
-			return this.membersMap.containsKey(Long.valueOf(ssrc));
-		}
+		return this.membersMap.containsKey(ssrc);
 	}
 
 	private RtpMember addMember(long ssrc) {
@@ -418,8 +440,12 @@ public class RtpStatistics {
 		if (member == null) {
 			synchronized (this.membersMap) {
 				member = new RtpMember(this.rtpClock, ssrc, cname);
-				this.membersMap.put(Long.valueOf(ssrc), member);
-				this.members++;
+				RtpMember existing = this.membersMap.putIfAbsent(ssrc, member);
+				if (existing == null) {
+					this.members++;
+				} else {
+					member = existing;
+				}
 			}
 		}
 		return member;
@@ -427,7 +453,7 @@ public class RtpStatistics {
 
 	private void removeMember(long ssrc) {
 		synchronized (this.membersMap) {
-			if (this.membersMap.remove(Long.valueOf(ssrc)) != null) {
+			if (this.membersMap.remove(ssrc) != null) {
 				this.members--;
 			}
 		}
@@ -444,7 +470,7 @@ public class RtpStatistics {
 	public void resetMembers() {
 		synchronized (this.membersMap) {
 			this.membersMap.clear();
-			this.membersMap.put(Long.valueOf(this.ssrc), new RtpMember(this.rtpClock, this.ssrc));
+			this.membersMap.putIfAbsent(this.ssrc, new RtpMember(this.rtpClock, this.ssrc));
 			this.members = 1;
 			this.pmembers = 1;
 		}
@@ -542,40 +568,46 @@ public class RtpStatistics {
 		this.rtpTimestamp = -1;
 
 		// RTCP statistics
-		this.senders = 0;
-		this.sendersList.clear();
-		this.pmembers = 1;
-		this.members = 1;
-		this.membersMap.clear();
-		this.membersMap.put(Long.valueOf(this.ssrc), new RtpMember(this.rtpClock, this.ssrc));
+		clearSenders();
+		resetMembers();
 		this.rtcpBw = RTP_DEFAULT_BW * RTCP_BW_FRACTION;
 		this.rtcpAvgSize = RTCP_DEFAULT_AVG_SIZE;
 		this.rtcpNextPacketType = RtcpPacketType.RTCP_REPORT;
-		this.weSent = false;
 	}
 
 	/*
 	 * EVENTS
 	 */
 	public void onRtpSent(RtpPacket packet) {
-		this.rtpTxPackets++;
-		this.rtpTxOctets += packet.getPayloadLength();
-		this.rtpSentOn = this.wallClock.getCurrentTime();
-		this.rtpTimestamp = packet.getTimestamp();
+		onRtpSent(packet.getPayloadLength(), packet.getTimestamp());
+	}
+
+	/**
+	 * Accounts an RTP packet that was written to the network.
+	 * 
+	 * @param payloadLength The length of the payload of the packet, in octets
+	 * @param timestamp The RTP time stamp of the packet
+	 */
+	public void onRtpSent(int payloadLength, long timestamp) {
+		// Single writer: ordered stores are enough to publish to RTCP readers
+		RTP_TX_PACKETS.lazySet(this, this.rtpTxPackets + 1);
+		RTP_TX_OCTETS.lazySet(this, this.rtpTxOctets + payloadLength);
+		RTP_SENT_ON.lazySet(this, this.wallClock.getCurrentTime());
+		RTP_TIMESTAMP.lazySet(this, timestamp);
 		/*
 		 * If the participant sends an RTP packet when we_sent is false, it adds
 		 * itself to the sender table and sets we_sent to true.
 		 */
 		if (!this.weSent) {
-			addSender(Long.valueOf(this.ssrc));
+			addSender(this.ssrc);
 		}
 	}
 
 	public void onRtpReceive(RtpPacket packet) {
-		// Increment global statistics
-		this.rtpRxPackets++;
-		this.rtpRxOctets += packet.getPayloadLength();
-		this.rtpReceivedOn = this.wallClock.getTime();
+		// Increment global statistics. Single writer: ordered stores are enough to publish to RTCP readers
+		RTP_RX_PACKETS.lazySet(this, this.rtpRxPackets + 1);
+		RTP_RX_OCTETS.lazySet(this, this.rtpRxOctets + packet.getPayloadLength());
+		RTP_RECEIVED_ON.lazySet(this, this.wallClock.getTime());
 		
 		// Note that there is no point in registering new members if RTCP handler has scheduled a BYE
 		if(RtcpPacketType.RTCP_REPORT.equals(this.rtcpNextPacketType)) {
@@ -0,0 +1,241 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Map of SSRC identifiers to values, backed by open-addressing arrays of primitive keys.
+ * <p>
+ * Lookups are lock-free and never box the SSRC: readers probe an immutable table that is published through a volatile
+ * reference. Updates are serialized on the map and copy the table, which suits RTP sessions where sources join and leave
+ * rarely but are looked up for every packet. Iteration works over a snapshot of the table.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ * @param <V> The type of mapped values
+ */
+public class SsrcMap<V> {
+
+	/** SSRC identifiers are unsigned 32-bit integers, so negative keys mark free slots */
+	private static final long FREE = -1L;
+
+	private static final int MIN_CAPACITY = 8;
+
+	private volatile Table table;
+
+	public SsrcMap() {
+		this.table = new Table(MIN_CAPACITY);
+	}
+
+	/**
+	 * Gets the value mapped to an SSRC.
+	 * 
+	 * @param ssrc The SSRC identifier
+	 * @return The mapped value or <code>null</code> if the SSRC is not mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long ssrc) {
+		final Table current = this.table;
+		final int index = current.find(ssrc);
+		return index < 0 ? null : (V) current.values[index];
+	}
+
+	public boolean containsKey(long ssrc) {
+		return this.table.find(ssrc) >= 0;
+	}
+
+	/**
+	 * Gets the number of mapped SSRC identifiers.
+	 * 
+	 * @return The size of the map
+	 */
+	public int size() {
+		return this.table.size;
+	}
+
+	public boolean isEmpty() {
+		return this.table.size == 0;
+	}
+
+	/**
+	 * Maps a value to an SSRC, unless the SSRC is already mapped.
+	 * 
+	 * @param ssrc The SSRC identifier
+	 * @param value The value to be mapped
+	 * @return The value that was already mapped to the SSRC, or <code>null</code> if the new value was mapped.
+	 * @throws IllegalArgumentException If the SSRC is negative or the value is null.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V putIfAbsent(long ssrc, V value) throws IllegalArgumentException {
+		if (ssrc < 0) {
+			throw new IllegalArgumentException("SSRC must be an unsigned 32-bit integer: " + ssrc);
+		}
+		if (value == null) {
+			throw new IllegalArgumentException("Value cannot be null.");
+		}
+
+		final Table current = this.table;
+		final int index = current.find(ssrc);
+		if (index >= 0) {
+			return (V) current.values[index];
+		}
+
+		// Keep load factor at or below 0.5 so probe sequences stay short
+		int capacity = current.keys.length;
+		if ((current.size + 1) * 2 > capacity) {
+			capacity <<= 1;
+		}
+		final Table copy = current.copy(capacity, FREE);
+		copy.insert(ssrc, value);
+		this.table = copy;
+		return null;
+	}
+
+	/**
+	 * Removes the mapping of an SSRC.
+	 * 
+	 * @param ssrc The SSRC identifier
+	 * @return The value that was mapped to the SSRC, or <code>null</code> if the SSRC was not mapped.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized V remove(long ssrc) {
+		final Table current = this.table;
+		final int index = current.find(ssrc);
+		if (index < 0) {
+			return null;
+		}
+
+		// Rebuild the table without the key instead of leaving tombstones
+		int capacity = current.keys.length;
+		if (capacity > MIN_CAPACITY && (current.size - 1) * 8 < capacity) {
+			capacity >>= 1;
+		}
+		this.table = current.copy(capacity, ssrc);
+		return (V) current.values[index];
+	}
+
+	public synchronized void clear() {
+		this.table = new Table(MIN_CAPACITY);
+	}
+
+	/**
+	 * Gets a snapshot of the mapped SSRC identifiers.
+	 * 
+	 * @return The SSRC identifiers in no particular order
+	 */
+	public long[] keys() {
+		final Table current = this.table;
+		final long[] keys = new long[current.size];
+		int count = 0;
+		for (long key : current.keys) {
+			if (key != FREE) {
+				keys[count++] = key;
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Gets a snapshot of the mapped values.
+	 * 
+	 * @return An unmodifiable list of values in no particular order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values() {
+		final Table current = this.table;
+		final List<V> values = new ArrayList<V>(current.size);
+		for (int i = 0; i < current.keys.length; i++) {
+			if (current.keys[i] != FREE) {
+				values.add((V) current.values[i]);
+			}
+		}
+		return Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * Open-addressing table with linear probing. Never modified once published.
+	 */
+	private static final class Table {
+
+		final long[] keys;
+		final Object[] values;
+		final int mask;
+		int size;
+
+		Table(int capacity) {
+			this.keys = new long[capacity];
+			this.values = new Object[capacity];
+			this.mask = capacity - 1;
+			this.size = 0;
+			for (int i = 0; i < capacity; i++) {
+				this.keys[i] = FREE;
+			}
+		}
+
+		int find(long ssrc) {
+			int index = hash(ssrc) & this.mask;
+			while (true) {
+				final long key = this.keys[index];
+				if (key == FREE) {
+					return -1;
+				}
+				if (key == ssrc) {
+					return index;
+				}
+				index = (index + 1) & this.mask;
+			}
+		}
+
+		void insert(long ssrc, Object value) {
+			int index = hash(ssrc) & this.mask;
+			while (this.keys[index] != FREE) {
+				index = (index + 1) & this.mask;
+			}
+			this.keys[index] = ssrc;
+			this.values[index] = value;
+			this.size++;
+		}
+
+		Table copy(int capacity, long excluded) {
+			final Table copy = new Table(capacity);
+			for (int i = 0; i < this.keys.length; i++) {
+				final long key = this.keys[i];
+				if (key != FREE && key != excluded) {
+					copy.insert(key, this.values[i]);
+				}
+			}
+			return copy;
+		}
+
+		private static int hash(long ssrc) {
+			// Fibonacci hashing spreads sequential identifiers across the table
+			return (int) ((ssrc * 0x9E3779B97F4A7C15L) >>> 32);
+		}
+
+	}
+
+}
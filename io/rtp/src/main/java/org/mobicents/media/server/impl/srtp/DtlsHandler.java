@@ -30,18 +30,21 @@ import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 import org.bouncycastle.crypto.tls.DTLSServerProtocol;
 import org.bouncycastle.crypto.tls.DatagramTransport;
+import org.mobicents.media.server.impl.rtp.crypto.DtlsHandshakePool;
 import org.mobicents.media.server.impl.rtp.crypto.DtlsSrtpServer;
 import org.mobicents.media.server.impl.rtp.crypto.DtlsSrtpServerProvider;
 import org.mobicents.media.server.impl.rtp.crypto.PacketTransformer;
 import org.mobicents.media.server.impl.rtp.crypto.SRTPPolicy;
 import org.mobicents.media.server.impl.rtp.crypto.SRTPTransformEngine;
+import org.mobicents.media.server.io.network.channel.ClassifiedPacketHandler;
+import org.mobicents.media.server.io.network.channel.PacketClass;
 import org.mobicents.media.server.io.network.channel.PacketHandler;
 import org.mobicents.media.server.io.network.channel.PacketHandlerException;
 
@@ -51,12 +54,13 @@ import org.mobicents.media.server.io.network.channel.PacketHandlerException;
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
  */
-public class DtlsHandler implements PacketHandler, DatagramTransport {
-
-    private static final AtomicLong THREAD_COUNTER = new AtomicLong(0);
+public class DtlsHandler implements ClassifiedPacketHandler, DatagramTransport {
 
     private static final Logger logger = Logger.getLogger(DtlsHandler.class);
 
+    // shared by all handshakes, seeding a generator per call is expensive
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
     public static final int DEFAULT_MTU = 1500;
 
     private final static int MIN_IP_OVERHEAD = 20;
@@ -75,11 +79,10 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     // DTLS Handshake properties
     private DtlsSrtpServer server;
     private DatagramChannel channel;
-    private final Queue<ByteBuffer> rxQueue;
+    private final BlockingQueue<ByteBuffer> rxQueue;
     private volatile boolean handshakeComplete;
     private volatile boolean handshakeFailed;
     private volatile boolean handshaking;
-    private Thread worker;
     private String localHashFunction;
     private String remoteHashFunction;
     private String remoteFingerprint;
@@ -107,7 +110,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
         // Handshake properties
         this.server = tlsServerProvider.provide();
-        this.rxQueue = new ConcurrentLinkedQueue<>();
+        this.rxQueue = new LinkedBlockingQueue<>();
         this.handshakeComplete = false;
         this.handshakeFailed = false;
         this.handshaking = false;
@@ -267,6 +270,26 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         return this.srtpEncoder.transform(packet, offset, length);
     }
 
+    /**
+     * Decodes an RTP packet in place.
+     * 
+     * @param packet The buffer holding the encoded RTP packet, starting at index zero.
+     * @return Whether the packet was decoded. The limit of the buffer marks the end of the decoded packet.
+     */
+    public boolean decodeRTP(ByteBuffer packet) {
+        return this.srtpDecoder.reverseTransform(packet);
+    }
+
+    /**
+     * Encodes an RTP packet in place.
+     * 
+     * @param packet The buffer holding the decoded RTP packet, starting at index zero.
+     * @return Whether the packet was encoded. The limit of the buffer marks the end of the encoded packet.
+     */
+    public boolean encodeRTP(ByteBuffer packet) {
+        return this.srtpEncoder.transform(packet);
+    }
+
     /**
      * Decodes an RTCP Packet
      * 
@@ -291,8 +314,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         if (!handshaking && !handshakeComplete) {
             this.handshaking = true;
             this.startTime = System.currentTimeMillis();
-            this.worker = new Thread(new HandshakeWorker(), "DTLS-Server-" + THREAD_COUNTER.incrementAndGet());
-            this.worker.start();
+            this.tlsServerProvider.getHandshakePool().execute(new HandshakeWorker());
         }
     }
 
@@ -315,9 +337,10 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     }
 
     public void reset() {
-        // XXX try not to create the server every time!
+        // the server holds the state of a single handshake, but shares the credentials of the provider
         this.server = this.tlsServerProvider.provide();
         this.channel = null;
+        this.rxQueue.clear();
         this.srtcpDecoder = null;
         this.srtcpEncoder = null;
         this.srtpDecoder = null;
@@ -370,6 +393,11 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         return this.pipelinePriority;
     }
 
+    @Override
+    public PacketClass getPacketClass() {
+        return PacketClass.DTLS;
+    }
+
     public void setPipelinePriority(int pipelinePriority) {
         this.pipelinePriority = pipelinePriority;
     }
@@ -393,22 +421,17 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
             throw new IllegalStateException("Handshake is taking too long! (>" + MAX_DELAY + "ms");
         }
 
-        int attempts = waitMillis;
-        do {
-            ByteBuffer data = this.rxQueue.poll();
+        try {
+            ByteBuffer data = this.rxQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
             if (data != null) {
-                data.get(buf, off, data.limit());
-                return data.limit();
+                int length = data.remaining();
+                data.get(buf, off, length);
+                return length;
             }
-
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                logger.warn("Could not sleep thread to receive DTLS data.");
-            } finally {
-                attempts--;
-            }
-        } while (attempts > 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for DTLS data.", e);
+        }
 
         // Throw IO exception if no data was received in this interval. Restarts outbound flight.
         throw new SocketTimeoutException("Could not receive DTLS packet in " + waitMillis);
@@ -440,10 +463,12 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
     private class HandshakeWorker implements Runnable {
 
+        private final long requestTime = System.currentTimeMillis();
+
         public void run() {
-            DtlsHandler.this.rxQueue.clear();
-            SecureRandom secureRandom = new SecureRandom();
-            DTLSServerProtocol serverProtocol = new DTLSServerProtocol(secureRandom);
+            // Records received while the handshake waited in the pool (like the ClientHello) must not be discarded
+            DtlsHandshakePool pool = DtlsHandler.this.tlsServerProvider.getHandshakePool();
+            DTLSServerProtocol serverProtocol = new DTLSServerProtocol(SECURE_RANDOM);
 
             try {
                 // Perform the handshake in a non-blocking fashion
@@ -462,6 +487,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
                 handshakeComplete = true;
                 handshakeFailed = false;
                 handshaking = false;
+                pool.completed(System.currentTimeMillis() - requestTime);
 
                 // Warn listeners handshake completed
                 fireHandshakeComplete();
@@ -472,6 +498,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
                 handshakeComplete = false;
                 handshakeFailed = true;
                 handshaking = false;
+                pool.failed();
 
                 // Warn listeners handshake completed
                 fireHandshakeFailed(e);
@@ -265,6 +265,128 @@ public class JitterBufferTest {
         jitterBuffer.write(p5,AVProfile.audio.find(8));
         assertEquals(9, jitterBuffer.getEstimatedJitter(), jitterDeltaLimit);
         
+        // estimate is exposed as the interarrival jitter
+        assertEquals(jitterBuffer.getEstimatedJitter(), jitterBuffer.getJitter(), 0);
+        assertEquals(9, jitterBuffer.getMaxJitter(), jitterDeltaLimit);
+    }
+
+    @Test
+    public void testRefillAfterDrain() {
+        final int[] fills = new int[1];
+        jitterBuffer.setListener(new BufferListener() {
+
+            @Override
+            public void onFill() {
+                fills[0]++;
+            }
+        });
+        RtpPacket[] stream = createStream(4);
+
+        // a packet worth of audio fills the buffer
+        for (int i = 0; i < 2; i++) {
+            wallClock.tick(20000000L);
+            jitterBuffer.write(stream[i], AVProfile.audio.find(8));
+        }
+        assertEquals(1, fills[0]);
+
+        // drain it
+        assertEquals(1, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(2, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(null, jitterBuffer.read(wallClock.getTime()));
+
+        // the head is the first packet written after the drain, so one packet is not enough
+        wallClock.tick(20000000L);
+        jitterBuffer.write(stream[2], AVProfile.audio.find(8));
+        assertEquals(1, fills[0]);
+        wallClock.tick(20000000L);
+        jitterBuffer.write(stream[3], AVProfile.audio.find(8));
+        assertEquals(2, fills[0]);
+    }
+
+    @Test
+    public void testCounters() {
+        RtpPacket p1 = new RtpPacket(172, false);
+        p1.wrap(false, 8, 1, 160 * 1, 123, new byte[160], 0, 160);
+
+        RtpPacket p2 = new RtpPacket(172, false);
+        p2.wrap(false, 8, 2, 160 * 2, 123, new byte[160], 0, 160);
+
+        RtpPacket p3 = new RtpPacket(172, false);
+        p3.wrap(false, 8, 3, 160 * 3, 123, new byte[160], 0, 160);
+
+        RtpPacket p4 = new RtpPacket(172, false);
+        p4.wrap(false, 8, 4, 160 * 4, 123, new byte[160], 0, 160);
+
+        jitterBuffer.write(p1, AVProfile.audio.find(8));
+        jitterBuffer.write(p2, AVProfile.audio.find(8));
+        jitterBuffer.write(p2, AVProfile.audio.find(8));
+        jitterBuffer.write(p4, AVProfile.audio.find(8));
+        assertEquals(1, jitterBuffer.getDuplicates());
+
+        assertEquals(1, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(2, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(4, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(1, jitterBuffer.getLost());
+
+        jitterBuffer.write(p3, AVProfile.audio.find(8));
+        assertEquals(1, jitterBuffer.getLate());
+        assertEquals(1, jitterBuffer.getDropped());
+        assertEquals(null, jitterBuffer.read(wallClock.getTime()));
+    }
+
+    @Test
+    public void testSequenceWrapAround() {
+        int[] sequence = new int[] { 65534, 65535, 0, 1 };
+        for (int i = 0; i < sequence.length; i++) {
+            RtpPacket packet = new RtpPacket(172, false);
+            packet.wrap(false, 8, sequence[i], 160 * (i + 1), 123, new byte[160], 0, 160);
+            jitterBuffer.write(packet, AVProfile.audio.find(8));
+        }
+
+        for (int i = 0; i < sequence.length; i++) {
+            assertEquals(sequence[i], jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        }
+        assertEquals(0, jitterBuffer.getLost());
+    }
+
+    @Test
+    public void testSequenceRestart() {
+        RtpPacket[] stream = createStream(20);
+        for (int i = 0; i < stream.length; i++) {
+            wallClock.tick(20000000L);
+            jitterBuffer.write(stream[i], AVProfile.audio.find(8));
+            jitterBuffer.read(wallClock.getTime());
+        }
+
+        // remote peer restarts its sequence
+        RtpPacket[] restarted = createStream(8);
+        for (int i = 0; i < restarted.length - 1; i++) {
+            jitterBuffer.write(restarted[i], AVProfile.audio.find(8));
+        }
+        assertEquals(null, jitterBuffer.read(wallClock.getTime()));
+        assertEquals(7, jitterBuffer.getLate());
+
+        jitterBuffer.write(restarted[restarted.length - 1], AVProfile.audio.find(8));
+        assertEquals(8, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+    }
+
+    @Test
+    public void testAdaptiveDelay() {
+        // no jitter, so delay is as short as a packet
+        RtpPacket[] stream = createStream(3);
+        for (int i = 0; i < stream.length; i++) {
+            wallClock.tick(20000000L);
+            jitterBuffer.write(stream[i], AVProfile.audio.find(8));
+        }
+        assertEquals(20, jitterBuffer.getTargetDelay());
+
+        // packets delayed by up to 40ms, so delay is bounded by jitter buffer size
+        RtpPacket[] delayed = createStream(23);
+        for (int i = 3; i < delayed.length; i++) {
+            wallClock.tick(i % 2 == 0 ? 60000000L : 1000000L);
+            jitterBuffer.write(delayed[i], AVProfile.audio.find(8));
+        }
+        assertEquals(jitter, jitterBuffer.getTargetDelay());
     }
 
     private RtpPacket[] createStream(int size) {
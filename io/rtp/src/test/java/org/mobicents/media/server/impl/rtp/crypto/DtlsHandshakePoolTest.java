@@ -0,0 +1,113 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class DtlsHandshakePoolTest {
+
+    private DtlsHandshakePool pool;
+
+    @After
+    public void after() throws InterruptedException {
+        if (this.pool != null) {
+            this.pool.shutdown(1000);
+        }
+    }
+
+    @Test
+    public void testHandshakesBeyondThreadsAreQueued() throws InterruptedException {
+        // given
+        this.pool = new DtlsHandshakePool(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(3);
+        Runnable handshake = new Runnable() {
+
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            }
+        };
+
+        // when
+        this.pool.execute(handshake);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        this.pool.execute(handshake);
+        this.pool.execute(handshake);
+
+        // then
+        assertEquals(1, this.pool.getThreadCount());
+        assertEquals(1, this.pool.getActiveHandshakes());
+        assertEquals(2, this.pool.getQueueDepth());
+        assertEquals(2, this.pool.getPeakQueueDepth());
+
+        // when
+        release.countDown();
+
+        // then
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(2, this.pool.getPeakQueueDepth());
+    }
+
+    @Test
+    public void testLatencyMetrics() {
+        // given
+        this.pool = new DtlsHandshakePool(2);
+
+        // when
+        this.pool.completed(100);
+        this.pool.completed(300);
+        this.pool.completed(200);
+        this.pool.failed();
+
+        // then
+        assertEquals(3, this.pool.getCompletedHandshakes());
+        assertEquals(1, this.pool.getFailedHandshakes());
+        assertEquals(200, this.pool.getAverageLatency());
+        assertEquals(300, this.pool.getMaxLatency());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThreadsMustBePositive() {
+        new DtlsHandshakePool(0);
+    }
+
+}
@@ -0,0 +1,456 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.impl.rtp.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mobicents.media.server.impl.rtp.RtpPacket;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class SRTPTransformerTest {
+
+    private static final long SSRC = 0x12345678L;
+    private static final int TAG_LENGTH = 10;
+
+    private static final byte[] MASTER_KEY = { 0x0f, 0x0e, 0x0d, 0x0c, 0x0b, 0x0a, 0x09, 0x08, 0x07, 0x06, 0x05, 0x04, 0x03, 0x02,
+            0x01, 0x00 };
+    private static final byte[] MASTER_SALT = { 0x0e, 0x0c, 0x0a, 0x08, 0x06, 0x04, 0x02, 0x00, 0x01, 0x03, 0x05, 0x07, 0x09,
+            0x0b };
+
+    private static final int GCM_TAG_LENGTH = 16;
+
+    private static final byte[] GCM_MASTER_SALT = { 0x0e, 0x0c, 0x0a, 0x08, 0x06, 0x04, 0x02, 0x00, 0x01, 0x03, 0x05, 0x07 };
+
+    // RFC 7714 section 16, the test vectors are given for session keys
+    private static final byte[] RFC7714_KEY = hex("000102030405060708090a0b0c0d0e0f");
+    private static final byte[] RFC7714_SALT = hex("517569642070726f2071756f");
+
+    private static final byte[] RFC7714_RTP = hex("8040f17b8041f8d35501a0b2"
+            + "47616c6c696120657374206f6d6e6973206469766973612069"
+            + "6e207061727465732074726573");
+    private static final byte[] RFC7714_SRTP = hex("8040f17b8041f8d35501a0b2"
+            + "f24de3a3fb34de6cacba861c9d7e4bcabe633bd50d294e6f42a5f47a51c7d19b36de3adf8833899d7f27beb16a9152cf765ee439"
+            + "0cce");
+
+    private static final int RFC7714_SRTCP_INDEX = 0x5d4;
+    private static final byte[] RFC7714_RTCP = hex("81c8000d4d617273"
+            + "4e5450314e545032525450200000042a0000e9304c756e61deadbeefdeadbeefdeadbeefdeadbeefdeadbeef");
+    private static final byte[] RFC7714_SRTCP = hex("81c8000d4d617273"
+            + "63e94885dcdab67ca727d7662f6b7e997ff5c0f76c06f32dc676a5f1730d6fda4ce09b4686303ded0bb9275b"
+            + "c84aa45896cf4d2fc5abf87245d9eade" + "800005d4");
+
+    private static PacketTransformer newTransformer() {
+        return newTransformer(SRTPPolicy.AESCM_ENCRYPTION);
+    }
+
+    private static PacketTransformer newTransformer(int encryption) {
+        return newEngine(encryption, SRTPCryptoProvider.getDefault()).getRTPTransformer();
+    }
+
+    private static SRTPTransformEngine newEngine(int encryption, SRTPCryptoProvider provider) {
+        SRTPPolicy srtpPolicy = new SRTPPolicy(encryption, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, TAG_LENGTH, 14);
+        SRTPPolicy srtcpPolicy = new SRTPPolicy(encryption, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, TAG_LENGTH, 14);
+        return new SRTPTransformEngine(MASTER_KEY.clone(), MASTER_SALT.clone(), srtpPolicy, srtcpPolicy, provider);
+    }
+
+    private static SRTPTransformEngine newGcmEngine(SRTPCryptoProvider provider) {
+        SRTPParameters parameters = SRTPParameters.SRTP_AEAD_AES_128_GCM;
+        return new SRTPTransformEngine(MASTER_KEY.clone(), GCM_MASTER_SALT.clone(), parameters.getSrtpPolicy(),
+                parameters.getSrtcpPolicy(), provider);
+    }
+
+    private static byte[] hex(String value) {
+        byte[] data = new byte[value.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16);
+        }
+        return data;
+    }
+
+    private static SRTPCryptoContext newRfc7714SrtpContext(SRTPCryptoProvider provider) {
+        SRTPPolicy policy = SRTPParameters.SRTP_AEAD_AES_128_GCM.getSrtpPolicy();
+        SRTPCryptoContext context = new SRTPCryptoContext(0x5501a0b2L, 0, 0, RFC7714_KEY, RFC7714_SALT, policy, provider);
+        context.setSessionKeys(RFC7714_KEY, RFC7714_SALT);
+        return context;
+    }
+
+    private static SRTCPCryptoContext newRfc7714SrtcpContext(SRTPCryptoProvider provider) {
+        SRTPPolicy policy = SRTPParameters.SRTP_AEAD_AES_128_GCM.getSrtcpPolicy();
+        SRTCPCryptoContext context = new SRTCPCryptoContext(0x4d617273L, RFC7714_KEY, RFC7714_SALT, policy, provider);
+        context.setSessionKeys(RFC7714_KEY, RFC7714_SALT);
+        return context;
+    }
+
+    private static byte[] rtcpPacket() {
+        byte[] packet = new byte[28];
+        packet[0] = (byte) 0x80;
+        packet[1] = (byte) 200;
+        packet[3] = 6;
+        packet[4] = (byte) (SSRC >> 24);
+        packet[5] = (byte) (SSRC >> 16);
+        packet[6] = (byte) (SSRC >> 8);
+        packet[7] = (byte) SSRC;
+        for (int i = 8; i < packet.length; i++) {
+            packet[i] = (byte) i;
+        }
+        return packet;
+    }
+
+    private static byte[] rtpPacket(int sequence) {
+        byte[] packet = new byte[172];
+        packet[0] = (byte) 0x80;
+        packet[1] = 8;
+        packet[2] = (byte) (sequence >> 8);
+        packet[3] = (byte) sequence;
+        packet[8] = (byte) (SSRC >> 24);
+        packet[9] = (byte) (SSRC >> 16);
+        packet[10] = (byte) (SSRC >> 8);
+        packet[11] = (byte) SSRC;
+        for (int i = 12; i < packet.length; i++) {
+            packet[i] = (byte) i;
+        }
+        return packet;
+    }
+
+    private static byte[] read(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.limit()];
+        buffer.get(data);
+        buffer.rewind();
+        return data;
+    }
+
+    private void testInPlaceRoundTrip(ByteBuffer buffer) {
+        // given
+        PacketTransformer encoder = newTransformer();
+        PacketTransformer decoder = newTransformer();
+        PacketTransformer reference = newTransformer();
+
+        for (int sequence = 1; sequence <= 5; sequence++) {
+            byte[] plain = rtpPacket(sequence);
+            buffer.clear();
+            buffer.put(plain);
+            buffer.flip();
+
+            // when
+            boolean secured = encoder.transform(buffer);
+
+            // then
+            assertTrue(secured);
+            assertEquals(0, buffer.position());
+            assertEquals(plain.length + TAG_LENGTH, buffer.limit());
+            assertArrayEquals(reference.transform(plain), read(buffer));
+
+            // when
+            boolean restored = decoder.reverseTransform(buffer);
+
+            // then
+            assertTrue(restored);
+            assertEquals(0, buffer.position());
+            assertArrayEquals(plain, read(buffer));
+        }
+    }
+
+    @Test
+    public void testInPlaceRoundTripOverHeapBuffer() {
+        testInPlaceRoundTrip(ByteBuffer.allocate(RtpPacket.RTP_PACKET_MAX_SIZE));
+    }
+
+    @Test
+    public void testInPlaceRoundTripOverDirectBuffer() {
+        testInPlaceRoundTrip(ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE));
+    }
+
+    @Test
+    public void testInPlaceMatchesArrayDecoding() {
+        // given
+        PacketTransformer encoder = newTransformer();
+        PacketTransformer decoder = newTransformer();
+        byte[] plain = rtpPacket(1);
+        ByteBuffer buffer = ByteBuffer.allocate(RtpPacket.RTP_PACKET_MAX_SIZE);
+        buffer.put(encoder.transform(plain));
+        buffer.flip();
+
+        // when
+        boolean restored = decoder.reverseTransform(buffer);
+
+        // then
+        assertTrue(restored);
+        assertArrayEquals(plain, read(buffer));
+    }
+
+    @Test
+    public void testF8InPlaceRoundTrip() {
+        // given
+        PacketTransformer encoder = newTransformer(SRTPPolicy.AESF8_ENCRYPTION);
+        PacketTransformer decoder = newTransformer(SRTPPolicy.AESF8_ENCRYPTION);
+        byte[] plain = rtpPacket(1);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE);
+        buffer.put(plain);
+        buffer.flip();
+
+        // when
+        boolean secured = encoder.transform(buffer);
+        byte[] payload = new byte[plain.length - 12];
+        buffer.position(12);
+        buffer.get(payload);
+        buffer.rewind();
+        boolean restored = decoder.reverseTransform(buffer);
+
+        // then
+        assertTrue(secured);
+        assertFalse(Arrays.equals(Arrays.copyOfRange(plain, 12, plain.length), payload));
+        assertTrue(restored);
+        assertArrayEquals(plain, read(buffer));
+    }
+
+    @Test
+    public void testProvidersAreInteroperable() {
+        for (int encryption : new int[] { SRTPPolicy.AESCM_ENCRYPTION, SRTPPolicy.AESF8_ENCRYPTION }) {
+            // given
+            PacketTransformer jceEncoder = newEngine(encryption, SRTPCryptoProvider.JCE).getRTPTransformer();
+            PacketTransformer bcEncoder = newEngine(encryption, SRTPCryptoProvider.BOUNCY_CASTLE).getRTPTransformer();
+            PacketTransformer jceDecoder = newEngine(encryption, SRTPCryptoProvider.JCE).getRTPTransformer();
+            PacketTransformer bcDecoder = newEngine(encryption, SRTPCryptoProvider.BOUNCY_CASTLE).getRTPTransformer();
+
+            for (int sequence = 1; sequence <= 5; sequence++) {
+                byte[] plain = rtpPacket(sequence);
+
+                // when
+                byte[] jceSecured = jceEncoder.transform(plain);
+                byte[] bcSecured = bcEncoder.transform(plain);
+
+                // then
+                assertArrayEquals(bcSecured, jceSecured);
+                assertArrayEquals(plain, bcDecoder.reverseTransform(jceSecured));
+                assertArrayEquals(plain, jceDecoder.reverseTransform(bcSecured));
+            }
+        }
+    }
+
+    @Test
+    public void testGcmInPlaceRoundTrip() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            PacketTransformer encoder = newGcmEngine(provider).getRTPTransformer();
+            PacketTransformer decoder = newGcmEngine(provider).getRTPTransformer();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RtpPacket.RTP_PACKET_MAX_SIZE);
+
+            for (int sequence = 1; sequence <= 5; sequence++) {
+                byte[] plain = rtpPacket(sequence);
+                buffer.clear();
+                buffer.put(plain);
+                buffer.flip();
+
+                // when
+                boolean secured = encoder.transform(buffer);
+                byte[] payload = Arrays.copyOfRange(read(buffer), 12, plain.length);
+                boolean restored = decoder.reverseTransform(buffer);
+
+                // then
+                assertTrue(secured);
+                assertFalse(Arrays.equals(Arrays.copyOfRange(plain, 12, plain.length), payload));
+                assertTrue(restored);
+                assertArrayEquals(plain, read(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testGcmProvidersAreInteroperable() {
+        // given
+        PacketTransformer jceEncoder = newGcmEngine(SRTPCryptoProvider.JCE).getRTPTransformer();
+        PacketTransformer bcEncoder = newGcmEngine(SRTPCryptoProvider.BOUNCY_CASTLE).getRTPTransformer();
+        PacketTransformer bcDecoder = newGcmEngine(SRTPCryptoProvider.BOUNCY_CASTLE).getRTPTransformer();
+        byte[] plain = rtpPacket(1);
+
+        // when
+        byte[] jceSecured = jceEncoder.transform(plain);
+        byte[] bcSecured = bcEncoder.transform(plain);
+
+        // then
+        assertEquals(plain.length + GCM_TAG_LENGTH, jceSecured.length);
+        assertArrayEquals(bcSecured, jceSecured);
+        assertArrayEquals(plain, bcDecoder.reverseTransform(jceSecured));
+    }
+
+    @Test
+    public void testGcmTamperedPacketIsRejected() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            PacketTransformer encoder = newGcmEngine(provider).getRTPTransformer();
+            PacketTransformer decoder = newGcmEngine(provider).getRTPTransformer();
+            byte[] secured = encoder.transform(rtpPacket(1));
+
+            // when
+            secured[5] ^= 0x01;
+            byte[] restored = decoder.reverseTransform(secured);
+
+            // then
+            assertNull(restored);
+        }
+    }
+
+    @Test
+    public void testRtcpRoundTrip() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            for (SRTPTransformEngine[] engines : new SRTPTransformEngine[][] {
+                    { newEngine(SRTPPolicy.AESCM_ENCRYPTION, provider), newEngine(SRTPPolicy.AESCM_ENCRYPTION, provider) },
+                    { newGcmEngine(provider), newGcmEngine(provider) } }) {
+                // given
+                PacketTransformer encoder = engines[0].getRTCPTransformer();
+                PacketTransformer decoder = engines[1].getRTCPTransformer();
+                byte[] plain = rtcpPacket();
+
+                // when
+                byte[] secured = encoder.transform(plain);
+                byte[] restored = decoder.reverseTransform(secured);
+
+                // then
+                assertFalse(Arrays.equals(Arrays.copyOfRange(plain, 8, plain.length), Arrays.copyOfRange(secured, 8, plain.length)));
+                assertArrayEquals(plain, Arrays.copyOf(restored, plain.length));
+            }
+        }
+    }
+
+    @Test
+    public void testGcmRtcpLayout() {
+        // given
+        PacketTransformer encoder = newGcmEngine(SRTPCryptoProvider.JCE).getRTCPTransformer();
+        PacketTransformer bcEncoder = newGcmEngine(SRTPCryptoProvider.BOUNCY_CASTLE).getRTCPTransformer();
+        byte[] plain = rtcpPacket();
+
+        // when
+        byte[] secured = encoder.transform(plain);
+
+        // then - cipher text, tag, then E flag and SRTCP index
+        assertEquals(plain.length + GCM_TAG_LENGTH + 4, secured.length);
+        assertArrayEquals(new byte[] { (byte) 0x80, 0, 0, 0 }, Arrays.copyOfRange(secured, secured.length - 4, secured.length));
+        assertArrayEquals(bcEncoder.transform(plain), secured);
+    }
+
+    @Test
+    public void testGcmRtpKnownAnswer() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            SRTPCryptoContext encoder = newRfc7714SrtpContext(provider);
+            SRTPCryptoContext decoder = newRfc7714SrtpContext(provider);
+            RawPacket plain = new RawPacket(RFC7714_RTP, 0, RFC7714_RTP.length);
+            RawPacket secured = new RawPacket(RFC7714_SRTP, 0, RFC7714_SRTP.length);
+
+            // when
+            encoder.transformPacket(plain);
+            boolean restored = decoder.reverseTransformPacket(secured);
+
+            // then
+            assertArrayEquals(provider.name(), RFC7714_SRTP, plain.getData());
+            assertTrue(provider.name(), restored);
+            assertArrayEquals(provider.name(), RFC7714_RTP, secured.getData());
+        }
+    }
+
+    @Test
+    public void testGcmRtcpKnownAnswer() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            SRTCPCryptoContext encoder = newRfc7714SrtcpContext(provider);
+            SRTCPCryptoContext decoder = newRfc7714SrtcpContext(provider);
+            encoder.setSentIndex(RFC7714_SRTCP_INDEX);
+            RawPacket plain = new RawPacket(RFC7714_RTCP, 0, RFC7714_RTCP.length);
+            RawPacket secured = new RawPacket(RFC7714_SRTCP, 0, RFC7714_SRTCP.length);
+
+            // when
+            encoder.transformPacket(plain);
+            boolean restored = decoder.reverseTransformPacket(secured);
+
+            // then
+            assertArrayEquals(provider.name(), RFC7714_SRTCP, plain.getData());
+            assertTrue(provider.name(), restored);
+            assertArrayEquals(provider.name(), RFC7714_RTCP, secured.getData());
+        }
+    }
+
+    @Test
+    public void testTamperedPacketIsRejected() {
+        // given
+        PacketTransformer encoder = newTransformer();
+        PacketTransformer decoder = newTransformer();
+        ByteBuffer buffer = ByteBuffer.allocate(RtpPacket.RTP_PACKET_MAX_SIZE);
+        buffer.put(rtpPacket(1));
+        buffer.flip();
+        encoder.transform(buffer);
+
+        // when
+        buffer.put(20, (byte) (buffer.get(20) ^ 0x01));
+        boolean restored = decoder.reverseTransform(buffer);
+
+        // then
+        assertFalse(restored);
+    }
+
+    @Test
+    public void testReplayedPacketIsRejected() {
+        // given
+        PacketTransformer encoder = newTransformer();
+        PacketTransformer decoder = newTransformer();
+        byte[] secured = encoder.transform(rtpPacket(1));
+        ByteBuffer buffer = ByteBuffer.allocate(RtpPacket.RTP_PACKET_MAX_SIZE);
+        buffer.put(secured);
+        buffer.flip();
+        decoder.reverseTransform(buffer);
+
+        // when
+        buffer.clear();
+        buffer.put(secured);
+        buffer.flip();
+        boolean restored = decoder.reverseTransform(buffer);
+
+        // then
+        assertFalse(restored);
+    }
+
+    @Test
+    public void testBufferWithoutRoomForTag() {
+        // given
+        PacketTransformer encoder = newTransformer();
+        byte[] plain = rtpPacket(1);
+        ByteBuffer buffer = ByteBuffer.wrap(plain.clone());
+
+        // when
+        boolean secured = encoder.transform(buffer);
+
+        // then
+        assertFalse(secured);
+        assertEquals(plain.length, buffer.limit());
+    }
+
+}
@@ -48,6 +48,24 @@ public class SrtpParametersTest {
 		Assert.assertEquals(SRTPParameters.SRTP_NULL_HMAC_SHA1_32.getProfile(), SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32);
 		Assert.assertEquals(SRTPParameters.SRTP_NULL_HMAC_SHA1_32.getCipherKeyLength(), 0);
 		Assert.assertEquals(SRTPParameters.SRTP_NULL_HMAC_SHA1_32.getCipherSaltLength(), 0);
+		
+		Assert.assertEquals(SRTPParameters.SRTP_AEAD_AES_128_GCM.getProfile(), SRTPParameters.AEAD_AES_128_GCM_PROFILE);
+		Assert.assertEquals(SRTPParameters.SRTP_AEAD_AES_128_GCM.getCipherKeyLength(), 128/8);
+		Assert.assertEquals(SRTPParameters.SRTP_AEAD_AES_128_GCM.getCipherSaltLength(), 96/8);
+		Assert.assertEquals(SRTPParameters.getSrtpParametersForProfile(0x0007), SRTPParameters.SRTP_AEAD_AES_128_GCM);
+	}
+	
+	@Test
+	public void testServerPrefersGcmProfile() {
+		int[] offered = { SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32, SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80,
+				SRTPParameters.AEAD_AES_128_GCM_PROFILE };
+		Assert.assertEquals(SRTPParameters.AEAD_AES_128_GCM_PROFILE, DtlsSrtpServer.chooseSrtpProfile(offered));
+		
+		offered = new int[] { SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32, SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80 };
+		Assert.assertEquals(SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80, DtlsSrtpServer.chooseSrtpProfile(offered));
+		
+		offered = new int[] { 0x0008 };
+		Assert.assertEquals(SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80, DtlsSrtpServer.chooseSrtpProfile(offered));
 	}
 
 }
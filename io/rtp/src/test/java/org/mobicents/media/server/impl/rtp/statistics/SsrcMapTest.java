@@ -0,0 +1,140 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.rtp.statistics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SsrcMap}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class SsrcMapTest {
+
+	@Test
+	public void testPutIfAbsent() {
+		// given
+		SsrcMap<String> map = new SsrcMap<String>();
+
+		// when
+		String previous1 = map.putIfAbsent(0L, "zero");
+		String previous2 = map.putIfAbsent(0xFFFFFFFFL, "max");
+		String previous3 = map.putIfAbsent(0L, "other");
+
+		// then
+		assertNull(previous1);
+		assertNull(previous2);
+		assertEquals("zero", previous3);
+		assertEquals(2, map.size());
+		assertEquals("zero", map.get(0L));
+		assertEquals("max", map.get(0xFFFFFFFFL));
+		assertTrue(map.containsKey(0L));
+		assertFalse(map.containsKey(1L));
+		assertNull(map.get(-1L));
+	}
+
+	@Test
+	public void testGrowAndShrink() {
+		// given
+		SsrcMap<Long> map = new SsrcMap<Long>();
+		int count = 1000;
+
+		// when
+		for (long ssrc = 1; ssrc <= count; ssrc++) {
+			map.putIfAbsent(ssrc * 7919, Long.valueOf(ssrc));
+		}
+
+		// then
+		assertEquals(count, map.size());
+		for (long ssrc = 1; ssrc <= count; ssrc++) {
+			assertEquals(Long.valueOf(ssrc), map.get(ssrc * 7919));
+		}
+
+		// when
+		for (long ssrc = 1; ssrc <= count; ssrc += 2) {
+			assertEquals(Long.valueOf(ssrc), map.remove(ssrc * 7919));
+		}
+
+		// then
+		assertEquals(count / 2, map.size());
+		for (long ssrc = 1; ssrc <= count; ssrc++) {
+			assertEquals(ssrc % 2 == 0, map.containsKey(ssrc * 7919));
+		}
+		assertNull(map.remove(7919));
+	}
+
+	@Test
+	public void testSnapshotsAreNotAffectedByUpdates() {
+		// given
+		SsrcMap<String> map = new SsrcMap<String>();
+		map.putIfAbsent(10L, "a");
+		map.putIfAbsent(20L, "b");
+
+		// when
+		long[] keys = map.keys();
+		List<String> values = map.values();
+		map.remove(10L);
+		map.putIfAbsent(30L, "c");
+
+		// then
+		Arrays.sort(keys);
+		assertArrayEquals(new long[] { 10L, 20L }, keys);
+		assertEquals(2, values.size());
+		assertTrue(values.contains("a"));
+		assertTrue(values.contains("b"));
+	}
+
+	@Test
+	public void testClear() {
+		// given
+		SsrcMap<String> map = new SsrcMap<String>();
+		String value = "a";
+		map.putIfAbsent(10L, value);
+		assertSame(value, map.get(10L));
+
+		// when
+		map.clear();
+
+		// then
+		assertTrue(map.isEmpty());
+		assertNull(map.get(10L));
+		assertEquals(0, map.keys().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectNegativeSsrc() {
+		new SsrcMap<String>().putIfAbsent(-5L, "invalid");
+	}
+
+}
@@ -43,16 +43,22 @@ public class AudioPlayerFactory implements PooledObjectFactory<AudioPlayerImpl>
     private final PriorityQueueScheduler scheduler;
     private final DspFactory dspFactory;
     private final RemoteStreamProvider remoteStreamProvider;
+    private final PromptCache promptCache;
 
     public AudioPlayerFactory(PriorityQueueScheduler scheduler, DspFactory dspFactory, RemoteStreamProvider remoteStreamProvider) {
+        this(scheduler, dspFactory, remoteStreamProvider, null);
+    }
+
+    public AudioPlayerFactory(PriorityQueueScheduler scheduler, DspFactory dspFactory, RemoteStreamProvider remoteStreamProvider, PromptCache promptCache) {
         this.scheduler = scheduler;
         this.dspFactory = dspFactory;
         this.remoteStreamProvider = remoteStreamProvider;
+        this.promptCache = promptCache;
     }
 
     @Override
     public AudioPlayerImpl produce() {
-        AudioPlayerImpl player = new AudioPlayerImpl("player-" + ID.getAndIncrement(), scheduler, remoteStreamProvider);
+        AudioPlayerImpl player = new AudioPlayerImpl("player-" + ID.getAndIncrement(), scheduler, remoteStreamProvider, promptCache);
         try {
             player.setDsp(this.dspFactory.newProcessor());
         } catch (InstantiationException | ClassNotFoundException | IllegalAccessException e) {
@@ -22,8 +22,10 @@
 
 package org.mobicents.media.server.impl.resource.mediaplayer.audio;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 
 import org.apache.log4j.Logger;
@@ -32,9 +34,11 @@ import org.mobicents.media.server.component.audio.AudioInput;
 import org.mobicents.media.server.impl.AbstractSource;
 import org.mobicents.media.server.impl.resource.mediaplayer.Track;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.gsm.GsmTrackImpl;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.gsm.MappedGsmTrackImpl;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.mpeg.AMRTrackImpl;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.tone.ToneTrackImpl;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.tts.TtsTrackImpl;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.wav.MappedWavTrackImpl;
 import org.mobicents.media.server.impl.resource.mediaplayer.audio.wav.WavTrackImpl;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 import org.mobicents.media.server.spi.ResourceUnavailableException;
@@ -77,6 +81,7 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
     private final Listeners<PlayerListener> listeners;
 
     private final RemoteStreamProvider remoteStreamProvider;
+    private final PromptCache promptCache;
 
     /**
      * Creates new instance of the Audio player.
@@ -86,11 +91,24 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
      * @param vc the TTS voice cache.
      */
     public AudioPlayerImpl(String name, PriorityQueueScheduler scheduler, RemoteStreamProvider remoteStreamProvider) {
+        this(name, scheduler, remoteStreamProvider, null);
+    }
+
+    /**
+     * Creates new instance of the Audio player that plays WAV and GSM prompts from a shared cache.
+     * 
+     * @param name the name of the AudioPlayer to be created.
+     * @param scheduler EDF job scheduler
+     * @param remoteStreamProvider the provider of remote streams
+     * @param promptCache the cache of decoded prompts. May be null.
+     */
+    public AudioPlayerImpl(String name, PriorityQueueScheduler scheduler, RemoteStreamProvider remoteStreamProvider, PromptCache promptCache) {
         super(name, scheduler, PriorityQueueScheduler.INPUT_QUEUE);
         this.input = new AudioInput(ComponentType.PLAYER.getType(), packetSize);
         this.listeners = new Listeners<PlayerListener>();
         this.connect(this.input);
         this.remoteStreamProvider = remoteStreamProvider;
+        this.promptCache = promptCache;
     }
 
     public AudioInput getAudioInput() {
@@ -141,8 +159,18 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
 
         // creating required extension
         try {
+            // decoded prompts are played without parsing nor transcoding
+            Track cached = this.promptCache == null ? null : this.promptCache.getTrack(targetURL, ext);
+
             // check scheme, if its file, we should try to create dirs
-            if (ext.matches(Extension.WAV)) {
+            boolean local = "file".equals(targetURL.getProtocol());
+            if (cached != null) {
+                track = cached;
+            } else if (local && ext.matches(Extension.WAV)) {
+                track = new MappedWavTrackImpl(toFile(targetURL));
+            } else if (local && ext.matches(Extension.GSM)) {
+                track = new MappedGsmTrackImpl(toFile(targetURL));
+            } else if (ext.matches(Extension.WAV)) {
                 track = new WavTrackImpl(targetURL, remoteStreamProvider);
             } else if (ext.matches(Extension.GSM)) {
                 track = new GsmTrackImpl(targetURL);
@@ -163,6 +191,14 @@ public class AudioPlayerImpl extends AbstractSource implements Player, TTSEngine
         this.duration = track.getDuration();
     }
 
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return new File(url.getPath());
+        }
+    }
+
     @Override
     public void activate() {
         if (track == null) {
@@ -0,0 +1,248 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mobicents.media.server.impl.resource.mediaplayer.Track;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.Format;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * Track that plays a local file through a read-only memory mapping.
+ * <p>
+ * Each file is mapped once and the mapping is shared by every track playing it, each track reading through its own
+ * duplicate view. The file channel is closed as soon as the file is mapped, so a playing track holds neither a stream
+ * nor a buffer of its own. A file is mapped again when its size or modification time changes.
+ * </p>
+ * <p>
+ * Mappings are reference counted and forgotten once the last track playing the file is closed, so only files being
+ * played stay mapped. Tracks must therefore be closed, including when an implementation fails to parse the file.
+ * </p>
+ * <p>
+ * Implementations locate the audio payload by parsing the mapped header and then declare it with
+ * {@link #setPayload(int, int, AudioFormat, int, byte)}. Seeking is a matter of moving the read position.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public abstract class MappedTrack implements Track {
+
+    protected static final long PERIOD = 20000000L;
+
+    // Mappings of the files being played, keyed by URL and guarded by itself
+    private static final Map<String, Mapping> MAPPINGS = new HashMap<String, Mapping>();
+
+    private final Mapping mapping;
+    private final ByteBuffer buffer;
+    private boolean closed;
+
+    private AudioFormat format;
+    private int payloadOffset;
+    private int payloadLength;
+    private int frameSize;
+    private byte[] silence;
+
+    private int position;
+    private boolean first;
+
+    protected MappedTrack(File file) throws IOException {
+        this.mapping = acquire(file);
+        // duplicates share the mapped contents but not the position, nor the byte order
+        this.buffer = this.mapping.buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.position = 0;
+        this.first = true;
+        this.closed = false;
+    }
+
+    private static Mapping acquire(File file) throws IOException {
+        String url = file.toURI().toString();
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        synchronized (MAPPINGS) {
+            Mapping mapping = MAPPINGS.get(url);
+            if (mapping == null || mapping.length != length || mapping.lastModified != lastModified) {
+                // a stale mapping is left to the tracks still playing it
+                try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    if (channel.size() > Integer.MAX_VALUE) {
+                        throw new IOException("File is too large to be mapped: " + file);
+                    }
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    mapping = new Mapping(url, buffer, length, lastModified);
+                }
+                MAPPINGS.put(url, mapping);
+            }
+            mapping.references++;
+            return mapping;
+        }
+    }
+
+    private static void release(Mapping mapping) {
+        synchronized (MAPPINGS) {
+            mapping.references--;
+            if (mapping.references == 0 && MAPPINGS.get(mapping.url) == mapping) {
+                MAPPINGS.remove(mapping.url);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of files currently mapped.
+     */
+    static int getMappedFileCount() {
+        synchronized (MAPPINGS) {
+            return MAPPINGS.size();
+        }
+    }
+
+    /**
+     * Gets the mapped contents of the file, positioned at its beginning.
+     */
+    protected ByteBuffer getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Declares where the audio payload is located within the file.
+     * 
+     * @param offset The offset of the payload in the file.
+     * @param length The length of the payload. Truncated to the end of the file.
+     * @param format The format of the audio.
+     * @param frameSize The number of bytes of a 20ms frame.
+     * @param paddingByte The byte used to complete the last frame, representing silence in the format of the audio.
+     */
+    protected void setPayload(int offset, int length, AudioFormat format, int frameSize, byte paddingByte) {
+        byte[] silence = new byte[frameSize];
+        Arrays.fill(silence, paddingByte);
+        setPayload(offset, length, format, silence);
+    }
+
+    /**
+     * Declares where the audio payload is located within the file.
+     * 
+     * @param offset The offset of the payload in the file.
+     * @param length The length of the payload. Truncated to the end of the file.
+     * @param format The format of the audio.
+     * @param silence A 20ms frame of silence in the format of the audio. Its tail completes a short last frame.
+     */
+    protected void setPayload(int offset, int length, AudioFormat format, byte[] silence) {
+        this.payloadOffset = offset;
+        this.payloadLength = Math.max(0, Math.min(length, this.buffer.capacity() - offset));
+        this.format = format;
+        this.frameSize = silence.length;
+        this.silence = silence;
+    }
+
+    @Override
+    public Format getFormat() {
+        return this.format;
+    }
+
+    @Override
+    public long getMediaTime() {
+        return (this.position / this.frameSize) * PERIOD / 1000000L;
+    }
+
+    @Override
+    public void setMediaTime(long timestamp) {
+        long offset = (timestamp / PERIOD) * this.frameSize;
+        this.position = (int) Math.min(offset, this.payloadLength);
+    }
+
+    @Override
+    public long getDuration() {
+        return this.payloadLength * PERIOD / this.frameSize;
+    }
+
+    @Override
+    public Frame process(long timestamp) throws IOException {
+        if (this.first) {
+            if (timestamp > 0) {
+                setMediaTime(timestamp);
+            }
+            this.first = false;
+        }
+
+        Frame frame = Memory.allocate(this.frameSize);
+        byte[] data = frame.getData();
+
+        int length = Math.min(this.frameSize, this.payloadLength - this.position);
+        if (length > 0) {
+            this.buffer.position(this.payloadOffset + this.position);
+            this.buffer.get(data, 0, length);
+            this.position += length;
+        } else {
+            length = 0;
+        }
+        if (length < this.frameSize) {
+            System.arraycopy(this.silence, length, data, length, this.frameSize - length);
+        }
+
+        frame.setOffset(0);
+        frame.setLength(this.frameSize);
+        frame.setEOM(this.position >= this.payloadLength);
+        frame.setDuration(PERIOD);
+        frame.setFormat(this.format);
+        return frame;
+    }
+
+    @Override
+    public void close() {
+        // players close a track on end of media and again when stopped
+        if (!this.closed) {
+            this.closed = true;
+            release(this.mapping);
+        }
+    }
+
+    private static final class Mapping {
+
+        private final String url;
+        private final MappedByteBuffer buffer;
+        private final long length;
+        private final long lastModified;
+        private int references;
+
+        private Mapping(String url, MappedByteBuffer buffer, long length, long lastModified) {
+            this.url = url;
+            this.buffer = buffer;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+    }
+
+}
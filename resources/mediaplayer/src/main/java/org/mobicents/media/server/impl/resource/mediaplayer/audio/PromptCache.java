@@ -0,0 +1,298 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.apache.log4j.Logger;
+import org.mobicents.media.server.impl.resource.mediaplayer.Track;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.gsm.GsmTrackImpl;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.wav.WavTrackImpl;
+import org.mobicents.media.server.spi.dsp.DspFactory;
+import org.mobicents.media.server.spi.dsp.Processor;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.FormatFactory;
+import org.mobicents.media.server.spi.memory.Frame;
+
+/**
+ * Cache of decoded prompts shared by all audio players.
+ * <p>
+ * WAV and GSM prompts are decoded once into 20ms frames of linear PCM, which is the format players feed into the media
+ * path, so playback from the cache involves neither parsing nor transcoding. The decoded audio is kept off-heap in
+ * read-only direct buffers that are shared by every track playing the prompt.
+ * </p>
+ * <p>
+ * The cache is bounded by the amount of decoded audio it holds and evicts the least recently played prompts first.
+ * Prompts that do not fit the cache on their own are decoded for the requesting player only.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PromptCache implements PromptCacheMXBean {
+
+    private static final Logger log = Logger.getLogger(PromptCache.class);
+
+    static final AudioFormat LINEAR = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+    static final long PERIOD = 20000000L;
+    static final int FRAME_SIZE = 320;
+
+    private final long capacity;
+    private final DspFactory dspFactory;
+    private final RemoteStreamProvider streamProvider;
+
+    // Prompts in access order, guarded by itself
+    private final LinkedHashMap<String, Prompt> prompts;
+    private long size;
+
+    // Metrics
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    /**
+     * Creates a new prompt cache.
+     * 
+     * @param capacity The maximum amount of decoded audio to be cached, in bytes.
+     * @param dspFactory The factory of the processors used to decode prompts.
+     * @param streamProvider The provider of the streams of WAV prompts.
+     */
+    public PromptCache(long capacity, DspFactory dspFactory, RemoteStreamProvider streamProvider) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Prompt cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.dspFactory = dspFactory;
+        this.streamProvider = streamProvider;
+        this.prompts = new LinkedHashMap<>(16, 0.75f, true);
+        this.size = 0;
+        this.hits = new AtomicLong(0);
+        this.misses = new AtomicLong(0);
+        this.evictions = new AtomicLong(0);
+    }
+
+    /**
+     * Gets a track that plays a prompt from the cache, decoding the prompt if it is not cached yet.
+     * 
+     * @param url The location of the prompt.
+     * @param extension The file extension of the prompt.
+     * @return The track playing the prompt. Returns null if the prompt cannot be cached, in which case it should be played
+     *         from its source.
+     * @throws IOException When the prompt cannot be read.
+     * @throws UnsupportedAudioFileException When the prompt is not a valid audio file.
+     */
+    public Track getTrack(URL url, String extension) throws IOException, UnsupportedAudioFileException {
+        if (!extension.matches(Extension.WAV) && !extension.matches(Extension.GSM)) {
+            return null;
+        }
+
+        String key = url.toExternalForm();
+        Prompt prompt;
+        synchronized (this.prompts) {
+            prompt = this.prompts.get(key);
+        }
+
+        if (prompt != null) {
+            this.hits.incrementAndGet();
+        } else {
+            this.misses.incrementAndGet();
+
+            // Decode outside the lock so players of cached prompts are not held back.
+            // Concurrent misses on the same prompt may decode it twice, but only the first copy is kept.
+            prompt = decode(url, extension);
+            if (prompt == null) {
+                return null;
+            }
+            prompt = store(key, prompt);
+        }
+        return new PromptTrackImpl(prompt);
+    }
+
+    private Prompt decode(URL url, String extension) throws IOException, UnsupportedAudioFileException {
+        Processor dsp;
+        try {
+            dsp = this.dspFactory.newProcessor();
+        } catch (InstantiationException | ClassNotFoundException | IllegalAccessException e) {
+            log.warn("Could not create processor to decode prompt " + url + ": " + e.getMessage());
+            return null;
+        }
+
+        Track track;
+        if (extension.matches(Extension.WAV)) {
+            track = new WavTrackImpl(url, this.streamProvider);
+        } else {
+            track = new GsmTrackImpl(url);
+        }
+
+        ByteArrayOutputStream pcm = new ByteArrayOutputStream();
+        try {
+            boolean eom = false;
+            while (!eom) {
+                Frame frame = track.process(0);
+                eom = frame.isEOM();
+                frame = dsp.process(frame, frame.getFormat(), LINEAR);
+
+                AudioFormat format = (AudioFormat) frame.getFormat();
+                if (!LINEAR.matches(format) || format.getSampleSize() != LINEAR.getSampleSize()
+                        || frame.getLength() != FRAME_SIZE) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Prompt " + url + " cannot be decoded to " + LINEAR + " and will not be cached");
+                    }
+                    frame.recycle();
+                    return null;
+                }
+                pcm.write(frame.getData(), frame.getOffset(), frame.getLength());
+                frame.recycle();
+            }
+        } finally {
+            track.close();
+        }
+
+        byte[] data = pcm.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.flip();
+        return new Prompt(buffer.asReadOnlyBuffer(), data.length / FRAME_SIZE, track.getDuration());
+    }
+
+    private Prompt store(String key, Prompt prompt) {
+        if (prompt.getSize() > this.capacity) {
+            return prompt;
+        }
+
+        synchronized (this.prompts) {
+            Prompt cached = this.prompts.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            this.prompts.put(key, prompt);
+            this.size += prompt.getSize();
+
+            // Evict least recently played prompts. Tracks still playing them keep their own reference.
+            Iterator<Prompt> iterator = this.prompts.values().iterator();
+            while (this.size > this.capacity) {
+                Prompt eldest = iterator.next();
+                iterator.remove();
+                this.size -= eldest.getSize();
+                this.evictions.incrementAndGet();
+            }
+        }
+        return prompt;
+    }
+
+    /**
+     * Removes all prompts from the cache.
+     */
+    public void clear() {
+        synchronized (this.prompts) {
+            this.prompts.clear();
+            this.size = 0;
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = this.hits.get();
+        long lookups = hits + this.misses.get();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    @Override
+    public int getPromptCount() {
+        synchronized (this.prompts) {
+            return this.prompts.size();
+        }
+    }
+
+    @Override
+    public long getSize() {
+        synchronized (this.prompts) {
+            return this.size;
+        }
+    }
+
+    @Override
+    public long getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Decoded prompt made of consecutive frames of {@link PromptCache#FRAME_SIZE} bytes.
+     */
+    static final class Prompt {
+
+        private final ByteBuffer data;
+        private final int frameCount;
+        private final long duration;
+
+        Prompt(ByteBuffer data, int frameCount, long duration) {
+            this.data = data;
+            this.frameCount = frameCount;
+            this.duration = duration;
+        }
+
+        /**
+         * Gets a view over the decoded audio with its own position, so it can be read without synchronization.
+         */
+        ByteBuffer view() {
+            return this.data.duplicate();
+        }
+
+        int getFrameCount() {
+            return frameCount;
+        }
+
+        long getDuration() {
+            return duration;
+        }
+
+        long getSize() {
+            return this.data.capacity();
+        }
+
+    }
+
+}
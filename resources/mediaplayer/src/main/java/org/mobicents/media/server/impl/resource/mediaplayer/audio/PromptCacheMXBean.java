@@ -0,0 +1,68 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio;
+
+/**
+ * Management interface exposing the usage metrics of the {@link PromptCache}.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface PromptCacheMXBean {
+
+    /**
+     * Gets the number of prompts served from the cache.
+     */
+    long getHitCount();
+
+    /**
+     * Gets the number of prompts that had to be decoded because they were not cached.
+     */
+    long getMissCount();
+
+    /**
+     * Gets the ratio of lookups served from the cache.
+     */
+    double getHitRatio();
+
+    /**
+     * Gets the number of prompts evicted to keep the cache within its capacity.
+     */
+    long getEvictionCount();
+
+    /**
+     * Gets the number of prompts currently cached.
+     */
+    int getPromptCount();
+
+    /**
+     * Gets the amount of decoded audio currently cached, in bytes.
+     */
+    long getSize();
+
+    /**
+     * Gets the maximum amount of decoded audio the cache can hold, in bytes.
+     */
+    long getCapacity();
+
+}
@@ -0,0 +1,103 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio;
+
+import java.nio.ByteBuffer;
+
+import org.mobicents.media.server.impl.resource.mediaplayer.Track;
+import org.mobicents.media.server.spi.format.Format;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * Track that plays a decoded prompt held by the {@link PromptCache}.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class PromptTrackImpl implements Track {
+
+    private final ByteBuffer data;
+    private final int frameCount;
+    private final long duration;
+
+    private int frameIndex;
+    private boolean first;
+
+    PromptTrackImpl(PromptCache.Prompt prompt) {
+        this.data = prompt.view();
+        this.frameCount = prompt.getFrameCount();
+        this.duration = prompt.getDuration();
+        this.frameIndex = 0;
+        this.first = true;
+    }
+
+    @Override
+    public Format getFormat() {
+        return PromptCache.LINEAR;
+    }
+
+    @Override
+    public long getMediaTime() {
+        return this.frameIndex * PromptCache.PERIOD / 1000000L;
+    }
+
+    @Override
+    public void setMediaTime(long timestamp) {
+        this.frameIndex = (int) Math.min(timestamp / PromptCache.PERIOD, this.frameCount - 1);
+    }
+
+    @Override
+    public long getDuration() {
+        return this.duration;
+    }
+
+    @Override
+    public Frame process(long timestamp) {
+        if (this.first) {
+            if (timestamp > 0) {
+                setMediaTime(timestamp);
+            }
+            this.first = false;
+        }
+
+        int index = Math.min(this.frameIndex, this.frameCount - 1);
+        Frame frame = Memory.allocate(PromptCache.FRAME_SIZE);
+        this.data.position(index * PromptCache.FRAME_SIZE);
+        this.data.get(frame.getData(), 0, PromptCache.FRAME_SIZE);
+        this.frameIndex = index + 1;
+
+        frame.setOffset(0);
+        frame.setLength(PromptCache.FRAME_SIZE);
+        frame.setEOM(this.frameIndex >= this.frameCount);
+        frame.setDuration(PromptCache.PERIOD);
+        frame.setFormat(PromptCache.LINEAR);
+        return frame;
+    }
+
+    @Override
+    public void close() {
+        // decoded audio is owned by the cache
+    }
+
+}
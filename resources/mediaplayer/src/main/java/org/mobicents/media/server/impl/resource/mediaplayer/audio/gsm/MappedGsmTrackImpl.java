@@ -0,0 +1,69 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio.gsm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.MappedTrack;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.FormatFactory;
+
+/**
+ * Plays a local GSM 06.10 file through a memory mapping.
+ * <p>
+ * The file is a headerless sequence of 33 byte frames, each holding 20ms of audio and starting with the 0xD signature.
+ * A truncated last frame cannot be decoded, so it is dropped.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MappedGsmTrackImpl extends MappedTrack {
+
+    private static final AudioFormat GSM = FormatFactory.createAudioFormat("gsm", 8000);
+    private static final int FRAME_SIZE = 33;
+
+    /** A 20ms GSM 06.10 frame that decodes to silence. */
+    private static final byte[] SILENCE = { (byte) 0xD8, (byte) 0x20, (byte) 0xA2, (byte) 0xE1, (byte) 0x5A, (byte) 0x50,
+            (byte) 0x00, (byte) 0x49, (byte) 0x24, (byte) 0x92, (byte) 0x49, (byte) 0x24, (byte) 0x50, (byte) 0x00,
+            (byte) 0x49, (byte) 0x24, (byte) 0x92, (byte) 0x49, (byte) 0x24, (byte) 0x50, (byte) 0x00, (byte) 0x49,
+            (byte) 0x24, (byte) 0x92, (byte) 0x49, (byte) 0x24, (byte) 0x50, (byte) 0x00, (byte) 0x49, (byte) 0x24,
+            (byte) 0x92, (byte) 0x49, (byte) 0x24 };
+
+    public MappedGsmTrackImpl(File file) throws IOException, UnsupportedAudioFileException {
+        super(file);
+
+        ByteBuffer buffer = getBuffer();
+        if (buffer.limit() == 0 || (buffer.get(0) & 0xF0) != 0xD0) {
+            close();
+            throw new UnsupportedAudioFileException("Not a GSM file: " + file);
+        }
+        int length = buffer.limit() - buffer.limit() % FRAME_SIZE;
+        setPayload(0, length, GSM, SILENCE);
+    }
+
+}
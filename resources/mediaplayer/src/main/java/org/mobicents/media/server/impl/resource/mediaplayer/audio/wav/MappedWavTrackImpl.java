@@ -0,0 +1,122 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio.wav;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.MappedTrack;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.FormatFactory;
+
+/**
+ * Plays a local WAVE file through a memory mapping.
+ * <p>
+ * The RIFF chunks are walked once to find the format and the audio data, skipping any chunk this track does not care
+ * about.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MappedWavTrackImpl extends MappedTrack {
+
+    // Chunk identifiers, as read in little endian
+    private static final int RIFF = 0x46464952;
+    private static final int WAVE = 0x45564157;
+    private static final int FMT = 0x20746d66;
+    private static final int DATA = 0x61746164;
+
+    // Padding for different stream types.
+    private final static byte PCM_PADDING_BYTE = 0;
+    private final static byte ALAW_PADDING_BYTE = (byte) 0xD5;
+    private final static byte ULAW_PADDING_BYTE = (byte) 0xFF;
+
+    public MappedWavTrackImpl(File file) throws IOException, UnsupportedAudioFileException {
+        super(file);
+        try {
+            parse(file);
+        } catch (UnsupportedAudioFileException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void parse(File file) throws UnsupportedAudioFileException {
+        ByteBuffer buffer = getBuffer();
+        if (buffer.limit() < 12 || buffer.getInt(0) != RIFF || buffer.getInt(8) != WAVE) {
+            throw new UnsupportedAudioFileException("Not a WAVE file: " + file);
+        }
+
+        AudioFormat format = null;
+        byte paddingByte = PCM_PADDING_BYTE;
+        int offset = 12;
+        while (offset + 8 <= buffer.limit()) {
+            int chunkId = buffer.getInt(offset);
+            int chunkSize = buffer.getInt(offset + 4);
+            offset += 8;
+
+            if (chunkSize < 0) {
+                break;
+            } else if (chunkId == FMT) {
+                if (chunkSize < 16 || offset + 16 > buffer.limit()) {
+                    throw new UnsupportedAudioFileException("Invalid format chunk in WAVE file: " + file);
+                }
+                int encoding = buffer.getShort(offset) & 0xFFFF;
+                int channels = buffer.getShort(offset + 2) & 0xFFFF;
+                int sampleRate = buffer.getInt(offset + 4);
+                int bitsPerSample = buffer.getShort(offset + 14) & 0xFFFF;
+                switch (encoding) {
+                    case 1:
+                        format = FormatFactory.createAudioFormat("linear", sampleRate, bitsPerSample, channels);
+                        paddingByte = PCM_PADDING_BYTE;
+                        break;
+                    case 6:
+                        format = FormatFactory.createAudioFormat("pcma", sampleRate, bitsPerSample, channels);
+                        paddingByte = ALAW_PADDING_BYTE;
+                        break;
+                    case 7:
+                        format = FormatFactory.createAudioFormat("pcmu", sampleRate, bitsPerSample, channels);
+                        paddingByte = ULAW_PADDING_BYTE;
+                        break;
+                    default:
+                        throw new UnsupportedAudioFileException("Unsupported WAVE encoding " + encoding + ": " + file);
+                }
+            } else if (chunkId == DATA) {
+                if (format == null) {
+                    throw new UnsupportedAudioFileException("WAVE data precedes its format: " + file);
+                }
+                int frameSize = 20 * format.getChannels() * format.getSampleSize() * format.getSampleRate() / 8000;
+                setPayload(offset, chunkSize, format, frameSize, paddingByte);
+                return;
+            }
+            // chunks are word aligned
+            offset += chunkSize + (chunkSize & 1);
+        }
+        throw new UnsupportedAudioFileException("No audio data in WAVE file: " + file);
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Test;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.gsm.MappedGsmTrackImpl;
+
+/**
+ * Tests for {@link MappedTrack}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MappedTrackTest {
+
+    private static File createGsmFile(int frames) throws IOException {
+        byte[] data = new byte[33 * frames];
+        for (int i = 0; i < frames; i++) {
+            data[i * 33] = (byte) 0xD0;
+        }
+        File file = File.createTempFile("mapped", ".gsm");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return file;
+    }
+
+    @Test
+    public void testMappingsAreReleasedWhenTracksClose() throws Exception {
+        // given
+        int baseline = MappedTrack.getMappedFileCount();
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            MappedGsmTrackImpl track = new MappedGsmTrackImpl(createGsmFile(2));
+            while (!track.process(0).isEOM()) {
+                // play until the end
+            }
+            track.close();
+            // players close again when stopped
+            track.close();
+
+            // then
+            assertEquals(baseline, MappedTrack.getMappedFileCount());
+        }
+    }
+
+    @Test
+    public void testMappingIsSharedUntilLastTrackCloses() throws Exception {
+        // given
+        int baseline = MappedTrack.getMappedFileCount();
+        File file = createGsmFile(3);
+
+        // when
+        MappedGsmTrackImpl first = new MappedGsmTrackImpl(file);
+        MappedGsmTrackImpl second = new MappedGsmTrackImpl(file);
+
+        // then
+        assertEquals(baseline + 1, MappedTrack.getMappedFileCount());
+        first.close();
+        assertEquals(baseline + 1, MappedTrack.getMappedFileCount());
+        second.close();
+        assertEquals(baseline, MappedTrack.getMappedFileCount());
+    }
+
+    @Test
+    public void testRejectedFileIsNotKeptMapped() throws Exception {
+        // given
+        int baseline = MappedTrack.getMappedFileCount();
+        File file = File.createTempFile("mapped", ".gsm");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[33]);
+        }
+
+        // when
+        try {
+            new MappedGsmTrackImpl(file);
+            fail("Expected the file to be rejected");
+        } catch (UnsupportedAudioFileException e) {
+            // expected
+        }
+
+        // then
+        assertEquals(baseline, MappedTrack.getMappedFileCount());
+    }
+
+}
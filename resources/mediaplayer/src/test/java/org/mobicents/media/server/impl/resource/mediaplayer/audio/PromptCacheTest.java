@@ -0,0 +1,219 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.media.server.component.DspFactoryImpl;
+import org.mobicents.media.server.impl.resource.mediaplayer.Track;
+import org.mobicents.media.server.impl.resource.mediaplayer.audio.wav.WavTrackImpl;
+import org.mobicents.media.server.spi.memory.Frame;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PromptCacheTest {
+
+    private static final long DURATION = 3854625000L;
+
+    private URLStreamHandler handler;
+    private int connections;
+
+    @Before
+    public void before() {
+        this.connections = 0;
+        this.handler = new URLStreamHandler() {
+
+            @Override
+            protected URLConnection openConnection(URL url) throws IOException {
+                connections++;
+                return new URLConnection(url) {
+
+                    @Override
+                    public void connect() throws IOException {
+                    }
+
+                    @Override
+                    public InputStream getInputStream() throws IOException {
+                        return new FileInputStream(new File("src/test/resources/demo-prompt.wav"));
+                    }
+
+                };
+            }
+        };
+    }
+
+    private int countFrames(Track track) throws IOException {
+        int count = 0;
+        boolean eom;
+        do {
+            Frame frame = track.process(0);
+            eom = frame.isEOM();
+            frame.recycle();
+            count++;
+        } while (!eom);
+        return count;
+    }
+
+    @Test
+    public void testCacheHit() throws Exception {
+        // given
+        PromptCache cache = new PromptCache(1024 * 1024, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+        URL url = new URL(null, "http://prompt.wav", handler);
+
+        // when
+        Track track1 = cache.getTrack(url, "wav");
+        Track track2 = cache.getTrack(url, "wav");
+
+        // then
+        assertEquals(1, connections);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRatio(), 0.0);
+        assertEquals(1, cache.getPromptCount());
+        assertEquals(DURATION, track1.getDuration());
+        assertEquals(PromptCache.LINEAR, track1.getFormat());
+
+        int frames = countFrames(track1);
+        assertEquals(frames, countFrames(track2));
+        assertEquals(frames * PromptCache.FRAME_SIZE, cache.getSize());
+    }
+
+    @Test
+    public void testFramesMatchSource() throws Exception {
+        // given
+        PromptCache cache = new PromptCache(1024 * 1024, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+        URL url = new URL(null, "http://prompt.wav", handler);
+        WavTrackImpl source = new WavTrackImpl(url, new DirectRemoteStreamProvider());
+
+        // when
+        Track track = cache.getTrack(url, "wav");
+
+        // then
+        boolean eom;
+        do {
+            Frame expected = source.process(0);
+            Frame actual = track.process(0);
+            eom = expected.isEOM();
+            assertEquals(expected.getLength(), actual.getLength());
+            assertEquals(expected.isEOM(), actual.isEOM());
+            assertEquals(expected.getDuration(), actual.getDuration());
+            assertArrayEquals(Arrays.copyOfRange(expected.getData(), expected.getOffset(), expected.getLength()),
+                    Arrays.copyOfRange(actual.getData(), actual.getOffset(), actual.getLength()));
+            expected.recycle();
+            actual.recycle();
+        } while (!eom);
+        source.close();
+    }
+
+    @Test
+    public void testSkipOnFirstFrame() throws Exception {
+        // given
+        PromptCache cache = new PromptCache(1024 * 1024, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+        URL url = new URL(null, "http://prompt.wav", handler);
+        int frames = countFrames(cache.getTrack(url, "wav"));
+
+        // when
+        Track track = cache.getTrack(url, "wav");
+        Frame frame = track.process(10 * PromptCache.PERIOD);
+        frame.recycle();
+
+        // then
+        assertEquals(11 * PromptCache.PERIOD / 1000000L, track.getMediaTime());
+        assertEquals(frames - 11, countFrames(track));
+    }
+
+    @Test
+    public void testLeastRecentlyPlayedEviction() throws Exception {
+        // given
+        URL url1 = new URL(null, "http://prompt1.wav", handler);
+        URL url2 = new URL(null, "http://prompt2.wav", handler);
+        URL url3 = new URL(null, "http://prompt3.wav", handler);
+        PromptCache probe = new PromptCache(1024 * 1024, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+        probe.getTrack(url1, "wav");
+        PromptCache cache = new PromptCache(probe.getSize() * 2, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+
+        // when
+        cache.getTrack(url1, "wav");
+        cache.getTrack(url2, "wav");
+        cache.getTrack(url1, "wav");
+        cache.getTrack(url3, "wav");
+
+        // then
+        assertEquals(2, cache.getPromptCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.getSize() <= cache.getCapacity());
+
+        cache.getTrack(url1, "wav");
+        assertEquals(2, cache.getHitCount());
+        cache.getTrack(url2, "wav");
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test
+    public void testPromptLargerThanCapacity() throws Exception {
+        // given
+        PromptCache cache = new PromptCache(1024, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+        URL url = new URL(null, "http://prompt.wav", handler);
+
+        // when
+        Track track = cache.getTrack(url, "wav");
+
+        // then
+        assertEquals(DURATION, track.getDuration());
+        assertEquals(0, cache.getPromptCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testUncacheableExtension() throws Exception {
+        // given
+        PromptCache cache = new PromptCache(1024 * 1024, new DspFactoryImpl(), new DirectRemoteStreamProvider());
+        URL url = new URL(null, "http://prompt.tone", handler);
+
+        // when
+        Track track = cache.getTrack(url, "tone");
+
+        // then
+        assertNull(track);
+        assertEquals(0, connections);
+        assertFalse(cache.getMissCount() > 0);
+    }
+
+}
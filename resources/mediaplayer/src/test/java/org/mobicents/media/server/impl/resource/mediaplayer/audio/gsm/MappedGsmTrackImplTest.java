@@ -0,0 +1,156 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio.gsm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Test;
+import org.mobicents.media.server.spi.memory.Frame;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MappedGsmTrackImplTest {
+
+    private static File createFile(byte[] data) throws IOException {
+        File file = File.createTempFile("mapped", ".gsm");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return file;
+    }
+
+    @Test
+    public void testFrames() throws Exception {
+        // given
+        byte[] data = new byte[33 * 3];
+        for (int i = 0; i < 3; i++) {
+            data[i * 33] = (byte) (0xD0 | i);
+        }
+
+        // when
+        MappedGsmTrackImpl track = new MappedGsmTrackImpl(createFile(data));
+
+        // then
+        assertEquals("gsm", track.getFormat().getName().toString());
+        assertEquals(60000000L, track.getDuration());
+        for (int i = 0; i < 3; i++) {
+            Frame frame = track.process(0);
+            assertEquals(33, frame.getLength());
+            assertEquals((byte) (0xD0 | i), frame.getData()[0]);
+            assertEquals(track.getFormat(), frame.getFormat());
+            assertEquals(i == 2, frame.isEOM());
+            frame.recycle();
+        }
+    }
+
+    @Test
+    public void testStartFromTimestamp() throws Exception {
+        // given
+        byte[] data = new byte[33 * 5];
+        for (int i = 0; i < 5; i++) {
+            data[i * 33] = (byte) (0xD0 | i);
+        }
+        MappedGsmTrackImpl track = new MappedGsmTrackImpl(createFile(data));
+
+        // when
+        Frame frame = track.process(3 * 20000000L);
+
+        // then
+        assertEquals((byte) 0xD3, frame.getData()[0]);
+        assertFalse(frame.isEOM());
+        assertTrue(track.process(0).isEOM());
+    }
+
+    @Test
+    public void testDropTruncatedLastFrame() throws Exception {
+        // given
+        byte[] data = new byte[33 * 2 + 10];
+        data[0] = (byte) 0xD0;
+        data[33] = (byte) 0xD1;
+        data[66] = (byte) 0xD2;
+
+        // when
+        MappedGsmTrackImpl track = new MappedGsmTrackImpl(createFile(data));
+
+        // then
+        assertEquals(40000000L, track.getDuration());
+        assertFalse(track.process(0).isEOM());
+        Frame last = track.process(0);
+        assertEquals((byte) 0xD1, last.getData()[0]);
+        assertTrue(last.isEOM());
+    }
+
+    @Test
+    public void testPlayPastEndWithSilence() throws Exception {
+        // given
+        byte[] data = new byte[33];
+        data[0] = (byte) 0xD0;
+        MappedGsmTrackImpl track = new MappedGsmTrackImpl(createFile(data));
+
+        // when
+        Frame frame = track.process(20000000L);
+
+        // then
+        assertEquals(33, frame.getLength());
+        assertEquals((byte) 0xD8, frame.getData()[0]);
+        assertTrue(frame.isEOM());
+    }
+
+    @Test
+    public void testTracksOfSameFileAreIndependent() throws Exception {
+        // given
+        byte[] data = new byte[33 * 3];
+        for (int i = 0; i < 3; i++) {
+            data[i * 33] = (byte) (0xD0 | i);
+        }
+        File file = createFile(data);
+        MappedGsmTrackImpl first = new MappedGsmTrackImpl(file);
+        first.process(0);
+        first.process(0);
+
+        // when
+        MappedGsmTrackImpl second = new MappedGsmTrackImpl(file);
+
+        // then
+        assertEquals((byte) 0xD0, second.process(0).getData()[0]);
+        assertEquals((byte) 0xD2, first.process(0).getData()[0]);
+        assertEquals((byte) 0xD1, second.process(0).getData()[0]);
+    }
+
+    @Test(expected = UnsupportedAudioFileException.class)
+    public void testRejectNonGsm() throws Exception {
+        new MappedGsmTrackImpl(createFile(new byte[33]));
+    }
+
+}
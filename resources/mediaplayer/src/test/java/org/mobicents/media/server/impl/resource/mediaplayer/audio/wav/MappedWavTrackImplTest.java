@@ -0,0 +1,163 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.mediaplayer.audio.wav;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Test;
+import org.mobicents.media.server.spi.format.AudioFormat;
+import org.mobicents.media.server.spi.format.FormatFactory;
+import org.mobicents.media.server.spi.memory.Frame;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class MappedWavTrackImplTest {
+
+    private static final File PROMPT = new File("src/test/resources/demo-prompt.wav");
+
+    private static byte[] toArray(Frame frame) {
+        return Arrays.copyOfRange(frame.getData(), frame.getOffset(), frame.getOffset() + frame.getLength());
+    }
+
+    private static File createWav(int encoding, int bitsPerSample, byte[] payload, boolean extraChunk) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 + payload.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0x46464952).putInt(0).putInt(0x45564157);
+        buffer.putInt(0x20746d66).putInt(16).putShort((short) encoding).putShort((short) 1).putInt(8000)
+                .putInt(8000 * bitsPerSample / 8).putShort((short) (bitsPerSample / 8)).putShort((short) bitsPerSample);
+        if (extraChunk) {
+            // odd sized chunk followed by a pad byte
+            buffer.putInt(0x5453494c).putInt(3).put(new byte[4]);
+        }
+        buffer.putInt(0x61746164).putInt(payload.length).put(payload);
+        buffer.putInt(4, buffer.position() - 8);
+
+        File file = File.createTempFile("mapped", ".wav");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        return file;
+    }
+
+    @Test
+    public void testFramesMatchDataChunk() throws Exception {
+        // given
+        // the prompt carries an 18 byte format chunk and a LIST chunk before 61632 bytes of audio data
+        byte[] file = Files.readAllBytes(PROMPT.toPath());
+        int dataOffset = 80;
+        int dataLength = 61632;
+
+        // when
+        MappedWavTrackImpl track = new MappedWavTrackImpl(PROMPT);
+
+        // then
+        assertTrue(FormatFactory.createAudioFormat("linear", 8000, 16, 1).matches(track.getFormat()));
+        assertEquals(dataLength * 20000000L / 320, track.getDuration());
+        int offset = dataOffset;
+        boolean eom;
+        do {
+            Frame frame = track.process(0);
+            eom = frame.isEOM();
+            assertEquals(20000000L, frame.getDuration());
+            assertArrayEquals(Arrays.copyOfRange(file, offset, offset + 320), toArray(frame));
+            offset += 320;
+            frame.recycle();
+        } while (!eom);
+        // last frame is padded with silence
+        assertEquals(dataOffset + (dataLength + 319) / 320 * 320, offset);
+        track.close();
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        // given
+        byte[] payload = new byte[160 * 10];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) (i / 160);
+        }
+        MappedWavTrackImpl track = new MappedWavTrackImpl(createWav(7, 8, payload, false));
+
+        // when
+        Frame first = track.process(4 * 20000000L);
+        track.setMediaTime(8 * 20000000L);
+        Frame second = track.process(0);
+        Frame last = track.process(0);
+
+        // then
+        assertEquals(4, first.getData()[0]);
+        assertFalse(first.isEOM());
+        assertEquals(8, second.getData()[0]);
+        assertEquals(9, last.getData()[159]);
+        assertTrue(last.isEOM());
+        assertEquals(200, track.getMediaTime());
+    }
+
+    @Test
+    public void testSkipUnknownChunksAndPadLastFrame() throws Exception {
+        // given
+        byte[] payload = new byte[160 + 40];
+        Arrays.fill(payload, (byte) 1);
+
+        // when
+        MappedWavTrackImpl track = new MappedWavTrackImpl(createWav(6, 8, payload, true));
+        Frame first = track.process(0);
+        Frame last = track.process(0);
+
+        // then
+        assertEquals("pcma", ((AudioFormat) track.getFormat()).getName().toString());
+        assertEquals(25000000L, track.getDuration());
+        assertFalse(first.isEOM());
+        assertEquals(1, first.getData()[159]);
+        assertTrue(last.isEOM());
+        assertEquals(160, last.getLength());
+        assertEquals(1, last.getData()[39]);
+        assertEquals((byte) 0xD5, last.getData()[40]);
+        assertEquals((byte) 0xD5, last.getData()[159]);
+    }
+
+    @Test(expected = UnsupportedAudioFileException.class)
+    public void testRejectNonWave() throws Exception {
+        File file = File.createTempFile("mapped", ".wav");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[64]);
+        }
+        new MappedWavTrackImpl(file);
+    }
+
+}
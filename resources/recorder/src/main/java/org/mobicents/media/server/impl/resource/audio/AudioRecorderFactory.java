@@ -33,14 +33,20 @@ import org.mobicents.media.server.spi.pooling.PooledObjectFactory;
 public class AudioRecorderFactory implements PooledObjectFactory<AudioRecorderImpl> {
     
     private final PriorityQueueScheduler mediaScheduler;
+    private final RecordingWriter writer;
 
     public AudioRecorderFactory(PriorityQueueScheduler mediaScheduler) {
+        this(mediaScheduler, null);
+    }
+
+    public AudioRecorderFactory(PriorityQueueScheduler mediaScheduler, RecordingWriter writer) {
         this.mediaScheduler = mediaScheduler;
+        this.writer = writer;
     }
     
     @Override
     public AudioRecorderImpl produce() {
-        return new AudioRecorderImpl(this.mediaScheduler);
+        return new AudioRecorderImpl(this.mediaScheduler, this.writer);
     }
 
 }
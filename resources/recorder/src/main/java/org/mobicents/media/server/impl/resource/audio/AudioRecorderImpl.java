@@ -46,6 +46,7 @@ import org.mobicents.media.server.spi.pooling.PooledObject;
 import org.mobicents.media.server.spi.recorder.Recorder;
 import org.mobicents.media.server.spi.recorder.RecorderEvent;
 import org.mobicents.media.server.spi.recorder.RecorderListener;
+import org.mobicents.media.server.spi.recorder.RecordingFormat;
 
 /**
  * @author yulian oifa
@@ -66,7 +67,9 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
     }
 
     private String recordDir;
+    private RecordingFormat recordFormat;
     private AtomicReference<RecorderFileSink> sink = new AtomicReference<>(null);
+    private final RecordingWriter writer;
 
     // if set ti true the record will terminate recording when silence detected
     private long postSpeechTimer = -1L;
@@ -93,7 +96,6 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
 
     // events
     private RecorderEventImpl recorderStarted;
-    private RecorderEventImpl recorderStopped;
     private RecorderEventImpl recorderFailed;
 
     // event sender task
@@ -102,6 +104,9 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
     // event qualifier
     private int qualifier;
 
+    // incremented whenever the recorder returns to the pool, so late stop events of a previous owner are dropped
+    private volatile int generation;
+
     private boolean speechDetected = false;
 
     private AudioOutput output;
@@ -111,14 +116,25 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
     private static final Logger logger = Logger.getLogger(AudioRecorderImpl.class);
 
     public AudioRecorderImpl(PriorityQueueScheduler scheduler) {
+        this(scheduler, null);
+    }
+
+    /**
+     * Creates a recorder whose recordings are written to disk by the I/O threads of a writer, keeping disk access away from
+     * the media threads.
+     * 
+     * @param scheduler The media scheduler
+     * @param writer The writer of recordings. If null, recordings are written by the media threads.
+     */
+    public AudioRecorderImpl(PriorityQueueScheduler scheduler, RecordingWriter writer) {
         super("recorder");
         this.scheduler = scheduler;
+        this.writer = writer;
 
         killRecording = new KillRecording();
 
         // initialize events
         recorderStarted = new RecorderEventImpl(RecorderEvent.START, this);
-        recorderStopped = new RecorderEventImpl(RecorderEvent.STOP, this);
         recorderFailed = new RecorderEventImpl(RecorderEvent.FAILED, this);
 
         // initialize event sender task
@@ -162,6 +178,8 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
             return;
         }
 
+        RecorderFileSink snk = null;
+        StopNotifier notifier = new StopNotifier(this.qualifier, this.generation);
         try {
             output.stop();
             oobOutput.stop();
@@ -173,18 +191,10 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
 
             // deactivate can be concurrently invoked from  multiple threads (MediaGroup, KillRecording for example).
             // to make sure the sink is closed only once, we set the sink ref to null and proceed to commit only if obtained reference is not null.
-
-            RecorderFileSink snk = sink.getAndSet(null);
-            if (snk != null) {
-                snk.commit();
-            }
+            snk = sink.getAndSet(null);
         } catch (Exception e) {
-            logger.error("Error writing to file", e);
+            logger.error("Error stopping recording", e);
         } finally {
-            // send event
-            recorderStopped.setQualifier(qualifier);
-            fireEvent(recorderStopped);
-
             // clean qualifier
             this.qualifier = 0;
             this.maxRecordTime = -1L;
@@ -192,6 +202,17 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
             this.preSpeechTimer = -1L;
             this.speechDetected = false;
         }
+
+        // the stop event is only sent once the recording is committed, which may happen on an I/O thread
+        if (snk == null) {
+            notifier.run();
+        } else {
+            try {
+                snk.commit(notifier);
+            } catch (Exception e) {
+                logger.error("Error writing to file", e);
+            }
+        }
     }
 
     @Override
@@ -249,13 +270,24 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
         this.recordDir = recordDir;
     }
 
+    @Override
+    public void setRecordFormat(RecordingFormat format) {
+        this.recordFormat = format;
+    }
+
     @Override
     public void setRecordFile(String uri, boolean append) throws IOException {
         // calculate the full path
         String path = uri.startsWith("file:") ? uri.replaceAll("file://", "") : this.recordDir + "/" + uri;
         Path file = Paths.get(path);
 
-        RecorderFileSink snk = sink.getAndSet(new RecorderFileSink(file,append));
+        // infer the format from the file when none was requested
+        RecordingFormat format = this.recordFormat;
+        if (format == null) {
+            format = path.toLowerCase().endsWith(".gsm") ? RecordingFormat.GSM : RecordingFormat.LINEAR;
+        }
+
+        RecorderFileSink snk = sink.getAndSet(new RecorderFileSink(file, append, format, this.writer));
         if (snk != null) {
             logger.error("Sink for the recording is not cleaned properly, found " + snk);
         }
@@ -298,6 +330,7 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
     public void checkIn() {
         // clear listeners
         clearAllListeners();
+        this.generation++;
 
         // clean buffers
         this.byteBuffer.clear();
@@ -307,6 +340,7 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
         
         // reset internal state
         this.recordDir = "";
+        this.recordFormat = null;
         this.postSpeechTimer = -1L;
         this.preSpeechTimer = -1L;
         this.lastPacketData = 0L;
@@ -341,6 +375,58 @@ public class AudioRecorderImpl extends AbstractSink implements Recorder, PooledO
         }
     }
 
+    /**
+     * Sends the stop event once the recording is committed.
+     * <p>
+     * May run on an I/O thread of the writer, so the event is handed to the media scheduler rather than dispatched here.
+     * </p>
+     */
+    private class StopNotifier implements Runnable {
+
+        private final int qualifier;
+        private final int generation;
+
+        public StopNotifier(int qualifier, int generation) {
+            this.qualifier = qualifier;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            // each stop gets its own event, as stops of consecutive recordings may be in flight at once
+            RecorderEventImpl event = new RecorderEventImpl(RecorderEvent.STOP, AudioRecorderImpl.this);
+            event.setQualifier(this.qualifier);
+            scheduler.submit(new StopEventSender(event, this.generation), PriorityQueueScheduler.INPUT_QUEUE);
+        }
+    }
+
+    /**
+     * Dispatches a stop event, unless the recorder was returned to the pool since the recording stopped.
+     */
+    private class StopEventSender extends Task {
+
+        private final RecorderEventImpl event;
+        private final int generation;
+
+        public StopEventSender(RecorderEventImpl event, int generation) {
+            super();
+            this.event = event;
+            this.generation = generation;
+        }
+
+        @Override
+        public long perform() {
+            if (this.generation == AudioRecorderImpl.this.generation) {
+                listeners.dispatch(event);
+            }
+            return 0;
+        }
+
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.INPUT_QUEUE;
+        }
+    }
+
     /**
      * Asynchronous recorder stopper.
      */
@@ -31,13 +31,22 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mobicents.media.server.spi.recorder.RecordingFormat;
 
 /**
  * Sink, that assures the data are written to underlying file.
  *
  * Sink exists once the recording starts, and ceases to exists on recording deactivate.
  *
+ * Recorded audio is linear, and is encoded into the {@link RecordingFormat} of the sink before reaching the disk.
+ *
+ * When bound to a {@link RecordingWriter}, written data is only queued in a bounded ring and the file operations, including
+ * the commit, are performed by the I/O threads of the writer. Otherwise they are performed by the calling thread.
+ *
  * @author Pavel Chlupacek (pchlupacek)
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
 public class RecorderFileSink {
 
@@ -59,6 +68,23 @@ public class RecorderFileSink {
     // when true, then this sink accepts new data false otherwise.
     private final AtomicBoolean open;
 
+    // format of the recording
+    private final RecordingFormat format;
+    private final RecordingEncoder encoder;
+    private byte[] encoderInput;
+    private ByteBuffer encoderOutput;
+
+    // asynchronous writing, where the ring is guarded by itself
+    private final RecordingWriter writer;
+    private final byte[] ring;
+    private int ringHead;
+    private int ringSize;
+    private final AtomicInteger pendingDrains;
+    private final Drainer drainer;
+    private Runnable commitCallback;
+    private volatile boolean commitRequested;
+    private boolean committed;
+
     /**
      * Creates a sink. If append is true, and target exists, then when recording is finished the resulting recording is appended
      * to current recorded file.
@@ -67,21 +93,101 @@ public class RecorderFileSink {
      * @param append Whether to append recording to `target`
      */
     public RecorderFileSink(Path target, boolean append) throws IOException {
+        this(target, append, null);
+    }
+
+    /**
+     * Creates a sink whose file operations are performed by a writer. If append is true, and target exists, then when
+     * recording is finished the resulting recording is appended to current recorded file.
+     * 
+     * @param target Target to write file to
+     * @param append Whether to append recording to `target`
+     * @param writer The writer that performs the file operations. If null, they are performed by the calling thread.
+     */
+    public RecorderFileSink(Path target, boolean append, RecordingWriter writer) throws IOException {
+        this(target, append, RecordingFormat.LINEAR, writer);
+    }
+
+    /**
+     * Creates a sink that stores the recording in a given format. If append is true, and target exists, then when recording
+     * is finished the resulting recording is appended to current recorded file, which must be of the same format.
+     * 
+     * @param target Target to write file to
+     * @param append Whether to append recording to `target`
+     * @param format The format of the recording
+     * @param writer The writer that performs the file operations. If null, they are performed by the calling thread.
+     */
+    public RecorderFileSink(Path target, boolean append, RecordingFormat format, RecordingWriter writer) throws IOException {
         this.target = target;
         this.temp = target.getParent().resolve(target.getFileName() + "~");
         this.append = append;
         this.open = new AtomicBoolean(true);
 
+        this.format = format;
+        this.encoder = RecordingEncoder.newEncoder(format);
+
+        this.writer = writer;
+        this.ring = (writer == null) ? null : new byte[writer.getQueueSize()];
+        this.ringHead = 0;
+        this.ringSize = 0;
+        this.pendingDrains = new AtomicInteger(0);
+        this.drainer = new Drainer();
+
         this.fout = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
-        this.fout.write(EMPTY_HEADER);
+        if (format.getHeaderSize() > 0) {
+            this.fout.write(EMPTY_HEADER.duplicate());
+        }
+        if (writer != null) {
+            writer.opened();
+        }
     }
 
     /**
      * Writes supplied data to the Sink (File).
+     * <p>
+     * When bound to a writer, the data is queued and this method never blocks on I/O. The data is dropped if the queue is
+     * full.
+     * </p>
      */
     public void write(ByteBuffer data) throws IOException {
-        if (open.get()) {
-            fout.write(data);
+        if (!open.get()) {
+            return;
+        }
+        if (writer == null) {
+            if (format == RecordingFormat.LINEAR) {
+                fout.write(data);
+            } else {
+                int length = data.remaining();
+                if (encoderInput == null || encoderInput.length < length) {
+                    encoderInput = new byte[length];
+                    encoderOutput = ByteBuffer.allocate(length + RecordingEncoder.MAX_BLOCK_SIZE);
+                }
+                data.get(encoderInput, 0, length);
+                encoderOutput.clear();
+                encoder.encode(encoderInput, 0, length, encoderOutput);
+                writeFully(encoderOutput);
+            }
+            return;
+        }
+
+        int length = data.remaining();
+        int pending;
+        synchronized (ring) {
+            if (ring.length - ringSize < length) {
+                writer.dropped();
+                return;
+            }
+            int tail = (ringHead + ringSize) % ring.length;
+            int chunk = Math.min(length, ring.length - tail);
+            data.get(ring, tail, chunk);
+            data.get(ring, 0, length - chunk);
+            ringSize += length;
+            pending = ringSize;
+        }
+        writer.queued(length);
+
+        if (pending >= writer.getBatchSize()) {
+            scheduleDrain();
         }
     }
 
@@ -90,33 +196,137 @@ public class RecorderFileSink {
      * returns, Sink is done and cannot be used again.
      */
     public void commit() throws IOException {
+        commit(null);
+    }
+
+    /**
+     * Commit this sink. Causes to prevent any further write operations, and commits temporary file to target.
+     * <p>
+     * When bound to a writer, the commit is performed by one of its I/O threads after all queued data is written, and this
+     * method returns immediately.
+     * </p>
+     * 
+     * @param callback Invoked once the commit is over, successful or not. May be null.
+     */
+    public void commit(Runnable callback) throws IOException {
         // assures we perform the close operation only once.
         if (open.compareAndSet(true, false)) {
-            // flush & close
-            fout.force(true);
-            fout.close();
+            if (writer == null) {
+                try {
+                    if (encoderOutput == null) {
+                        encoderOutput = ByteBuffer.allocate(RecordingEncoder.MAX_BLOCK_SIZE);
+                    }
+                    finish(encoderOutput);
+                } finally {
+                    if (callback != null) {
+                        callback.run();
+                    }
+                }
+            } else {
+                this.commitCallback = callback;
+                this.commitRequested = true;
+                scheduleDrain();
+            }
+        }
+    }
 
-            // if the current file exists, and append is true, then append samples and remove temp file
-            // otherwise write header and move tmp file to target
-            boolean exists = Files.exists(target);
-            if (logger.isInfoEnabled()) {
-                logger.info("Finishing recording ...... append: " + append + " exists: " + exists + " target:" + target);
+    private void scheduleDrain() {
+        // only one I/O thread drains the sink at a time
+        if (pendingDrains.getAndIncrement() == 0) {
+            writer.execute(drainer);
+        }
+    }
+
+    /**
+     * Moves queued data from the ring into the file, in chunks as large as the write buffer of the I/O thread.
+     */
+    private void drain() throws IOException {
+        byte[] scratch = writer.getScratch();
+        ByteBuffer buffer = writer.getBuffer();
+        int capacity = Math.min(scratch.length, buffer.capacity() - RecordingEncoder.MAX_BLOCK_SIZE);
+        while (true) {
+            int length;
+            synchronized (ring) {
+                length = Math.min(ringSize, capacity);
+                if (length == 0) {
+                    return;
+                }
+                int chunk = Math.min(length, ring.length - ringHead);
+                System.arraycopy(ring, ringHead, scratch, 0, chunk);
+                System.arraycopy(ring, 0, scratch, chunk, length - chunk);
+                ringHead = (ringHead + length) % ring.length;
+                ringSize -= length;
             }
-            if (append && exists) {
-                appendSamples(target, temp);
-                writeHeader(target);
-                Files.delete(temp);
-            } else {
-                writeHeader(temp);
-                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+
+            // encode outside the lock so media threads are not held back
+            buffer.clear();
+            encoder.encode(scratch, 0, length, buffer);
+            int encoded;
+            try {
+                encoded = writeFully(buffer);
+            } catch (IOException e) {
+                writer.discarded(length);
+                throw e;
             }
+            writer.written(length, encoded);
+        }
+    }
+
+    /**
+     * @return The number of bytes written.
+     */
+    private int writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            fout.write(buffer);
+        }
+        return length;
+    }
+
+    private void finish(ByteBuffer buffer) throws IOException {
+        // encode held back samples
+        buffer.clear();
+        encoder.flush(buffer);
+        int encoded = writeFully(buffer);
+        if (writer != null) {
+            writer.written(0, encoded);
+        }
+
+        // flush & close
+        fout.force(true);
+        fout.close();
+
+        // if the current file exists, and append is true, then append samples and remove temp file
+        // otherwise write header and move tmp file to target
+        boolean exists = Files.exists(target);
+        if (logger.isInfoEnabled()) {
+            logger.info("Finishing recording ...... append: " + append + " exists: " + exists + " target:" + target);
+        }
+        if (append && exists) {
+            appendSamples(target, temp, format);
+            writeHeader(target, format);
+            Files.delete(temp);
+        } else {
+            writeHeader(temp, format);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
+    private void discard() {
+        int length;
+        synchronized (ring) {
+            length = ringSize;
+            ringHead = 0;
+            ringSize = 0;
+        }
+        writer.discarded(length);
+    }
+
     @Override
     public String toString() {
-        return "RecorderFileSink{" + "target=" + target + ", temp=" + temp + ", append=" + append + ", open=" + open.get()
-                + '}';
+        return "RecorderFileSink{" + "target=" + target + ", temp=" + temp + ", append=" + append + ", format=" + format
+                + ", open=" + open.get() + '}';
     }
 
     /**
@@ -124,10 +334,16 @@ public class RecorderFileSink {
      *
      *
      * @param file Recording where to write the header
+     * @param format The format of the recorded samples
      *
      * @throws IOException
      */
-    private static void writeHeader(Path file) throws IOException {
+    private static void writeHeader(Path file, RecordingFormat format) throws IOException {
+        if (format.getHeaderSize() == 0) {
+            // raw format, there is no header to fill
+            return;
+        }
+
         try (FileChannel fout = FileChannel.open(file, StandardOpenOption.WRITE)) {
 
             long size = fout.size();
@@ -170,8 +386,8 @@ public class RecorderFileSink {
             headerBuffer.put((byte) 0x00);
             headerBuffer.put((byte) 0x00);
 
-            // format - PCM
-            headerBuffer.put((byte) 0x01);
+            // format - PCM, A-law or u-law
+            headerBuffer.put((byte) format.getWaveFormat());
             headerBuffer.put((byte) 0x00);
 
             // format - MONO
@@ -185,17 +401,19 @@ public class RecorderFileSink {
             headerBuffer.put((byte) 0x00);
 
             // byte rate
-            headerBuffer.put((byte) 0x80);
-            headerBuffer.put((byte) 0x3E);
-            headerBuffer.put((byte) 0x00);
-            headerBuffer.put((byte) 0x00);
+            int blockAlign = format.getBitsPerSample() / 8;
+            int byteRate = 8000 * blockAlign;
+            headerBuffer.put((byte) (byteRate));
+            headerBuffer.put((byte) (byteRate >> 8));
+            headerBuffer.put((byte) (byteRate >> 16));
+            headerBuffer.put((byte) (byteRate >> 24));
 
             // Block align
-            headerBuffer.put((byte) 0x02);
+            headerBuffer.put((byte) blockAlign);
             headerBuffer.put((byte) 0x00);
 
-            // Bits per sample: 16
-            headerBuffer.put((byte) 0x10);
+            // Bits per sample: 16 or 8
+            headerBuffer.put((byte) format.getBitsPerSample());
             headerBuffer.put((byte) 0x00);
 
             // "data"
@@ -218,16 +436,68 @@ public class RecorderFileSink {
         }
     }
 
-    private static void appendSamples(Path appendTo, Path appendFrom) throws IOException {
+    private static void appendSamples(Path appendTo, Path appendFrom, RecordingFormat format) throws IOException {
 
         try (FileChannel inChannel = FileChannel.open(appendFrom, StandardOpenOption.READ);
                 FileChannel outChannel = FileChannel.open(appendTo, StandardOpenOption.WRITE)) {
-            long count = inChannel.size() - HDR_SIZE;
-            inChannel.transferTo(HDR_SIZE, count, outChannel);
+            outChannel.position(outChannel.size());
+            int headerSize = format.getHeaderSize();
+            long count = inChannel.size() - headerSize;
+            inChannel.transferTo(headerSize, count, outChannel);
             if (logger.isInfoEnabled()) {
                 logger.info("Appended " + count + " bytes from " + appendFrom + " to " + appendTo);
             }
         }
     }
 
+    /**
+     * Drains the sink on an I/O thread, and commits it once it is closed.
+     */
+    private final class Drainer implements Runnable {
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (committed) {
+                    // data raced with the commit and has nowhere to go
+                    discard();
+                } else {
+                    try {
+                        drain();
+                    } catch (IOException e) {
+                        logger.error("Could not write recording " + target + ": " + e.getMessage());
+                        discard();
+                    }
+                }
+
+                if (commitRequested && !committed) {
+                    committed = true;
+                    commitPending();
+                }
+
+                missed = pendingDrains.addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void commitPending() {
+            Runnable callback = commitCallback;
+            commitCallback = null;
+            try {
+                finish(writer.getBuffer());
+            } catch (IOException e) {
+                logger.error("Could not commit recording " + target, e);
+            } finally {
+                writer.committed();
+                if (callback != null) {
+                    callback.run();
+                }
+            }
+        }
+
+    }
+
 }
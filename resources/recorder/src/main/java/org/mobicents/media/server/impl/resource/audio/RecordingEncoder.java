@@ -0,0 +1,180 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.audio;
+
+import java.nio.ByteBuffer;
+
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+import org.mobicents.media.server.spi.recorder.RecordingFormat;
+
+/**
+ * Encodes recorded linear audio into the format of a recording before it reaches the disk.
+ * <p>
+ * Encoders are stateful and must be used by one thread at a time. The encoded output is never larger than the linear
+ * input plus one block of {@link #MAX_BLOCK_SIZE} bytes, since encoders may hold back a partial block of input.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+abstract class RecordingEncoder {
+
+    /** Largest block of data emitted at once by an encoder. */
+    static final int MAX_BLOCK_SIZE = 33;
+
+    static RecordingEncoder newEncoder(RecordingFormat format) {
+        switch (format) {
+            case PCMA:
+                return new TableEncoder(org.mobicents.media.server.impl.dsp.audio.g711.alaw.EncoderData.aLawCompressTable);
+            case PCMU:
+                return new TableEncoder(org.mobicents.media.server.impl.dsp.audio.g711.ulaw.EncoderData.muLawCompressTable);
+            case GSM:
+                return new GsmEncoder();
+            default:
+                return new LinearEncoder();
+        }
+    }
+
+    /**
+     * Encodes linear audio.
+     * 
+     * @param data The little endian 16-bit samples to encode.
+     * @param offset The offset of the first sample.
+     * @param length The number of bytes to encode.
+     * @param destination The buffer where encoded data is written. Must have room for length plus
+     *        {@link #MAX_BLOCK_SIZE} bytes.
+     */
+    abstract void encode(byte[] data, int offset, int length, ByteBuffer destination);
+
+    /**
+     * Encodes any audio held back by the encoder, completing it with silence if needed.
+     * 
+     * @param destination The buffer where encoded data is written. Must have room for {@link #MAX_BLOCK_SIZE} bytes.
+     */
+    void flush(ByteBuffer destination) {
+        // nothing held back by default
+    }
+
+    private static final class LinearEncoder extends RecordingEncoder {
+
+        @Override
+        void encode(byte[] data, int offset, int length, ByteBuffer destination) {
+            destination.put(data, offset, length);
+        }
+
+    }
+
+    /**
+     * Encodes each sample with a lookup table indexed by its high and low bytes, as done by the G.711 encoders.
+     */
+    private static final class TableEncoder extends RecordingEncoder {
+
+        private final byte[][] table;
+
+        // low byte of a sample split across two calls, or -1
+        private int carry;
+
+        TableEncoder(byte[][] table) {
+            this.table = table;
+            this.carry = -1;
+        }
+
+        @Override
+        void encode(byte[] data, int offset, int length, ByteBuffer destination) {
+            int index = offset;
+            int end = offset + length;
+            if (this.carry >= 0 && index < end) {
+                destination.put(this.table[data[index++] & 0xff][this.carry]);
+                this.carry = -1;
+            }
+            for (; index + 1 < end; index += 2) {
+                destination.put(this.table[data[index + 1] & 0xff][data[index] & 0xff]);
+            }
+            if (index < end) {
+                this.carry = data[index] & 0xff;
+            }
+        }
+
+    }
+
+    /**
+     * Encodes blocks of 20ms with the GSM 06.10 encoder of the codecs module.
+     */
+    private static final class GsmEncoder extends RecordingEncoder {
+
+        private static final int BLOCK_SIZE = 320;
+
+        private final org.mobicents.media.server.impl.dsp.audio.gsm.Encoder encoder;
+        private final byte[] block;
+        private int blockLength;
+
+        GsmEncoder() {
+            this.encoder = new org.mobicents.media.server.impl.dsp.audio.gsm.Encoder();
+            this.block = new byte[BLOCK_SIZE];
+            this.blockLength = 0;
+        }
+
+        @Override
+        void encode(byte[] data, int offset, int length, ByteBuffer destination) {
+            int index = offset;
+            int end = offset + length;
+            while (index < end) {
+                int count = Math.min(end - index, BLOCK_SIZE - this.blockLength);
+                System.arraycopy(data, index, this.block, this.blockLength, count);
+                this.blockLength += count;
+                index += count;
+
+                if (this.blockLength == BLOCK_SIZE) {
+                    encodeBlock(destination);
+                }
+            }
+        }
+
+        @Override
+        void flush(ByteBuffer destination) {
+            if (this.blockLength > 0) {
+                for (int i = this.blockLength; i < BLOCK_SIZE; i++) {
+                    this.block[i] = 0;
+                }
+                encodeBlock(destination);
+            }
+        }
+
+        private void encodeBlock(ByteBuffer destination) {
+            Frame input = Memory.allocate(BLOCK_SIZE);
+            System.arraycopy(this.block, 0, input.getData(), 0, BLOCK_SIZE);
+            input.setOffset(0);
+            input.setLength(BLOCK_SIZE);
+
+            Frame output = this.encoder.process(input);
+            destination.put(output.getData(), output.getOffset(), output.getLength());
+
+            input.recycle();
+            output.recycle();
+            this.blockLength = 0;
+        }
+
+    }
+
+}
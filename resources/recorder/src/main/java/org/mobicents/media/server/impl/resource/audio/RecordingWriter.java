@@ -0,0 +1,225 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.audio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of I/O threads that write recordings to disk on behalf of the media threads.
+ * <p>
+ * Each {@link RecorderFileSink} bound to this writer queues recorded audio into a ring of {@link #getQueueSize()} bytes.
+ * Once a quarter of the ring is filled, or when the recording is committed, the sink is handed to one of the I/O threads
+ * which drains it in writes of up to {@link #BUFFER_SIZE} bytes. Audio is dropped, rather than the media thread blocked,
+ * when the ring of a recording is full.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class RecordingWriter implements RecordingWriterMXBean {
+
+    public static final int DEFAULT_THREADS = 2;
+    public static final int DEFAULT_QUEUE_SIZE = 64 * 1024;
+
+    /** Size of the write buffer of each I/O thread, a multiple of the usual page size. */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int queueSize;
+    private final ExecutorService executor;
+    private final ThreadLocal<ByteBuffer> buffers;
+    private final ThreadLocal<byte[]> scratches;
+
+    // Metrics
+    private final AtomicInteger recordings;
+    private final AtomicLong queueDepth;
+    private final AtomicLong peakQueueDepth;
+    private final AtomicLong writtenBytes;
+    private final AtomicLong droppedFrames;
+    private final AtomicLong commits;
+
+    /**
+     * Creates a new writer.
+     * 
+     * @param threads The number of I/O threads.
+     * @param queueSize The number of bytes each recording can queue while waiting to be written.
+     */
+    public RecordingWriter(int threads, int queueSize) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of I/O threads must be positive");
+        }
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Queue size must be positive");
+        }
+        this.queueSize = queueSize;
+        this.executor = Executors.newFixedThreadPool(threads, new WriterThreadFactory());
+        this.buffers = new ThreadLocal<ByteBuffer>() {
+            @Override
+            protected ByteBuffer initialValue() {
+                return ByteBuffer.allocateDirect(BUFFER_SIZE);
+            }
+        };
+        this.scratches = new ThreadLocal<byte[]>() {
+            @Override
+            protected byte[] initialValue() {
+                return new byte[BUFFER_SIZE];
+            }
+        };
+
+        this.recordings = new AtomicInteger(0);
+        this.queueDepth = new AtomicLong(0);
+        this.peakQueueDepth = new AtomicLong(0);
+        this.writtenBytes = new AtomicLong(0);
+        this.droppedFrames = new AtomicLong(0);
+        this.commits = new AtomicLong(0);
+    }
+
+    public RecordingWriter() {
+        this(DEFAULT_THREADS, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Gets the number of bytes each recording can queue while waiting to be written.
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Gets the amount of queued audio that causes a recording to be drained.
+     */
+    int getBatchSize() {
+        return Math.min(this.queueSize / 4, BUFFER_SIZE);
+    }
+
+    void execute(Runnable task) {
+        this.executor.execute(task);
+    }
+
+    /**
+     * Gets the write buffer of the current I/O thread.
+     */
+    ByteBuffer getBuffer() {
+        return this.buffers.get();
+    }
+
+    /**
+     * Gets the array where the current I/O thread gathers queued audio before encoding it.
+     */
+    byte[] getScratch() {
+        return this.scratches.get();
+    }
+
+    void opened() {
+        this.recordings.incrementAndGet();
+    }
+
+    void committed() {
+        this.recordings.decrementAndGet();
+        this.commits.incrementAndGet();
+    }
+
+    void queued(int length) {
+        long depth = this.queueDepth.addAndGet(length);
+        long peak = this.peakQueueDepth.get();
+        while (depth > peak && !this.peakQueueDepth.compareAndSet(peak, depth)) {
+            peak = this.peakQueueDepth.get();
+        }
+    }
+
+    /**
+     * @param queued The amount of queued audio that was written, in bytes.
+     * @param encoded The amount of encoded audio written to disk, in bytes.
+     */
+    void written(int queued, int encoded) {
+        this.queueDepth.addAndGet(-queued);
+        this.writtenBytes.addAndGet(encoded);
+    }
+
+    void discarded(int length) {
+        this.queueDepth.addAndGet(-length);
+    }
+
+    void dropped() {
+        this.droppedFrames.incrementAndGet();
+    }
+
+    /**
+     * Stops the I/O threads after all pending recordings are written.
+     * 
+     * @param timeout The maximum time to wait for pending recordings, in milliseconds.
+     */
+    public void shutdown(long timeout) throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int getRecordingCount() {
+        return this.recordings.get();
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return this.queueDepth.get();
+    }
+
+    @Override
+    public long getPeakQueueDepth() {
+        return this.peakQueueDepth.get();
+    }
+
+    @Override
+    public long getWrittenBytes() {
+        return this.writtenBytes.get();
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return this.droppedFrames.get();
+    }
+
+    @Override
+    public long getCommitCount() {
+        return this.commits.get();
+    }
+
+    private static final class WriterThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger ID = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "recording-writer-" + ID.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
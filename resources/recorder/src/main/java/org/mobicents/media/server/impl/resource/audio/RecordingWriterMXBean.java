@@ -0,0 +1,63 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.audio;
+
+/**
+ * Management interface exposing the metrics of the {@link RecordingWriter}.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface RecordingWriterMXBean {
+
+    /**
+     * Gets the number of recordings currently open.
+     */
+    int getRecordingCount();
+
+    /**
+     * Gets the amount of recorded audio waiting to be encoded and written to disk, in bytes of linear PCM.
+     */
+    long getQueueDepth();
+
+    /**
+     * Gets the largest amount of recorded audio that was waiting to be written to disk, in bytes of linear PCM.
+     */
+    long getPeakQueueDepth();
+
+    /**
+     * Gets the amount of audio written to disk, in bytes of the recording format, excluding file headers.
+     */
+    long getWrittenBytes();
+
+    /**
+     * Gets the number of frames discarded because the queue of their recording was full.
+     */
+    long getDroppedFrames();
+
+    /**
+     * Gets the number of recordings committed to their target file.
+     */
+    long getCommitCount();
+
+}
@@ -4,7 +4,19 @@
  */
 package org.mobicents.media.server.impl.resource.audio;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -18,6 +30,8 @@ import org.mobicents.media.server.component.audio.Sine;
 import org.mobicents.media.server.scheduler.Clock;
 import org.mobicents.media.server.scheduler.WallClock;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.spi.recorder.RecorderEvent;
+import org.mobicents.media.server.spi.recorder.RecorderListener;
 
 /**
  *
@@ -76,6 +90,58 @@ public class AudioRecorderImplTest {
     
     @After
     public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testStopEventsAreDeliveredByScheduler() throws Exception {
+        // given
+        RecordingWriter writer = new RecordingWriter(1, 4096);
+        StartableRecorder recorder = new StartableRecorder(scheduler, writer);
+        EventCollector collector = new EventCollector(2);
+        recorder.addListener(collector);
+        Path directory = Files.createTempDirectory("recorder");
+
+        try {
+            // when
+            for (int i = 0; i < 2; i++) {
+                recorder.setRecordFile("file://" + directory.resolve("recording" + i + ".wav"), false);
+                recorder.begin();
+                recorder.end();
+            }
+
+            // then
+            assertTrue(collector.latch.await(5, TimeUnit.SECONDS));
+            assertEquals(2, collector.events.size());
+            assertNotSame(collector.events.get(0), collector.events.get(1));
+            for (int i = 0; i < 2; i++) {
+                assertEquals(RecorderEvent.STOP, collector.events.get(i).getID());
+                assertTrue(collector.threads.get(i), collector.threads.get(i).startsWith("scheduler-"));
+            }
+        } finally {
+            writer.shutdown(1000);
+            for (Path file : Files.newDirectoryStream(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testStopEventIsDroppedOnceRecycled() throws Exception {
+        // given
+        StartableRecorder recorder = new StartableRecorder(scheduler, null);
+        recorder.addListener(new EventCollector(1));
+        recorder.begin();
+
+        // when
+        recorder.end();
+        recorder.checkIn();
+        EventCollector collector = new EventCollector(1);
+        recorder.addListener(collector);
+
+        // then
+        assertFalse(collector.latch.await(200, TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -86,6 +152,47 @@ public class AudioRecorderImplTest {
         System.out.println("======" + Integer.toHexString(8000));
     }
 
+    private static class StartableRecorder extends AudioRecorderImpl {
+
+        private static final long serialVersionUID = 1L;
+
+        public StartableRecorder(PriorityQueueScheduler scheduler, RecordingWriter writer) {
+            super(scheduler, writer);
+        }
+
+        public void begin() {
+            start();
+            activate();
+        }
+
+        public void end() {
+            deactivate();
+            stop();
+        }
+
+    }
+
+    private static class EventCollector implements RecorderListener {
+
+        private final List<RecorderEvent> events = new ArrayList<RecorderEvent>();
+        private final List<String> threads = new ArrayList<String>();
+        private final CountDownLatch latch;
+
+        public EventCollector(int stops) {
+            this.latch = new CountDownLatch(stops);
+        }
+
+        @Override
+        public synchronized void process(RecorderEvent event) {
+            if (event.getID() == RecorderEvent.STOP) {
+                events.add(event);
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        }
+
+    }
+
     /**
      * Test of stop method, of class AudioRecorderImpl.
      * Check it manually
@@ -0,0 +1,281 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.media.server.impl.dsp.audio.g711.alaw.EncoderData;
+import org.mobicents.media.server.spi.recorder.RecordingFormat;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class RecorderFileSinkTest {
+
+    private static final int FRAME_SIZE = 320;
+
+    private Path directory;
+    private RecordingWriter writer;
+
+    @Before
+    public void before() throws IOException {
+        this.directory = Files.createTempDirectory("recorder");
+    }
+
+    @After
+    public void after() throws Exception {
+        if (this.writer != null) {
+            this.writer.shutdown(1000);
+        }
+        for (Path file : Files.newDirectoryStream(this.directory)) {
+            Files.delete(file);
+        }
+        Files.delete(this.directory);
+    }
+
+    private static ByteBuffer frame(int value) {
+        byte[] data = new byte[FRAME_SIZE];
+        Arrays.fill(data, (byte) value);
+        return ByteBuffer.wrap(data);
+    }
+
+    private static void commit(RecorderFileSink sink) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        sink.commit(new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void assertRecording(Path file, int frames) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer header = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(44 + frames * FRAME_SIZE, data.length);
+        assertEquals(36 + frames * FRAME_SIZE, header.getInt(4));
+        assertEquals(frames * FRAME_SIZE, header.getInt(40));
+        for (int i = 0; i < frames; i++) {
+            assertEquals("frame " + i, (byte) i, data[44 + i * FRAME_SIZE]);
+            assertEquals("frame " + i, (byte) i, data[44 + (i + 1) * FRAME_SIZE - 1]);
+        }
+    }
+
+    @Test
+    public void testWriteBehind() throws Exception {
+        // given
+        this.writer = new RecordingWriter(2, 64 * FRAME_SIZE);
+        Path target = this.directory.resolve("recording.wav");
+        RecorderFileSink sink = new RecorderFileSink(target, false, this.writer);
+
+        // when
+        for (int i = 0; i < 50; i++) {
+            sink.write(frame(i));
+        }
+        commit(sink);
+
+        // then
+        assertRecording(target, 50);
+        assertFalse(Files.exists(this.directory.resolve("recording.wav~")));
+        assertEquals(50 * FRAME_SIZE, this.writer.getWrittenBytes());
+        assertEquals(0, this.writer.getQueueDepth());
+        assertEquals(0, this.writer.getDroppedFrames());
+        assertEquals(1, this.writer.getCommitCount());
+        assertEquals(0, this.writer.getRecordingCount());
+    }
+
+    @Test
+    public void testDropFramesWhenQueueIsFull() throws Exception {
+        // given
+        this.writer = new RecordingWriter(1, 4 * FRAME_SIZE);
+        Path target = this.directory.resolve("recording.wav");
+        RecorderFileSink sink = new RecorderFileSink(target, false, this.writer);
+
+        // keep the only I/O thread busy, as if the disk was stalled
+        final CountDownLatch stall = new CountDownLatch(1);
+        this.writer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        // when
+        for (int i = 0; i < 6; i++) {
+            sink.write(frame(i));
+        }
+        long depth = this.writer.getQueueDepth();
+        stall.countDown();
+        commit(sink);
+
+        // then
+        assertEquals(4 * FRAME_SIZE, depth);
+        assertEquals(4 * FRAME_SIZE, this.writer.getPeakQueueDepth());
+        assertEquals(2, this.writer.getDroppedFrames());
+        assertRecording(target, 4);
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        // given
+        this.writer = new RecordingWriter(1, 16 * FRAME_SIZE);
+        Path target = this.directory.resolve("recording.wav");
+        RecorderFileSink first = new RecorderFileSink(target, true, this.writer);
+        for (int i = 0; i < 3; i++) {
+            first.write(frame(i));
+        }
+        commit(first);
+
+        // when
+        RecorderFileSink second = new RecorderFileSink(target, true, this.writer);
+        for (int i = 3; i < 5; i++) {
+            second.write(frame(i));
+        }
+        commit(second);
+
+        // then
+        assertRecording(target, 5);
+    }
+
+    @Test
+    public void testSynchronousCommit() throws Exception {
+        // given
+        Path target = this.directory.resolve("recording.wav");
+        RecorderFileSink sink = new RecorderFileSink(target, false);
+        for (int i = 0; i < 3; i++) {
+            sink.write(frame(i));
+        }
+
+        // when
+        sink.commit();
+        sink.write(frame(3));
+
+        // then
+        assertRecording(target, 3);
+    }
+
+    @Test
+    public void testG711Recording() throws Exception {
+        // given
+        this.writer = new RecordingWriter(1, 16 * FRAME_SIZE);
+        Path target = this.directory.resolve("recording.wav");
+        RecorderFileSink sink = new RecorderFileSink(target, false, RecordingFormat.PCMA, this.writer);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            sink.write(frame(i));
+        }
+        commit(sink);
+
+        // then
+        byte[] data = Files.readAllBytes(target);
+        ByteBuffer header = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(44 + 10 * FRAME_SIZE / 2, data.length);
+        assertEquals(6, header.getShort(20));
+        assertEquals(1, header.getShort(22));
+        assertEquals(8000, header.getInt(24));
+        assertEquals(8000, header.getInt(28));
+        assertEquals(1, header.getShort(32));
+        assertEquals(8, header.getShort(34));
+        assertEquals(10 * FRAME_SIZE / 2, header.getInt(40));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("frame " + i, EncoderData.aLawCompressTable[i][i], data[44 + i * FRAME_SIZE / 2]);
+        }
+        assertEquals(10 * FRAME_SIZE / 2, this.writer.getWrittenBytes());
+    }
+
+    @Test
+    public void testG711AppendWithSplitSamples() throws Exception {
+        // given
+        Path target = this.directory.resolve("recording.wav");
+        RecorderFileSink first = new RecorderFileSink(target, true, RecordingFormat.PCMU, null);
+        first.write(frame(1));
+        first.commit();
+
+        // when
+        RecorderFileSink second = new RecorderFileSink(target, true, RecordingFormat.PCMU, null);
+        ByteBuffer frame = frame(2);
+        frame.limit(FRAME_SIZE / 2 + 1);
+        second.write(frame);
+        frame.limit(FRAME_SIZE);
+        second.write(frame);
+        second.commit();
+
+        // then
+        byte[] data = Files.readAllBytes(target);
+        ByteBuffer header = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(44 + FRAME_SIZE, data.length);
+        assertEquals(7, header.getShort(20));
+        assertEquals(FRAME_SIZE, header.getInt(40));
+        byte[] mulaw = org.mobicents.media.server.impl.dsp.audio.g711.ulaw.EncoderData.muLawCompressTable[2];
+        for (int i = 44 + FRAME_SIZE / 2; i < data.length; i++) {
+            assertEquals("sample " + i, mulaw[2], data[i]);
+        }
+    }
+
+    @Test
+    public void testGsmRecording() throws Exception {
+        // given
+        Path target = this.directory.resolve("recording.gsm");
+        RecorderFileSink sink = new RecorderFileSink(target, false, RecordingFormat.GSM, null);
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            sink.write(frame(i));
+        }
+        ByteBuffer partial = frame(5);
+        partial.limit(FRAME_SIZE / 2);
+        sink.write(partial);
+        sink.commit();
+
+        // then
+        byte[] data = Files.readAllBytes(target);
+        assertEquals(6 * 33, data.length);
+        for (int i = 0; i < 6; i++) {
+            assertEquals("frame " + i, 0xD0, data[i * 33] & 0xF0);
+        }
+    }
+
+}
@@ -31,7 +31,9 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.log4j.Logger;
 import org.mobicents.media.ComponentType;
 import org.mobicents.media.server.component.audio.AudioOutput;
-import org.mobicents.media.server.component.audio.GoertzelFilter;
+import org.mobicents.media.server.component.audio.ToneAnalyzer;
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
+import org.mobicents.media.server.component.audio.ToneFilterBank;
 import org.mobicents.media.server.component.oob.OOBOutput;
 import org.mobicents.media.server.impl.AbstractSink;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
@@ -57,6 +59,9 @@ import org.mobicents.media.server.spi.pooling.PooledObject;
  * InbandDetector there is no guarantee that it will always work. In future MMS may not have DSP in front of InbandDetector and
  * hence Inband detection for codecs like SPEEX, GSM, G729 may completely stop
  * 
+ * Audio is analysed in blocks of 80ms. Blocks whose energy is below the volume of the detector are skipped, while the others
+ * are measured by a {@link ToneDetectionEngine}, either shared with other detectors or inline when the detector has none.
+ * 
  * @author yulian oifa
  * @author amit bhayani
  * @author Henrique Rosa (henrique.rosa@telestax.com)
@@ -80,27 +85,19 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
     // private final static String[] evtID = new String[]{"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "A", "B", "C", "D", "#", "*"};
     private final static String[] oobEvtID = new String[] { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "*", "#", "A", "B", "C", "D" };
 
-    private final static int[] lowFreq = new int[] { 697, 770, 852, 941 };
-    private final static int[] highFreq = new int[] { 1209, 1336, 1477, 1633 };
-
-    private GoertzelFilter[] lowFreqFilters = new GoertzelFilter[4];
-    private GoertzelFilter[] highFreqFilters = new GoertzelFilter[4];
+    /**
+     * The filters of the eight DTMF frequencies, shared by all detectors.
+     */
+    private final static ToneFilterBank FILTERS = ToneFilterBank.getInstance(8000, 640, 697, 770, 852, 941, 1209, 1336,
+            1477, 1633);
 
-    private double threshold = 0;
+    private volatile double threshold = 0;
 
     private int level;
-    private int offset = 0;
 
     private int toneDuration = TONE_DURATION;
-    private int N = 8 * toneDuration;
-
-    private double scale = (double) toneDuration / (double) 1000;
-
-    private double p[] = new double[4];
-    private double P[] = new double[4];
 
-    private double[] signal;
-    private double maxAmpl;
+    private final ToneAnalyzer analyzer;
 
     private DtmfBuffer dtmfBuffer;
 
@@ -116,6 +113,17 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
     private static final Logger logger = Logger.getLogger(DetectorImpl.class);
 
     public DetectorImpl(String name, PriorityQueueScheduler scheduler) {
+        this(name, scheduler, null);
+    }
+
+    /**
+     * Creates a detector whose audio is analysed by a shared engine, in batch with the audio of other detectors.
+     * 
+     * @param name The name of the detector
+     * @param scheduler The media scheduler
+     * @param engine The detection engine. If null, audio is analysed by the thread delivering it.
+     */
+    public DetectorImpl(String name, PriorityQueueScheduler scheduler, ToneDetectionEngine engine) {
         super(name);
 
         this.scheduler = scheduler;
@@ -123,11 +131,8 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
         dtmfBuffer = new DtmfBuffer(this);
         eventSender = new EventSender();
 
-        signal = new double[N];
-        for (int i = 0; i < 4; i++) {
-            lowFreqFilters[i] = new GoertzelFilter(lowFreq[i], N, scale);
-            highFreqFilters[i] = new GoertzelFilter(highFreq[i], N, scale);
-        }
+        analyzer = new ToneAnalyzer(new DtmfClassifier(), engine);
+        analyzer.setBank(FILTERS);
         this.level = DEFAULT_SIGNAL_LEVEL;
 
         output = new AudioOutput(scheduler, ComponentType.DTMF_DETECTOR.getType());
@@ -148,8 +153,7 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
 
     @Override
     public void activate() {
-        this.offset = 0;
-        this.maxAmpl = 0;
+        this.analyzer.reset();
 
         this.dtmfBuffer.clear();
         output.start();
@@ -174,6 +178,8 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
     public void setVolume(int level) {
         this.level = level;
         threshold = Math.pow(Math.pow(10, level), 0.1) * Short.MAX_VALUE;
+        // skip blocks quieter than the threshold
+        analyzer.setSilenceLevel(threshold);
     }
 
     public void setLasy(boolean isLazy) {
@@ -186,111 +192,53 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
 
     @Override
     public void onMediaTransfer(Frame buffer) throws IOException {
-        byte[] data = buffer.getData();
-
-        int M = buffer.getLength();
-        int k = 0;
-        while (k < M) {
-            while (offset < N && k < M - 1) {
-                double s = ((data[k++] & 0xff) | (data[k++] << 8));
-                double sa = Math.abs(s);
-                if (sa > maxAmpl) {
-                    maxAmpl = sa;
-                }
-                signal[offset++] = s;
-            }
-
-            // if dtmf buffer full check signal
-            if (offset == N) {
-                offset = 0;
-
-                // and if max amplitude of signal is greater theshold
-                // try to detect tone.
-                if (maxAmpl >= threshold) {
-                    maxAmpl = 0;
-
-                    getPower(lowFreqFilters, signal, 0, p);
-                    getPower(highFreqFilters, signal, 0, P);
-
-                    String tone = getTone(p, P);
-
-                    if (tone != null)
-                        dtmfBuffer.push(tone);
-                }
-            }
-        }
-    }
-
-    private void getPower(GoertzelFilter[] filters, double[] data, int offset, double[] power) {
-        for (int i = 0; i < 4; i++) {
-            // power[i] = filter.getPower(freq[i], data, 0, data.length, (double) TONE_DURATION / (double) 1000);
-            power[i] = filters[i].getPower(data, offset);
-        }
+        analyzer.process(buffer.getData(), buffer.getOffset(), buffer.getLength());
     }
 
     /**
-     * Searches maximum value in the specified array.
+     * Searches a DTMF tone in the power of the DTMF frequencies.
      * 
-     * @param data[] input data.
-     * @return the index of the maximum value in the data array.
+     * @param power The squared magnitudes of the four low frequencies followed by the four high frequencies
+     * @param threshold The minimum ratio between the magnitude of the strongest frequency of each group and the magnitude of
+     *        the other frequencies of the same group
+     * @return The index of the tone in {@link #events}, as row * 4 + column, or -1 if no tone is found.
      */
-    private int getMax(double data[]) {
-        int idx = 0;
-        double max = data[0];
-        for (int i = 1; i < data.length; i++) {
-            if (max < data[i]) {
-                max = data[i];
-                idx = i;
-            }
+    static int getTone(float[] power, double threshold) {
+        int row = getStrongest(power, 0, threshold);
+        if (row < 0) {
+            return -1;
+        }
+        int column = getStrongest(power, 4, threshold);
+        if (column < 0) {
+            return -1;
         }
-        return idx;
+        return row * 4 + column;
     }
 
     /**
-     * Searches DTMF tone.
+     * Finds the frequency of a group that dominates the others by the threshold.
      * 
-     * @param f the low frequency array
-     * @param F the high frequency array.
-     * @return DTMF tone.
+     * @return the index of the frequency within the group, or -1 if none dominates.
      */
-    private String getTone(double f[], double F[]) {
-        int fm = getMax(f);
-        boolean fd = true;
-
-        for (int i = 0; i < f.length; i++) {
-            if (fm == i) {
-                continue;
-            }
-            double r = f[fm] / (f[i] + 1E-15);
-            if (r < threshold) {
-                fd = false;
-                break;
+    private static int getStrongest(float[] power, int offset, double threshold) {
+        int max = offset;
+        for (int i = offset + 1; i < offset + 4; i++) {
+            if (power[i] > power[max]) {
+                max = i;
             }
         }
-
-        if (!fd) {
-            return null;
+        if (power[max] == 0) {
+            return -1;
         }
 
-        int Fm = getMax(F);
-        boolean Fd = true;
-
-        for (int i = 0; i < F.length; i++) {
-            if (Fm == i) {
-                continue;
+        // magnitudes are squared, and so is the threshold
+        double limit = power[max] / (threshold * threshold);
+        for (int i = offset; i < offset + 4; i++) {
+            if (i != max && power[i] > limit) {
+                return -1;
             }
-            double r = F[Fm] / (F[i] + 1E-15);
-            if (r < threshold) {
-                Fd = false;
-                break;
-            }
-        }
-
-        if (!Fd) {
-            return null;
         }
-
-        return events[fm][Fm];
+        return max - offset;
     }
 
     public Formats getNativeFormats() {
@@ -362,6 +310,21 @@ public class DetectorImpl extends AbstractSink implements DtmfDetector, PooledOb
         dtmfBuffer.clear();
     }
 
+    /**
+     * Turns the power measured on each block into DTMF tones.
+     */
+    private final class DtmfClassifier implements ToneAnalyzer.Callback {
+
+        @Override
+        public void onAnalysis(ToneFilterBank bank, float[] power) {
+            int tone = getTone(power, threshold);
+            if (tone >= 0) {
+                dtmfBuffer.push(events[tone / 4][tone % 4]);
+            }
+        }
+
+    }
+
     public class EventSender extends Task {
 
         private final Queue<DtmfEventImpl> events = new ConcurrentLinkedQueue<>();
@@ -23,11 +23,16 @@ package org.mobicents.media.server.impl.resource.dtmf;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 import org.mobicents.media.server.spi.pooling.PooledObjectFactory;
 
 /**
  * Factory that produces DTMF Detectors.
+ * <p>
+ * All detectors produced by the factory share a {@link ToneDetectionEngine}, which measures their audio in one batch per
+ * scheduler cycle. The engine may also be shared with other kinds of tone detectors.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
@@ -40,21 +45,30 @@ public class DtmfDetectorFactory implements PooledObjectFactory<DetectorImpl> {
     private static final int DEFAULT_DETECTOR_DBI = -35;
 
     private final PriorityQueueScheduler mediaScheduler;
+    private final ToneDetectionEngine engine;
     private int volume;
 
-    public DtmfDetectorFactory(PriorityQueueScheduler mediaScheduler, int volume) {
+    public DtmfDetectorFactory(PriorityQueueScheduler mediaScheduler, int volume, ToneDetectionEngine engine) {
         this.mediaScheduler = mediaScheduler;
+        this.engine = engine;
         this.volume = volume;
     }
 
+    public DtmfDetectorFactory(PriorityQueueScheduler mediaScheduler, ToneDetectionEngine engine) {
+        this(mediaScheduler, DEFAULT_DETECTOR_DBI, engine);
+    }
+
+    public DtmfDetectorFactory(PriorityQueueScheduler mediaScheduler, int volume) {
+        this(mediaScheduler, volume, new ToneDetectionEngine(mediaScheduler));
+    }
+
     public DtmfDetectorFactory(PriorityQueueScheduler mediaScheduler) {
-        this.mediaScheduler = mediaScheduler;
-        this.volume = DEFAULT_DETECTOR_DBI;
+        this(mediaScheduler, DEFAULT_DETECTOR_DBI);
     }
 
     @Override
     public DetectorImpl produce() {
-        DetectorImpl detector = new DetectorImpl("detector-" + ID.getAndIncrement(), mediaScheduler);
+        DetectorImpl detector = new DetectorImpl("detector-" + ID.getAndIncrement(), mediaScheduler, engine);
         detector.setVolume(this.volume);
         return detector;
     }
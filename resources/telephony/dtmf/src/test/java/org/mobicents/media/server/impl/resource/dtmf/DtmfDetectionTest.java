@@ -0,0 +1,170 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.impl.resource.dtmf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
+import org.mobicents.media.server.component.audio.ToneFilterBank;
+import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
+import org.mobicents.media.server.scheduler.WallClock;
+import org.mobicents.media.server.spi.dtmf.DtmfDetectorListener;
+import org.mobicents.media.server.spi.dtmf.DtmfEvent;
+import org.mobicents.media.server.spi.memory.Frame;
+import org.mobicents.media.server.spi.memory.Memory;
+
+/**
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class DtmfDetectionTest {
+
+    private static final int BLOCK_SIZE = 640;
+    private static final int[] LOW = new int[] { 697, 770, 852, 941 };
+    private static final int[] HIGH = new int[] { 1209, 1336, 1477, 1633 };
+
+    // threshold of a detector set to -35 dB
+    private static final double THRESHOLD = Math.pow(Math.pow(10, -35), 0.1) * Short.MAX_VALUE;
+
+    private static final ToneFilterBank FILTERS = ToneFilterBank.getInstance(8000, BLOCK_SIZE, 697, 770, 852, 941, 1209,
+            1336, 1477, 1633);
+
+    private PriorityQueueScheduler scheduler;
+
+    @Before
+    public void before() {
+        this.scheduler = new PriorityQueueScheduler(new WallClock());
+    }
+
+    @After
+    public void after() {
+        this.scheduler.stop();
+    }
+
+    private static float[] tone(int low, int high, int amplitude) {
+        float[] block = new float[BLOCK_SIZE];
+        for (int i = 0; i < block.length; i++) {
+            double t = (double) i / 8000;
+            block[i] = (float) (amplitude * (Math.sin(2 * Math.PI * low * t) + Math.sin(2 * Math.PI * high * t)));
+        }
+        return block;
+    }
+
+    private static void transfer(DetectorImpl detector, float[] block) throws Exception {
+        for (int offset = 0; offset < block.length; offset += 160) {
+            Frame frame = Memory.allocate(320);
+            byte[] data = frame.getData();
+            for (int i = 0; i < 160; i++) {
+                int sample = (int) block[offset + i];
+                data[2 * i] = (byte) sample;
+                data[2 * i + 1] = (byte) (sample >> 8);
+            }
+            frame.setOffset(0);
+            frame.setLength(320);
+            detector.onMediaTransfer(frame);
+        }
+    }
+
+    @Test
+    public void testDetectAllTones() {
+        // given
+        float[] power = new float[8];
+
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                // when
+                float[] block = tone(LOW[row], HIGH[column], 4000);
+                FILTERS.analyze(block, 0, power);
+                int tone = DetectorImpl.getTone(power, THRESHOLD);
+
+                // then
+                assertEquals(DetectorImpl.events[row][column], row * 4 + column, tone);
+            }
+        }
+    }
+
+    @Test
+    public void testIgnoreSilenceAndSingleFrequencies() {
+        // given
+        float[] power = new float[8];
+        float[] silence = new float[BLOCK_SIZE];
+        float[] single = new float[BLOCK_SIZE];
+        for (int i = 0; i < single.length; i++) {
+            single[i] = (float) (4000 * Math.sin(2 * Math.PI * 1000 * i / 8000));
+        }
+
+        // when
+        FILTERS.analyze(silence, 0, power);
+        int silent = DetectorImpl.getTone(power, THRESHOLD);
+        FILTERS.analyze(single, 0, power);
+        int noise = DetectorImpl.getTone(power, THRESHOLD);
+
+        // then
+        assertEquals(-1, silent);
+        assertEquals(-1, noise);
+    }
+
+    @Test
+    public void testBatchDetection() throws Exception {
+        // given
+        ToneDetectionEngine engine = new ToneDetectionEngine(this.scheduler);
+        final CountDownLatch latch = new CountDownLatch(2);
+        final String[] tones = new String[3];
+        DetectorImpl[] detectors = new DetectorImpl[3];
+        for (int i = 0; i < detectors.length; i++) {
+            final int index = i;
+            detectors[i] = new DetectorImpl("detector-" + i, this.scheduler, engine);
+            detectors[i].setVolume(-35);
+            detectors[i].addListener(new DtmfDetectorListener() {
+
+                @Override
+                public void process(DtmfEvent event) {
+                    tones[index] = event.getTone();
+                    latch.countDown();
+                }
+            });
+        }
+        this.scheduler.start();
+
+        // when
+        transfer(detectors[0], tone(770, 1336, 4000));
+        transfer(detectors[1], new float[BLOCK_SIZE]);
+        transfer(detectors[2], tone(941, 1477, 4000));
+
+        // then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals("5", tones[0]);
+        assertEquals(null, tones[1]);
+        assertEquals("#", tones[2]);
+        // the silent block is skipped by the energy gate
+        assertEquals(2, engine.getAnalysedBlocks());
+    }
+
+}
@@ -21,7 +21,9 @@ import java.io.IOException;
 
 import org.mobicents.media.ComponentType;
 import org.mobicents.media.server.component.audio.AudioOutput;
-import org.mobicents.media.server.component.audio.GoertzelFilter;
+import org.mobicents.media.server.component.audio.ToneAnalyzer;
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
+import org.mobicents.media.server.component.audio.ToneFilterBank;
 import org.mobicents.media.server.impl.AbstractSink;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 import org.mobicents.media.server.spi.FormatNotSupportedException;
@@ -37,6 +39,11 @@ import org.mobicents.media.server.spi.tone.ToneDetector;
 import org.mobicents.media.server.spi.tone.ToneDetectorListener;
 
 /**
+ * Detects the presence of any of a set of frequencies, such as call progress, fax or continuity tones.
+ * <p>
+ * Audio is measured in blocks of 50ms by a {@link ToneDetectionEngine}, which can be shared with other tone and DTMF
+ * detectors. Blocks quieter than the volume of the detector are skipped.
+ * </p>
  *
  * @author Oifa Yulian
  * @author Henrique Rosa (henrique.rosa@telestax.com)
@@ -47,26 +54,30 @@ public class PhoneSignalDetector extends AbstractSink implements ToneDetector, P
     private final static int PACKET_DURATION = 50;
     private AudioFormat LINEAR_AUDIO = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);    
     private int[] f;
-    private int offset;
     private int toneDuration = PACKET_DURATION;
     private int N = 8 * toneDuration;
-    private double scale = (double) toneDuration / (double) 1000;
-    private GoertzelFilter[] freqFilters;
-    private double[] signal;
-    private double maxAmpl;
     private double threshold;
     private int level;
-    private double p[];
-    private long startTime;
-    private int count;    
+    private final ToneAnalyzer analyzer;
 
     private AudioOutput output;
         
     private Listeners<ToneDetectorListener> listeners = new Listeners<ToneDetectorListener>();    
     
     public PhoneSignalDetector(String name,PriorityQueueScheduler scheduler) {
+        this(name, scheduler, null);
+    }
+
+    /**
+     * Creates a detector whose audio is measured by a shared engine, in batch with the audio of other detectors.
+     * 
+     * @param name The name of the detector
+     * @param scheduler The media scheduler
+     * @param engine The detection engine. If null, audio is measured by the thread delivering it.
+     */
+    public PhoneSignalDetector(String name, PriorityQueueScheduler scheduler, ToneDetectionEngine engine) {
         super(name);
-        signal = new double[N];  
+        analyzer = new ToneAnalyzer(new SignalClassifier(), engine);
 
         output=new AudioOutput(scheduler,ComponentType.SIGNAL_DETECTOR.getType());
         output.join(this);    
@@ -79,12 +90,7 @@ public class PhoneSignalDetector extends AbstractSink implements ToneDetector, P
     
     public void setFrequency(int[] f) {
         this.f = f;
-        freqFilters = new GoertzelFilter[f.length];
-        p = new double[f.length];
-
-        for (int i = 0; i < f.length; i++) {
-            freqFilters[i] = new GoertzelFilter(f[i], N, scale);
-        }
+        analyzer.setBank(ToneFilterBank.getInstance(8000, N, f));
     }
 
     public int[] getFrequency() {
@@ -94,6 +100,8 @@ public class PhoneSignalDetector extends AbstractSink implements ToneDetector, P
     public void setVolume(int level) {
         this.level = level;
         threshold = Math.pow(Math.pow(10, level), 0.1) * Short.MAX_VALUE;
+        // skip blocks quieter than the threshold
+        analyzer.setSilenceLevel(threshold);
     }
 
     public int getVolume() {
@@ -101,6 +109,7 @@ public class PhoneSignalDetector extends AbstractSink implements ToneDetector, P
     }
 
     public void activate() {
+    	analyzer.reset();
     	output.start();
     }
     
@@ -110,51 +119,20 @@ public class PhoneSignalDetector extends AbstractSink implements ToneDetector, P
     
     @Override
     public void onMediaTransfer(Frame frame) throws IOException {
-    	byte[] data = frame.getData();
-
-        int M = data.length;
-        int k = 0;
-        while (k < M) {
-            while (offset < N && k < M - 1) {
-                double s = ((data[k++] & 0xff) | (data[k++] << 8));
-                double sa = Math.abs(s);
-                if (sa > maxAmpl) {
-                    maxAmpl = sa;
-                }
-                signal[offset++] = s;
-            }
-
-            //if dtmf buffer full check signal
-            if (offset == N) {
-                offset = 0;
-                //and if max amplitude of signal is greater theshold
-                //try to detect tone.
-                if (maxAmpl >= threshold) {                	
-                    maxAmpl = 0;
-                    getPower(freqFilters, signal, 0, p);
-                    int detectedValue=isDetected();
-                    if (detectedValue>=0)
-                    	sendEvent(new ToneEventImpl(this,getFrequency()[detectedValue]));
-                }                
-            }
-        }
+        analyzer.process(frame.getData(), frame.getOffset(), frame.getLength());
     }    
 
-    private int isDetected() {
-    	for (int i = 0; i < p.length; i++) {
-            if (p[i] >= POWER) {
+    private int isDetected(float[] p) {
+        // measures are squared magnitudes
+        double power = POWER * POWER;
+    	for (int i = 0; i < f.length; i++) {
+            if (p[i] >= power) {
                 return i;
             }
         }
         return -1;
     }
 
-    private void getPower(GoertzelFilter[] filters, double[] data, int offset, double[] power) {
-        for (int i = 0; i < filters.length; i++) {
-            power[i] = filters[i].getPower(data, offset);            
-        }
-    }
-
     /**
      * (Non Java-doc.)
      *
@@ -195,4 +173,19 @@ public class PhoneSignalDetector extends AbstractSink implements ToneDetector, P
         // TODO Auto-generated method stub
         
     }    
+
+    /**
+     * Raises an event when one of the frequencies is found in a block.
+     */
+    private final class SignalClassifier implements ToneAnalyzer.Callback {
+
+        @Override
+        public void onAnalysis(ToneFilterBank bank, float[] power) {
+            int detectedValue = isDetected(power);
+            if (detectedValue >= 0) {
+                sendEvent(new ToneEventImpl(PhoneSignalDetector.this, f[detectedValue]));
+            }
+        }
+
+    }
 }
@@ -23,11 +23,15 @@ package org.mobicents.media.server.impl.resource.phone;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.mobicents.media.server.component.audio.ToneDetectionEngine;
 import org.mobicents.media.server.scheduler.PriorityQueueScheduler;
 import org.mobicents.media.server.spi.pooling.PooledObjectFactory;
 
 /**
  * Factory that produces Phone Signal Detectors.
+ * <p>
+ * All detectors produced by the factory share a {@link ToneDetectionEngine}, which may also serve DTMF detectors.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -38,14 +42,20 @@ public class PhoneSignalDetectorFactory implements PooledObjectFactory<PhoneSign
     private static final AtomicInteger ID = new AtomicInteger(1);
 
     private final PriorityQueueScheduler mediaScheduler;
+    private final ToneDetectionEngine engine;
 
-    public PhoneSignalDetectorFactory(PriorityQueueScheduler mediaScheduler) {
+    public PhoneSignalDetectorFactory(PriorityQueueScheduler mediaScheduler, ToneDetectionEngine engine) {
         this.mediaScheduler = mediaScheduler;
+        this.engine = engine;
+    }
+
+    public PhoneSignalDetectorFactory(PriorityQueueScheduler mediaScheduler) {
+        this(mediaScheduler, new ToneDetectionEngine(mediaScheduler));
     }
 
     @Override
     public PhoneSignalDetector produce() {
-        return new PhoneSignalDetector("signal-detector-" + ID.getAndIncrement(), mediaScheduler);
+        return new PhoneSignalDetector("signal-detector-" + ID.getAndIncrement(), mediaScheduler, engine);
     }
 
 }
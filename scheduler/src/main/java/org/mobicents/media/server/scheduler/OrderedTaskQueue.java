@@ -53,16 +53,18 @@ public class OrderedTaskQueue {
     	{
     		if(!task.isInQueue0())
     		{
-    			taskList[0].offer(task);
+    			//flag first, the core thread may poll the task as soon as it is offered
     			task.storedInQueue0();
+    			taskList[0].offer(task);
     		}
     	}
     	else
     	{
     		if(!task.isInQueue1())
     		{
-    			taskList[1].offer(task);
+    			//flag first, the core thread may poll the task as soon as it is offered
     			task.storedInQueue1();
+    			taskList[1].offer(task);
     		}
     	}    	    	    
     }
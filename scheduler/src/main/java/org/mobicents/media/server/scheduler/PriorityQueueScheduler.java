@@ -23,6 +23,7 @@
 package org.mobicents.media.server.scheduler;
 
 import java.lang.InterruptedException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 
@@ -40,8 +41,12 @@ import org.apache.log4j.Logger;
  * changed dynamically at runtime using the initial priority level, feedback
  * and other parameters.
  *
+ * Tasks are handed over to the worker threads according to the
+ * {@link SchedulingMode}. Either way, the queues are executed one at a time
+ * so the order of the phases within a cycle is preserved.
  *
  * @author Oifa Yulian
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
 public class PriorityQueueScheduler  {
 	//SS7 QUEUES
@@ -59,14 +64,20 @@ public class PriorityQueueScheduler  {
 	public static final Integer MIXER_MIX_QUEUE=5;
 	public static final Integer OUTPUT_QUEUE=6;
 	
+	//NETWORK QUEUE FOR FLUSHING PACKETS PRODUCED BY OUTPUT QUEUE
+	public static final Integer FLUSH_QUEUE=7;
+	
 	//HEARTBEAT QUEUE
 	public static final Integer HEARTBEAT_QUEUE=-1;
 	
+	//DURATION OF A CYCLE, IN NANOSECONDS
+	public static final long CYCLE_DURATION=20000000L;
+	
     //The clock for time measurement
     private Clock clock;
 
     //priority queue
-    protected OrderedTaskQueue[] taskQueues = new OrderedTaskQueue[7];
+    protected OrderedTaskQueue[] taskQueues = new OrderedTaskQueue[8];
 
     protected OrderedTaskQueue[] heartBeatQueue = new OrderedTaskQueue[5];
     
@@ -82,14 +93,23 @@ public class PriorityQueueScheduler  {
     private ConcurrentCyclicFIFO<Task> waitingTasks=new ConcurrentCyclicFIFO<Task>();
     private ConcurrentCyclicFIFO<Task> criticalTasks=new ConcurrentCyclicFIFO<Task>();
     
+    private final SchedulingMode schedulingMode;
     private WorkerThread[] workerThreads;
+    private StealingWorkerThread[] stealingWorkerThreads;
     private CriticalWorkerThread[] criticalWorkerThreads;
 
+    //timing metrics
+    private final SchedulerMetrics metrics=new SchedulerMetrics();
+
     /**
      * Creates new instance of scheduler.
+     * 
+     * @param clock the clock used for time measurement.
+     * @param schedulingMode defines how tasks are handed over to the worker threads.
      */
-    public PriorityQueueScheduler(Clock clock) {
+    public PriorityQueueScheduler(Clock clock, SchedulingMode schedulingMode) {
         this.clock = clock;
+        this.schedulingMode = schedulingMode;
 
     	for(int i=0;i<taskQueues.length;i++) {
     		taskQueues[i]=new OrderedTaskQueue();
@@ -102,24 +122,52 @@ public class PriorityQueueScheduler  {
     	coreThread = new CoreThread("scheduler-core");  
     	criticalThread = new CriticalThread("scheduler-critical");
     	
-        workerThreads=new WorkerThread[Runtime.getRuntime().availableProcessors()*2];
-        criticalWorkerThreads=new CriticalWorkerThread[Runtime.getRuntime().availableProcessors()*2];
-        for(int i=0;i<workerThreads.length;i++) {
-            workerThreads[i] = new WorkerThread("scheduler-worker-" + i);
+        if(schedulingMode==SchedulingMode.WORK_STEALING) {
+            workerThreads=new WorkerThread[0];
+            stealingWorkerThreads=new StealingWorkerThread[Runtime.getRuntime().availableProcessors()*2];
+            for(int i=0;i<stealingWorkerThreads.length;i++) {
+                stealingWorkerThreads[i] = new StealingWorkerThread("scheduler-worker-" + i);
+            }
+        } else {
+            workerThreads=new WorkerThread[Runtime.getRuntime().availableProcessors()*2];
+            stealingWorkerThreads=new StealingWorkerThread[0];
+            for(int i=0;i<workerThreads.length;i++) {
+                workerThreads[i] = new WorkerThread("scheduler-worker-" + i);
+            }
         }
         
+        criticalWorkerThreads=new CriticalWorkerThread[Runtime.getRuntime().availableProcessors()*2];
+        
         for(int i=0;i<criticalWorkerThreads.length;i++) {
             criticalWorkerThreads[i] = new CriticalWorkerThread("scheduler-critical-worker-" + i);
         }
     }
     
+    /**
+     * Creates new instance of scheduler that shares a single queue among all workers.
+     * 
+     * @param clock the clock used for time measurement.
+     */
+    public PriorityQueueScheduler(Clock clock) {
+        this(clock, SchedulingMode.SHARED_QUEUE);
+    }
+    
     public PriorityQueueScheduler() {
         this(null);
     }
 
     public int getPoolSize()
     {
-    	return workerThreads.length;
+    	return workerThreads.length + stealingWorkerThreads.length;
+    }
+    
+    /**
+     * Gets how tasks are handed over to the worker threads.
+     * 
+     * @return the scheduling mode.
+     */
+    public SchedulingMode getSchedulingMode() {
+        return schedulingMode;
     }
     
     /**
@@ -160,6 +208,47 @@ public class PriorityQueueScheduler  {
         heartBeatQueue[coreThread.runIndex].accept(task);
     }
     
+    /**
+     * Runs a task within the queue that is currently being executed, next to the task that forks it.
+     * <p>
+     * The core thread does not move on to the next queue until forked tasks complete, so a task can split its work in
+     * several parts that run in parallel on other workers and still finish within its own queue. Must only be called
+     * from a task that is running on one of the queues of the core thread. When the scheduler is not running, the task
+     * is executed immediately by the calling thread.
+     * </p>
+     * <p>
+     * In {@link SchedulingMode#WORK_STEALING} mode the task is pushed on the deque of the calling worker, where idle
+     * workers steal it from. A task forked from any other thread is executed immediately by that thread.
+     * </p>
+     *
+     * @param task the task to be executed.
+     */
+    public void fork(Task task) {
+        if(!this.isActive) {
+            runTask(task);
+            return;
+        }
+
+        if(schedulingMode==SchedulingMode.WORK_STEALING) {
+            Thread current=Thread.currentThread();
+            if(!(current instanceof StealingWorkerThread) || ((StealingWorkerThread)current).scheduler()!=this) {
+                runTask(task);
+                return;
+            }
+
+            //only the owner may push on a deque, the forking worker is busy so let an idle one take the task
+            task.activate(false);
+            coreThread.activeTasksCount.incrementAndGet();
+            StealingWorkerThread worker=(StealingWorkerThread)current;
+            worker.tasks.push(task);
+            signalIdleWorker(worker);
+        } else {
+            task.activate(false);
+            coreThread.activeTasksCount.incrementAndGet();
+            waitingTasks.offer(task);
+        }
+    }
+
     /**
      * Queues chain of the tasks for execution.
      * 
@@ -189,6 +278,9 @@ public class PriorityQueueScheduler  {
         for(int i=0;i<workerThreads.length;i++)
         	workerThreads[i].activate();
         
+        for(int i=0;i<stealingWorkerThreads.length;i++)
+        	stealingWorkerThreads[i].activate();
+        
         for(int i=0;i<criticalWorkerThreads.length;i++)
         	criticalWorkerThreads[i].activate();        
         
@@ -208,6 +300,9 @@ public class PriorityQueueScheduler  {
         for(int i=0;i<workerThreads.length;i++)
         	workerThreads[i].shutdown();
         
+        for(int i=0;i<stealingWorkerThreads.length;i++)
+        	stealingWorkerThreads[i].shutdown();
+        
         for(int i=0;i<criticalWorkerThreads.length;i++)
         	criticalWorkerThreads[i].shutdown();
         
@@ -229,14 +324,78 @@ public class PriorityQueueScheduler  {
     /**
      * Shows the miss rate.
      * 
-     * @return the miss rate value;
+     * @return the ratio of cycles that overran their deadline.
      */
     public double getMissRate() {
-        return 0;
+        return metrics.getMissRate();
     }
 
+    /**
+     * Gets the duration of the longest cycle, measured from the instant it was due to start.
+     * 
+     * @return the worst execution time, in nanoseconds.
+     */
     public long getWorstExecutionTime() {
-        return 0;
+        return metrics.getWorstCycleTime();
+    }
+    
+    /**
+     * Gets the number of cycles executed since the scheduler started.
+     * 
+     * @return the number of cycles.
+     */
+    public long getCycleCount() {
+        return metrics.getCycleCount();
+    }
+    
+    /**
+     * Gets the number of cycles that took longer than {@link #CYCLE_DURATION} to execute.
+     * 
+     * @return the number of overruns.
+     */
+    public long getOverrunCount() {
+        return metrics.getOverrunCount();
+    }
+    
+    /**
+     * Gets the number of tasks that were stolen by an idle worker from the deque of another worker.
+     * 
+     * @return the number of stolen tasks. Always zero unless scheduling mode is {@link SchedulingMode#WORK_STEALING}.
+     */
+    public long getStealCount() {
+        return metrics.getStealCount();
+    }
+    
+    /**
+     * Gets the timing metrics of the cycles, queues and tasks executed by this scheduler.
+     * 
+     * @return the metrics, which can be registered as an MXBean.
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+    
+    private void runTask(Task task) {
+        long start=System.nanoTime();
+        task.run();
+        metrics.onTaskExecuted(task, System.nanoTime()-start);
+    }
+    
+    /**
+     * Wakes up one parked worker, other than the given one, so it can steal tasks pending in a deque.
+     */
+    private void signalIdleWorker(StealingWorkerThread busy) {
+        int workers=stealingWorkerThreads.length;
+        int offset=ThreadLocalRandom.current().nextInt(workers);
+        for(int i=0;i<workers;i++)
+        {
+            StealingWorkerThread worker=stealingWorkerThreads[(offset+i)%workers];
+            if(worker!=busy && worker.idle)
+            {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
     }
 
     /**
@@ -248,6 +407,8 @@ public class PriorityQueueScheduler  {
         private AtomicInteger activeTasksCount=new AtomicInteger();
         private long cycleStart=0;
         private int runIndex=0;
+        //tasks of the queue being executed, owned by this thread and stolen by the workers
+        private final WorkStealingDeque queuedTasks=new WorkStealingDeque();
         private Object LOCK=new Object();
         
         public CoreThread(String name) {
@@ -273,49 +434,56 @@ public class PriorityQueueScheduler  {
         	{
         		long taskStart=cycleStart;
         		currQueue=MANAGEMENT_QUEUE;
-        		while(currQueue<=OUTPUT_QUEUE)
+        		while(currQueue<=FLUSH_QUEUE)
     			{    		
-        			executeQueue(taskQueues[currQueue]);
-					while(activeTasksCount.get()!=0)
-						LockSupport.park();
-					
+        			runQueue(taskQueues[currQueue], currQueue);
 					currQueue++;															
     			}				        		
         		
-        		executeQueue(taskQueues[MANAGEMENT_QUEUE]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();					
+        		runQueue(taskQueues[MANAGEMENT_QUEUE], MANAGEMENT_QUEUE);
         		
         		runIndex=(runIndex+1)%5;        		
-    			executeQueue(heartBeatQueue[runIndex]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();
+        		runQueue(heartBeatQueue[runIndex], HEARTBEAT_QUEUE);
         		
-        		executeQueue(taskQueues[MANAGEMENT_QUEUE]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();	
+        		runQueue(taskQueues[MANAGEMENT_QUEUE], MANAGEMENT_QUEUE);
         		
         		//sleep till next cycle
         		cycleDuration=clock.getTime() - cycleStart;
-        		if(cycleDuration<20000000L)
+        		metrics.onCycleExecuted(cycleDuration);
+        		if(cycleDuration<CYCLE_DURATION)
         			try  {                                               
-        				sleep(20L-cycleDuration/1000000L,(int)((20000000L-cycleDuration)%1000000L));
+        				sleep(20L-cycleDuration/1000000L,(int)((CYCLE_DURATION-cycleDuration)%1000000L));
         			}
                 	catch(InterruptedException e)  {                                               
                 		//lets continue
                 	}
         		
         		//new cycle starts , updating cycle start time by 4ms
-                cycleStart = cycleStart + 20000000L;                                              
+                cycleStart = cycleStart + CYCLE_DURATION;                                              
         	}
         }
         
+        private void runQueue(OrderedTaskQueue queue, int queueNumber)
+        {
+        	//execute all tasks in the queue and wait for their completion
+        	long queueStart=System.nanoTime();
+        	executeQueue(queue);
+        	while(activeTasksCount.get()!=0)
+        		LockSupport.park();
+        	metrics.onQueueExecuted(queueNumber, System.nanoTime()-queueStart);
+        }
+        
         private void executeQueue(OrderedTaskQueue currQueue)
         {
         	Task t;        	
         	currQueue.changePool();
             t = currQueue.poll();
             
+            if(schedulingMode==SchedulingMode.WORK_STEALING) {
+            	distributeQueue(currQueue, t);
+            	return;
+            }
+            
             //submit all tasks in current queue
             while(t!=null)
             {
@@ -324,6 +492,26 @@ public class PriorityQueueScheduler  {
             	t = currQueue.poll();
             }            
         }
+        
+        private void distributeQueue(OrderedTaskQueue currQueue, Task first)
+        {
+        	int workers=stealingWorkerThreads.length;
+        	int count=0;
+        	
+        	//push all tasks in current queue on the deque of this thread, for the workers to steal
+        	Task t=first;
+        	while(t!=null)
+        	{
+        		activeTasksCount.incrementAndGet();
+        		queuedTasks.push(t);
+        		count++;
+        		t = currQueue.poll();
+        	}
+        	
+        	//wake up as many workers as there are tasks, busy workers wake up idle ones while tasks remain
+        	for(int i=0;i<Math.min(count, workers);i++)
+        		LockSupport.unpark(stealingWorkerThreads[i]);
+        }
 
         /**
          * Terminates thread.
@@ -363,13 +551,8 @@ public class PriorityQueueScheduler  {
         	
         	while(active)
         	{
-        		executeQueue(taskQueues[RECEIVER_QUEUE]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();	
-        		
-        		executeQueue(taskQueues[SENDER_QUEUE]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();
+        		runQueue(taskQueues[RECEIVER_QUEUE], RECEIVER_QUEUE);
+        		runQueue(taskQueues[SENDER_QUEUE], SENDER_QUEUE);
         		
         		//sleep till next cycle
         		cycleDuration=clock.getTime() - cycleStart;
@@ -386,6 +569,16 @@ public class PriorityQueueScheduler  {
         	}
         }
         
+        private void runQueue(OrderedTaskQueue queue, int queueNumber)
+        {
+        	//execute all tasks in the queue and wait for their completion
+        	long queueStart=System.nanoTime();
+        	executeQueue(queue);
+        	while(activeTasksCount.get()!=0)
+        		LockSupport.park();
+        	metrics.onQueueExecuted(queueNumber, System.nanoTime()-queueStart);
+        }
+        
         private void executeQueue(OrderedTaskQueue currQueue)
         {
         	Task t;        	
@@ -432,7 +625,7 @@ public class PriorityQueueScheduler  {
     					logger.warn("Could not poll waiting task in timely fashion. Will keep trying.");
     				}    				
     			}
-    			current.run();
+    			runTask(current);
     			coreThread.notifyCompletion();    			
     		}
     	}
@@ -450,6 +643,104 @@ public class PriorityQueueScheduler  {
         }
     }
     
+    /**
+     * Worker that owns a deque of forked tasks, and steals the tasks of the current queue from the core thread and
+     * forked tasks from other workers.
+     */
+    private class StealingWorkerThread extends Thread {
+    	private volatile boolean active;
+    	private volatile boolean idle;
+    	private final WorkStealingDeque tasks=new WorkStealingDeque();
+    	
+    	public StealingWorkerThread(String name) {
+    		super(name);
+    	}
+    	
+    	private PriorityQueueScheduler scheduler() {
+    		return PriorityQueueScheduler.this;
+    	}
+    	
+    	public void run() {
+    		while(active)
+    		{
+    			Task current=take();
+    			if(current==null)
+    			{
+    				//announce idleness before checking again, so a thread that pushes meanwhile wakes us up
+    				idle=true;
+    				current=take();
+    				if(current==null)
+    				{
+    					//wait for core thread to distribute next queue
+    					LockSupport.park();
+    					idle=false;
+    					continue;
+    				}
+    				idle=false;
+    			}
+    			
+    			runTask(current);
+    			coreThread.notifyCompletion();
+    		}
+    	}
+    	
+    	private Task take() {
+    		//forked tasks first, they keep the queue being executed from completing
+    		Task task=tasks.poll();
+    		if(task!=null)
+    		{
+    			if(tasks.size()>0)
+    				signalIdleWorker(this);
+    			return task;
+    		}
+    		
+    		task=coreThread.queuedTasks.steal();
+    		if(task!=null)
+    		{
+    			if(coreThread.queuedTasks.size()>0)
+    				signalIdleWorker(this);
+    			return task;
+    		}
+    		
+    		return steal();
+    	}
+    	
+    	private Task steal() {
+    		int workers=stealingWorkerThreads.length;
+    		int offset=ThreadLocalRandom.current().nextInt(workers);
+    		for(int i=0;i<workers;i++)
+    		{
+    			StealingWorkerThread victim=stealingWorkerThreads[(offset+i)%workers];
+    			if(victim!=this)
+    			{
+    				//steal from the top, away from the owner
+    				Task task=victim.tasks.steal();
+    				if(task!=null)
+    				{
+    					metrics.onTaskStolen();
+    					if(victim.tasks.size()>0)
+    						signalIdleWorker(this);
+    					return task;
+    				}
+    			}
+    		}
+    		return null;
+    	}
+    	
+    	public void activate() {
+    		this.active = true;
+    		this.start();
+    	}
+    	
+    	/**
+         * Terminates thread.
+         */
+        private void shutdown() {
+            this.active = false;
+            LockSupport.unpark(this);
+        }
+    }
+    
     private class CriticalWorkerThread extends Thread {
         
     	private volatile boolean active;
@@ -474,7 +765,7 @@ public class PriorityQueueScheduler  {
     					
     				}    				
     			}
-    			current.run();
+    			runTask(current);
     			criticalThread.notifyCompletion();
     		}
     	}
@@ -80,6 +80,22 @@ public interface Scheduler {
     ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long period, TimeUnit unit)
             throws IllegalArgumentException, RejectedExecutionException;
 
+    /**
+     * Schedules a short task on the scheduler's timing wheel.
+     * <p>
+     * Meant for large numbers of coarse timers, like RTCP reports and session timeouts, that are frequently rescheduled or
+     * cancelled. Scheduling and cancelling take constant time, but the task fires with a precision of a few milliseconds and
+     * runs on the timer thread, so it must not block.
+     * </p>
+     * 
+     * @param task The task to be executed.
+     * @param delay The time to wait until the task is executed.
+     * @param unit The time unit of the delay.
+     * @return The timeout, which can be used to cancel the task.
+     * @throws RejectedExecutionException if the task cannot be scheduled for execution
+     */
+    Timeout scheduleTimeout(Runnable task, long delay, TimeUnit unit) throws RejectedExecutionException;
+
     /**
      * Starts the scheduler.
      * <p>
@@ -0,0 +1,211 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing metrics collected by the {@link PriorityQueueScheduler}.
+ * <p>
+ * Every queue execution and every task execution is measured, so updates only touch atomic counters and never
+ * allocate, except for the first execution of a new class of task.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class SchedulerMetrics implements SchedulerMetricsMXBean {
+
+    // Names of the queues, indexed by queue number
+    private static final String[] QUEUE_NAMES = { "receiver", "sender", "management", "udp-manager", "input", "mixer",
+            "output", "flush" };
+    private static final String HEARTBEAT_NAME = "heartbeat";
+
+    private final AtomicLong cycleCount;
+    private final AtomicLong overrunCount;
+    private final AtomicLong stealCount;
+    private final TimingHistogram cycleHistogram;
+    private final TimingHistogram[] queueHistograms;
+    private final TimingHistogram heartbeatHistogram;
+    private final ConcurrentMap<Class<?>, AtomicLong> taskWorstTimes;
+
+    public SchedulerMetrics() {
+        this.cycleCount = new AtomicLong(0);
+        this.overrunCount = new AtomicLong(0);
+        this.stealCount = new AtomicLong(0);
+        this.cycleHistogram = new TimingHistogram();
+        this.queueHistograms = new TimingHistogram[QUEUE_NAMES.length];
+        for (int i = 0; i < this.queueHistograms.length; i++) {
+            this.queueHistograms[i] = new TimingHistogram();
+        }
+        this.heartbeatHistogram = new TimingHistogram();
+        this.taskWorstTimes = new ConcurrentHashMap<>();
+    }
+
+    void onCycleExecuted(long duration) {
+        this.cycleCount.incrementAndGet();
+        if (duration > PriorityQueueScheduler.CYCLE_DURATION) {
+            this.overrunCount.incrementAndGet();
+        }
+        this.cycleHistogram.record(duration);
+    }
+
+    void onQueueExecuted(int queue, long duration) {
+        if (queue == PriorityQueueScheduler.HEARTBEAT_QUEUE) {
+            this.heartbeatHistogram.record(duration);
+        } else {
+            this.queueHistograms[queue].record(duration);
+        }
+    }
+
+    void onTaskExecuted(Task task, long duration) {
+        AtomicLong worst = this.taskWorstTimes.get(task.getClass());
+        if (worst == null) {
+            AtomicLong newWorst = new AtomicLong(0);
+            worst = this.taskWorstTimes.putIfAbsent(task.getClass(), newWorst);
+            if (worst == null) {
+                worst = newWorst;
+            }
+        }
+
+        long current = worst.get();
+        while (duration > current && !worst.compareAndSet(current, duration)) {
+            current = worst.get();
+        }
+    }
+
+    void onTaskStolen() {
+        this.stealCount.incrementAndGet();
+    }
+
+    /**
+     * Gets the histogram of the execution times of a queue.
+     * 
+     * @param queue The queue number, as defined by {@link PriorityQueueScheduler}.
+     * @return The histogram of the queue.
+     */
+    public TimingHistogram getQueueHistogram(int queue) {
+        if (queue == PriorityQueueScheduler.HEARTBEAT_QUEUE) {
+            return this.heartbeatHistogram;
+        }
+        return this.queueHistograms[queue];
+    }
+
+    @Override
+    public long getCycleCount() {
+        return this.cycleCount.get();
+    }
+
+    @Override
+    public long getOverrunCount() {
+        return this.overrunCount.get();
+    }
+
+    @Override
+    public double getMissRate() {
+        long cycles = this.cycleCount.get();
+        return cycles == 0 ? 0 : (double) this.overrunCount.get() / cycles;
+    }
+
+    @Override
+    public long getWorstCycleTime() {
+        return this.cycleHistogram.getMax();
+    }
+
+    @Override
+    public long getMeanCycleTime() {
+        return this.cycleHistogram.getMean();
+    }
+
+    @Override
+    public long getStealCount() {
+        return this.stealCount.get();
+    }
+
+    @Override
+    public long[] getHistogramBounds() {
+        return TimingHistogram.BOUNDS.clone();
+    }
+
+    @Override
+    public long[] getCycleHistogram() {
+        return this.cycleHistogram.getBuckets();
+    }
+
+    @Override
+    public Map<String, long[]> getQueueHistograms() {
+        Map<String, long[]> histograms = new HashMap<>(QUEUE_NAMES.length + 1);
+        for (int i = 0; i < QUEUE_NAMES.length; i++) {
+            histograms.put(QUEUE_NAMES[i], this.queueHistograms[i].getBuckets());
+        }
+        histograms.put(HEARTBEAT_NAME, this.heartbeatHistogram.getBuckets());
+        return histograms;
+    }
+
+    @Override
+    public Map<String, Long> getQueueWorstTimes() {
+        Map<String, Long> worstTimes = new HashMap<>(QUEUE_NAMES.length + 1);
+        for (int i = 0; i < QUEUE_NAMES.length; i++) {
+            worstTimes.put(QUEUE_NAMES[i], this.queueHistograms[i].getMax());
+        }
+        worstTimes.put(HEARTBEAT_NAME, this.heartbeatHistogram.getMax());
+        return worstTimes;
+    }
+
+    @Override
+    public Map<String, Long> getQueuePercentiles() {
+        Map<String, Long> percentiles = new HashMap<>(QUEUE_NAMES.length + 1);
+        for (int i = 0; i < QUEUE_NAMES.length; i++) {
+            percentiles.put(QUEUE_NAMES[i], this.queueHistograms[i].getPercentile(99));
+        }
+        percentiles.put(HEARTBEAT_NAME, this.heartbeatHistogram.getPercentile(99));
+        return percentiles;
+    }
+
+    @Override
+    public Map<String, Long> getWorstTaskTimes() {
+        Map<String, Long> worstTimes = new TreeMap<>();
+        for (Map.Entry<Class<?>, AtomicLong> entry : this.taskWorstTimes.entrySet()) {
+            worstTimes.put(entry.getKey().getName(), entry.getValue().get());
+        }
+        return worstTimes;
+    }
+
+    @Override
+    public void reset() {
+        this.cycleCount.set(0);
+        this.overrunCount.set(0);
+        this.stealCount.set(0);
+        this.cycleHistogram.reset();
+        for (TimingHistogram histogram : this.queueHistograms) {
+            histogram.reset();
+        }
+        this.heartbeatHistogram.reset();
+        this.taskWorstTimes.clear();
+    }
+
+}
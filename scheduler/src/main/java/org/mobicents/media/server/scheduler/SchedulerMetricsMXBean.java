@@ -0,0 +1,102 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+import java.util.Map;
+
+/**
+ * Management interface exposing the timing metrics of the {@link PriorityQueueScheduler}.
+ * <p>
+ * Times are reported in nanoseconds, except for percentiles and histogram bounds which are reported in microseconds.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public interface SchedulerMetricsMXBean {
+
+    /**
+     * Gets the number of cycles executed since the metrics were last reset.
+     */
+    long getCycleCount();
+
+    /**
+     * Gets the number of cycles that took longer than {@link PriorityQueueScheduler#CYCLE_DURATION} to execute.
+     */
+    long getOverrunCount();
+
+    /**
+     * Gets the ratio of cycles that overran their deadline.
+     */
+    double getMissRate();
+
+    /**
+     * Gets the duration of the longest cycle.
+     */
+    long getWorstCycleTime();
+
+    /**
+     * Gets the average duration of a cycle.
+     */
+    long getMeanCycleTime();
+
+    /**
+     * Gets the number of tasks stolen by idle workers from other workers.
+     */
+    long getStealCount();
+
+    /**
+     * Gets the upper bounds of the histogram buckets, in microseconds.
+     */
+    long[] getHistogramBounds();
+
+    /**
+     * Gets the histogram of the cycle durations.
+     */
+    long[] getCycleHistogram();
+
+    /**
+     * Gets the histogram of the execution times of each queue, indexed by queue name.
+     */
+    Map<String, long[]> getQueueHistograms();
+
+    /**
+     * Gets the longest execution time of each queue, indexed by queue name.
+     */
+    Map<String, Long> getQueueWorstTimes();
+
+    /**
+     * Gets the 99th percentile of the execution times of each queue, indexed by queue name.
+     */
+    Map<String, Long> getQueuePercentiles();
+
+    /**
+     * Gets the longest execution time of each class of task, indexed by class name.
+     */
+    Map<String, Long> getWorstTaskTimes();
+
+    /**
+     * Discards all metrics.
+     */
+    void reset();
+
+}
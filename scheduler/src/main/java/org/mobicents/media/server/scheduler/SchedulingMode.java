@@ -0,0 +1,55 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+/**
+ * Defines how the {@link PriorityQueueScheduler} hands tasks over to its worker threads.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public enum SchedulingMode {
+
+    /**
+     * Tasks are offered to a single queue shared by all worker threads.
+     */
+    SHARED_QUEUE,
+
+    /**
+     * Tasks are taken from lock-free work-stealing deques.
+     * <p>
+     * The core thread pushes the tasks of each queue on its own deque and workers steal them from it. Each worker pushes
+     * the tasks it forks on a deque of its own, which idle workers steal from, so workers never take a lock.
+     * </p>
+     */
+    WORK_STEALING;
+
+    public static SchedulingMode fromName(String name) {
+        for (SchedulingMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scheduling mode: " + name);
+    }
+
+}
@@ -51,6 +51,7 @@ public class ServiceScheduler implements Scheduler {
     private volatile boolean started;
     private final Clock wallClock;
     private ScheduledExecutorService executor;
+    private final TimingWheel timingWheel;
     private final ThreadFactory threadFactory = new ThreadFactory() {
 
         private AtomicInteger index = new AtomicInteger(0);
@@ -64,6 +65,7 @@ public class ServiceScheduler implements Scheduler {
     public ServiceScheduler(final Clock wallClock) {
         this.started = false;
         this.wallClock = new WallClock();
+        this.timingWheel = new TimingWheel("service-scheduler-timer");
     }
 
     public ServiceScheduler() {
@@ -100,11 +102,20 @@ public class ServiceScheduler implements Scheduler {
         return this.executor.scheduleWithFixedDelay(task, initialDelay, period, unit);
     }
 
+    @Override
+    public Timeout scheduleTimeout(Runnable task, long delay, TimeUnit unit) throws RejectedExecutionException {
+        if (!this.started) {
+            throw new RejectedExecutionException("Scheduler is not running.");
+        }
+        return this.timingWheel.schedule(task, delay, unit);
+    }
+
     @Override
     public void start() {
         if (!this.started) {
             this.started = true;
             this.executor = Executors.newScheduledThreadPool(POOL_SIZE, threadFactory);
+            this.timingWheel.start();
             LOGGER.info("Started scheduler!");
         }
     }
@@ -114,6 +125,7 @@ public class ServiceScheduler implements Scheduler {
         if (this.started) {
             this.started = false;
             this.executor.shutdownNow();
+            this.timingWheel.stop();
             LOGGER.info("Stopped scheduler!");
         }
     }
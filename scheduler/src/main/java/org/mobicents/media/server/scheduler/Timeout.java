@@ -0,0 +1,120 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.scheduler;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Handle to a task scheduled on a {@link TimingWheel}.
+ * <p>
+ * A timeout is either pending, cancelled or expired. It can only leave the pending state once, so a timeout that was
+ * cancelled will never run and a timeout that already expired cannot be cancelled.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public final class Timeout {
+
+    private static final Logger LOGGER = Logger.getLogger(Timeout.class);
+
+    private static final int ST_PENDING = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final TimingWheel wheel;
+    private final Runnable task;
+    private volatile int state;
+
+    // Nanoseconds since the wheel started
+    final long deadline;
+
+    // Owned by the wheel worker
+    long remainingRounds;
+    Timeout next;
+    Timeout previous;
+    TimingWheel.Bucket bucket;
+
+    Timeout(TimingWheel wheel, Runnable task, long deadline) {
+        this.wheel = wheel;
+        this.task = task;
+        this.deadline = deadline;
+        this.state = ST_PENDING;
+    }
+
+    /**
+     * Gets the task bound to this timeout.
+     * 
+     * @return The scheduled task
+     */
+    public Runnable getTask() {
+        return task;
+    }
+
+    /**
+     * Cancels the timeout so the task is never executed.
+     * 
+     * @return <code>true</code> if the timeout was pending; <code>false</code> if it was already cancelled or expired.
+     */
+    public boolean cancel() {
+        if (STATE.compareAndSet(this, ST_PENDING, ST_CANCELLED)) {
+            this.wheel.cancelled(this);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets whether the timeout was cancelled.
+     * 
+     * @return <code>true</code> if cancelled; otherwise returns <code>false</code>
+     */
+    public boolean isCancelled() {
+        return this.state == ST_CANCELLED;
+    }
+
+    /**
+     * Gets whether the timeout expired, meaning its task was executed (or is executing).
+     * 
+     * @return <code>true</code> if expired; otherwise returns <code>false</code>
+     */
+    public boolean isExpired() {
+        return this.state == ST_EXPIRED;
+    }
+
+    void expire() {
+        if (STATE.compareAndSet(this, ST_PENDING, ST_EXPIRED)) {
+            this.wheel.expired(this);
+            try {
+                this.task.run();
+            } catch (Throwable e) {
+                LOGGER.warn("Timeout task " + this.task + " failed.", e);
+            }
+        }
+    }
+
+}
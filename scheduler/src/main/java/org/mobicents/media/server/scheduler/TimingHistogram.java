@@ -0,0 +1,154 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of execution times with fixed buckets, cheap enough to be updated on every execution.
+ * <p>
+ * Buckets are bounded by {@link #BOUNDS}, in microseconds. The last bucket holds every sample above the highest bound.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class TimingHistogram {
+
+    /**
+     * Upper bounds of the buckets, in microseconds.
+     */
+    public static final long[] BOUNDS = { 50, 100, 250, 500, 1000, 2000, 5000, 10000, 20000, 40000 };
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count;
+    private final AtomicLong total;
+    private final AtomicLong max;
+
+    public TimingHistogram() {
+        this.buckets = new AtomicLongArray(BOUNDS.length + 1);
+        this.count = new AtomicLong(0);
+        this.total = new AtomicLong(0);
+        this.max = new AtomicLong(0);
+    }
+
+    /**
+     * Records a sample.
+     * 
+     * @param duration The execution time, in nanoseconds.
+     */
+    public void record(long duration) {
+        long micros = duration / 1000L;
+        int bucket = 0;
+        while (bucket < BOUNDS.length && micros > BOUNDS[bucket]) {
+            bucket++;
+        }
+        this.buckets.incrementAndGet(bucket);
+        this.count.incrementAndGet();
+        this.total.addAndGet(duration);
+
+        long currentMax = this.max.get();
+        while (duration > currentMax && !this.max.compareAndSet(currentMax, duration)) {
+            currentMax = this.max.get();
+        }
+    }
+
+    /**
+     * Gets the number of recorded samples.
+     * 
+     * @return The number of samples.
+     */
+    public long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * Gets the longest recorded sample.
+     * 
+     * @return The worst execution time, in nanoseconds.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Gets the average of the recorded samples.
+     * 
+     * @return The mean execution time, in nanoseconds.
+     */
+    public long getMean() {
+        long samples = this.count.get();
+        return samples == 0 ? 0 : this.total.get() / samples;
+    }
+
+    /**
+     * Gets the number of samples recorded in each bucket.
+     * 
+     * @return The counters of the buckets bounded by {@link #BOUNDS}, followed by the counter of samples above the
+     *         highest bound.
+     */
+    public long[] getBuckets() {
+        long[] counters = new long[this.buckets.length()];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = this.buckets.get(i);
+        }
+        return counters;
+    }
+
+    /**
+     * Estimates a percentile of the recorded samples.
+     * 
+     * @param percentile The percentile, between 0 and 100.
+     * @return The upper bound of the bucket that holds the percentile, in microseconds.<br>
+     *         Returns the worst execution time if the percentile lies above the highest bound.
+     */
+    public long getPercentile(double percentile) {
+        long samples = this.count.get();
+        if (samples == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(samples * percentile / 100.0);
+        long accumulated = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            accumulated += this.buckets.get(i);
+            if (accumulated >= threshold) {
+                return BOUNDS[i];
+            }
+        }
+        return this.max.get() / 1000L;
+    }
+
+    /**
+     * Discards all recorded samples.
+     */
+    public void reset() {
+        for (int i = 0; i < this.buckets.length(); i++) {
+            this.buckets.set(i, 0);
+        }
+        this.count.set(0);
+        this.total.set(0);
+        this.max.set(0);
+    }
+
+}
@@ -0,0 +1,352 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Hashed timing wheel for large numbers of coarse-grained timers, such as RTCP reports and session timeouts.
+ * <p>
+ * Time is divided into ticks that are mapped to a fixed ring of buckets. Scheduling a timeout only enqueues it in a lock-free
+ * queue and cancelling it is a single CAS, so both are O(1) no matter how many timeouts are pending. A single worker thread
+ * moves new timeouts into their bucket and, on every tick, expires the due timeouts of the current bucket. Cancelled timeouts
+ * are unlinked the next time the worker visits their bucket, at most one revolution later.
+ * </p>
+ * <p>
+ * Tasks are executed on the worker thread and must be short and non-blocking. Timeouts fire at most one tick late.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class TimingWheel {
+
+    private static final Logger LOGGER = Logger.getLogger(TimingWheel.class);
+
+    public static final long DEFAULT_TICK = 5L;
+    public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+    // Bounds the work of a single tick when timeouts are scheduled faster than they are consumed
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final String name;
+    private final long tickDuration;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<Timeout> scheduled;
+    private final AtomicLong pending;
+
+    private volatile boolean running;
+    private volatile long startTime;
+    private Thread worker;
+
+    // Owned by the worker thread
+    private long tick;
+
+    /**
+     * Creates a timing wheel.
+     * 
+     * @param name The name of the worker thread
+     * @param tickDuration The resolution of the wheel
+     * @param unit The time unit of the tick duration
+     * @param wheelSize The number of buckets. Rounded up to the next power of two.
+     * @throws IllegalArgumentException If tick duration or wheel size are not positive.
+     */
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) throws IllegalArgumentException {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30: " + wheelSize);
+        }
+
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.name = name;
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        this.scheduled = new ConcurrentLinkedQueue<>();
+        this.pending = new AtomicLong(0);
+        this.running = false;
+    }
+
+    public TimingWheel(String name) {
+        this(name, DEFAULT_TICK, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Gets the duration of a tick.
+     * 
+     * @param unit The time unit of the result
+     * @return The resolution of the wheel
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(this.tickDuration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of buckets of the wheel.
+     * 
+     * @return The wheel size
+     */
+    public int getWheelSize() {
+        return this.wheel.length;
+    }
+
+    /**
+     * Gets the number of timeouts that were scheduled but neither expired nor were cancelled.
+     * 
+     * @return The number of pending timeouts
+     */
+    public long getPendingTimeouts() {
+        return this.pending.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Schedules a task to be executed once after a given delay.
+     * 
+     * @param task The task to be executed
+     * @param delay The time to wait until the task is executed
+     * @param unit The time unit of the delay
+     * @return The timeout, which can be used to cancel the task
+     * @throws RejectedExecutionException If the wheel is not running.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) throws RejectedExecutionException {
+        if (!this.running) {
+            throw new RejectedExecutionException("Timing wheel is not running.");
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(delay) - this.startTime;
+        final Timeout timeout = new Timeout(this, task, deadline);
+        this.pending.incrementAndGet();
+        this.scheduled.offer(timeout);
+        return timeout;
+    }
+
+    void cancelled(Timeout timeout) {
+        this.pending.decrementAndGet();
+    }
+
+    void expired(Timeout timeout) {
+        this.pending.decrementAndGet();
+    }
+
+    /**
+     * Starts the worker thread.
+     */
+    public synchronized void start() {
+        if (!this.running) {
+            this.tick = 0;
+            this.startTime = System.nanoTime();
+            this.running = true;
+            this.worker = new Thread(new Worker(), this.name);
+            this.worker.setDaemon(true);
+            this.worker.start();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Started timing wheel " + this.name);
+            }
+        }
+    }
+
+    /**
+     * Stops the worker thread. Pending timeouts are discarded without being executed.
+     */
+    public synchronized void stop() {
+        if (this.running) {
+            this.running = false;
+            this.worker.interrupt();
+            if (Thread.currentThread() != this.worker) {
+                try {
+                    this.worker.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            this.worker = null;
+
+            for (Bucket bucket : this.wheel) {
+                bucket.clear();
+            }
+            this.scheduled.clear();
+            this.pending.set(0);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Stopped timing wheel " + this.name);
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            while (running) {
+                final long now = awaitNextTick();
+                if (now < 0) {
+                    break;
+                }
+                transferScheduled();
+                wheel[(int) (tick & mask)].expire(now, scheduled);
+                tick++;
+            }
+        }
+
+        /**
+         * Sleeps until the end of the current tick.
+         * 
+         * @return The elapsed nanoseconds since the wheel started, or -1 if the wheel was stopped.
+         */
+        private long awaitNextTick() {
+            final long deadline = tickDuration * (tick + 1);
+            while (true) {
+                final long now = System.nanoTime() - startTime;
+                final long sleepMillis = (deadline - now + 999999L) / 1000000L;
+                if (sleepMillis <= 0) {
+                    return now;
+                }
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        private void transferScheduled() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+                final Timeout timeout = scheduled.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.isCancelled()) {
+                    continue;
+                }
+                final long expiryTick = timeout.deadline / tickDuration;
+                timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+                // Timeouts that are already due go to the current bucket
+                final long targetTick = Math.max(expiryTick, tick);
+                wheel[(int) (targetTick & mask)].add(timeout);
+            }
+        }
+
+    }
+
+    /**
+     * Doubly-linked list of timeouts that hash to the same slot. Only accessed by the worker thread.
+     */
+    static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        /**
+         * Expires the due timeouts of the bucket.
+         * 
+         * @param now The elapsed nanoseconds since the wheel started
+         * @param reschedule The queue where timeouts that are not due yet are handed back, to be placed again on the next tick
+         */
+        void expire(long now, Queue<Timeout> reschedule) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= now) {
+                        timeout.expire();
+                    } else if (!timeout.isCancelled()) {
+                        reschedule.offer(timeout);
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.previous != null) {
+                timeout.previous.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            if (timeout == this.head) {
+                this.head = next;
+            }
+            if (timeout == this.tail) {
+                this.tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void clear() {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                timeout.previous = null;
+                timeout.next = null;
+                timeout.bucket = null;
+                timeout = next;
+            }
+            this.head = null;
+            this.tail = null;
+        }
+
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.scheduler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Chase-Lev work-stealing deque of tasks.
+ * <p>
+ * Only the owner thread pushes and polls tasks, at the bottom of the deque, without taking any lock. Other threads steal
+ * tasks from the top with a single compare-and-set, and only meet the owner through that compare-and-set when one task
+ * is left. Tasks are kept in a power-of-two ring that the owner doubles when full, hence pushing a task never allocates
+ * once the deque has grown to the size of a queue.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class WorkStealingDeque {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile AtomicReferenceArray<Task> tasks;
+    private volatile long bottom;
+    private final AtomicLong top;
+
+    WorkStealingDeque(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.tasks = new AtomicReferenceArray<Task>(size);
+        this.bottom = 0;
+        this.top = new AtomicLong(0);
+    }
+
+    WorkStealingDeque() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds a task at the bottom of the deque. Must only be called by the owner.
+     * 
+     * @param task The task to be added.
+     * @return The number of pending tasks, including the one just added.
+     */
+    int push(Task task) {
+        long b = this.bottom;
+        long t = this.top.get();
+        AtomicReferenceArray<Task> array = this.tasks;
+        if (b - t >= array.length()) {
+            array = grow(array, t, b);
+        }
+        array.set((int) b & (array.length() - 1), task);
+        // publishes the task to thieves
+        this.bottom = b + 1;
+        return (int) (b + 1 - t);
+    }
+
+    /**
+     * Takes the task at the bottom of the deque, which is the latest pushed. Must only be called by the owner.
+     * 
+     * @return The newest pending task, or null if the deque is empty.
+     */
+    Task poll() {
+        long b = this.bottom - 1;
+        AtomicReferenceArray<Task> array = this.tasks;
+        // reserve the bottom task before looking at thieves
+        this.bottom = b;
+        long t = this.top.get();
+        if (t > b) {
+            this.bottom = t;
+            return null;
+        }
+
+        int index = (int) b & (array.length() - 1);
+        Task task = array.get(index);
+        if (t == b) {
+            // last task, race thieves for it
+            if (!this.top.compareAndSet(t, t + 1)) {
+                task = null;
+            }
+            this.bottom = t + 1;
+        }
+        if (task != null) {
+            array.set(index, null);
+        }
+        return task;
+    }
+
+    /**
+     * Takes the task at the top of the deque, which is the oldest pushed. May be called by any thread.
+     * 
+     * @return The oldest pending task, or null if the deque is empty.
+     */
+    Task steal() {
+        while (true) {
+            long t = this.top.get();
+            long b = this.bottom;
+            if (t >= b) {
+                return null;
+            }
+            // slots are cleared by the owner only, as it may already reuse a slot a thief has just taken
+            AtomicReferenceArray<Task> array = this.tasks;
+            Task task = array.get((int) t & (array.length() - 1));
+            if (this.top.compareAndSet(t, t + 1)) {
+                return task;
+            }
+            // another thread took it, try the next one
+        }
+    }
+
+    /**
+     * Gets the number of pending tasks. The result is only an estimate while other threads use the deque.
+     */
+    int size() {
+        long size = this.bottom - this.top.get();
+        return size < 0 ? 0 : (int) size;
+    }
+
+    int capacity() {
+        return this.tasks.length();
+    }
+
+    private AtomicReferenceArray<Task> grow(AtomicReferenceArray<Task> array, long t, long b) {
+        // the old ring is left untouched, as thieves may still be reading it
+        AtomicReferenceArray<Task> grown = new AtomicReferenceArray<Task>(array.length() << 1);
+        for (long i = t; i < b; i++) {
+            grown.set((int) i & (grown.length() - 1), array.get((int) i & (array.length() - 1)));
+        }
+        this.tasks = grown;
+        return grown;
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PriorityQueueScheduler}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class PriorityQueueSchedulerTest {
+
+    private PriorityQueueScheduler scheduler;
+
+    @After
+    public void after() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testSharedQueuePhaseOrder() throws InterruptedException {
+        testPhaseOrder(SchedulingMode.SHARED_QUEUE);
+    }
+
+    @Test
+    public void testWorkStealingPhaseOrder() throws InterruptedException {
+        testPhaseOrder(SchedulingMode.WORK_STEALING);
+    }
+
+    private void testPhaseOrder(SchedulingMode mode) throws InterruptedException {
+        // given
+        final int tasks = 500;
+        scheduler = new PriorityQueueScheduler(new WallClock(), mode);
+        PhaseTracker tracker = new PhaseTracker();
+        for (int i = 0; i < tasks; i++) {
+            scheduler.submit(new PhaseTask(tracker, PriorityQueueScheduler.INPUT_QUEUE), PriorityQueueScheduler.INPUT_QUEUE);
+            scheduler.submit(new PhaseTask(tracker, PriorityQueueScheduler.MIXER_MIX_QUEUE), PriorityQueueScheduler.MIXER_MIX_QUEUE);
+            scheduler.submit(new PhaseTask(tracker, PriorityQueueScheduler.OUTPUT_QUEUE), PriorityQueueScheduler.OUTPUT_QUEUE);
+        }
+
+        // when
+        scheduler.start();
+        Thread.sleep(100);
+
+        // then
+        assertEquals(mode, scheduler.getSchedulingMode());
+        assertEquals(tasks * 3, tracker.executed.get());
+        assertEquals(0, tracker.violations.get());
+        assertTrue(scheduler.getCycleCount() > 0);
+        assertTrue(scheduler.getWorstExecutionTime() > 0);
+        assertTrue(scheduler.getMetrics().getQueueHistogram(PriorityQueueScheduler.INPUT_QUEUE).getCount() > 0);
+        assertTrue(scheduler.getMetrics().getQueueHistogram(PriorityQueueScheduler.HEARTBEAT_QUEUE).getCount() > 0);
+        assertTrue(scheduler.getMetrics().getWorstTaskTimes().containsKey(PhaseTask.class.getName()));
+    }
+
+    @Test
+    public void testSharedQueueFork() throws InterruptedException {
+        testFork(SchedulingMode.SHARED_QUEUE);
+    }
+
+    @Test
+    public void testWorkStealingFork() throws InterruptedException {
+        testFork(SchedulingMode.WORK_STEALING);
+    }
+
+    private void testFork(SchedulingMode mode) throws InterruptedException {
+        // given
+        final int tasks = 100;
+        final int forks = 5;
+        scheduler = new PriorityQueueScheduler(new WallClock(), mode);
+        PhaseTracker tracker = new PhaseTracker();
+        for (int i = 0; i < tasks; i++) {
+            scheduler.submit(new ForkingTask(scheduler, tracker, forks), PriorityQueueScheduler.MIXER_MIX_QUEUE);
+            scheduler.submit(new PhaseTask(tracker, PriorityQueueScheduler.OUTPUT_QUEUE), PriorityQueueScheduler.OUTPUT_QUEUE);
+        }
+
+        // when
+        scheduler.start();
+        Thread.sleep(100);
+
+        // then - forked tasks complete within the queue of the task that forked them
+        assertEquals(tasks * (forks + 2), tracker.executed.get());
+        assertEquals(0, tracker.violations.get());
+    }
+
+    @Test
+    public void testForkWhileStopped() {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock());
+        PhaseTracker tracker = new PhaseTracker();
+
+        // when
+        scheduler.fork(new PhaseTask(tracker, PriorityQueueScheduler.MIXER_MIX_QUEUE));
+
+        // then
+        assertEquals(1, tracker.executed.get());
+    }
+
+    @Test
+    public void testOverrunMetrics() throws InterruptedException {
+        // given
+        scheduler = new PriorityQueueScheduler(new WallClock(), SchedulingMode.WORK_STEALING);
+        Task slowTask = new Task() {
+
+            @Override
+            public long perform() {
+                try {
+                    Thread.sleep(30);
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+                return 0;
+            }
+
+            @Override
+            public int getQueueNumber() {
+                return PriorityQueueScheduler.OUTPUT_QUEUE;
+            }
+        };
+        scheduler.submit(slowTask, PriorityQueueScheduler.OUTPUT_QUEUE);
+
+        // when
+        scheduler.start();
+        Thread.sleep(100);
+
+        // then
+        assertTrue(scheduler.getOverrunCount() > 0);
+        assertTrue(scheduler.getMissRate() > 0);
+        assertTrue(scheduler.getWorstExecutionTime() > PriorityQueueScheduler.CYCLE_DURATION);
+    }
+
+    private static class PhaseTracker {
+
+        private final AtomicInteger executed = new AtomicInteger(0);
+        private final AtomicInteger violations = new AtomicInteger(0);
+        private volatile int currentPhase = -1;
+
+    }
+
+    private static class PhaseTask extends Task {
+
+        private final PhaseTracker tracker;
+        private final int queue;
+
+        public PhaseTask(PhaseTracker tracker, int queue) {
+            this.tracker = tracker;
+            this.queue = queue;
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return queue;
+        }
+
+        @Override
+        public long perform() {
+            // Phases run one at a time, so a task must never see a later phase running
+            if (tracker.currentPhase > queue) {
+                tracker.violations.incrementAndGet();
+            }
+            tracker.currentPhase = queue;
+            tracker.executed.incrementAndGet();
+            return 0;
+        }
+
+    }
+
+    private static class ForkingTask extends PhaseTask {
+
+        private final PriorityQueueScheduler scheduler;
+        private final PhaseTracker tracker;
+        private final int forks;
+
+        public ForkingTask(PriorityQueueScheduler scheduler, PhaseTracker tracker, int forks) {
+            super(tracker, PriorityQueueScheduler.MIXER_MIX_QUEUE);
+            this.scheduler = scheduler;
+            this.tracker = tracker;
+            this.forks = forks;
+        }
+
+        @Override
+        public long perform() {
+            for (int i = 0; i < forks; i++) {
+                scheduler.fork(new PhaseTask(tracker, PriorityQueueScheduler.MIXER_MIX_QUEUE));
+            }
+            return super.perform();
+        }
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link SchedulerMetrics}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class SchedulerMetricsTest {
+
+    @Test
+    public void testCycleMetrics() {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+
+        // when
+        metrics.onCycleExecuted(5000000L);
+        metrics.onCycleExecuted(15000000L);
+        metrics.onCycleExecuted(25000000L);
+        metrics.onCycleExecuted(45000000L);
+
+        // then
+        assertEquals(4, metrics.getCycleCount());
+        assertEquals(2, metrics.getOverrunCount());
+        assertEquals(0.5, metrics.getMissRate(), 0.0);
+        assertEquals(45000000L, metrics.getWorstCycleTime());
+        assertEquals(22500000L, metrics.getMeanCycleTime());
+    }
+
+    @Test
+    public void testQueueAndTaskMetrics() {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        Task task = new Task() {
+
+            @Override
+            public long perform() {
+                return 0;
+            }
+
+            @Override
+            public int getQueueNumber() {
+                return PriorityQueueScheduler.INPUT_QUEUE;
+            }
+        };
+
+        // when
+        metrics.onQueueExecuted(PriorityQueueScheduler.INPUT_QUEUE, 300000L);
+        metrics.onQueueExecuted(PriorityQueueScheduler.INPUT_QUEUE, 100000L);
+        metrics.onQueueExecuted(PriorityQueueScheduler.HEARTBEAT_QUEUE, 20000L);
+        metrics.onTaskExecuted(task, 2000L);
+        metrics.onTaskExecuted(task, 5000L);
+        metrics.onTaskExecuted(task, 3000L);
+
+        // then
+        assertEquals(Long.valueOf(300000L), metrics.getQueueWorstTimes().get("input"));
+        assertEquals(Long.valueOf(500L), metrics.getQueuePercentiles().get("input"));
+        assertEquals(Long.valueOf(20000L), metrics.getQueueWorstTimes().get("heartbeat"));
+        assertEquals(Long.valueOf(0L), metrics.getQueueWorstTimes().get("output"));
+        assertEquals(2, metrics.getQueueHistogram(PriorityQueueScheduler.INPUT_QUEUE).getCount());
+        assertEquals(Long.valueOf(5000L), metrics.getWorstTaskTimes().get(task.getClass().getName()));
+
+        // when
+        metrics.reset();
+
+        // then
+        assertEquals(0, metrics.getQueueHistogram(PriorityQueueScheduler.INPUT_QUEUE).getCount());
+        assertTrue(metrics.getWorstTaskTimes().isEmpty());
+    }
+
+    @Test
+    public void testRegisterMXBean() throws Exception {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        metrics.onCycleExecuted(25000000L);
+        metrics.onQueueExecuted(PriorityQueueScheduler.OUTPUT_QUEUE, 300000L);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.mobicents.media.server:type=Scheduler,name=test");
+
+        // when
+        server.registerMBean(metrics, name);
+        try {
+            // then
+            assertEquals(1L, server.getAttribute(name, "OverrunCount"));
+            TabularData worstTimes = (TabularData) server.getAttribute(name, "QueueWorstTimes");
+            assertEquals(300000L, worstTimes.get(new Object[] { "output" }).get("value"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.scheduler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimingHistogram}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class TimingHistogramTest {
+
+    @Test
+    public void testRecord() {
+        // given
+        TimingHistogram histogram = new TimingHistogram();
+
+        // when
+        histogram.record(10000L); // 10us
+        histogram.record(50000L); // 50us
+        histogram.record(700000L); // 700us
+        histogram.record(90000000L); // 90ms
+
+        // then
+        long[] expected = new long[TimingHistogram.BOUNDS.length + 1];
+        expected[0] = 2;
+        expected[4] = 1;
+        expected[TimingHistogram.BOUNDS.length] = 1;
+        assertArrayEquals(expected, histogram.getBuckets());
+        assertEquals(4, histogram.getCount());
+        assertEquals(90000000L, histogram.getMax());
+        assertEquals(22690000L, histogram.getMean());
+    }
+
+    @Test
+    public void testPercentile() {
+        // given
+        TimingHistogram histogram = new TimingHistogram();
+
+        // when
+        for (int i = 0; i < 99; i++) {
+            histogram.record(80000L); // 80us
+        }
+        histogram.record(30000000L); // 30ms
+
+        // then
+        assertEquals(100, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(40000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testReset() {
+        // given
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(80000L);
+
+        // when
+        histogram.reset();
+
+        // then
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+        assertArrayEquals(new long[TimingHistogram.BOUNDS.length + 1], histogram.getBuckets());
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link TimingWheel}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class TimingWheelTest {
+
+    private TimingWheel wheel;
+
+    @Before
+    public void before() {
+        // Small wheel so timeouts span several rounds
+        this.wheel = new TimingWheel("timing-wheel-test", 5, TimeUnit.MILLISECONDS, 10);
+    }
+
+    @After
+    public void after() {
+        this.wheel.stop();
+    }
+
+    @Test
+    public void testWheelSizeRoundedToPowerOfTwo() {
+        assertEquals(16, this.wheel.getWheelSize());
+        assertEquals(5L, this.wheel.getTickDuration(TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testScheduleWhileStopped() {
+        this.wheel.schedule(new CountingTask(null), 10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testTimeoutExpiresAfterDelay() throws InterruptedException {
+        // given
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicLong expiredAt = new AtomicLong();
+        this.wheel.start();
+
+        // when
+        final long scheduledAt = System.nanoTime();
+        final Timeout timeout = this.wheel.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                expiredAt.set(System.nanoTime());
+                latch.countDown();
+            }
+        }, 200, TimeUnit.MILLISECONDS);
+
+        // then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(expiredAt.get() - scheduledAt) >= 200);
+        assertEquals(0, this.wheel.getPendingTimeouts());
+    }
+
+    @Test
+    public void testCancelledTimeoutNeverExpires() throws InterruptedException {
+        // given
+        final AtomicInteger counter = new AtomicInteger(0);
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.start();
+
+        // when
+        Timeout cancelled = this.wheel.schedule(new CountingTask(counter), 50, TimeUnit.MILLISECONDS);
+        Timeout expired = this.wheel.schedule(new CountingTask(latch), 150, TimeUnit.MILLISECONDS);
+        assertEquals(2, this.wheel.getPendingTimeouts());
+        assertTrue(cancelled.cancel());
+
+        // then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.isExpired());
+        assertTrue(expired.isExpired());
+        assertEquals(0, counter.get());
+        assertEquals(0, this.wheel.getPendingTimeouts());
+    }
+
+    @Test
+    public void testManyTimeoutsAcrossRounds() throws InterruptedException {
+        // given
+        final int count = 10000;
+        final CountDownLatch latch = new CountDownLatch(count / 2);
+        final AtomicInteger counter = new AtomicInteger(0);
+        final Timeout[] timeouts = new Timeout[count];
+        this.wheel.start();
+
+        // when - delays go beyond a full revolution (16 * 5ms)
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                timeouts[i] = this.wheel.schedule(new CountingTask(latch), i % 300, TimeUnit.MILLISECONDS);
+            } else {
+                // Cancel right away so the outcome does not depend on how long scheduling takes
+                timeouts[i] = this.wheel.schedule(new CountingTask(counter), 1000 + i % 300, TimeUnit.MILLISECONDS);
+                assertTrue(timeouts[i].cancel());
+            }
+        }
+
+        // then
+        assertTrue(latch.await(3, TimeUnit.SECONDS));
+        Thread.sleep(1500);
+        assertEquals(0, counter.get());
+        assertEquals(0, this.wheel.getPendingTimeouts());
+    }
+
+    @Test
+    public void testTimeoutNotDueIsRescheduled() {
+        // given
+        final AtomicInteger counter = new AtomicInteger(0);
+        final TimingWheel.Bucket bucket = new TimingWheel.Bucket();
+        final Queue<Timeout> reschedule = new ConcurrentLinkedQueue<>();
+        final Timeout timeout = new Timeout(this.wheel, new CountingTask(counter), 100L);
+        bucket.add(timeout);
+
+        // when
+        bucket.expire(50L, reschedule);
+
+        // then
+        assertEquals(0, counter.get());
+        assertFalse(timeout.isExpired());
+        assertSame(timeout, reschedule.poll());
+
+        // when
+        bucket.add(timeout);
+        bucket.expire(100L, reschedule);
+
+        // then
+        assertEquals(1, counter.get());
+        assertTrue(timeout.isExpired());
+        assertTrue(reschedule.isEmpty());
+    }
+
+    @Test
+    public void testTaskFailureDoesNotStopWheel() throws InterruptedException {
+        // given
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.wheel.start();
+
+        // when
+        this.wheel.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                throw new IllegalStateException("testing");
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+        this.wheel.schedule(new CountingTask(latch), 30, TimeUnit.MILLISECONDS);
+
+        // then
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStopDiscardsPendingTimeouts() throws InterruptedException {
+        // given
+        final AtomicInteger counter = new AtomicInteger(0);
+        this.wheel.start();
+        this.wheel.schedule(new CountingTask(counter), 100, TimeUnit.MILLISECONDS);
+
+        // when
+        this.wheel.stop();
+        Thread.sleep(200);
+
+        // then
+        assertFalse(this.wheel.isRunning());
+        assertEquals(0, this.wheel.getPendingTimeouts());
+        assertEquals(0, counter.get());
+    }
+
+    private static final class CountingTask implements Runnable {
+
+        private final Object target;
+
+        CountingTask(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public void run() {
+            if (target instanceof AtomicInteger) {
+                ((AtomicInteger) target).incrementAndGet();
+            } else if (target instanceof CountDownLatch) {
+                ((CountDownLatch) target).countDown();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link WorkStealingDeque}
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class WorkStealingDequeTest {
+
+    @Test
+    public void testOwnerPollsBottomAndThiefStealsTop() {
+        // given
+        WorkStealingDeque deque = new WorkStealingDeque(4);
+        Task first = new DummyTask(0);
+        Task second = new DummyTask(1);
+        Task third = new DummyTask(2);
+
+        // when
+        deque.push(first);
+        deque.push(second);
+        int pending = deque.push(third);
+
+        // then
+        assertEquals(3, pending);
+        assertSame(third, deque.poll());
+        assertSame(first, deque.steal());
+        assertSame(second, deque.poll());
+        assertNull(deque.poll());
+        assertNull(deque.steal());
+        assertEquals(0, deque.size());
+    }
+
+    @Test
+    public void testGrowKeepsOrder() {
+        // given
+        WorkStealingDeque deque = new WorkStealingDeque(4);
+        Task[] tasks = new Task[10];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new DummyTask(i);
+        }
+
+        // when - wrap the ring before it grows
+        deque.push(tasks[0]);
+        deque.push(tasks[1]);
+        deque.steal();
+        deque.steal();
+        for (int i = 2; i < tasks.length; i++) {
+            deque.push(tasks[i]);
+        }
+
+        // then
+        assertEquals(8, deque.capacity());
+        assertEquals(8, deque.size());
+        for (int i = 2; i < tasks.length; i++) {
+            assertSame(tasks[i], deque.steal());
+        }
+        assertNull(deque.steal());
+    }
+
+    @Test
+    public void testReuseDoesNotGrow() {
+        // given
+        WorkStealingDeque deque = new WorkStealingDeque(4);
+        Task task = new DummyTask(0);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            deque.push(task);
+            deque.push(task);
+            deque.poll();
+            deque.steal();
+        }
+
+        // then
+        assertEquals(4, deque.capacity());
+        assertEquals(0, deque.size());
+    }
+
+    @Test
+    public void testEveryTaskIsTakenOnce() throws InterruptedException {
+        // given
+        final int count = 200000;
+        final int thieves = 3;
+        final WorkStealingDeque deque = new WorkStealingDeque(4);
+        final AtomicIntegerArray taken = new AtomicIntegerArray(count);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    while (done.getCount() > 0 || deque.size() > 0) {
+                        DummyTask task = (DummyTask) deque.steal();
+                        if (task != null) {
+                            taken.incrementAndGet(task.id);
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        // when - the owner pushes and polls while thieves steal
+        for (int i = 0; i < count; i++) {
+            deque.push(new DummyTask(i));
+            if (i % 3 == 0) {
+                DummyTask task = (DummyTask) deque.poll();
+                if (task != null) {
+                    taken.incrementAndGet(task.id);
+                }
+            }
+        }
+        done.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // then
+        for (int i = 0; i < count; i++) {
+            assertEquals("task " + i, 1, taken.get(i));
+        }
+    }
+
+    private static class DummyTask extends Task {
+
+        private final int id;
+
+        public DummyTask(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.OUTPUT_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            return 0;
+        }
+
+    }
+
+}
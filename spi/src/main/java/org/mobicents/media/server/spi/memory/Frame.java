@@ -34,16 +34,17 @@ public class Frame {
     private Partition partition;
     private byte[] data;
 
-    private volatile int offset;
-    private volatile int length;
+    // frames are handed over between threads through concurrent queues, which already publish these fields
+    private int offset;
+    private int length;
 
-    private volatile long timestamp;
-    private volatile long duration = Long.MAX_VALUE;
-    private volatile long sn;
+    private long timestamp;
+    private long duration = Long.MAX_VALUE;
+    private long sn;
 
-    private volatile boolean eom;
-    private volatile Format format;
-    private volatile String header;
+    private boolean eom;
+    private Format format;
+    private String header;
     
     protected AtomicBoolean inPartition=new AtomicBoolean(false);
     
@@ -127,8 +128,19 @@ public class Frame {
         this.format = format;
     }    
 
+    Partition getPartition() {
+        return partition;
+    }
+
     public void recycle() {
-        partition.recycle(this);
+    	if(inPartition.getAndSet(true)) {
+    		//dont add duplicate,otherwise may be reused in different places
+    		return;
+    	}
+        this.header = null;
+        this.duration = Long.MAX_VALUE;
+        this.eom = false;
+        Memory.recycle(this);
     }
 
     @Override
@@ -0,0 +1,155 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.spi.memory;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread stock of frames, kept in front of the shared {@link Partition}s.
+ * <p>
+ * Frames are allocated from and recycled into the stock of the calling thread without any synchronization. When a stock runs
+ * dry it takes a full magazine from its partition; when it fills up it hands a full magazine back, so frames allocated by one
+ * thread and recycled by another flow between them in batches.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class FrameCache {
+
+    /** Maximum number of frames a thread keeps for each size */
+    static final int STOCK_CAPACITY = 2 * Partition.MAGAZINE_SIZE;
+
+    private static final ThreadLocal<FrameCache> CACHE = new ThreadLocal<FrameCache>() {
+
+        @Override
+        protected FrameCache initialValue() {
+            return new FrameCache();
+        }
+
+    };
+
+    private Stock[] stocks = new Stock[0];
+
+    static FrameCache current() {
+        return CACHE.get();
+    }
+
+    Frame allocate(int size) {
+        return stock(size).allocate();
+    }
+
+    void recycle(Frame frame) {
+        stock(frame.getPartition().size).recycle(frame);
+    }
+
+    private Stock stock(int size) {
+        // only a handful of frame sizes are in use, a linear scan beats a map lookup
+        final Stock[] stocks = this.stocks;
+        for (int i = 0; i < stocks.length; i++) {
+            if (stocks[i].partition.size == size) {
+                return stocks[i];
+            }
+        }
+
+        Stock stock = new Stock(Memory.getPartition(size));
+        Stock[] grown = new Stock[stocks.length + 1];
+        System.arraycopy(stocks, 0, grown, 0, stocks.length);
+        grown[stocks.length] = stock;
+        this.stocks = grown;
+        return stock;
+    }
+
+    private static final class Stock {
+
+        private final Partition partition;
+        private final Frame[] frames = new Frame[STOCK_CAPACITY];
+        private int count;
+
+        // an empty magazine kept to hand frames back without allocating a new array
+        private Frame[] spare;
+
+        // counts not yet reported to the partition
+        private long allocated;
+        private long recycled;
+
+        Stock(Partition partition) {
+            this.partition = partition;
+        }
+
+        Frame allocate() {
+            if (count == 0) {
+                refill();
+            }
+
+            allocated++;
+            if (count == 0) {
+                return partition.newFrame();
+            }
+
+            final Frame frame = frames[--count];
+            frames[count] = null;
+            frame.inPartition.set(false);
+            return frame;
+        }
+
+        void recycle(Frame frame) {
+            if (count == frames.length) {
+                drain();
+            }
+            frames[count++] = frame;
+            recycled++;
+        }
+
+        private void refill() {
+            report();
+            final Frame[] magazine = partition.takeMagazine();
+            if (magazine != null) {
+                System.arraycopy(magazine, 0, frames, 0, magazine.length);
+                count = magazine.length;
+                Arrays.fill(magazine, null);
+                spare = magazine;
+            }
+        }
+
+        private void drain() {
+            report();
+            final Frame[] magazine = spare == null ? new Frame[Partition.MAGAZINE_SIZE] : spare;
+            spare = null;
+
+            count -= magazine.length;
+            System.arraycopy(frames, count, magazine, 0, magazine.length);
+            Arrays.fill(frames, count, frames.length, null);
+
+            // if the partition is full the frames are left to the GC
+            partition.returnMagazine(magazine);
+        }
+
+        void report() {
+            partition.report(allocated, recycled);
+            allocated = 0;
+            recycled = 0;
+        }
+
+    }
+
+}
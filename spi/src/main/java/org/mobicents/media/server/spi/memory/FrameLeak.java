@@ -0,0 +1,73 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.spi.memory;
+
+/**
+ * Report of a frame that was not recycled in time.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public class FrameLeak {
+
+    private final int size;
+    private final long age;
+    private final Throwable allocation;
+
+    FrameLeak(int size, long age, Throwable allocation) {
+        this.size = size;
+        this.age = age;
+        this.allocation = allocation;
+    }
+
+    /**
+     * Gets the size of the leaked frame.
+     * 
+     * @return The size of the frame, in bytes.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets how long the frame had been allocated when the leak was detected.
+     * 
+     * @return The age of the frame, in nanoseconds.
+     */
+    public long getAge() {
+        return age;
+    }
+
+    /**
+     * Gets the stack trace of the thread that allocated the frame.
+     * 
+     * @return The allocation site of the frame.
+     */
+    public StackTraceElement[] getAllocationSite() {
+        return allocation.getStackTrace();
+    }
+
+    Throwable getAllocation() {
+        return allocation;
+    }
+
+}
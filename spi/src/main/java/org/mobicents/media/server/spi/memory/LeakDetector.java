@@ -0,0 +1,130 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.mobicents.media.server.spi.memory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Tracks every allocated frame and reports those not recycled within a number of 20ms cycles.
+ * <p>
+ * Meant for troubleshooting only, as it records the stack trace of every allocation.
+ * </p>
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+class LeakDetector {
+
+    private static final Logger logger = Logger.getLogger(LeakDetector.class);
+
+    static final long CYCLE_DURATION = 20000000L;
+
+    /** Maximum number of leak reports kept */
+    static final int MAX_LEAKS = 128;
+
+    private final int cycles;
+    private final long threshold;
+    private final ConcurrentHashMap<Frame, Allocation> allocations;
+    private final ConcurrentLinkedQueue<FrameLeak> leaks;
+    private final AtomicLong leakCount;
+    private final AtomicLong nextCheck;
+
+    LeakDetector(int cycles) {
+        this.cycles = cycles;
+        this.threshold = cycles * CYCLE_DURATION;
+        this.allocations = new ConcurrentHashMap<>();
+        this.leaks = new ConcurrentLinkedQueue<>();
+        this.leakCount = new AtomicLong(0);
+        this.nextCheck = new AtomicLong(System.nanoTime() + CYCLE_DURATION);
+    }
+
+    int getCycles() {
+        return cycles;
+    }
+
+    long getLeakCount() {
+        return leakCount.get();
+    }
+
+    List<FrameLeak> getLeaks() {
+        return new ArrayList<>(leaks);
+    }
+
+    int getOutstanding() {
+        return allocations.size();
+    }
+
+    void onAllocate(Frame frame) {
+        final long now = System.nanoTime();
+        allocations.put(frame, new Allocation(now, new Throwable("Frame allocated")));
+
+        // at most one thread scans for leaks on every cycle
+        final long next = nextCheck.get();
+        if (now >= next && nextCheck.compareAndSet(next, now + CYCLE_DURATION)) {
+            check(now);
+        }
+    }
+
+    void onRecycle(Frame frame) {
+        allocations.remove(frame);
+    }
+
+    void check(long now) {
+        Iterator<Entry<Frame, Allocation>> iterator = allocations.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Frame, Allocation> entry = iterator.next();
+            long age = now - entry.getValue().time;
+            if (age >= threshold) {
+                // a leak is reported only once
+                iterator.remove();
+                FrameLeak leak = new FrameLeak(entry.getKey().getData().length, age, entry.getValue().site);
+                leakCount.incrementAndGet();
+                leaks.offer(leak);
+                if (leakCount.get() > MAX_LEAKS) {
+                    leaks.poll();
+                }
+                logger.warn("Frame of " + leak.getSize() + " bytes was not recycled within " + cycles + " cycles", leak.getAllocation());
+            }
+        }
+    }
+
+    private static final class Allocation {
+
+        final long time;
+        final Throwable site;
+
+        Allocation(long time, Throwable site) {
+            this.time = time;
+            this.site = site;
+        }
+
+    }
+
+}
@@ -22,18 +22,59 @@
 
 package org.mobicents.media.server.spi.memory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 import org.mobicents.media.server.concurrent.ConcurrentMap;
 
 /**
+ * Pool of frames, partitioned by size.
+ * <p>
+ * Each thread allocates from and recycles into its own cache of frames, which exchanges batches of frames with the shared
+ * {@link Partition}s.
+ * </p>
+ * <p>
+ * Setting the system property <code>mms.memory.leakDetectionCycles</code> to a positive number of 20ms cycles, or calling
+ * {@link #setLeakDetection(int)}, enables the leak detector: frames not recycled within that number of cycles are logged
+ * along with their allocation site.
+ * </p>
  *
  * @author oifa yulian
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
 public class Memory 
 {
+    public static final String LEAK_DETECTION_PROPERTY = "mms.memory.leakDetectionCycles";
+
     private static ConcurrentMap<Partition> partitions = new ConcurrentMap<Partition>();
-    
+
+    private static volatile LeakDetector leakDetector;
+
+    static {
+        setLeakDetection(Integer.getInteger(LEAK_DETECTION_PROPERTY, 0));
+    }
+
     public static Frame allocate(int size) 
     {
+        final Frame frame = FrameCache.current().allocate(size);
+        final LeakDetector detector = leakDetector;
+        if (detector != null) {
+            detector.onAllocate(frame);
+        }
+        return frame;
+    }
+
+    static void recycle(Frame frame) {
+        final LeakDetector detector = leakDetector;
+        if (detector != null) {
+            detector.onRecycle(frame);
+        }
+        FrameCache.current().recycle(frame);
+    }
+
+    static Partition getPartition(int size) {
     	Partition currPartition=partitions.get(size);
     	if(currPartition==null)
     	{
@@ -42,7 +83,56 @@ public class Memory
     		if(oldPartition!=null)
     			currPartition=oldPartition;		
     	}
-    	
-    	return currPartition.allocate();
+    	return currPartition;
     }
+
+    /**
+     * Gets the partitions created so far, one per frame size.
+     * 
+     * @return The partitions, which hold the allocation and recycle counters.
+     */
+    public static Collection<Partition> getPartitions() {
+        return Collections.unmodifiableCollection(partitions.values());
+    }
+
+    /**
+     * Enables or disables the leak detector.
+     * 
+     * @param cycles The number of 20ms cycles after which a frame that was not recycled is reported as leaked. Zero or less
+     *        disables the leak detector.
+     */
+    public static void setLeakDetection(int cycles) {
+        leakDetector = cycles > 0 ? new LeakDetector(cycles) : null;
+    }
+
+    /**
+     * Gets the number of cycles after which the leak detector reports a frame.
+     * 
+     * @return The number of 20ms cycles, or zero if the leak detector is disabled.
+     */
+    public static int getLeakDetection() {
+        final LeakDetector detector = leakDetector;
+        return detector == null ? 0 : detector.getCycles();
+    }
+
+    /**
+     * Gets the number of leaks found since the leak detector was enabled.
+     * 
+     * @return The number of leaked frames.
+     */
+    public static long getLeakCount() {
+        final LeakDetector detector = leakDetector;
+        return detector == null ? 0 : detector.getLeakCount();
+    }
+
+    /**
+     * Gets the most recent leaks found by the leak detector.
+     * 
+     * @return The reports of up to 128 leaked frames, oldest first.
+     */
+    public static List<FrameLeak> getLeaks() {
+        final LeakDetector detector = leakDetector;
+        return detector == null ? new ArrayList<FrameLeak>(0) : detector.getLeaks();
+    }
+
 }
@@ -22,43 +22,120 @@
 
 package org.mobicents.media.server.spi.memory;
 
-import org.mobicents.media.server.concurrent.ConcurrentCyclicFIFO;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mobicents.media.server.concurrent.MpmcArrayQueue;
 
 /**
+ * Shared pool of frames of a given size.
+ * <p>
+ * Threads do not allocate from the partition directly. Each one keeps its own stock of frames in a {@link FrameCache} and
+ * exchanges whole magazines of {@link #MAGAZINE_SIZE} frames with the partition, so the shared queue is touched once every
+ * few dozen allocations or recycles.
+ * </p>
  *
  * @author oifa yulian
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
 public class Partition {
 
+    /** Number of frames moved at once between a thread cache and the partition */
+    static final int MAGAZINE_SIZE = 32;
+
+    /** Maximum number of full magazines kept by a partition. Frames returned past this limit are left to the GC. */
+    static final int DEPOT_CAPACITY = 256;
+
     protected int size;
-    private ConcurrentCyclicFIFO<Frame> heap = new ConcurrentCyclicFIFO<Frame>();
+    private final MpmcArrayQueue<Frame[]> depot = new MpmcArrayQueue<Frame[]>(DEPOT_CAPACITY);
+
+    // Statistics
+    private final AtomicLong allocations = new AtomicLong(0);
+    private final AtomicLong recycles = new AtomicLong(0);
+    private final AtomicLong creations = new AtomicLong(0);
 
     protected Partition(int size) {
         this.size = size;
     }
-    
-    protected Frame allocate() {
-    	//if (true) return new Frame(this, new byte[size]);
-    	Frame result=heap.poll();    	
-    	
-        if (result==null) {
-            return new Frame(this, new byte[size]);
-        }
-        
-        result.inPartition.set(false);
-        return result;
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the number of frames handed out by this partition.
+     * <p>
+     * Thread caches report their counts whenever they exchange a magazine with the partition, so the value lags behind by at
+     * most a couple of magazines per thread.
+     * </p>
+     * 
+     * @return The number of allocations.
+     */
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    /**
+     * Gets the number of frames given back to this partition.
+     * <p>
+     * Thread caches report their counts whenever they exchange a magazine with the partition, so the value lags behind by at
+     * most a couple of magazines per thread.
+     * </p>
+     * 
+     * @return The number of recycles.
+     */
+    public long getRecycles() {
+        return recycles.get();
+    }
+
+    /**
+     * Gets the number of frames created because the pool was empty.
+     * 
+     * @return The number of new frames.
+     */
+    public long getCreations() {
+        return creations.get();
+    }
+
+    /**
+     * Gets the number of idle frames held in full magazines by the partition, not counting those cached by threads.
+     * 
+     * @return The number of pooled frames.
+     */
+    public int getPooledFrames() {
+        return depot.size() * MAGAZINE_SIZE;
     }
 
-    protected void recycle(Frame frame) {
-    	if(frame.inPartition.getAndSet(true)) {
-    		//dont add duplicate,otherwise may be reused in different places
-    		return;
-    	}
-        frame.setHeader(null);
-        frame.setDuration(Long.MAX_VALUE);
-        frame.setEOM(false);        
-        heap.offer(frame);
-        //queue.offer(frame, frame.getDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    protected Frame newFrame() {
+        creations.incrementAndGet();
+        return new Frame(this, new byte[size]);
+    }
+
+    /**
+     * Takes a full magazine out of the partition.
+     * 
+     * @return An array holding {@link #MAGAZINE_SIZE} frames, or <code>null</code> if the partition is empty.
+     */
+    protected Frame[] takeMagazine() {
+        return depot.poll();
+    }
+
+    /**
+     * Hands a full magazine over to the partition.
+     * 
+     * @param magazine An array holding {@link #MAGAZINE_SIZE} frames.
+     * @return <code>true</code> if the magazine was pooled; <code>false</code> if the partition is full.
+     */
+    protected boolean returnMagazine(Frame[] magazine) {
+        return depot.offer(magazine);
+    }
+
+    void report(long allocated, long recycled) {
+        if (allocated > 0) {
+            allocations.addAndGet(allocated);
+        }
+        if (recycled > 0) {
+            recycles.addAndGet(recycled);
+        }
     }
 
 }
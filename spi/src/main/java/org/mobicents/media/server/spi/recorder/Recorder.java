@@ -56,6 +56,17 @@ public interface Recorder extends MediaSink {
      */
     public void setRecordFile(String uri, boolean append) throws IOException;
 
+    /**
+     * Sets the format in which the next recording is stored. Must be set before the record file is assigned.
+     * <p>
+     * If not set, recordings to files with a gsm extension are stored as {@link RecordingFormat#GSM} and all others as
+     * {@link RecordingFormat#LINEAR}. When appending to an existing recording, the format must match the one of the file.
+     * </p>
+     * 
+     * @param format the format of the recording, or null to infer it from the record file.
+     */
+    public void setRecordFormat(RecordingFormat format);
+
     /**
      * Sets the time for recording.
      * 
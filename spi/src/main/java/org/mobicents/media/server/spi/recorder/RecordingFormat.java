@@ -0,0 +1,100 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2016, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.mobicents.media.server.spi.recorder;
+
+/**
+ * Formats in which a {@link Recorder} can store audio.
+ * 
+ * @author Henrique Rosa (henrique.rosa@telestax.com)
+ *
+ */
+public enum RecordingFormat {
+
+    /** 16-bit linear PCM in a WAVE file. 16 KB per second of audio. */
+    LINEAR("linear", 1, 16, 44),
+
+    /** G.711 A-law in a WAVE file. 8 KB per second of audio. */
+    PCMA("pcma", 6, 8, 44),
+
+    /** G.711 mu-law in a WAVE file. 8 KB per second of audio. */
+    PCMU("pcmu", 7, 8, 44),
+
+    /** Headerless sequence of GSM 06.10 frames. 1.65 KB per second of audio. */
+    GSM("gsm", 0, 0, 0);
+
+    private final String encoding;
+    private final int waveFormat;
+    private final int bitsPerSample;
+    private final int headerSize;
+
+    private RecordingFormat(String encoding, int waveFormat, int bitsPerSample, int headerSize) {
+        this.encoding = encoding;
+        this.waveFormat = waveFormat;
+        this.bitsPerSample = bitsPerSample;
+        this.headerSize = headerSize;
+    }
+
+    /**
+     * Gets the name of the encoding of the audio.
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * Gets the format tag of the WAVE header. Zero if the file has no WAVE header.
+     */
+    public int getWaveFormat() {
+        return waveFormat;
+    }
+
+    /**
+     * Gets the number of bits of each sample stored in the WAVE file. Zero if the file has no WAVE header.
+     */
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * Gets the size of the header that precedes the audio in the file.
+     */
+    public int getHeaderSize() {
+        return headerSize;
+    }
+
+    /**
+     * Gets the format with the given encoding name.
+     * 
+     * @param encoding The name of the encoding, case insensitive.
+     * @return The matching format, or null if none matches.
+     */
+    public static RecordingFormat fromEncoding(String encoding) {
+        for (RecordingFormat format : values()) {
+            if (format.encoding.equalsIgnoreCase(encoding)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+}
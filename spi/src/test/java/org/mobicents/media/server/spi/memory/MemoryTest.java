@@ -27,6 +27,16 @@
 
 package org.mobicents.media.server.spi.memory;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -56,6 +66,7 @@ public class MemoryTest {
 
     @After
     public void tearDown() {
+        Memory.setLeakDetection(0);
     }
 
     /**
@@ -93,4 +104,99 @@ public class MemoryTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void testRecycledFrameIsReused() {
+        // given
+        Frame frame = Memory.allocate(1001);
+        frame.setEOM(true);
+        frame.setHeader("header");
+
+        // when
+        frame.recycle();
+        Frame reused = Memory.allocate(1001);
+
+        // then
+        assertSame(frame, reused);
+        assertFalse(reused.isEOM());
+        assertEquals(null, reused.getHeader());
+        assertEquals(Long.MAX_VALUE, reused.getDuration());
+    }
+
+    @Test
+    public void testDuplicateRecycleIsIgnored() {
+        // given
+        Frame frame = Memory.allocate(1002);
+
+        // when
+        frame.recycle();
+        frame.recycle();
+        Frame frame1 = Memory.allocate(1002);
+        Frame frame2 = Memory.allocate(1002);
+
+        // then
+        assertSame(frame, frame1);
+        assertNotSame(frame1, frame2);
+    }
+
+    @Test
+    public void testFramesFlowBetweenThreads() throws InterruptedException {
+        // given
+        final int size = 1003;
+        final int count = 4 * Partition.MAGAZINE_SIZE;
+        final List<Frame> frames = new ArrayList<Frame>(count);
+        for (int i = 0; i < count; i++) {
+            frames.add(Memory.allocate(size));
+        }
+        Partition partition = Memory.getPartition(size);
+        long created = partition.getCreations();
+
+        // when - another thread recycles the frames
+        Thread recycler = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                for (Frame frame : frames) {
+                    frame.recycle();
+                }
+            }
+        });
+        recycler.start();
+        recycler.join();
+
+        // then - all frames beyond the stock of the recycler are handed back in magazines
+        int returned = count - FrameCache.STOCK_CAPACITY;
+        assertEquals(returned, partition.getPooledFrames());
+
+        IdentityHashMap<Frame, Boolean> reused = new IdentityHashMap<Frame, Boolean>();
+        for (int i = 0; i < returned; i++) {
+            reused.put(Memory.allocate(size), Boolean.TRUE);
+        }
+        assertEquals(returned, reused.size());
+        assertEquals(created, partition.getCreations());
+        for (Frame frame : reused.keySet()) {
+            assertTrue(frames.contains(frame));
+        }
+        assertTrue(partition.getAllocations() >= count);
+        assertTrue(partition.getRecycles() > 0);
+    }
+
+    @Test
+    public void testLeakDetection() throws InterruptedException {
+        // given
+        Memory.setLeakDetection(1);
+        Frame recycled = Memory.allocate(1004);
+        Memory.allocate(1005);
+        recycled.recycle();
+
+        // when
+        Thread.sleep(3 * LeakDetector.CYCLE_DURATION / 1000000L);
+        Memory.allocate(1006).recycle();
+
+        // then
+        assertEquals(1, Memory.getLeakDetection());
+        assertEquals(1, Memory.getLeakCount());
+        assertEquals(1005, Memory.getLeaks().get(0).getSize());
+        assertTrue(Memory.getLeaks().get(0).getAge() >= LeakDetector.CYCLE_DURATION);
+    }
+
+}